@@ -0,0 +1,368 @@
+package com.beyco.app.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda en memoria por trigramas, para coincidencias parciales sin LIKE '%texto%'.
+ *
+ * Cada campo se normaliza (minúsculas, sin acentos, solo letras y dígitos) y se parte en
+ * palabras; cada palabra se indexa por sus trigramas, más dos trigramas de inicio ("$$a",
+ * "$an") para que las búsquedas de 1 o 2 letras funcionen como prefijo. Una búsqueda
+ * intersecta las listas de sus trigramas, verifica los candidatos y los ordena por puntaje:
+ * palabra exacta 3, prefijo 2, dentro de la palabra 1, multiplicado por el peso del campo.
+ * Todas las palabras buscadas deben coincidir. Se devuelven como máximo los K mejores.
+ *
+ * Lecturas concurrentes con candado de lectura; altas, cambios y bajas con el de escritura.
+ * El contenido completo se carga con una lectura de la BD (cargarSiFalta / recargar) y
+ * después se mantiene con agregar y quitar desde los servicios que modifican los datos.
+ */
+public class IndiceNgramas<T> {
+
+    public record Campo<T>(String nombre, Function<T, String> valor, int peso) { }
+
+    public record Resultado<T>(T valor, int puntaje) { }
+
+    private record Documento<T>(T valor, String[][] palabras) { }
+
+    private record Candidato<T>(String clave, T valor, int puntaje) { }
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+    private static final String INICIO = "$$";
+
+    private final String nombre;
+    private final Function<T, String> clave;
+    private final List<Campo<T>> campos;
+    // Orden entre resultados con el mismo puntaje (después, por clave)
+    private final Comparator<T> desempate;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private Map<String, Documento<T>> documentos = new HashMap<>();
+    private Map<String, Set<String>> trigramas = new HashMap<>();
+    private long version;
+    private volatile boolean cargado;
+
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong nanosBusqueda = new AtomicLong();
+    private final AtomicLong maximoNanosBusqueda = new AtomicLong();
+
+    public IndiceNgramas(String nombre, Function<T, String> clave, List<Campo<T>> campos) {
+        this(nombre, clave, campos, (a, b) -> 0);
+    }
+
+    public IndiceNgramas(String nombre, Function<T, String> clave, List<Campo<T>> campos, Comparator<T> desempate) {
+        this.nombre = nombre;
+        this.clave = clave;
+        this.campos = campos;
+        this.desempate = desempate;
+    }
+
+    /**
+     * Minúsculas, sin acentos ni diéresis (la ñ queda como n) y solo letras, dígitos y espacios.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinAcentos.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    private static String[] palabras(String texto) {
+        String normalizado = normalizar(texto);
+        return normalizado.isEmpty() ? new String[0] : normalizado.split(" ");
+    }
+
+    // ========== MODIFICACIONES ==========
+
+    /**
+     * Agrega el valor o reemplaza el que tenga la misma clave.
+     */
+    public void agregar(T valor) {
+        candado.writeLock().lock();
+        try {
+            quitar(documentos, trigramas, clave.apply(valor));
+            indexar(documentos, trigramas, valor);
+            version++;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void quitar(String claveValor) {
+        candado.writeLock().lock();
+        try {
+            quitar(documentos, trigramas, claveValor);
+            version++;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta las altas, cambios y bajas; sirve para reconstruir el índice sin perder cambios.
+     */
+    public long version() {
+        candado.readLock().lock();
+        try {
+            return version;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza todo el contenido, salvo que el índice haya cambiado desde versionLeida
+     * (entonces devuelve false y quien llama vuelve a leer los datos). El índice nuevo se
+     * construye fuera del candado; las búsquedas siguen usando el anterior mientras tanto.
+     */
+    public boolean reemplazarTodoSi(Collection<T> valores, long versionLeida) {
+        return reemplazarTodo(valores, versionLeida, false);
+    }
+
+    private boolean reemplazarTodo(Collection<T> valores, long versionLeida, boolean forzar) {
+        Map<String, Documento<T>> nuevosDocumentos = new HashMap<>();
+        Map<String, Set<String>> nuevosTrigramas = new HashMap<>();
+        for (T valor : valores) {
+            quitar(nuevosDocumentos, nuevosTrigramas, clave.apply(valor));
+            indexar(nuevosDocumentos, nuevosTrigramas, valor);
+        }
+
+        candado.writeLock().lock();
+        try {
+            if (version != versionLeida && !forzar) {
+                return false;
+            }
+            documentos = nuevosDocumentos;
+            trigramas = nuevosTrigramas;
+            version++;
+            cargado = true;
+            return true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public boolean estaCargado() {
+        return cargado;
+    }
+
+    /**
+     * Vuelve a leer todo y reemplaza el contenido. Si llega un alta o cambio mientras se lee,
+     * la lectura podría no incluirlo, así que se repite (hasta "intentos" veces); si no se logra
+     * se conserva el contenido actual, que sí refleja esos cambios, y devuelve false.
+     */
+    public boolean recargar(Supplier<? extends Collection<T>> lectura, int intentos) {
+        for (int intento = 1; intento <= intentos; intento++) {
+            long versionAntes = version();
+            Collection<T> valores = lectura.get();
+            if (reemplazarTodoSi(valores, versionAntes)) {
+                System.out.println("🔎 Índice " + nombre + " cargado: " + valores.size() + " registros");
+                return true;
+            }
+        }
+        System.out.println("⚠️ Índice " + nombre + ": hubo cambios durante la recarga, se reintentará en la próxima");
+        return false;
+    }
+
+    /**
+     * Carga el índice la primera vez que se necesita. Si no se logra una lectura sin cambios
+     * concurrentes, como no hay contenido que conservar se usa la última aunque falte algún cambio.
+     */
+    public void cargarSiFalta(Supplier<? extends Collection<T>> lectura, int intentos) {
+        if (cargado) {
+            return;
+        }
+        synchronized (this) {
+            if (!cargado && !recargar(lectura, intentos)) {
+                reemplazarTodo(lectura.get(), 0, true);
+            }
+        }
+    }
+
+    private void indexar(Map<String, Documento<T>> docs, Map<String, Set<String>> indice, T valor) {
+        String claveValor = clave.apply(valor);
+        String[][] palabrasPorCampo = new String[campos.size()][];
+        for (int i = 0; i < campos.size(); i++) {
+            palabrasPorCampo[i] = palabras(campos.get(i).valor().apply(valor));
+        }
+        docs.put(claveValor, new Documento<>(valor, palabrasPorCampo));
+        for (String trigrama : trigramasDe(palabrasPorCampo)) {
+            indice.computeIfAbsent(trigrama, t -> new HashSet<>()).add(claveValor);
+        }
+    }
+
+    private void quitar(Map<String, Documento<T>> docs, Map<String, Set<String>> indice, String claveValor) {
+        Documento<T> anterior = docs.remove(claveValor);
+        if (anterior == null) {
+            return;
+        }
+        for (String trigrama : trigramasDe(anterior.palabras())) {
+            Set<String> claves = indice.get(trigrama);
+            if (claves != null && claves.remove(claveValor) && claves.isEmpty()) {
+                indice.remove(trigrama);
+            }
+        }
+    }
+
+    private static Set<String> trigramasDe(String[][] palabrasPorCampo) {
+        Set<String> resultado = new HashSet<>();
+        for (String[] palabras : palabrasPorCampo) {
+            for (String palabra : palabras) {
+                String conInicio = INICIO + palabra;
+                for (int i = 0; i + 3 <= conInicio.length(); i++) {
+                    resultado.add(conInicio.substring(i, i + 3));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // ========== BÚSQUEDA ==========
+
+    /**
+     * Los mejores resultados (como máximo "maximo"), del puntaje más alto al más bajo.
+     * soloCampos limita la búsqueda a esos campos; null = todos.
+     */
+    public List<Resultado<T>> buscar(String consulta, int maximo, Set<String> soloCampos) {
+        long inicio = System.nanoTime();
+        String[] buscadas = palabras(consulta);
+        if (buscadas.length == 0 || maximo <= 0) {
+            return List.of();
+        }
+
+        Comparator<Candidato<T>> peorPrimero = Comparator.<Candidato<T>>comparingInt(Candidato::puntaje)
+                .thenComparing(Candidato::valor, desempate.reversed())
+                .thenComparing(Candidato::clave, Comparator.reverseOrder());
+        PriorityQueue<Candidato<T>> mejores = new PriorityQueue<>(peorPrimero);
+
+        candado.readLock().lock();
+        try {
+            for (String claveValor : candidatos(buscadas)) {
+                Documento<T> documento = documentos.get(claveValor);
+                int puntaje = puntaje(documento, buscadas, soloCampos);
+                if (puntaje == 0) {
+                    continue;
+                }
+                mejores.add(new Candidato<>(claveValor, documento.valor(), puntaje));
+                if (mejores.size() > maximo) {
+                    mejores.poll();
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+
+        List<Resultado<T>> resultados = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            Candidato<T> candidato = mejores.poll();
+            resultados.add(new Resultado<>(candidato.valor(), candidato.puntaje()));
+        }
+        Collections.reverse(resultados);
+        registrarBusqueda(System.nanoTime() - inicio);
+        return resultados;
+    }
+
+    // Claves que contienen todos los trigramas de todas las palabras buscadas (empezando por la lista más corta)
+    private Set<String> candidatos(String[] buscadas) {
+        List<Set<String>> listas = new ArrayList<>();
+        for (String palabra : buscadas) {
+            for (String trigrama : trigramasDeBusqueda(palabra)) {
+                Set<String> claves = trigramas.get(trigrama);
+                if (claves == null) {
+                    return Set.of();
+                }
+                listas.add(claves);
+            }
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+        Set<String> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    // Palabras cortas: el trigrama de inicio (prefijo); desde 3 letras: sus trigramas internos (subcadena)
+    private static List<String> trigramasDeBusqueda(String palabra) {
+        if (palabra.length() < 3) {
+            String conInicio = INICIO + palabra;
+            return List.of(conInicio.substring(conInicio.length() - 3));
+        }
+        List<String> resultado = new ArrayList<>();
+        for (int i = 0; i + 3 <= palabra.length(); i++) {
+            resultado.add(palabra.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    private int puntaje(Documento<T> documento, String[] buscadas, Set<String> soloCampos) {
+        int total = 0;
+        for (String buscada : buscadas) {
+            int mejor = 0;
+            for (int i = 0; i < campos.size(); i++) {
+                Campo<T> campo = campos.get(i);
+                if (soloCampos != null && !soloCampos.contains(campo.nombre())) {
+                    continue;
+                }
+                for (String palabra : documento.palabras()[i]) {
+                    int coincidencia = palabra.equals(buscada) ? 3
+                            : palabra.startsWith(buscada) ? 2
+                            : buscada.length() >= 3 && palabra.contains(buscada) ? 1 : 0;
+                    mejor = Math.max(mejor, coincidencia * campo.peso());
+                }
+            }
+            if (mejor == 0) {
+                return 0;
+            }
+            total += mejor;
+        }
+        return total;
+    }
+
+    // ========== MÉTRICAS ==========
+
+    private void registrarBusqueda(long nanos) {
+        busquedas.incrementAndGet();
+        nanosBusqueda.addAndGet(nanos);
+        maximoNanosBusqueda.accumulateAndGet(nanos, Math::max);
+    }
+
+    public Map<String, Object> metricas() {
+        int totalDocumentos;
+        int totalTrigramas;
+        candado.readLock().lock();
+        try {
+            totalDocumentos = documentos.size();
+            totalTrigramas = trigramas.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+        long b = busquedas.get();
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("nombre", nombre);
+        metricas.put("documentos", totalDocumentos);
+        metricas.put("trigramas", totalTrigramas);
+        metricas.put("busquedas", b);
+        metricas.put("busquedaPromedioMs", b > 0 ? Math.round(nanosBusqueda.get() / (double) b / 1_000.0) / 1_000.0 : 0.0);
+        metricas.put("busquedaMaximaMs", Math.round(maximoNanosBusqueda.get() / 1_000.0) / 1_000.0);
+        return metricas;
+    }
+}
@@ -0,0 +1,143 @@
+package com.beyco.app.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria con tamaño máximo (se desaloja la entrada usada hace más tiempo)
+ * y tiempo de vida por entrada, con métricas de aciertos, desalojos y latencia de carga.
+ *
+ * La carga desde la BD se hace fuera del candado. Si mientras tanto se invalida el caché,
+ * el valor cargado se devuelve a quien lo pidió pero no se guarda, para no dejar datos viejos.
+ * Los valores null no se guardan.
+ */
+public class CacheAcotado<K, V> {
+
+    private record Entrada<V>(V valor, long expiraEn) { }
+
+    private final String nombre;
+    private final int tamanoMaximo;
+    private final long vidaNanos;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    private long version;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojosPorTamano = new AtomicLong();
+    private final AtomicLong expiradas = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+    private final AtomicLong cargas = new AtomicLong();
+    private final AtomicLong nanosCarga = new AtomicLong();
+    private final AtomicLong maximoNanosCarga = new AtomicLong();
+
+    public CacheAcotado(String nombre, int tamanoMaximo, Duration vida) {
+        this.nombre = nombre;
+        this.tamanoMaximo = tamanoMaximo;
+        this.vidaNanos = vida.toNanos();
+        // Orden de acceso: la primera entrada es la menos usada recientemente
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > CacheAcotado.this.tamanoMaximo) {
+                    desalojosPorTamano.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el valor en caché o lo carga con el cargador indicado.
+     */
+    public V obtener(K clave, Function<K, V> cargador) {
+        long versionLeida;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.expiraEn() < 0) {
+                    aciertos.incrementAndGet();
+                    return entrada.valor();
+                }
+                entradas.remove(clave);
+                expiradas.incrementAndGet();
+            }
+            versionLeida = version;
+        }
+
+        fallos.incrementAndGet();
+        long inicio = System.nanoTime();
+        V valor = cargador.apply(clave);
+        registrarCarga(System.nanoTime() - inicio);
+
+        if (valor != null) {
+            synchronized (this) {
+                if (version == versionLeida) {
+                    entradas.put(clave, new Entrada<>(valor, System.nanoTime() + vidaNanos));
+                }
+            }
+        }
+        return valor;
+    }
+
+    public synchronized void invalidar(K clave) {
+        version++;
+        if (entradas.remove(clave) != null) {
+            invalidaciones.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidarTodo() {
+        version++;
+        invalidaciones.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    public Map<String, Object> metricas() {
+        long a = aciertos.get();
+        long f = fallos.get();
+        long c = cargas.get();
+        int tamano;
+        synchronized (this) {
+            purgarExpiradas();
+            tamano = entradas.size();
+        }
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("nombre", nombre);
+        metricas.put("entradas", tamano);
+        metricas.put("tamanoMaximo", tamanoMaximo);
+        metricas.put("vidaSegundos", vidaNanos / 1_000_000_000L);
+        metricas.put("aciertos", a);
+        metricas.put("fallos", f);
+        metricas.put("tasaAciertos", a + f > 0 ? Math.round(a * 10000.0 / (a + f)) / 100.0 : 0.0);
+        metricas.put("desalojosPorTamano", desalojosPorTamano.get());
+        metricas.put("expiradas", expiradas.get());
+        metricas.put("invalidaciones", invalidaciones.get());
+        metricas.put("cargas", c);
+        metricas.put("cargaPromedioMs", c > 0 ? Math.round(nanosCarga.get() / (double) c / 10_000.0) / 100.0 : 0.0);
+        metricas.put("cargaMaximaMs", Math.round(maximoNanosCarga.get() / 10_000.0) / 100.0);
+        return metricas;
+    }
+
+    private void registrarCarga(long nanos) {
+        cargas.incrementAndGet();
+        nanosCarga.addAndGet(nanos);
+        maximoNanosCarga.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void purgarExpiradas() {
+        long ahora = System.nanoTime();
+        Iterator<Entrada<V>> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            if (ahora - it.next().expiraEn() >= 0) {
+                it.remove();
+                expiradas.incrementAndGet();
+            }
+        }
+    }
+}
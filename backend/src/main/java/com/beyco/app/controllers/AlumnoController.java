@@ -1,10 +1,16 @@
 package com.beyco.app.controllers;
 
+import com.beyco.app.db.Pagina;
+import com.beyco.app.json.RespuestaJsonEnFlujo;
 import com.beyco.app.models.Alumno;
 import com.beyco.app.services.AlumnoService;
+import com.beyco.app.services.ImportacionAlumnosService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.*;
 
 @RestController
@@ -12,45 +18,91 @@ import java.util.*;
 @CrossOrigin(origins = {"http://localhost:3000", "http://192.168.0.55:3000"})
 public class AlumnoController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private AlumnoService alumnoService;
 
+    @Autowired
+    private RespuestaJsonEnFlujo respuestaJsonEnFlujo;
+
+    @Autowired
+    private ImportacionAlumnosService importacionAlumnosService;
+
     /**
      * Endpoint para listar todos los alumnos activos
      */
     @GetMapping
-    public Map<String, Object> listarAlumnos() {
-        List<Alumno> alumnos = alumnoService.listarTodosLosAlumnos();
+    public ResponseEntity<StreamingResponseBody> listarAlumnos() {
+        // En flujo: cada alumno se escribe conforme sale de la BD
+        return respuestaJsonEnFlujo.envuelta("alumnos", "alumnos", alumnoService::recorrerAlumnosActivos);
+    }
+
+    /**
+     * Página por cursor: ?limite=20&orden=(apellido|nombre|registro)&cursor=...
+     * La primera página se pide sin cursor; la siguiente con el valor de "siguiente" (null en la última).
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Map<String, Object>> listarAlumnosPagina(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor) {
         Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("alumnos", alumnos);
-        response.put("total", alumnos.size());
-        return response;
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            Pagina<Alumno> pagina = alumnoService.listarAlumnosPagina(orden, cursor, limiteSeguro);
+
+            response.put("success", true);
+            response.put("alumnos", pagina.filas());
+            response.put("total", pagina.filas().size());
+            response.put("siguiente", pagina.siguiente());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error en listarAlumnosPagina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener la página: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
     }
 
     /**
-     * Buscar alumnos por apellidos o CURP (como el buscador del frontend)
+     * Buscar alumnos (como el buscador del frontend):
+     * ?curp= exacto, ?q= texto libre (nombre, apellidos, CURP o RFC) o ?apellido= solo apellidos.
+     * Las búsquedas por texto usan el índice en memoria y devuelven los "limite" más parecidos.
+     * Sin criterios devuelve la primera página por apellido (con "siguiente" para /pagina).
      */
     @GetMapping("/buscar")
     public Map<String, Object> buscarAlumnos(
             @RequestParam(required = false) String apellido,
-            @RequestParam(required = false) String curp) {
+            @RequestParam(required = false) String curp,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "" + AlumnoService.MAXIMO_RESULTADOS_BUSQUEDA) int limite) {
 
-        System.out.println("🔍 Buscando alumnos: apellido=" + apellido + ", curp=" + curp);
+        System.out.println("🔍 Buscando alumnos: q=" + q + ", apellido=" + apellido + ", curp=" + curp);
         Map<String, Object> response = new HashMap<>();
 
         try {
             List<Alumno> alumnos = new ArrayList<>();
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
 
             if (curp != null && !curp.isBlank()) {
                 Alumno alumno = alumnoService.buscarAlumnoPorCurp(curp);
                 if (alumno != null) {
                     alumnos.add(alumno);
                 }
+            } else if (q != null && !q.isBlank()) {
+                alumnos = alumnoService.buscarAlumnos(q, limiteSeguro);
             } else if (apellido != null && !apellido.isBlank()) {
                 alumnos = alumnoService.buscarAlumnosPorApellidos(apellido);
             } else {
-                alumnos = alumnoService.listarTodosLosAlumnos();
+                Pagina<Alumno> pagina = alumnoService.listarAlumnosPagina(null, null, limiteSeguro);
+                alumnos = pagina.filas();
+                response.put("siguiente", pagina.siguiente());
             }
 
             response.put("success", true);
@@ -64,6 +116,65 @@ public class AlumnoController {
         return response;
     }
 
+    /**
+     * Tamaño y tiempos del índice de búsqueda de alumnos
+     */
+    @GetMapping("/buscar/indice")
+    public Map<String, Object> obtenerMetricasIndice() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("indice", alumnoService.obtenerMetricasIndice());
+        return response;
+    }
+
+    /**
+     * Importa una lista de alumnos desde CSV o XLSX (multipart "archivo"); con cursoId además
+     * los inscribe a ese curso. Responde 202 con el ID para consultar el avance.
+     * Columnas: CURP, Nombre, Apellido paterno, RFC (obligatorias), Apellido materno,
+     * Fecha de nacimiento (si falta se toma de la CURP), Puesto y Estado de nacimiento.
+     */
+    @PostMapping("/importar")
+    public ResponseEntity<Map<String, Object>> importarAlumnos(
+            @RequestParam("archivo") MultipartFile archivo,
+            @RequestParam(required = false) Integer cursoId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            String id = importacionAlumnosService.iniciar(archivo, cursoId);
+            response.put("success", true);
+            response.put("importacionId", id);
+            response.put("estado", ImportacionAlumnosService.EN_ESPERA);
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error al iniciar la importación de alumnos: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al iniciar la importación: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * Avance de una importación: estado, porcentaje, creados/actualizados/sin cambios,
+     * inscritos y los errores por número de fila
+     */
+    @GetMapping("/importar/{importacionId}")
+    public ResponseEntity<Map<String, Object>> consultarImportacion(@PathVariable String importacionId) {
+        Map<String, Object> importacion = importacionAlumnosService.consultar(importacionId);
+        Map<String, Object> response = new HashMap<>();
+        if (importacion == null) {
+            response.put("success", false);
+            response.put("error", "Importación no encontrada: " + importacionId);
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("importacion", importacion);
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Obtener alumnos por curso
      */
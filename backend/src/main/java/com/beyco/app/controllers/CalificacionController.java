@@ -6,6 +6,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/calificaciones")
 @CrossOrigin(origins = {"http://localhost:3000", "http://192.168.0.55:3000"})
@@ -45,6 +50,77 @@ public class CalificacionController {
         }
     }
 
+    /**
+     * Hoja de calificaciones de todo el grupo: una lista con las calificaciones de cada alumno.
+     * Se guarda en una sola transacción; cada fila reporta guardada, no_inscrito, repetida o invalida.
+     */
+    @PostMapping("/curso/{cursoId}")
+    public ResponseEntity<Map<String, Object>> guardarCalificacionesCurso(
+            @PathVariable int cursoId,
+            @RequestBody List<CalificacionRequest> calificaciones) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            System.out.println("📝 Hoja de calificaciones del curso " + cursoId + ": " +
+                              (calificaciones != null ? calificaciones.size() : 0) + " alumnos");
+            List<CalificacionService.ResultadoCalificacion> resultados =
+                    calificacionService.guardarCalificacionesCurso(cursoId, calificaciones);
+
+            Map<String, Integer> totales = new LinkedHashMap<>();
+            for (CalificacionService.ResultadoCalificacion resultado : resultados) {
+                totales.merge(resultado.resultado(), 1, Integer::sum);
+            }
+
+            response.put("success", true);
+            response.put("cursoId", cursoId);
+            response.put("resultados", resultados);
+            response.put("totales", totales);
+            response.put("guardadas", totales.getOrDefault(CalificacionService.GUARDADA, 0));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error guardando hoja de calificaciones: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al guardar calificaciones: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    /**
+     * Hoja de calificaciones del curso: alumnos inscritos con calificaciones, promedio y resultado
+     * en una sola respuesta (reemplaza una petición por alumno)
+     */
+    @GetMapping("/curso/{cursoId}")
+    public ResponseEntity<Map<String, Object>> obtenerHojaCalificaciones(@PathVariable int cursoId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> hoja = calificacionService.obtenerHojaCalificaciones(cursoId);
+            if (hoja == null) {
+                response.put("success", false);
+                response.put("error", "No existe el curso " + cursoId);
+                return ResponseEntity.status(404).body(response);
+            }
+            response.put("success", true);
+            response.putAll(hoja);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error obteniendo hoja de calificaciones: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener la hoja de calificaciones: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Métricas del caché de hojas de calificaciones
+    @GetMapping("/cache")
+    public Map<String, Object> metricasCache() {
+        return calificacionService.metricasCache();
+    }
+
     @GetMapping("/curso/{cursoId}/alumno/{alumnoCurp}")
     public ResponseEntity<CalificacionRequest> obtenerCalificacion(
             @PathVariable int cursoId,
@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/catalogo_cursos")
@@ -29,6 +30,12 @@ public class CatalogoCursoController {
         return catalogoCursoService.listarTodosActivos();
     }
 
+    // Métricas del caché en memoria del catálogo
+    @GetMapping("/cache")
+    public Map<String, Object> metricasCache() {
+        return catalogoCursoService.metricasCache();
+    }
+
     @PostMapping
     public ResponseEntity<String> crear(@RequestBody CatalogoCurso curso) {
         boolean exito = catalogoCursoService.crearCurso(curso);
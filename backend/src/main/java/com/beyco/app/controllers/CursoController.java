@@ -1,13 +1,18 @@
 package com.beyco.app.controllers;
 
+import com.beyco.app.db.Pagina;
+import com.beyco.app.json.RespuestaJsonEnFlujo;
 import com.beyco.app.models.Curso;
 import com.beyco.app.services.CursoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/cursos") 
@@ -15,22 +20,55 @@ import java.util.List;
                         "http://10.0.43.190:3000"}) 
 public class CursoController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private CursoService cursoService;
 
+    @Autowired
+    private RespuestaJsonEnFlujo respuestaJsonEnFlujo;
+
     // Se ha eliminado la inyección de CatalogoCursoService porque no se usa para las operaciones principales de este controlador.
 
     // --- CAMBIO #1: La ruta ahora es solo @GetMapping ---
     // La URL para obtener los cursos será http://localhost:8080/api/cursos
     @GetMapping
-    // --- CAMBIO #2: El método ahora devuelve List<Curso> ---
-    // Esto coincide con los datos que tu frontend espera para la tabla.
-    public List<Curso> getAllCursos() {
-        // --- CAMBIO #3: Se usa el servicio correcto ---
-        // Llamamos a cursoService para obtener los cursos asignados.
-        // Asegúrate de que tu `CursoService` tenga un método que devuelva la lista de cursos.
-        // Por ejemplo: `listarCursos()` o `findAll()`.
-        return cursoService.listarTodosLosCursos();
+    // Devuelve el arreglo de cursos que el frontend espera para la tabla, escrito en flujo
+    // conforme salen de la BD (mismo JSON que la List<Curso> de antes)
+    public ResponseEntity<StreamingResponseBody> getAllCursos() {
+        return respuestaJsonEnFlujo.arreglo("cursos", cursoService::recorrerTodosLosCursos);
+    }
+
+    /**
+     * Página por cursor: ?limite=20&orden=(fecha|id)&cursor=...
+     * La primera página se pide sin cursor; la siguiente con el valor de "siguiente" (null en la última).
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Map<String, Object>> getCursosPagina(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            Pagina<Curso> pagina = cursoService.listarCursosPagina(orden, cursor, limiteSeguro);
+
+            response.put("success", true);
+            response.put("cursos", pagina.filas());
+            response.put("total", pagina.filas().size());
+            response.put("siguiente", pagina.siguiente());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error en getCursosPagina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener la página: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
     }
 
     @PostMapping
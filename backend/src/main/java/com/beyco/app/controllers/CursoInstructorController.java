@@ -5,10 +5,12 @@ import com.beyco.app.models.Curso;
 import com.beyco.app.services.AlumnoService;
 import com.beyco.app.services.CursoService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +22,8 @@ import java.util.stream.Collectors;
                         "http://10.0.47.154:3000", "http://10.0.43.69:3000", "http://10.0.47.108:3000", "http://10.0.45.30:3000", "http://10.0.43.190:3000"})
 public class CursoInstructorController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private CursoService cursoService;
 
@@ -43,15 +47,58 @@ public class CursoInstructorController {
     public List<Curso> getCursosByInstructor(@PathVariable int instructorId) {
         System.out.println("🎯 Obteniendo cursos para instructor ID: " + instructorId);
         
-        List<Curso> cursos = cursoService.listarTodosLosCursos()
-                .stream()
-                .filter(c -> c.getInstructorId() == instructorId)
-                .collect(Collectors.toList());
+        List<Curso> cursos = cursoService.listarCursosPorInstructor(instructorId);
         
         System.out.println("✅ Cursos encontrados: " + cursos.size());
         return cursos;
     }
 
+    /**
+     * Endpoint para OBTENER los cursos de un instructor por páginas (paginación por llave).
+     * La siguiente página se pide con los valores de "siguiente" de la respuesta anterior.
+     */
+    @GetMapping("/instructor/{instructorId}/pagina")
+    public ResponseEntity<Map<String, Object>> getCursosByInstructorPaginado(
+            @PathVariable int instructorId,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate despuesDeFecha,
+            @RequestParam(required = false) Integer despuesDeId) {
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            System.out.println("🎯 Página de cursos para instructor ID: " + instructorId + " (limite " + limiteSeguro + ")");
+
+            List<Curso> cursos = cursoService.listarCursosPorInstructorPaginado(
+                    instructorId, despuesDeFecha, despuesDeId, limiteSeguro);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("cursos", cursos);
+            response.put("total", cursos.size());
+
+            if (cursos.size() == limiteSeguro) {
+                Curso ultimo = cursos.get(cursos.size() - 1);
+                Map<String, Object> siguiente = new HashMap<>();
+                siguiente.put("despuesDeFecha", ultimo.getFechaIngreso());
+                siguiente.put("despuesDeId", ultimo.getId());
+                response.put("siguiente", siguiente);
+            } else {
+                response.put("siguiente", null);
+            }
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            System.err.println("❌ Error en getCursosByInstructorPaginado: " + e.getMessage());
+            e.printStackTrace();
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Error al cargar cursos paginados: " + e.getMessage());
+
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     /**
      * Endpoint para OBTENER los cursos asignados a un instructor con información de alumnos
      * VERSIÓN SIMPLIFICADA QUE SÍ FUNCIONA
@@ -62,12 +109,17 @@ public class CursoInstructorController {
             System.out.println("🎯 Solicitando cursos COMPLETOS para instructor ID: " + instructorId);
             
             // Primero obtener los cursos del instructor
-            List<Curso> cursos = cursoService.listarTodosLosCursos()
-                    .stream()
-                    .filter(c -> c.getInstructorId() == instructorId)
-                    .collect(Collectors.toList());
+            List<Curso> cursos = cursoService.listarCursosPorInstructor(instructorId);
 
             System.out.println("📊 Cursos base encontrados: " + cursos.size());
+            int consultas = 1;
+
+            // Cargar los alumnos de todos los cursos en una sola consulta
+            List<Integer> cursoIds = cursos.stream().map(Curso::getId).collect(Collectors.toList());
+            Map<Integer, List<Alumno>> alumnosPorCurso = alumnoService.buscarAlumnosPorCursos(cursoIds);
+            if (!cursoIds.isEmpty()) {
+                consultas++;
+            }
 
             // Enriquecer cada curso con información de alumnos
             List<Map<String, Object>> cursosCompletos = cursos.stream().map(curso -> {
@@ -85,17 +137,9 @@ public class CursoInstructorController {
                 cursoMap.put("empresaId", curso.getEmpresaId());
                 cursoMap.put("instructorId", curso.getInstructorId());
                 
-                // Obtener información de alumnos
-                try {
-                    List<Alumno> alumnos = alumnoService.buscarAlumnosPorCurso(curso.getId());
-                    cursoMap.put("alumnosInscritos", alumnos.size());
-                    cursoMap.put("alumnos", alumnos);
-                    System.out.println("👨‍🎓 Curso " + curso.getId() + " tiene " + alumnos.size() + " alumnos");
-                } catch (Exception e) {
-                    System.err.println("❌ Error obteniendo alumnos para curso " + curso.getId() + ": " + e.getMessage());
-                    cursoMap.put("alumnosInscritos", 0);
-                    cursoMap.put("alumnos", List.of());
-                }
+                List<Alumno> alumnos = alumnosPorCurso.getOrDefault(curso.getId(), List.of());
+                cursoMap.put("alumnosInscritos", alumnos.size());
+                cursoMap.put("alumnos", alumnos);
                 
                 return cursoMap;
             }).collect(Collectors.toList());
@@ -104,8 +148,9 @@ public class CursoInstructorController {
             response.put("success", true);
             response.put("cursos", cursosCompletos);
             response.put("total", cursosCompletos.size());
+            response.put("consultas", consultas);
 
-            System.out.println("✅ Cursos completos procesados: " + cursosCompletos.size());
+            System.out.println("✅ Cursos completos procesados: " + cursosCompletos.size() + " en " + consultas + " consultas");
             
             return ResponseEntity.ok(response);
             
@@ -176,10 +221,7 @@ public class CursoInstructorController {
         try {
             System.out.println("🧪 Test endpoint para instructor: " + instructorId);
             
-            List<Curso> cursos = cursoService.listarTodosLosCursos()
-                    .stream()
-                    .filter(c -> c.getInstructorId() == instructorId)
-                    .collect(Collectors.toList());
+            List<Curso> cursos = cursoService.listarCursosPorInstructor(instructorId);
             
             // Log detallado
             System.out.println("📋 Cursos encontrados para instructor " + instructorId + ": " + cursos.size());
@@ -1,8 +1,10 @@
 // controllers/EmpresaController.java
 package com.beyco.app.controllers;
 
+import com.beyco.app.db.Pagina;
 import com.beyco.app.models.Empresa;
 import com.beyco.app.services.EmpresaService;
+import com.beyco.app.services.SugerenciasService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +25,8 @@ import java.util.Map;
 })
 public class EmpresaController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private EmpresaService empresaService;
 
@@ -51,6 +55,38 @@ public class EmpresaController {
         }
     }
 
+    /**
+     * Página por cursor: ?limite=20&orden=(nombre|recientes)&cursor=...
+     * La primera página se pide sin cursor; la siguiente con el valor de "siguiente" (null en la última).
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Map<String, Object>> getEmpresasPagina(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            Pagina<Empresa> pagina = empresaService.listarPagina(orden, cursor, limiteSeguro);
+
+            response.put("success", true);
+            response.put("data", pagina.filas());
+            response.put("total", pagina.filas().size());
+            response.put("siguiente", pagina.siguiente());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error en getEmpresasPagina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener la página: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     // ✅ ENDPOINT GET - BUSCAR EMPRESA POR ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getEmpresaById(@PathVariable int id) {
@@ -107,6 +143,11 @@ public class EmpresaController {
                 errorResponse.put("error", "No se pudo crear la empresa");
                 return ResponseEntity.status(500).body(errorResponse);
             }
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             System.err.println("❌ Error al crear empresa: " + e.getMessage());
             e.printStackTrace();
@@ -137,6 +178,11 @@ public class EmpresaController {
                 errorResponse.put("error", "No se pudo actualizar la empresa");
                 return ResponseEntity.status(500).body(errorResponse);
             }
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             System.err.println("❌ Error al actualizar empresa: " + e.getMessage());
             e.printStackTrace();
@@ -179,10 +225,12 @@ public class EmpresaController {
 
     // ✅ ENDPOINT GET - BUSCAR EMPRESAS
     @GetMapping("/buscar")
-    public ResponseEntity<?> buscarEmpresas(@RequestParam String criterio) {
+    public ResponseEntity<?> buscarEmpresas(@RequestParam String criterio,
+            @RequestParam(defaultValue = "" + SugerenciasService.MAXIMO_SUGERENCIAS) int limite) {
         System.out.println("🔍 Buscando empresas con criterio: " + criterio);
         try {
-            List<Empresa> empresas = empresaService.buscarEmpresas(criterio);
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            List<Empresa> empresas = empresaService.buscarEmpresas(criterio, limiteSeguro);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -202,6 +250,25 @@ public class EmpresaController {
         }
     }
 
+    // ✅ ENDPOINT GET - MÉTRICAS DEL CACHÉ DE EMPRESAS
+    @GetMapping("/cache")
+    public ResponseEntity<?> metricasCache() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", empresaService.metricasCache());
+        return ResponseEntity.ok(response);
+    }
+
+    // ✅ ENDPOINT DELETE - VACIAR EL CACHÉ (tras cambios hechos directamente en la BD)
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> vaciarCache() {
+        empresaService.invalidarCache();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Caché de empresas vaciado");
+        return ResponseEntity.ok(response);
+    }
+
     // ✅ ENDPOINT GET - HEALTH CHECK
     @GetMapping("/health")
     public ResponseEntity<?> healthCheck() {
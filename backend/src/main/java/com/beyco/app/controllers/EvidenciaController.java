@@ -1,16 +1,27 @@
 package com.beyco.app.controllers;
 
+import com.beyco.app.db.Pagina;
+import com.beyco.app.json.RespuestaJsonEnFlujo;
 import com.beyco.app.models.Evidencia;
+import com.beyco.app.services.CargaEvidenciaService;
 import com.beyco.app.services.EvidenciaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,9 +33,17 @@ import java.util.Map;
                        "http://10.0.45.30:3000", "http://10.0.43.190:3000"})
 public class EvidenciaController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private EvidenciaService evidenciaService;
 
+    @Autowired
+    private CargaEvidenciaService cargaEvidenciaService;
+
+    @Autowired
+    private RespuestaJsonEnFlujo respuestaJsonEnFlujo;
+
     // ✅ ENDPOINT POST - SUBIR EVIDENCIA (VERSIÓN SIMPLIFICADA)
     @PostMapping("/subir")
     public ResponseEntity<?> subirEvidencia(
@@ -88,6 +107,124 @@ public class EvidenciaController {
         }
     }
 
+    // ✅ CARGA POR FRAGMENTOS - PASO 1: INICIAR
+    // Body: nombreArchivo, contentType, tamanoTotal, tamanoFragmento (opcional),
+    //       cursos_Id_Curso, Tipo_Evidencia, Descripcion, Observaciones (opcional)
+    @PostMapping("/carga")
+    public ResponseEntity<?> iniciarCarga(@RequestBody Map<String, Object> request) {
+        try {
+            Object tamanoFragmento = request.get("tamanoFragmento");
+            Map<String, Object> carga = cargaEvidenciaService.iniciarCarga(
+                    (String) request.get("nombreArchivo"),
+                    (String) request.get("contentType"),
+                    ((Number) request.get("tamanoTotal")).longValue(),
+                    tamanoFragmento != null ? ((Number) tamanoFragmento).intValue() : null,
+                    (String) request.get("Tipo_Evidencia"),
+                    (String) request.get("Descripcion"),
+                    (String) request.get("Observaciones"),
+                    ((Number) request.get("cursos_Id_Curso")).intValue());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", carga);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException | NullPointerException | ClassCastException e) {
+            System.out.println("❌ Error de validación al iniciar carga: " + e.getMessage());
+            return ResponseEntity.badRequest().body(crearErrorResponse("Datos de carga inválidos: " + e.getMessage()));
+        } catch (Exception e) {
+            System.out.println("❌ Error al iniciar carga: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al iniciar carga: " + e.getMessage()));
+        }
+    }
+
+    // ✅ CARGA POR FRAGMENTOS - PASO 2: ENVIAR FRAGMENTO N (cuerpo binario + X-Checksum-Sha256)
+    @PutMapping(value = "/carga/{uploadId}/fragmento/{numero}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> recibirFragmento(@PathVariable String uploadId, @PathVariable int numero,
+                                              @RequestHeader(value = "X-Checksum-Sha256", required = false) String checksum,
+                                              InputStream contenido) {
+        try {
+            Map<String, Object> estado = cargaEvidenciaService.recibirFragmento(uploadId, numero, checksum, contenido);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", estado);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Fragmento " + numero + " rechazado: " + e.getMessage());
+            return ResponseEntity.badRequest().body(crearErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            System.out.println("❌ Error al recibir fragmento: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al recibir fragmento: " + e.getMessage()));
+        }
+    }
+
+    // ✅ CARGA POR FRAGMENTOS - CONSULTAR FRAGMENTOS RECIBIDOS (para reanudar)
+    @GetMapping("/carga/{uploadId}")
+    public ResponseEntity<?> consultarCarga(@PathVariable String uploadId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", cargaEvidenciaService.consultarCarga(uploadId));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(crearErrorResponse(e.getMessage()));
+        }
+    }
+
+    // ✅ CARGA POR FRAGMENTOS - PASO 3: CONFIRMAR Y REGISTRAR LA EVIDENCIA
+    @PostMapping("/carga/{uploadId}/confirmar")
+    public ResponseEntity<?> confirmarCarga(@PathVariable String uploadId) {
+        try {
+            Map<String, Object> resultado = cargaEvidenciaService.confirmarCarga(uploadId);
+            System.out.println("✅ === EVIDENCIA SUBIDA POR FRAGMENTOS: " + resultado.get("archivo") + " ===");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Evidencia subida correctamente");
+            response.put("data", resultado);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(crearErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            System.out.println("❌ Error al confirmar carga: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al confirmar carga: " + e.getMessage()));
+        }
+    }
+
+    // ✅ CARGA POR FRAGMENTOS - CANCELAR
+    @DeleteMapping("/carga/{uploadId}")
+    public ResponseEntity<?> cancelarCarga(@PathVariable String uploadId) {
+        try {
+            if (!cargaEvidenciaService.cancelarCarga(uploadId)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(crearErrorResponse("Carga no encontrada o expirada: " + uploadId));
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Carga cancelada");
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(crearErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            System.out.println("❌ Error al cancelar carga: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(crearErrorResponse("Error al cancelar carga: " + e.getMessage()));
+        }
+    }
+
     // ✅ ENDPOINT GET - OBTENER EVIDENCIA POR CURSO
     @GetMapping("/curso/{cursoId}")
     public ResponseEntity<?> obtenerEvidenciaPorCurso(@PathVariable int cursoId) {
@@ -114,28 +251,42 @@ public class EvidenciaController {
         }
     }
 
-    // ✅ ENDPOINT GET - OBTENER TODAS LAS EVIDENCIAS
+    // ✅ ENDPOINT GET - OBTENER TODAS LAS EVIDENCIAS (en flujo, sin cargar la lista en memoria)
     @GetMapping("/todas")
-    public ResponseEntity<?> obtenerTodasLasEvidencias() {
+    public ResponseEntity<StreamingResponseBody> obtenerTodasLasEvidencias() {
+        System.out.println("📋 Solicitando todas las evidencias");
+        return respuestaJsonEnFlujo.envuelta("evidencias", "data", evidenciaService::recorrerTodasLasEvidencias);
+    }
+
+    /**
+     * Página por cursor: ?limite=20&orden=(fechaSubida|id)&cursor=...
+     * La primera página se pide sin cursor; la siguiente con el valor de "siguiente" (null en la última).
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Map<String, Object>> obtenerEvidenciasPagina(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
         try {
-            System.out.println("📋 Solicitando todas las evidencias");
-            
-            List<Evidencia> evidencias = evidenciaService.obtenerTodasLasEvidencias();
-            
-            Map<String, Object> response = new HashMap<>();
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            Pagina<Evidencia> pagina = evidenciaService.obtenerEvidenciasPagina(orden, cursor, limiteSeguro);
+
             response.put("success", true);
-            response.put("data", evidencias);
-            response.put("total", evidencias.size());
-            
-            System.out.println("✅ Total de evidencias: " + evidencias.size());
+            response.put("data", pagina.filas());
+            response.put("total", pagina.filas().size());
+            response.put("siguiente", pagina.siguiente());
             return ResponseEntity.ok(response);
-            
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
-            System.out.println("❌ Error al obtener evidencias: " + e.getMessage());
+            System.err.println("❌ Error en obtenerEvidenciasPagina: " + e.getMessage());
             e.printStackTrace();
-            
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(crearErrorResponse("Error al obtener evidencias: " + e.getMessage()));
+            response.put("success", false);
+            response.put("error", "Error al obtener la página: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
         }
     }
 
@@ -170,7 +321,7 @@ public class EvidenciaController {
 
     // ✅ ENDPOINT GET - DESCARGAR ARCHIVO
     @GetMapping("/descargar/{idEvidencia}")
-    public ResponseEntity<byte[]> descargarArchivo(@PathVariable int idEvidencia) {
+    public ResponseEntity<Resource> descargarArchivo(@PathVariable int idEvidencia) {
         try {
             System.out.println("📥 Solicitando descarga de evidencia ID: " + idEvidencia);
             
@@ -179,7 +330,9 @@ public class EvidenciaController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
             }
             
-            byte[] archivo = evidenciaService.obtenerArchivo(idEvidencia);
+            Path rutaArchivo = evidenciaService.obtenerRutaArchivo(evidencia);
+            long tamano = Files.size(rutaArchivo);
+            long modificado = Files.getLastModifiedTime(rutaArchivo).toMillis();
             
             // Determinar content type basado en la extensión del archivo
             String contentType = determinarContentType(evidencia.getArchivoRuta());
@@ -187,11 +340,20 @@ public class EvidenciaController {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(contentType));
             headers.setContentDispositionFormData("attachment", evidencia.getDescripcion());
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-            
+            headers.setCacheControl(CacheControl.noCache().mustRevalidate());
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            // ETag y Last-Modified: Spring responde 304 a If-None-Match / If-Modified-Since
+            headers.setETag("\"" + Long.toHexString(tamano) + "-" + Long.toHexString(modificado) + "\"");
+            headers.setLastModified(modificado);
+            
+            // Con un Resource como cuerpo Spring atiende el encabezado Range (206 Partial Content)
+            // y copia el archivo a la respuesta por bloques, sin cargarlo completo en memoria
             System.out.println("✅ Archivo enviado para descarga: " + evidencia.getDescripcion());
-            return new ResponseEntity<>(archivo, headers, HttpStatus.OK);
+            return new ResponseEntity<>(new FileSystemResource(rutaArchivo), headers, HttpStatus.OK);
             
+        } catch (NoSuchFileException e) {
+            System.out.println("❌ " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         } catch (Exception e) {
             System.out.println("❌ Error al descargar archivo: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,103 @@
+package com.beyco.app.controllers;
+
+import com.beyco.app.exportacion.FormatoExportacion;
+import com.beyco.app.services.ExportacionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Descarga de cursos y alumnos en CSV o XLSX, y de archivos de evidencia en ZIP.
+ * La respuesta se escribe en flujo, así que la memoria usada no depende del número de filas.
+ */
+@RestController
+@RequestMapping("/api/exportar")
+@CrossOrigin(origins = {"http://localhost:3000", "http://192.168.0.55:3000", "http://172.19.128.1:3000",
+                        "http://10.0.43.69:3000", "http://10.0.47.108:3000", "http://10.0.45.30:3000", "http://10.0.43.190:3000"},
+             exposedHeaders = HttpHeaders.CONTENT_DISPOSITION)
+public class ExportacionController {
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @GetMapping("/cursos")
+    public ResponseEntity<?> exportarCursos(@RequestParam(defaultValue = "csv") String formato) {
+        FormatoExportacion tipo;
+        try {
+            tipo = FormatoExportacion.desde(formato);
+        } catch (IllegalArgumentException e) {
+            return formatoInvalido(e);
+        }
+        System.out.println("📤 Exportando cursos en formato " + tipo.getExtension());
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarCursos(tipo, salida);
+        return descarga("cursos", tipo, cuerpo);
+    }
+
+    @GetMapping("/alumnos")
+    public ResponseEntity<?> exportarAlumnos(@RequestParam(defaultValue = "csv") String formato) {
+        FormatoExportacion tipo;
+        try {
+            tipo = FormatoExportacion.desde(formato);
+        } catch (IllegalArgumentException e) {
+            return formatoInvalido(e);
+        }
+        System.out.println("📤 Exportando alumnos en formato " + tipo.getExtension());
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarAlumnos(tipo, salida);
+        return descarga("alumnos", tipo, cuerpo);
+    }
+
+    /**
+     * ZIP con los archivos de evidencia de un curso, de una empresa y/o de un rango de fechas
+     * de subida (desde y hasta en formato AAAA-MM-DD, ambos inclusive).
+     */
+    @GetMapping("/evidencias")
+    public ResponseEntity<?> exportarEvidencias(@RequestParam(required = false) Integer cursoId,
+                                                @RequestParam(required = false) Integer empresaId,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        if (cursoId == null && empresaId == null && desde == null && hasta == null) {
+            return formatoInvalido(new IllegalArgumentException("Indique cursoId, empresaId o un rango de fechas"));
+        }
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            return formatoInvalido(new IllegalArgumentException("La fecha final no puede ser anterior a la inicial"));
+        }
+
+        StringBuilder archivo = new StringBuilder("evidencias");
+        if (cursoId != null) archivo.append("_curso").append(cursoId);
+        if (empresaId != null) archivo.append("_empresa").append(empresaId);
+        if (desde != null) archivo.append("_desde").append(desde);
+        if (hasta != null) archivo.append("_hasta").append(hasta);
+        archivo.append(".zip");
+
+        System.out.println("📤 Exportando evidencias en ZIP: " + archivo);
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarEvidencias(cursoId, empresaId, desde, hasta, salida);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(cuerpo);
+    }
+
+    private ResponseEntity<StreamingResponseBody> descarga(String nombre, FormatoExportacion tipo,
+                                                           StreamingResponseBody cuerpo) {
+        String archivo = nombre + "_" + LocalDate.now() + "." + tipo.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .contentType(MediaType.parseMediaType(tipo.getContentType()))
+                .body(cuerpo);
+    }
+
+    private ResponseEntity<Map<String, Object>> formatoInvalido(IllegalArgumentException e) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+}
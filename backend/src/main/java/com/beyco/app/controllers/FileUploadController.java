@@ -1,6 +1,12 @@
 // controllers/FileUploadController.java
 package com.beyco.app.controllers;
 
+import com.beyco.app.models.Usuario;
+import com.beyco.app.services.AlmacenArchivosService;
+import com.beyco.app.services.EmpresaService;
+import com.beyco.app.services.MiniaturaService;
+import com.beyco.app.services.UsuarioService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,7 +18,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/upload")
@@ -29,6 +35,18 @@ public class FileUploadController {
     @Value("${file.upload-dir:uploads/logos}")
     private String uploadDir;
 
+    @Autowired
+    private AlmacenArchivosService almacenArchivos;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private EmpresaService empresaService;
+
+    @Autowired
+    private MiniaturaService miniaturaService;
+
     // Subir logo de empresa
     @PostMapping("/logo")
     public ResponseEntity<?> uploadLogo(
@@ -50,24 +68,15 @@ public class FileUploadController {
                 return ResponseEntity.badRequest().body("{\"error\": \"Solo se permiten archivos de imagen\"}");
             }
             
-            // Crear directorio si no existe
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // Generar nombre único para el archivo
-            String originalFileName = file.getOriginalFilename();
-            String fileExtension = "";
-            if (originalFileName != null && originalFileName.contains(".")) {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            // Guardar en el almacén por contenido: un logo idéntico ya subido no se vuelve a escribir.
+            // La referencia de la subida pasa a la empresa y el logo anterior se libera.
+            String fileName = almacenArchivos.guardar(file);
+            if (!empresaService.reemplazarLogo(empresaId, fileName)) {
+                almacenArchivos.liberar(fileName);
+                return ResponseEntity.notFound().build();
             }
-            
-            String fileName = "logo_" + empresaId + "_" + UUID.randomUUID() + fileExtension;
-            Path filePath = uploadPath.resolve(fileName);
-            
-            // Guardar archivo
-            Files.copy(file.getInputStream(), filePath);
+            Path filePath = Paths.get("uploads").resolve(fileName);
+            miniaturaService.programar(fileName);
             
             // Devolver información del archivo guardado
             Map<String, Object> response = new HashMap<>();
@@ -75,6 +84,7 @@ public class FileUploadController {
             response.put("message", "Logo subido correctamente");
             response.put("fileName", fileName);
             response.put("filePath", filePath.toString());
+            response.put("url", "/" + fileName);
             response.put("fileSize", file.getSize());
             response.put("contentType", contentType);
             
@@ -93,13 +103,80 @@ public class FileUploadController {
         }
     }
 
-    // Obtener información de un logo
-    @GetMapping("/logo/{fileName}")
+    // Subir firma de un usuario (se guarda en el almacén por contenido y reemplaza la anterior)
+    @PostMapping("/firma")
+    public ResponseEntity<?> uploadFirma(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("usuarioId") int usuarioId) {
+        
+        try {
+            System.out.println("📤 Subiendo firma para usuario ID: " + usuarioId);
+            
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body("{\"error\": \"El archivo está vacío\"}");
+            }
+            
+            String contentType = file.getContentType();
+            if (contentType == null || !contentType.startsWith("image/")) {
+                return ResponseEntity.badRequest().body("{\"error\": \"Solo se permiten archivos de imagen\"}");
+            }
+            
+            Optional<Usuario> usuario = usuarioService.buscarPorId(usuarioId);
+            if (usuario.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String firmaAnterior = usuario.get().getFirma();
+            
+            String fileName = almacenArchivos.guardar(file);
+            if (!usuarioService.actualizarFirma(usuarioId, fileName)) {
+                almacenArchivos.liberar(fileName);
+                return ResponseEntity.status(500).body("{\"error\": \"No se pudo actualizar la firma\"}");
+            }
+            
+            // Solo se liberan firmas del almacén; las rutas antiguas pueden estar compartidas
+            if (AlmacenArchivosService.esBlob(firmaAnterior) && !firmaAnterior.equals(fileName)) {
+                almacenArchivos.liberar(firmaAnterior);
+            } else if (fileName.equals(firmaAnterior)) {
+                // Misma firma otra vez: no sumar una segunda referencia del mismo usuario
+                almacenArchivos.liberar(fileName);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Firma subida correctamente");
+            response.put("fileName", fileName);
+            response.put("url", "/" + fileName);
+            response.put("fileSize", file.getSize());
+            
+            System.out.println("✅ Firma guardada: " + fileName);
+            return ResponseEntity.ok(response);
+            
+        } catch (IOException e) {
+            System.err.println("❌ Error al subir firma: " + e.getMessage());
+            e.printStackTrace();
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Error al subir el archivo: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+
+    // Obtener información de un logo: blobs/aa/bb/<sha>.ext en uploads, o el nombre antiguo en uploads/logos
+    @GetMapping("/logo/{*fileName}")
     public ResponseEntity<?> getLogoInfo(@PathVariable String fileName) {
         try {
-            Path filePath = Paths.get(uploadDir, fileName);
+            fileName = fileName.startsWith("/") ? fileName.substring(1) : fileName;
+            Path filePath;
+            if (AlmacenArchivosService.esBlob(fileName)) {
+                filePath = almacenArchivos.rutaEnDisco(fileName);
+            } else {
+                Path base = Paths.get(uploadDir).toAbsolutePath().normalize();
+                filePath = base.resolve(fileName).normalize();
+                filePath = filePath.startsWith(base) ? filePath : null;
+            }
             
-            if (!Files.exists(filePath)) {
+            if (filePath == null || !Files.isRegularFile(filePath)) {
                 return ResponseEntity.notFound().build();
             }
             
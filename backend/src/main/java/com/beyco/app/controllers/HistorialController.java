@@ -1,12 +1,15 @@
 package com.beyco.app.controllers;
 
 import com.beyco.app.models.Curso;
-import com.beyco.app.services.CursoService;
+import com.beyco.app.models.HistorialCurso;
+import com.beyco.app.services.HistorialCursoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/historial")
@@ -16,7 +19,7 @@ import java.util.List;
 public class HistorialController {
     
     @Autowired
-    private CursoService cursoService;
+    private HistorialCursoService historialCursoService;
 
     // Endpoint de prueba para verificar conexión
     @GetMapping("/test")
@@ -28,7 +31,7 @@ public class HistorialController {
     @GetMapping("/cursos")
     public ResponseEntity<List<Curso>> getAllCursosHistorial() {
         try {
-            List<Curso> cursos = cursoService.listarTodosLosCursos();
+            List<Curso> cursos = historialCursoService.listarCursos();
             return ResponseEntity.ok(cursos);
         } catch (Exception e) {
             e.printStackTrace();
@@ -40,7 +43,7 @@ public class HistorialController {
     @GetMapping("/cursos/anio/{anio}")
     public ResponseEntity<List<Curso>> getCursosPorAnio(@PathVariable int anio) {
         try {
-            List<Curso> cursos = cursoService.listarCursosPorAnio(anio);
+            List<Curso> cursos = historialCursoService.listarCursosPorAnio(anio);
             return ResponseEntity.ok(cursos);
         } catch (Exception e) {
             e.printStackTrace();
@@ -52,11 +55,84 @@ public class HistorialController {
     @GetMapping("/cursos/estado/{estado}")
     public ResponseEntity<List<Curso>> getCursosPorEstado(@PathVariable String estado) {
         try {
-            List<Curso> cursos = cursoService.listarCursosPorEstado(estado);
+            List<Curso> cursos = historialCursoService.listarCursosPorEstado(estado);
             return ResponseEntity.ok(cursos);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    // Historial completo con status por fecha
+    @GetMapping("/completo")
+    public ResponseEntity<List<HistorialCurso>> getHistorialCompleto() {
+        try {
+            return ResponseEntity.ok(historialCursoService.obtenerHistorialCompleto());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Resúmenes precalculados de los años cerrados
+    @GetMapping("/resumenes")
+    public ResponseEntity<List<Map<String, Object>>> getResumenes() {
+        try {
+            return ResponseEntity.ok(historialCursoService.listarResumenes());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Resumen de un año (precalculado si está cerrado)
+    @GetMapping("/resumenes/{anio}")
+    public ResponseEntity<Map<String, Object>> getResumen(@PathVariable int anio) {
+        try {
+            return ResponseEntity.ok(historialCursoService.obtenerResumen(anio));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Cierra los años pendientes hasta el indicado (normalmente lo hace la tarea programada)
+    @PostMapping("/cerrar/{anio}")
+    public ResponseEntity<Map<String, Object>> cerrarAnios(@PathVariable int anio) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("aniosCerrados", historialCursoService.cerrarAniosHasta(anio));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al cerrar años: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    // Vuelve a archivar un año cerrado tras corregir sus cursos
+    @PostMapping("/reconstruir/{anio}")
+    public ResponseEntity<Map<String, Object>> reconstruirAnio(@PathVariable int anio) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("resumen", historialCursoService.reconstruirAnio(anio));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al reconstruir el año: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+}
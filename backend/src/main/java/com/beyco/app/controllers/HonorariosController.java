@@ -1,18 +1,24 @@
 package com.beyco.app.controllers;
 
+import com.beyco.app.json.RespuestaJsonEnFlujo;
 import com.beyco.app.models.HonorariosInstructorDTO;
 import com.beyco.app.models.PagoInstructor;
 import com.beyco.app.models.Usuario;
 import com.beyco.app.services.HonorariosService;
+import com.beyco.app.services.SugerenciasService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/honorarios")
@@ -21,74 +27,26 @@ import java.util.Map;
                        "http://10.0.45.30:3000", "http://10.0.43.190:3000"})
 public class HonorariosController {
 
+    private static final int LIMITE_MAXIMO_BUSQUEDA = 100;
+
     @Autowired
     private HonorariosService honorariosService;
 
-    // Endpoint para ver todos los cursos (debug) - CORREGIDO
+    @Autowired
+    private RespuestaJsonEnFlujo respuestaJsonEnFlujo;
+
+    // Endpoint para ver todos los cursos (debug) - en flujo, fila por fila desde la BD
     @GetMapping("/cursos")
-    public ResponseEntity<?> listarTodosLosCursos() {
-        try {
-            System.out.println("📊 Solicitando lista de todos los cursos");
-            List<PagoInstructor> cursos = honorariosService.obtenerTodosLosCursos();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", cursos);
-            response.put("total", cursos.size());
-            
-            System.out.println("✅ Cursos encontrados: " + cursos.size());
-            for (PagoInstructor curso : cursos) {
-                System.out.println("Curso - Instructor ID: " + curso.getInstructorId() + 
-                                 ", Fecha: " + curso.getFechaPago() +
-                                 ", Monto: " + curso.getMonto() +
-                                 ", Horas: " + curso.getHorasImpartidas() +
-                                 ", Observaciones: " + curso.getObservaciones());
-            }
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            System.out.println("❌ Error al obtener cursos: " + e.getMessage());
-            e.printStackTrace();
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("error", "Error al obtener cursos: " + e.getMessage());
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+    public ResponseEntity<StreamingResponseBody> listarTodosLosCursos() {
+        System.out.println("📊 Solicitando lista de todos los cursos");
+        return respuestaJsonEnFlujo.envuelta("cursos", "data", honorariosService::recorrerTodosLosCursos);
     }
 
-    // Endpoint para ver todos los pagos (debug) - CORREGIDO
+    // Endpoint para ver todos los pagos (debug) - en flujo, fila por fila desde la BD
     @GetMapping("/pagos")
-    public ResponseEntity<?> listarTodosLosPagos() {
-        try {
-            System.out.println("💰 Solicitando lista de todos los pagos");
-            List<PagoInstructor> pagos = honorariosService.obtenerTodosLosPagos();
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("data", pagos);
-            response.put("total", pagos.size());
-            
-            System.out.println("✅ Pagos encontrados: " + pagos.size());
-            for (PagoInstructor pago : pagos) {
-                System.out.println("Pago ID: " + pago.getId() + 
-                                 ", Instructor ID: " + pago.getInstructorId() +
-                                 ", Fecha: " + pago.getFechaPago() +
-                                 ", Monto: " + pago.getMonto() +
-                                 ", Estatus: " + pago.getEstatus() +
-                                 ", Observaciones: " + pago.getObservaciones());
-            }
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            System.out.println("❌ Error al obtener pagos: " + e.getMessage());
-            e.printStackTrace();
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("error", "Error al obtener pagos: " + e.getMessage());
-            return ResponseEntity.status(500).body(errorResponse);
-        }
+    public ResponseEntity<StreamingResponseBody> listarTodosLosPagos() {
+        System.out.println("💰 Solicitando lista de todos los pagos");
+        return respuestaJsonEnFlujo.envuelta("pagos", "data", honorariosService::recorrerTodosLosPagos);
     }
 
     // Obtener lista de instructores activos
@@ -221,6 +179,96 @@ public class HonorariosController {
         }
     }
 
+    // Nómina del periodo: cursos pendientes de todos los instructores con sus totales, en una sola consulta
+    @GetMapping("/nomina")
+    public ResponseEntity<?> calcularNomina(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            System.out.println("📋 Calculando nómina de honorarios " + fechaInicio + " a " + fechaFin);
+            response.put("success", true);
+            response.put("data", honorariosService.calcularNomina(fechaInicio, fechaFin));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.out.println("❌ Error al calcular nómina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al calcular nómina: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    // Paga todos los cursos pendientes del periodo en una transacción.
+    // Body: {fechaInicio, fechaFin, instructores?: [ids]} (sin instructores = todos)
+    @PostMapping("/nomina/pagar")
+    public ResponseEntity<?> pagarNomina(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        if (!(request.get("fechaInicio") instanceof String) || !(request.get("fechaFin") instanceof String)) {
+            response.put("success", false);
+            response.put("error", "Se requieren fechaInicio y fechaFin (AAAA-MM-DD)");
+            return ResponseEntity.badRequest().body(response);
+        }
+        Set<Integer> instructores;
+        try {
+            instructores = idsInstructores(request.get("instructores"));
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            LocalDate fechaInicio = LocalDate.parse((String) request.get("fechaInicio"));
+            LocalDate fechaFin = LocalDate.parse((String) request.get("fechaFin"));
+
+            System.out.println("💰 Pagando nómina de honorarios " + fechaInicio + " a " + fechaFin +
+                              (instructores != null ? " para instructores " + instructores : ""));
+            response.put("success", true);
+            response.put("data", honorariosService.pagarNomina(fechaInicio, fechaFin, instructores));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("success", false);
+            response.put("error", "Periodo no válido: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            // Otra operación pagó alguno de los cursos: no se registró nada
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(409).body(response);
+        } catch (Exception e) {
+            System.out.println("💥 Error al pagar nómina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al pagar nómina: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    // "instructores" del body: lista de números de empleado, como número o texto; null = todos
+    private static Set<Integer> idsInstructores(Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (!(valor instanceof List<?> lista) || lista.isEmpty()) {
+            throw new IllegalArgumentException("instructores debe ser una lista no vacía de números de empleado");
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Object elemento : lista) {
+            if (elemento instanceof Integer id) {
+                ids.add(id);
+            } else if (elemento instanceof String texto && texto.trim().matches("\\d{1,9}")) {
+                ids.add(Integer.parseInt(texto.trim()));
+            } else {
+                throw new IllegalArgumentException("Número de empleado no válido en instructores: " + elemento);
+            }
+        }
+        return ids;
+    }
+
     // Endpoint de salud para verificar que el controller está funcionando
     @GetMapping("/health")
     public ResponseEntity<?> healthCheck() {
@@ -297,10 +345,12 @@ public class HonorariosController {
 
     // Buscar instructores por criterio
     @GetMapping("/instructores/buscar")
-    public ResponseEntity<?> buscarInstructores(@RequestParam("criterio") String criterio) {
+    public ResponseEntity<?> buscarInstructores(@RequestParam("criterio") String criterio,
+            @RequestParam(defaultValue = "" + SugerenciasService.MAXIMO_SUGERENCIAS) int limite) {
         try {
             System.out.println("🔍 Buscando instructores con criterio: " + criterio);
-            List<Usuario> instructores = honorariosService.buscarInstructores(criterio);
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_BUSQUEDA));
+            List<Usuario> instructores = honorariosService.buscarInstructores(criterio, limiteSeguro);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -12,7 +12,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/inscripciones")
@@ -106,6 +109,44 @@ public class InscripcionController {
         }
     }
 
+    /**
+     * Inscribe varios alumnos a un curso: {"cursoId": 1, "curps": ["...", "..."]}
+     * Devuelve el resultado de cada CURP (inscrito, ya_inscrito, no_encontrado, repetido o invalido)
+     * y los totales por resultado. Todo se hace en una transacción con pocas consultas.
+     */
+    @PostMapping("/inscribir/masiva")
+    public ResponseEntity<Map<String, Object>> inscribirAlumnos(@RequestBody InscripcionMasivaRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            System.out.println("👥 Inscripción masiva al curso " + request.getCursoId() + ": " +
+                              (request.getCurps() != null ? request.getCurps().size() : 0) + " CURP");
+            List<InscripcionService.ResultadoInscripcion> resultados =
+                    inscripcionService.inscribirAlumnos(request.getCursoId(), request.getCurps());
+
+            Map<String, Integer> totales = new LinkedHashMap<>();
+            for (InscripcionService.ResultadoInscripcion resultado : resultados) {
+                totales.merge(resultado.resultado(), 1, Integer::sum);
+            }
+
+            response.put("success", true);
+            response.put("cursoId", request.getCursoId());
+            response.put("resultados", resultados);
+            response.put("totales", totales);
+            response.put("inscritos", totales.getOrDefault(InscripcionService.INSCRITO, 0));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error en inscripción masiva: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al inscribir alumnos: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     /**
      * Crea un nuevo alumno
      */
@@ -152,6 +193,19 @@ public class InscripcionController {
         public void setCursoId(int cursoId) { this.cursoId = cursoId; }
     }
 
+    /**
+     * Request de la inscripción masiva
+     */
+    public static class InscripcionMasivaRequest {
+        private int cursoId;
+        private List<String> curps;
+
+        public int getCursoId() { return cursoId; }
+        public void setCursoId(int cursoId) { this.cursoId = cursoId; }
+        public List<String> getCurps() { return curps; }
+        public void setCurps(List<String> curps) { this.curps = curps; }
+    }
+
     /**
      * Verifica si un alumno ya existe por CURP
      */
@@ -0,0 +1,61 @@
+package com.beyco.app.controllers;
+
+import com.beyco.app.db.RevisorConsultas;
+import com.beyco.app.services.MigracionArchivosService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/mantenimiento")
+@CrossOrigin(origins = {"http://localhost:3000", "http://192.168.0.55:3000", "http://10.0.43.69:3000",
+                        "http://10.0.47.108:3000", "http://10.0.45.30:3000", "http://10.0.43.190:3000"})
+public class MantenimientoController {
+
+    @Autowired
+    private MigracionArchivosService migracionArchivosService;
+
+    @Autowired
+    private RevisorConsultas revisorConsultas;
+
+    /**
+     * Inicia en segundo plano la migración de archivos al esquema de directorios de dos niveles.
+     */
+    @PostMapping("/archivos/migrar")
+    public ResponseEntity<Map<String, Object>> iniciarMigracionArchivos(@RequestParam(required = false) Integer tamanoLote) {
+        boolean iniciada = migracionArchivosService.iniciar(tamanoLote);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", iniciada);
+        response.put("estado", migracionArchivosService.estado());
+        if (!iniciada) {
+            response.put("error", "Ya hay una migración de archivos en curso");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        System.out.println("🚚 Migración de archivos iniciada");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/archivos/migrar")
+    public ResponseEntity<Map<String, Object>> estadoMigracionArchivos() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("estado", migracionArchivosService.estado());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Vuelve a ejecutar EXPLAIN sobre las consultas registradas (p. ej. después de aplicar una migración).
+     */
+    @GetMapping("/consultas/revisar")
+    public ResponseEntity<Map<String, Object>> revisarConsultas() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("recorridosCompletos", revisorConsultas.revisar());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,100 @@
+package com.beyco.app.controllers;
+
+import com.beyco.app.models.Empresa;
+import com.beyco.app.models.Evidencia;
+import com.beyco.app.services.AlmacenArchivosService;
+import com.beyco.app.services.EmpresaService;
+import com.beyco.app.services.EvidenciaService;
+import com.beyco.app.services.MiniaturaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Miniaturas de evidencias y logos para las pantallas de revisión y listados.
+ */
+@RestController
+@RequestMapping("/api/miniaturas")
+@CrossOrigin(origins = {"http://localhost:3000", "http://192.168.0.55:3000", 
+                       "http://10.0.46.106:3000", "http://10.0.47.108:3000", 
+                       "http://10.0.45.30:3000", "http://10.0.43.190:3000"})
+public class MiniaturaController {
+
+    // El archivo de una evidencia no cambia: la miniatura se puede guardar en caché un año
+    private static final CacheControl CACHE_EVIDENCIA = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // El logo de una empresa puede reemplazarse: caché de un día y revalidación con ETag
+    private static final CacheControl CACHE_LOGO = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+    private static final String REINTENTAR_EN_SEGUNDOS = "5";
+
+    @Autowired
+    private MiniaturaService miniaturaService;
+
+    @Autowired
+    private EvidenciaService evidenciaService;
+
+    @Autowired
+    private EmpresaService empresaService;
+
+    @GetMapping("/evidencia/{idEvidencia}")
+    public ResponseEntity<Resource> miniaturaEvidencia(@PathVariable int idEvidencia) {
+        try {
+            Evidencia evidencia = evidenciaService.obtenerEvidenciaPorId(idEvidencia);
+            if (evidencia == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            return responder(evidencia.getArchivoRuta(), CACHE_EVIDENCIA);
+        } catch (Exception e) {
+            System.out.println("❌ Error al obtener miniatura de evidencia " + idEvidencia + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/empresa/{empresaId}")
+    public ResponseEntity<Resource> miniaturaLogo(@PathVariable int empresaId) {
+        try {
+            Empresa empresa = empresaService.buscarPorId(empresaId);
+            if (empresa == null || empresa.getLogo() == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            // Logos anteriores al almacén viven en uploads/logos
+            String ruta = AlmacenArchivosService.esBlob(empresa.getLogo()) ? empresa.getLogo() : "logos/" + empresa.getLogo();
+            return responder(ruta, CACHE_LOGO);
+        } catch (Exception e) {
+            System.out.println("❌ Error al obtener miniatura del logo de empresa " + empresaId + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private ResponseEntity<Resource> responder(String ruta, CacheControl cache) throws Exception {
+        Path miniatura;
+        try {
+            miniatura = miniaturaService.obtenerMiniatura(ruta);
+        } catch (RejectedExecutionException e) {
+            // Grupo de miniaturas saturado: el cliente reintenta en unos segundos
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, REINTENTAR_EN_SEGUNDOS)
+                    .build();
+        }
+        if (miniatura == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        long modificado = Files.getLastModifiedTime(miniatura).toMillis();
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .cacheControl(cache)
+                .eTag("\"" + miniatura.getFileName() + "-" + Long.toHexString(modificado) + "\"")
+                .lastModified(modificado)
+                .body(new FileSystemResource(miniatura));
+    }
+}
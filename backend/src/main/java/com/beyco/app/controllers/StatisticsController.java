@@ -49,4 +49,25 @@ public class StatisticsController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    // Recalcula los contadores contra la BD (p. ej. tras cargar datos directamente en MySQL)
+    @PostMapping("/sistema/conciliar")
+    public ResponseEntity<?> conciliarEstadisticas() {
+        try {
+            statisticsService.conciliar();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", statisticsService.obtenerEstadisticasSistema());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            System.out.println("❌ Error al conciliar estadísticas: " + e.getMessage());
+            
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Error al conciliar estadísticas del sistema");
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+}
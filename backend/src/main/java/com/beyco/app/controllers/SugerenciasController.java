@@ -0,0 +1,75 @@
+package com.beyco.app.controllers;
+
+import com.beyco.app.services.SugerenciasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sugerencias")
+@CrossOrigin(origins = {
+    "http://localhost:3000",
+    "http://192.168.0.55:3000",
+    "http://10.0.43.69:3000",
+    "http://10.0.47.108:3000",
+    "http://10.0.45.30:3000",
+    "http://10.0.43.190:3000"
+})
+public class SugerenciasController {
+
+    private static final int LIMITE_MAXIMO = 50;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    /**
+     * Autocompletado: ?q=texto&tipo=(empresas|instructores|todos)&limite=10
+     * Se llama en cada tecla, así que responde desde memoria sin consultar la BD.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> sugerir(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "todos") String tipo,
+            @RequestParam(defaultValue = "" + SugerenciasService.MAXIMO_SUGERENCIAS) int limite) {
+        Map<String, Object> response = new HashMap<>();
+        boolean empresas = tipo.equalsIgnoreCase("empresas") || tipo.equalsIgnoreCase("todos");
+        boolean instructores = tipo.equalsIgnoreCase("instructores") || tipo.equalsIgnoreCase("todos");
+        if (!empresas && !instructores) {
+            response.put("success", false);
+            response.put("error", "Tipo no válido: " + tipo + " (use empresas, instructores o todos)");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+            if (empresas) {
+                response.put("empresas", sugerenciasService.sugerirEmpresas(q, limiteSeguro));
+            }
+            if (instructores) {
+                response.put("instructores", sugerenciasService.sugerirInstructores(q, limiteSeguro));
+            }
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error al obtener sugerencias: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener sugerencias: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * Tamaño y tiempos de los índices de sugerencias
+     */
+    @GetMapping("/metricas")
+    public Map<String, Object> obtenerMetricas() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("indices", sugerenciasService.metricas());
+        return response;
+    }
+}
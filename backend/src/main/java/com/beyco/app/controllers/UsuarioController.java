@@ -1,5 +1,6 @@
 package com.beyco.app.controllers;
 
+import com.beyco.app.db.Pagina;
 import com.beyco.app.models.Usuario;
 import com.beyco.app.services.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +25,8 @@ import java.util.stream.Collectors;
 })
 public class UsuarioController {
 
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+
     @Autowired
     private UsuarioService usuarioService;
 
@@ -303,6 +306,38 @@ public class UsuarioController {
         }
     }
 
+    /**
+     * Página por cursor: ?limite=20&orden=(numEmpleado|nombre)&cursor=...
+     * La primera página se pide sin cursor; la siguiente con el valor de "siguiente" (null en la última).
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<Map<String, Object>> getUsuariosPagina(
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int limiteSeguro = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+            Pagina<Usuario> pagina = usuarioService.listarUsuariosPagina(orden, cursor, limiteSeguro);
+
+            response.put("success", true);
+            response.put("usuarios", pagina.filas().stream().map(this::usuarioToMap).collect(Collectors.toList()));
+            response.put("total", pagina.filas().size());
+            response.put("siguiente", pagina.siguiente());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            System.err.println("❌ Error en getUsuariosPagina: " + e.getMessage());
+            e.printStackTrace();
+            response.put("success", false);
+            response.put("error", "Error al obtener la página: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     @GetMapping("/activos")
     public ResponseEntity<?> getUsuariosActivos() {
         System.out.println("🎯 GET /api/usuarios/activos");
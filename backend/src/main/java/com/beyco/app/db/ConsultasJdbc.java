@@ -0,0 +1,146 @@
+package com.beyco.app.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta consultas de lectura y convierte cada fila con un {@link MapeadorFila}.
+ *
+ * Los métodos lanzan SQLException para que cada servicio conserve su propio
+ * manejo de errores y mensajes.
+ */
+@Component
+public class ConsultasJdbc {
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public ConsultasJdbc(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Ejecuta la consulta y devuelve todas las filas como lista.
+     */
+    public <T> List<T> listar(String sql, ParametrosConsulta parametros, MapeadorFila<T> mapeador) throws SQLException {
+        List<T> resultado = new ArrayList<>();
+        recorrer(sql, parametros, mapeador, resultado::add);
+        return resultado;
+    }
+
+    public <T> List<T> listar(String sql, MapeadorFila<T> mapeador) throws SQLException {
+        return listar(sql, ParametrosConsulta.NINGUNO, mapeador);
+    }
+
+    /**
+     * Devuelve una página ordenada por llave (ver {@link OrdenPagina}). La consulta base debe
+     * terminar en su WHERE, sin parámetros (p. ej. "... WHERE Activo = 1" o "... WHERE 1 = 1");
+     * aquí se agregan la condición del cursor, el ORDER BY y el LIMIT.
+     * Se pide una fila de más para saber si hay página siguiente sin contar el total.
+     */
+    public <T> Pagina<T> pagina(String consultaBase, OrdenPagina<T> orden, String cursor, int limite,
+                                MapeadorFila<T> mapeador) throws SQLException {
+        Object[] llave = cursor != null && !cursor.isBlank() ? orden.decodificar(cursor) : null;
+        String sql = consultaBase +
+                (llave != null ? " AND " + orden.condicion() : "") +
+                " ORDER BY " + orden.ordenarPor() + " LIMIT ?";
+
+        List<T> filas = listar(sql, pstmt -> {
+            int indice = 1;
+            if (llave != null) {
+                indice = orden.asignar(pstmt, indice, llave);
+            }
+            pstmt.setInt(indice, limite + 1);
+        }, mapeador);
+
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null);
+        }
+        filas.remove(limite);
+        return new Pagina<>(filas, orden.codificar(filas.get(limite - 1)));
+    }
+
+    /**
+     * Ejecuta la consulta y devuelve la primera fila, o null si no hay resultados.
+     */
+    public <T> T primero(String sql, ParametrosConsulta parametros, MapeadorFila<T> mapeador) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            parametros.asignar(pstmt);
+            pstmt.setMaxRows(1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapeador.mapearFila(rs, mapeador.indices(sql, rs));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Entrega cada fila al callback conforme se lee, sin acumularlas en memoria.
+     * Devuelve el número de filas procesadas.
+     */
+    public <T> int recorrer(String sql, ParametrosConsulta parametros, MapeadorFila<T> mapeador,
+                            Consumer<? super T> callback) throws SQLException {
+        int filas = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            parametros.asignar(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int[] indices = null;
+                while (rs.next()) {
+                    if (indices == null) {
+                        indices = mapeador.indices(sql, rs);
+                    }
+                    callback.accept(mapeador.mapearFila(rs, indices));
+                    filas++;
+                }
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Recorre un resultado grande con un cursor de solo avance y solo lectura.
+     *
+     * Con fetch size Integer.MIN_VALUE el driver de MySQL entrega las filas una a una
+     * desde el socket en lugar de cargar todo el resultado en memoria, por lo que el
+     * consumo de heap no depende del número de filas. La conexión queda ocupada hasta
+     * terminar el recorrido, así que el procesador no debe lanzar otras consultas.
+     */
+    public <T> int recorrerEnFlujo(String sql, ParametrosConsulta parametros, MapeadorFila<T> mapeador,
+                                   ProcesadorFila<? super T> procesador) throws SQLException, IOException {
+        int filas = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            parametros.asignar(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int[] indices = null;
+                while (rs.next()) {
+                    if (indices == null) {
+                        indices = mapeador.indices(sql, rs);
+                    }
+                    procesador.procesar(mapeador.mapearFila(rs, indices));
+                    filas++;
+                }
+            }
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,115 @@
+package com.beyco.app.db;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Convierte una fila de un ResultSet en un modelo.
+ *
+ * Cada mapeador declara las columnas que sabe leer. La posición de esas columnas se
+ * calcula una sola vez por forma de consulta (texto SQL) y se reutiliza en cada fila,
+ * evitando la búsqueda por nombre de rs.getXxx("Columna") en cada lectura.
+ * Las columnas que la consulta no selecciona quedan con índice -1 y el mapeador las omite.
+ */
+public abstract class MapeadorFila<T> {
+
+    // Límite de formas de consulta recordadas (p. ej. listas IN de distinto tamaño)
+    private static final int MAXIMO_FORMAS = 256;
+
+    private final String[] columnas;
+    private final Map<String, int[]> indicesPorConsulta = new ConcurrentHashMap<>();
+
+    protected MapeadorFila(String... columnas) {
+        this.columnas = columnas;
+    }
+
+    /**
+     * Lee la fila actual usando los índices precalculados (en el orden de las columnas declaradas).
+     */
+    protected abstract T mapear(ResultSet rs, int[] c) throws SQLException;
+
+    /**
+     * Devuelve los índices de las columnas para esta consulta, resolviéndolos la primera vez.
+     */
+    public int[] indices(String sql, ResultSet rs) throws SQLException {
+        int[] indices = indicesPorConsulta.get(sql);
+        if (indices == null) {
+            indices = resolver(rs.getMetaData());
+            if (indicesPorConsulta.size() >= MAXIMO_FORMAS) {
+                indicesPorConsulta.clear();
+            }
+            indicesPorConsulta.put(sql, indices);
+        }
+        return indices;
+    }
+
+    public T mapearFila(ResultSet rs, int[] indices) throws SQLException {
+        return mapear(rs, indices);
+    }
+
+    private int[] resolver(ResultSetMetaData meta) throws SQLException {
+        int[] indices = new int[columnas.length];
+        int total = meta.getColumnCount();
+        for (int i = 0; i < columnas.length; i++) {
+            indices[i] = -1;
+            for (int col = 1; col <= total; col++) {
+                if (columnas[i].equalsIgnoreCase(meta.getColumnLabel(col))) {
+                    indices[i] = col;
+                    break;
+                }
+            }
+        }
+        return indices;
+    }
+
+    // ========== LECTORES NULL-SAFE ==========
+
+    protected static boolean existe(int indice) {
+        return indice > 0;
+    }
+
+    protected static String texto(ResultSet rs, int indice) throws SQLException {
+        return indice > 0 ? rs.getString(indice) : null;
+    }
+
+    protected static int entero(ResultSet rs, int indice) throws SQLException {
+        return indice > 0 ? rs.getInt(indice) : 0;
+    }
+
+    protected static boolean booleano(ResultSet rs, int indice, boolean porDefecto) throws SQLException {
+        return indice > 0 ? rs.getBoolean(indice) : porDefecto;
+    }
+
+    protected static LocalDate fecha(ResultSet rs, int indice) throws SQLException {
+        if (indice <= 0) {
+            return null;
+        }
+        Date fecha = rs.getDate(indice);
+        return fecha != null ? fecha.toLocalDate() : null;
+    }
+
+    protected static LocalDateTime fechaHora(ResultSet rs, int indice) throws SQLException {
+        if (indice <= 0) {
+            return null;
+        }
+        Timestamp fechaHora = rs.getTimestamp(indice);
+        return fechaHora != null ? fechaHora.toLocalDateTime() : null;
+    }
+
+    protected static BigDecimal decimal(ResultSet rs, int indice) throws SQLException {
+        return indice > 0 ? rs.getBigDecimal(indice) : null;
+    }
+
+    protected static BigDecimal decimalOCero(ResultSet rs, int indice) throws SQLException {
+        BigDecimal valor = indice > 0 ? rs.getBigDecimal(indice) : null;
+        return valor != null ? valor : BigDecimal.ZERO;
+    }
+}
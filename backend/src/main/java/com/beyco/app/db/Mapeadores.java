@@ -0,0 +1,207 @@
+package com.beyco.app.db;
+
+import com.beyco.app.models.Alumno;
+import com.beyco.app.models.CatalogoCurso;
+import com.beyco.app.models.Curso;
+import com.beyco.app.models.Empresa;
+import com.beyco.app.models.Evidencia;
+import com.beyco.app.models.PagoInstructor;
+import com.beyco.app.models.Usuario;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Mapeadores compartidos por los servicios JDBC.
+ * Son instancias únicas para que el caché de índices por consulta se reutilice.
+ */
+public final class Mapeadores {
+
+    private Mapeadores() {
+    }
+
+    /**
+     * Curso con el nombre del instructor (columnas del SELECT de CursoService).
+     * El nombre de la empresa y precio, horas y examen práctico los completa CursoService
+     * desde sus cachés; si la consulta los trae, también se leen aquí.
+     */
+    public static final MapeadorFila<Curso> CURSO = new MapeadorFila<>(
+            "Id_Curso", "Nombre_curso", "Clave_STPS", "Horas", "Fecha_Imparticion",
+            "nombre_empresa", "nombre_instructor", "Lugar", "Empresa_Id", "Instructor_Id",
+            "Precio", "Pago", "Examen_practico") {
+        @Override
+        protected Curso mapear(ResultSet rs, int[] c) throws SQLException {
+            Curso curso = new Curso();
+            curso.setId(entero(rs, c[0]));
+            curso.setNombre(texto(rs, c[1]));
+            curso.setStps(texto(rs, c[2]));
+
+            int horas = entero(rs, c[3]);
+            curso.setHoras(horas > 0 ? horas : 8);
+
+            curso.setFechaIngreso(fecha(rs, c[4]));
+            curso.setEmpresa(texto(rs, c[5]));
+            curso.setInstructor(texto(rs, c[6]));
+            curso.setLugar(texto(rs, c[7]));
+            curso.setEmpresaId(entero(rs, c[8]));
+            curso.setInstructorId(entero(rs, c[9]));
+            curso.setPrecio(decimalOCero(rs, c[10]));
+            curso.setPago(decimalOCero(rs, c[11]));
+            curso.setCosto(BigDecimal.ZERO);
+            curso.setExamenPractico(booleano(rs, c[12], false));
+            return curso;
+        }
+    };
+
+    public static final MapeadorFila<CatalogoCurso> CATALOGO_CURSO = new MapeadorFila<>(
+            "id_catalogoC", "Nombre", "Clave_STPS", "Precio", "Horas", "Examen_practico", "Estatus") {
+        @Override
+        protected CatalogoCurso mapear(ResultSet rs, int[] c) throws SQLException {
+            return new CatalogoCurso(
+                    entero(rs, c[0]),
+                    texto(rs, c[1]),
+                    texto(rs, c[2]),
+                    decimal(rs, c[3]),
+                    entero(rs, c[4]),
+                    booleano(rs, c[5], false),
+                    texto(rs, c[6]));
+        }
+    };
+
+    public static final MapeadorFila<Alumno> ALUMNO = new MapeadorFila<>(
+            "Curp", "Nombre", "Apellido_paterno", "Apellido_materno", "Fecha_Nacimiento",
+            "Puesto", "Estado_Nacimiento", "RFC", "Activo", "Fecha_Registro") {
+        @Override
+        protected Alumno mapear(ResultSet rs, int[] c) throws SQLException {
+            Alumno alumno = new Alumno();
+            alumno.setCurp(texto(rs, c[0]));
+            alumno.setNombre(texto(rs, c[1]));
+            alumno.setApellidoPaterno(texto(rs, c[2]));
+            alumno.setApellidoMaterno(texto(rs, c[3]));
+            alumno.setFechaNacimiento(fecha(rs, c[4]));
+            alumno.setPuesto(texto(rs, c[5]));
+            alumno.setEstadoNacimiento(texto(rs, c[6]));
+            alumno.setRfc(texto(rs, c[7]));
+            alumno.setActivo(booleano(rs, c[8], true));
+            alumno.setFechaRegistro(fechaHora(rs, c[9]));
+            return alumno;
+        }
+    };
+
+    /**
+     * Alumno junto con el curso en el que está inscrito (columna cursos_Id_Curso de alumnos_has_cursos).
+     */
+    public static final MapeadorFila<Map.Entry<Integer, Alumno>> ALUMNO_CON_CURSO = new MapeadorFila<>(
+            "Curp", "Nombre", "Apellido_paterno", "Apellido_materno", "Fecha_Nacimiento",
+            "Puesto", "Estado_Nacimiento", "RFC", "Activo", "Fecha_Registro", "cursos_Id_Curso") {
+        @Override
+        protected Map.Entry<Integer, Alumno> mapear(ResultSet rs, int[] c) throws SQLException {
+            return Map.entry(entero(rs, c[10]), ALUMNO.mapear(rs, c));
+        }
+    };
+
+    public static final MapeadorFila<Empresa> EMPRESA = new MapeadorFila<>(
+            "Id", "Nombre", "Telefono", "Email", "Direccion", "RFC", "Activo", "Contacto", "Logo") {
+        @Override
+        protected Empresa mapear(ResultSet rs, int[] c) throws SQLException {
+            Empresa empresa = new Empresa();
+            empresa.setId(entero(rs, c[0]));
+            empresa.setNombre(texto(rs, c[1]));
+            empresa.setTelefono(texto(rs, c[2]));
+            empresa.setEmail(texto(rs, c[3]));
+            empresa.setDireccion(texto(rs, c[4]));
+            empresa.setRfc(texto(rs, c[5]));
+            empresa.setActivo(booleano(rs, c[6], false));
+            empresa.setContacto(texto(rs, c[7]));
+            empresa.setLogo(texto(rs, c[8]));
+            return empresa;
+        }
+    };
+
+    /**
+     * Usuario completo (SELECT *) o parcial, p. ej. solo nombre y correo de instructores.
+     */
+    public static final MapeadorFila<Usuario> USUARIO = new MapeadorFila<>(
+            "Num_Empleado", "Nombre", "Apellido_paterno", "Apellido_materno", "Correo",
+            "Contrasena", "Id_Rol", "Activo", "Fecha_Ingreso",
+            "Pregunta_recuperacion", "Respuesta_recuperacion", "Firma") {
+        @Override
+        protected Usuario mapear(ResultSet rs, int[] c) throws SQLException {
+            Usuario usuario = new Usuario();
+            usuario.setNumEmpleado(entero(rs, c[0]));
+            usuario.setNombre(texto(rs, c[1]));
+            usuario.setApellidoPaterno(texto(rs, c[2]));
+            usuario.setApellidoMaterno(texto(rs, c[3]));
+            usuario.setCorreo(texto(rs, c[4]));
+            usuario.setContrasena(texto(rs, c[5]));
+            usuario.setIdRol(entero(rs, c[6]));
+            usuario.setActivo(booleano(rs, c[7], false));
+            usuario.setFechaIngreso(fecha(rs, c[8]));
+            usuario.setPreguntaRecuperacion(texto(rs, c[9]));
+            usuario.setRespuestaRecuperacion(texto(rs, c[10]));
+            usuario.setFirma(texto(rs, c[11]));
+            return usuario;
+        }
+    };
+
+    public static final MapeadorFila<Evidencia> EVIDENCIA = new MapeadorFila<>(
+            "Id_Evidencia", "Tipo_Evidencia", "Descripcion", "Archivo_Ruta", "Fecha_Subida",
+            "Estatus", "Observaciones", "cursos_Id_Curso") {
+        @Override
+        protected Evidencia mapear(ResultSet rs, int[] c) throws SQLException {
+            Evidencia evidencia = new Evidencia();
+            evidencia.setIdEvidencia(entero(rs, c[0]));
+            evidencia.setTipoEvidencia(texto(rs, c[1]));
+            evidencia.setDescripcion(texto(rs, c[2]));
+            evidencia.setArchivoRuta(texto(rs, c[3]));
+            evidencia.setFechaSubida(fechaHora(rs, c[4]));
+            evidencia.setEstatus(texto(rs, c[5]));
+            evidencia.setObservaciones(texto(rs, c[6]));
+            evidencia.setCursosIdCurso(entero(rs, c[7]));
+            return evidencia;
+        }
+    };
+
+    public static final MapeadorFila<PagoInstructor> PAGO_INSTRUCTOR = new MapeadorFila<>(
+            "Id", "Instructor_Id", "Fecha_Pago", "Monto", "Horas_Impartidas",
+            "Estatus", "Comprobante", "Observaciones", "Curso_Id") {
+        @Override
+        protected PagoInstructor mapear(ResultSet rs, int[] c) throws SQLException {
+            PagoInstructor pago = new PagoInstructor();
+            pago.setId(entero(rs, c[0]));
+            pago.setInstructorId(entero(rs, c[1]));
+            pago.setFechaPago(fecha(rs, c[2]));
+            pago.setMonto(decimal(rs, c[3]));
+            pago.setHorasImpartidas(entero(rs, c[4]));
+            pago.setEstatus(texto(rs, c[5]));
+            pago.setComprobante(texto(rs, c[6]));
+            pago.setObservaciones(texto(rs, c[7]));
+            // Los pagos anteriores a la migración 007 pueden no tener curso
+            int cursoId = entero(rs, c[8]);
+            pago.setCursoId(cursoId > 0 ? cursoId : null);
+            return pago;
+        }
+    };
+
+    /**
+     * Curso impartido visto como pago pendiente del instructor (precio y horas del catálogo).
+     */
+    public static final MapeadorFila<PagoInstructor> CURSO_POR_PAGAR = new MapeadorFila<>(
+            "Id_Curso", "Nombre_curso", "Fecha_Imparticion", "Instructor_Id", "Precio", "Horas") {
+        @Override
+        protected PagoInstructor mapear(ResultSet rs, int[] c) throws SQLException {
+            PagoInstructor curso = new PagoInstructor();
+            curso.setInstructorId(entero(rs, c[3]));
+            curso.setCursoId(entero(rs, c[0]));
+            curso.setFechaPago(fecha(rs, c[2]));
+            curso.setMonto(decimal(rs, c[4]));
+            curso.setHorasImpartidas(entero(rs, c[5]));
+            curso.setEstatus("pendiente");
+            curso.setComprobante("");
+            curso.setObservaciones("Curso: " + texto(rs, c[1]) + " (ID: " + entero(rs, c[0]) + ")");
+            return curso;
+        }
+    };
+}
@@ -0,0 +1,154 @@
+package com.beyco.app.db;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Orden para paginar por llave (keyset): una columna de orden más una columna única de
+ * desempate, ambas en el mismo sentido. La página siguiente empieza después de la llave
+ * de la última fila, así que MySQL busca directo en el índice en lugar de saltarse filas
+ * con OFFSET.
+ *
+ * El cursor que recibe el cliente es opaco: el nombre del orden y la llave de la última
+ * fila en base64. Un cursor de otro orden o alterado se rechaza con IllegalArgumentException.
+ */
+public final class OrdenPagina<T> {
+
+    public enum Tipo { TEXTO, ENTERO, FECHA, FECHA_HORA }
+
+    private final String nombre;
+    private final String columna;
+    private final Tipo tipo;
+    private final Function<T, Object> valor;
+    private final String desempate;
+    private final Tipo tipoDesempate;
+    private final Function<T, Object> valorDesempate;
+    private final boolean descendente;
+
+    private OrdenPagina(String nombre, String columna, Tipo tipo, Function<T, Object> valor,
+                        String desempate, Tipo tipoDesempate, Function<T, Object> valorDesempate,
+                        boolean descendente) {
+        this.nombre = nombre;
+        this.columna = columna;
+        this.tipo = tipo;
+        this.valor = valor;
+        this.desempate = desempate;
+        this.tipoDesempate = tipoDesempate;
+        this.valorDesempate = valorDesempate;
+        this.descendente = descendente;
+    }
+
+    public static <T> OrdenPagina<T> ascendente(String nombre, String columna, Tipo tipo, Function<T, Object> valor,
+                                                String desempate, Tipo tipoDesempate, Function<T, Object> valorDesempate) {
+        return new OrdenPagina<>(nombre, columna, tipo, valor, desempate, tipoDesempate, valorDesempate, false);
+    }
+
+    public static <T> OrdenPagina<T> descendente(String nombre, String columna, Tipo tipo, Function<T, Object> valor,
+                                                 String desempate, Tipo tipoDesempate, Function<T, Object> valorDesempate) {
+        return new OrdenPagina<>(nombre, columna, tipo, valor, desempate, tipoDesempate, valorDesempate, true);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Busca el orden por nombre (sin distinguir mayúsculas); null o vacío = el primero de la lista.
+     */
+    public static <T> OrdenPagina<T> elegir(List<OrdenPagina<T>> ordenes, String nombre) {
+        if (nombre == null || nombre.isBlank()) {
+            return ordenes.get(0);
+        }
+        for (OrdenPagina<T> orden : ordenes) {
+            if (orden.nombre.equalsIgnoreCase(nombre)) {
+                return orden;
+            }
+        }
+        List<String> validos = ordenes.stream().map(OrdenPagina::getNombre).toList();
+        throw new IllegalArgumentException("Orden no válido: " + nombre + " (use " + String.join(", ", validos) + ")");
+    }
+
+    /**
+     * Condición "después de la llave" con 4 parámetros. El primer término acota el rango del
+     * índice; el OR decide los empates en la columna de orden por la columna de desempate.
+     */
+    String condicion() {
+        String op = descendente ? "<" : ">";
+        return "(" + columna + " " + op + "= ? AND (" + columna + " " + op + " ? OR (" +
+                columna + " = ? AND " + desempate + " " + op + " ?)))";
+    }
+
+    String ordenarPor() {
+        String sentido = descendente ? " DESC" : " ASC";
+        return columna + sentido + ", " + desempate + sentido;
+    }
+
+    /**
+     * Asigna la llave del cursor a partir del índice indicado; devuelve el siguiente índice libre.
+     */
+    int asignar(PreparedStatement pstmt, int indice, Object[] llave) throws SQLException {
+        asignarValor(pstmt, indice++, tipo, llave[0]);
+        asignarValor(pstmt, indice++, tipo, llave[0]);
+        asignarValor(pstmt, indice++, tipo, llave[0]);
+        asignarValor(pstmt, indice++, tipoDesempate, llave[1]);
+        return indice;
+    }
+
+    String codificar(T ultimaFila) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(nombre.getBytes(StandardCharsets.UTF_8)) + "." +
+                base64.encodeToString(String.valueOf(valor.apply(ultimaFila)).getBytes(StandardCharsets.UTF_8)) + "." +
+                base64.encodeToString(String.valueOf(valorDesempate.apply(ultimaFila)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    Object[] decodificar(String cursor) {
+        String[] partes = cursor.split("\\.", -1);
+        String ordenDelCursor;
+        try {
+            ordenDelCursor = partes.length == 3 ? texto(partes[0]) : null;
+        } catch (IllegalArgumentException e) {
+            ordenDelCursor = null;
+        }
+        if (ordenDelCursor == null) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        if (!nombre.equals(ordenDelCursor)) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden '" + nombre + "'");
+        }
+        try {
+            return new Object[] { convertir(tipo, texto(partes[1])), convertir(tipoDesempate, texto(partes[2])) };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    private static String texto(String parte) {
+        return new String(Base64.getUrlDecoder().decode(parte), StandardCharsets.UTF_8);
+    }
+
+    private static Object convertir(Tipo tipo, String valor) {
+        return switch (tipo) {
+            case TEXTO -> valor;
+            case ENTERO -> Integer.parseInt(valor);
+            case FECHA -> LocalDate.parse(valor);
+            case FECHA_HORA -> LocalDateTime.parse(valor);
+        };
+    }
+
+    private static void asignarValor(PreparedStatement pstmt, int indice, Tipo tipo, Object valor) throws SQLException {
+        switch (tipo) {
+            case TEXTO -> pstmt.setString(indice, (String) valor);
+            case ENTERO -> pstmt.setInt(indice, (Integer) valor);
+            case FECHA -> pstmt.setDate(indice, Date.valueOf((LocalDate) valor));
+            case FECHA_HORA -> pstmt.setTimestamp(indice, Timestamp.valueOf((LocalDateTime) valor));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.beyco.app.db;
+
+import java.util.List;
+
+/**
+ * Una página de resultados y el cursor para pedir la siguiente (null si es la última).
+ */
+public record Pagina<T>(List<T> filas, String siguiente) { }
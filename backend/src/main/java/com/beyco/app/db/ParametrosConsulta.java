@@ -0,0 +1,15 @@
+package com.beyco.app.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Asigna los parámetros (?) de una consulta preparada.
+ */
+@FunctionalInterface
+public interface ParametrosConsulta {
+
+    ParametrosConsulta NINGUNO = pstmt -> { };
+
+    void asignar(PreparedStatement pstmt) throws SQLException;
+}
@@ -0,0 +1,12 @@
+package com.beyco.app.db;
+
+import java.io.IOException;
+
+/**
+ * Recibe cada fila de un recorrido en flujo, p. ej. para escribirla directamente en la respuesta HTTP.
+ */
+@FunctionalInterface
+public interface ProcesadorFila<T> {
+
+    void procesar(T fila) throws IOException;
+}
@@ -0,0 +1,114 @@
+package com.beyco.app.db;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Revisión de planes de ejecución al arrancar.
+ *
+ * Los servicios registran aquí sus consultas más frecuentes con parámetros de ejemplo.
+ * Cuando la aplicación termina de iniciar se ejecuta EXPLAIN sobre cada una y se avisa en
+ * el log si alguna recorre una tabla completa (type = ALL), por ejemplo porque falta
+ * aplicar una migración de índices o porque alguien volvió a envolver una columna en una función.
+ *
+ * Con pocas filas MySQL puede preferir el recorrido completo aunque el índice exista; en ese
+ * caso el aviso lo indica (possible_keys no vacío) para no confundirlo con un índice faltante.
+ * Se desactiva con beyco.consultas.revisar-al-iniciar=false.
+ */
+@Component
+public class RevisorConsultas {
+
+    private record ConsultaRegistrada(String nombre, String sql, ParametrosConsulta parametros) { }
+
+    private final DataSource dataSource;
+    private final List<ConsultaRegistrada> consultas = new ArrayList<>();
+
+    @Value("${beyco.consultas.revisar-al-iniciar:true}")
+    private boolean revisarAlIniciar;
+
+    @Autowired
+    public RevisorConsultas(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Registra una consulta para revisarla al iniciar. Los parámetros son valores de ejemplo.
+     */
+    public synchronized void registrar(String nombre, String sql, ParametrosConsulta parametros) {
+        consultas.add(new ConsultaRegistrada(nombre, sql, parametros));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revisarAlIniciar() {
+        if (revisarAlIniciar) {
+            revisar();
+        }
+    }
+
+    /**
+     * Ejecuta EXPLAIN sobre todas las consultas registradas y devuelve las que recorren tablas completas.
+     */
+    public synchronized Map<String, List<String>> revisar() {
+        Map<String, List<String>> recorridosCompletos = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (ConsultaRegistrada consulta : consultas) {
+                try {
+                    List<String> tablas = tablasConRecorridoCompleto(connection, consulta);
+                    if (!tablas.isEmpty()) {
+                        recorridosCompletos.put(consulta.nombre(), tablas);
+                    }
+                } catch (SQLException e) {
+                    System.err.println("❌ No se pudo revisar la consulta " + consulta.nombre() + ": " + e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Revisión de consultas omitida, sin conexión a la BD: " + e.getMessage());
+            return recorridosCompletos;
+        }
+
+        if (recorridosCompletos.isEmpty()) {
+            System.out.println("✅ Revisión de consultas: " + consultas.size() + " consultas usan índices");
+        }
+        return recorridosCompletos;
+    }
+
+    private List<String> tablasConRecorridoCompleto(Connection connection, ConsultaRegistrada consulta) throws SQLException {
+        List<String> tablas = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement("EXPLAIN " + consulta.sql())) {
+            consulta.parametros().asignar(pstmt);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (!"ALL".equalsIgnoreCase(rs.getString("type"))) {
+                        continue;
+                    }
+                    String tabla = rs.getString("table");
+                    String posibles = rs.getString("possible_keys");
+                    long filas = rs.getLong("rows");
+                    tablas.add(tabla);
+                    if (posibles == null || posibles.isBlank()) {
+                        System.out.println("⚠️ Consulta " + consulta.nombre() + ": recorrido completo de " + tabla +
+                                " (~" + filas + " filas) sin índice aplicable");
+                    } else {
+                        System.out.println("⚠️ Consulta " + consulta.nombre() + ": recorrido completo de " + tabla +
+                                " (~" + filas + " filas); MySQL descartó los índices " + posibles +
+                                ", normal si la tabla tiene pocas filas");
+                    }
+                }
+            }
+        }
+        return tablas;
+    }
+}
@@ -0,0 +1,119 @@
+package com.beyco.app.exportacion;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Escribe un ZIP directamente en la salida de la respuesta, archivo por archivo.
+ *
+ * Todos los archivos se copian con el mismo buffer. Las imágenes, videos y PDF ya vienen
+ * comprimidos, así que se guardan sin comprimir (STORED): volver a comprimirlos gasta CPU
+ * y casi no reduce el tamaño.
+ */
+public class EmpaquetadorZip implements Closeable {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final Set<String> EXTENSIONES_COMPRIMIDAS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp4", "mov", "avi", "mkv", "webm", "m4v", "3gp",
+            "mp3", "m4a", "pdf", "zip", "rar", "7z", "gz");
+
+    private final ZipOutputStream zip;
+    private final byte[] buffer = new byte[TAMANO_BUFFER];
+    private final Set<String> nombres = new HashSet<>();
+
+    public EmpaquetadorZip(OutputStream salida) {
+        this.zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        this.zip.setLevel(Deflater.BEST_SPEED);
+    }
+
+    public static boolean yaComprimido(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto >= 0 && EXTENSIONES_COMPRIMIDAS.contains(nombre.substring(punto + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Agrega un archivo del disco al ZIP. STORED necesita el tamaño y el CRC antes de
+     * escribir la entrada, así que esos archivos se leen dos veces (el CRC es barato).
+     */
+    public void agregarArchivo(String nombre, Path archivo) throws IOException {
+        ZipEntry entrada = new ZipEntry(nombreUnico(nombre));
+        entrada.setLastModifiedTime(Files.getLastModifiedTime(archivo));
+        if (yaComprimido(nombre)) {
+            entrada.setMethod(ZipEntry.STORED);
+            entrada.setSize(Files.size(archivo));
+            entrada.setCrc(calcularCrc(archivo));
+        }
+        zip.putNextEntry(entrada);
+        try (InputStream in = Files.newInputStream(archivo)) {
+            int leidos;
+            while ((leidos = in.read(buffer)) != -1) {
+                zip.write(buffer, 0, leidos);
+            }
+        }
+        zip.closeEntry();
+    }
+
+    /**
+     * Abre una entrada comprimida para escribir en ella (p. ej. con un EscritorCsv).
+     * Al cerrar el flujo devuelto se cierra la entrada, no el ZIP.
+     */
+    public OutputStream abrirEntrada(String nombre) throws IOException {
+        zip.putNextEntry(new ZipEntry(nombreUnico(nombre)));
+        return new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+                zip.closeEntry();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.finish();
+        zip.flush();
+    }
+
+    private long calcularCrc(Path archivo) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(archivo)) {
+            int leidos;
+            while ((leidos = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, leidos);
+            }
+        }
+        return crc.getValue();
+    }
+
+    // Un ZIP no admite dos entradas con el mismo nombre
+    private String nombreUnico(String nombre) {
+        String candidato = nombre;
+        int n = 1;
+        while (!nombres.add(candidato)) {
+            int punto = nombre.lastIndexOf('.');
+            candidato = punto > nombre.lastIndexOf('/')
+                    ? nombre.substring(0, punto) + "_" + (++n) + nombre.substring(punto)
+                    : nombre + "_" + (++n);
+        }
+        return candidato;
+    }
+}
@@ -0,0 +1,69 @@
+package com.beyco.app.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV en UTF-8 con BOM (para que Excel respete los acentos), separado por comas
+ * y con comillas solo en los campos que las necesitan.
+ */
+public class EscritorCsv implements EscritorTabla {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final Writer writer;
+
+    public EscritorCsv(OutputStream salida) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFFER);
+        writer.write('\uFEFF');
+    }
+
+    @Override
+    public void encabezados(String... nombres) throws IOException {
+        fila((Object[]) nombres);
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (valores[i] != null) {
+                escribirCampo(valores[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void escribirCampo(String valor) throws IOException {
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!requiereComillas) {
+            writer.write(valor);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Solo vaciar el buffer: el flujo de la respuesta lo cierra el contenedor
+        writer.flush();
+    }
+}
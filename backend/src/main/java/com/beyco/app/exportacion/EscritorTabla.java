@@ -0,0 +1,18 @@
+package com.beyco.app.exportacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escribe una tabla fila por fila en un flujo de salida sin retener las filas ya escritas.
+ *
+ * Los valores numéricos (Number) se conservan como números cuando el formato lo permite;
+ * cualquier otro valor se escribe como texto y null como celda vacía.
+ * close() termina el documento pero no cierra el flujo subyacente.
+ */
+public interface EscritorTabla extends Closeable {
+
+    void encabezados(String... nombres) throws IOException;
+
+    void fila(Object... valores) throws IOException;
+}
@@ -0,0 +1,133 @@
+package com.beyco.app.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Libro XLSX de una sola hoja escrito directamente como paquete OOXML (zip + SpreadsheetML).
+ *
+ * Las partes fijas del paquete se escriben al inicio y la hoja se va comprimiendo conforme
+ * llegan las filas, usando celdas de texto en línea (inlineStr) para no tener que construir
+ * la tabla de cadenas compartidas en memoria.
+ */
+public class EscritorXlsx implements EscritorTabla {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+
+    public EscritorXlsx(OutputStream salida, String nombreHoja) throws IOException {
+        this.zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), TAMANO_BUFFER);
+
+        escribirParte("[Content_Types].xml", XML +
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" " +
+                "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                "<Override PartName=\"/xl/worksheets/sheet1.xml\" " +
+                "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+                "</Types>");
+        escribirParte("_rels/.rels", XML +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" " +
+                "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" " +
+                "Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        escribirParte("xl/workbook.xml", XML +
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                "<sheets><sheet name=\"" + escapar(nombreHoja) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>" +
+                "</workbook>");
+        escribirParte("xl/_rels/workbook.xml.rels", XML +
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" " +
+                "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" " +
+                "Target=\"worksheets/sheet1.xml\"/>" +
+                "</Relationships>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        writer.write(XML);
+        writer.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    private void escribirParte(String nombre, String contenido) throws IOException {
+        zip.putNextEntry(new ZipEntry(nombre));
+        writer.write(contenido);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    @Override
+    public void encabezados(String... nombres) throws IOException {
+        fila((Object[]) nombres);
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        writer.write("<row>");
+        for (Object valor : valores) {
+            if (valor == null) {
+                writer.write("<c/>");
+            } else if (valor instanceof Number) {
+                writer.write("<c><v>");
+                writer.write(valor.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writer.write(escapar(valor.toString()));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    /**
+     * Escapa los caracteres especiales de XML y omite los caracteres de control no permitidos.
+     */
+    private static String escapar(String valor) {
+        StringBuilder sb = null;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            String reemplazo = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> (c < 0x20 && c != '\t' && c != '\n' && c != '\r') ? "" : null;
+            };
+            if (reemplazo != null && sb == null) {
+                sb = new StringBuilder(valor.length() + 16);
+                sb.append(valor, 0, i);
+            }
+            if (sb != null) {
+                if (reemplazo != null) {
+                    sb.append(reemplazo);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : valor;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        // finish() escribe el directorio central sin cerrar el flujo de la respuesta
+        zip.finish();
+        zip.flush();
+    }
+}
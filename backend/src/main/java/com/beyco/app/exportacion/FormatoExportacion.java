@@ -0,0 +1,41 @@
+package com.beyco.app.exportacion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Formatos de exportación disponibles, con su tipo de contenido y extensión de archivo.
+ */
+public enum FormatoExportacion {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+
+    public String getExtension() { return extension; }
+
+    public EscritorTabla crearEscritor(OutputStream salida, String nombreHoja) throws IOException {
+        return this == XLSX ? new EscritorXlsx(salida, nombreHoja) : new EscritorCsv(salida);
+    }
+
+    /**
+     * Interpreta el parámetro "formato" de la petición (csv o xlsx, sin distinguir mayúsculas).
+     */
+    public static FormatoExportacion desde(String formato) {
+        for (FormatoExportacion f : values()) {
+            if (f.extension.equalsIgnoreCase(formato)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + formato);
+    }
+}
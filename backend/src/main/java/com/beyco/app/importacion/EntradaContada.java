@@ -0,0 +1,46 @@
+package com.beyco.app.importacion;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flujo de entrada que cuenta los bytes leídos, para calcular el avance de una lectura.
+ */
+class EntradaContada extends FilterInputStream {
+
+    private long leidos;
+
+    EntradaContada(InputStream entrada) {
+        super(entrada);
+    }
+
+    long leidos() {
+        return leidos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            leidos++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            leidos += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long saltados = super.skip(n);
+        leidos += saltados;
+        return saltados;
+    }
+}
@@ -0,0 +1,39 @@
+package com.beyco.app.importacion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Formatos de importación aceptados, reconocidos por la extensión del archivo subido.
+ */
+public enum FormatoImportacion {
+
+    CSV("csv"),
+    XLSX("xlsx");
+
+    private final String extension;
+
+    FormatoImportacion(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() { return extension; }
+
+    public LectorTabla abrir(Path archivo) throws IOException {
+        return this == XLSX ? new LectorXlsx(archivo) : new LectorCsv(archivo);
+    }
+
+    /**
+     * Formato según la extensión del nombre del archivo (sin distinguir mayúsculas).
+     */
+    public static FormatoImportacion desdeNombre(String nombreArchivo) {
+        int punto = nombreArchivo != null ? nombreArchivo.lastIndexOf('.') : -1;
+        String extension = punto >= 0 ? nombreArchivo.substring(punto + 1) : "";
+        for (FormatoImportacion f : values()) {
+            if (f.extension.equalsIgnoreCase(extension)) {
+                return f;
+            }
+        }
+        throw new IllegalArgumentException("Formato de importación no soportado: " + nombreArchivo + " (use .csv o .xlsx)");
+    }
+}
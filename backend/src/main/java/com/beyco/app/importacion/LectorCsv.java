@@ -0,0 +1,180 @@
+package com.beyco.app.importacion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV leído en flujo, con campos entre comillas ("" dentro de comillas es una comilla) y
+ * saltos de línea dentro de comillas.
+ *
+ * Excel en español guarda los CSV separados por punto y coma y, sin BOM, en Windows-1252;
+ * por eso el separador (coma, punto y coma o tabulador) se deduce de la primera línea y la
+ * codificación de los primeros 64 KB: UTF-8 si tiene BOM o es UTF-8 válido, si no Windows-1252.
+ */
+public class LectorCsv implements LectorTabla {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+    private final EntradaContada entrada;
+    private final long tamano;
+    private final BufferedReader reader;
+    private final char separador;
+    private boolean terminado;
+    private int numeroFila;
+
+    public LectorCsv(Path archivo) throws IOException {
+        this.tamano = Files.size(archivo);
+        this.entrada = new EntradaContada(Files.newInputStream(archivo));
+        try {
+            BufferedInputStream bytes = new BufferedInputStream(entrada, TAMANO_BUFFER);
+            this.reader = new BufferedReader(new InputStreamReader(bytes, detectarCodificacion(bytes)), TAMANO_BUFFER);
+            reader.mark(1);
+            if (reader.read() != '\uFEFF') {
+                reader.reset();
+            }
+            this.separador = detectarSeparador(reader);
+        } catch (IOException | RuntimeException e) {
+            entrada.close();
+            throw e;
+        }
+    }
+
+    private static Charset detectarCodificacion(BufferedInputStream bytes) throws IOException {
+        bytes.mark(TAMANO_BUFFER);
+        byte[] muestra = bytes.readNBytes(TAMANO_BUFFER - 1);
+        bytes.reset();
+        if (muestra.length >= 3 && (muestra[0] & 0xFF) == 0xEF && (muestra[1] & 0xFF) == 0xBB && (muestra[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        // La muestra puede cortar un carácter de varios bytes al final: se ignoran los últimos 3 bytes
+        int largo = muestra.length == TAMANO_BUFFER - 1 ? muestra.length - 3 : muestra.length;
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(muestra, 0, Math.max(largo, 0)));
+            return StandardCharsets.UTF_8;
+        } catch (CharacterCodingException e) {
+            return WINDOWS_1252;
+        }
+    }
+
+    // El separador más frecuente fuera de comillas en la primera línea (coma si no hay ninguno)
+    private static char detectarSeparador(BufferedReader reader) throws IOException {
+        reader.mark(TAMANO_BUFFER);
+        int comas = 0;
+        int puntoYComas = 0;
+        int tabuladores = 0;
+        boolean comillas = false;
+        for (int i = 0; i < TAMANO_BUFFER - 1; i++) {
+            int c = reader.read();
+            if (c < 0 || (!comillas && (c == '\n' || c == '\r'))) {
+                break;
+            }
+            if (c == '"') {
+                comillas = !comillas;
+            } else if (!comillas) {
+                comas += c == ',' ? 1 : 0;
+                puntoYComas += c == ';' ? 1 : 0;
+                tabuladores += c == '\t' ? 1 : 0;
+            }
+        }
+        reader.reset();
+        if (puntoYComas > comas && puntoYComas >= tabuladores) {
+            return ';';
+        }
+        return tabuladores > comas ? '\t' : ',';
+    }
+
+    @Override
+    public List<String> siguienteFila() throws IOException {
+        List<String> fila = leerRegistro();
+        if (fila != null) {
+            numeroFila++;
+        }
+        return fila;
+    }
+
+    // Un registro puede ocupar varias líneas si un campo entre comillas trae saltos de línea
+    private List<String> leerRegistro() throws IOException {
+        if (terminado) {
+            return null;
+        }
+        List<String> fila = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean comillas = false;
+        boolean leyoAlgo = false;
+        while (true) {
+            int c = reader.read();
+            if (c < 0) {
+                terminado = true;
+                if (!leyoAlgo) {
+                    return null;
+                }
+                fila.add(campo.toString());
+                return fila;
+            }
+            leyoAlgo = true;
+            if (comillas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int siguiente = reader.read();
+                    if (siguiente == '"') {
+                        campo.append('"');
+                    } else {
+                        comillas = false;
+                        if (siguiente >= 0) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                comillas = true;
+            } else if (c == separador) {
+                fila.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    int siguiente = reader.read();
+                    if (siguiente != '\n' && siguiente >= 0) {
+                        reader.reset();
+                    }
+                }
+                fila.add(campo.toString());
+                return fila;
+            } else {
+                campo.append((char) c);
+            }
+        }
+    }
+
+    @Override
+    public int numeroFila() {
+        return numeroFila;
+    }
+
+    @Override
+    public double avance() {
+        return tamano > 0 ? Math.min(1.0, entrada.leidos() / (double) tamano) : 1.0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
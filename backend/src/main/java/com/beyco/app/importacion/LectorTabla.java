@@ -0,0 +1,30 @@
+package com.beyco.app.importacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lee una tabla fila por fila desde un archivo sin cargarlo completo en memoria.
+ *
+ * Cada fila se entrega como texto, con las celdas vacías como "" y sin recortar espacios;
+ * la primera fila del archivo (normalmente los encabezados) es la primera que se devuelve.
+ */
+public interface LectorTabla extends Closeable {
+
+    /**
+     * La siguiente fila, o null al terminar el archivo.
+     */
+    List<String> siguienteFila() throws IOException;
+
+    /**
+     * Número en el archivo (desde 1) de la última fila devuelta, para reportar errores;
+     * puede saltar valores cuando el archivo omite filas vacías.
+     */
+    int numeroFila();
+
+    /**
+     * Fracción leída del archivo (0 a 1), aproximada, para reportar el avance.
+     */
+    double avance();
+}
@@ -0,0 +1,271 @@
+package com.beyco.app.importacion;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Primera hoja de un libro XLSX leída en flujo con StAX, sin cargar la hoja en memoria.
+ *
+ * Es la contraparte de EscritorXlsx: abre el paquete como zip, busca la primera hoja en
+ * workbook.xml y su .rels, y recorre las filas de sheetData. Las celdas de texto compartido
+ * (t="s") apuntan a xl/sharedStrings.xml, que sí se carga completa porque las celdas la
+ * consultan en cualquier orden; ocupa lo que los textos distintos del libro, no lo que la hoja.
+ * Las celdas omitidas en una fila se devuelven como "" según su referencia de columna; las filas
+ * omitidas no se devuelven, pero numeroFila() da el número real de la fila (atributo r de row).
+ * Fechas y números se devuelven como el valor guardado (una fecha es el número de serie de Excel).
+ */
+public class LectorXlsx implements LectorTabla {
+
+    private static final String HOJA_POR_DEFECTO = "xl/worksheets/sheet1.xml";
+
+    private static final XMLInputFactory FABRICA = XMLInputFactory.newFactory();
+
+    static {
+        // El libro viene del usuario: sin DTD ni entidades externas
+        FABRICA.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FABRICA.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final ZipFile zip;
+    private final List<String> cadenas;
+    private final EntradaContada entrada;
+    private final long tamano;
+    private final XMLStreamReader hoja;
+    private boolean terminado;
+    private int numeroFila;
+
+    public LectorXlsx(Path archivo) throws IOException {
+        this.zip = new ZipFile(archivo.toFile());
+        try {
+            this.cadenas = leerCadenasCompartidas();
+            ZipEntry entradaHoja = zip.getEntry(buscarPrimeraHoja());
+            if (entradaHoja == null) {
+                throw new IOException("El archivo XLSX no tiene hojas");
+            }
+            this.tamano = entradaHoja.getSize();
+            this.entrada = new EntradaContada(zip.getInputStream(entradaHoja));
+            this.hoja = FABRICA.createXMLStreamReader(entrada);
+        } catch (XMLStreamException e) {
+            zip.close();
+            throw new IOException("Archivo XLSX no válido: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    // ========== ESTRUCTURA DEL LIBRO ==========
+
+    private String buscarPrimeraHoja() throws IOException, XMLStreamException {
+        String idRelacion = null;
+        ZipEntry libro = zip.getEntry("xl/workbook.xml");
+        if (libro != null) {
+            try (InputStream in = zip.getInputStream(libro)) {
+                XMLStreamReader xml = FABRICA.createXMLStreamReader(in);
+                while (xml.hasNext() && idRelacion == null) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("sheet")) {
+                        idRelacion = atributo(xml, "id");
+                    }
+                }
+                xml.close();
+            }
+        }
+        ZipEntry relaciones = zip.getEntry("xl/_rels/workbook.xml.rels");
+        if (idRelacion == null || relaciones == null) {
+            return HOJA_POR_DEFECTO;
+        }
+        try (InputStream in = zip.getInputStream(relaciones)) {
+            XMLStreamReader xml = FABRICA.createXMLStreamReader(in);
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Relationship")
+                        && idRelacion.equals(xml.getAttributeValue(null, "Id"))) {
+                    String destino = xml.getAttributeValue(null, "Target");
+                    xml.close();
+                    // Relativo a xl/ salvo que empiece con /
+                    return destino.startsWith("/") ? destino.substring(1) : "xl/" + destino;
+                }
+            }
+            xml.close();
+        }
+        return HOJA_POR_DEFECTO;
+    }
+
+    private List<String> leerCadenasCompartidas() throws IOException, XMLStreamException {
+        List<String> resultado = new ArrayList<>();
+        ZipEntry entradaCadenas = zip.getEntry("xl/sharedStrings.xml");
+        if (entradaCadenas == null) {
+            return resultado;
+        }
+        try (InputStream in = zip.getInputStream(entradaCadenas)) {
+            XMLStreamReader xml = FABRICA.createXMLStreamReader(in);
+            StringBuilder texto = null;
+            int profundidadFonetica = 0;
+            while (xml.hasNext()) {
+                int evento = xml.next();
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    switch (xml.getLocalName()) {
+                        case "si" -> texto = new StringBuilder();
+                        // Las guías fonéticas (rPh) no son parte del texto
+                        case "rPh" -> profundidadFonetica++;
+                        case "t" -> {
+                            String t = xml.getElementText();
+                            if (texto != null && profundidadFonetica == 0) {
+                                texto.append(t);
+                            }
+                        }
+                        default -> { }
+                    }
+                } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                    if (xml.getLocalName().equals("si") && texto != null) {
+                        resultado.add(texto.toString());
+                        texto = null;
+                    } else if (xml.getLocalName().equals("rPh")) {
+                        profundidadFonetica--;
+                    }
+                }
+            }
+            xml.close();
+        }
+        return resultado;
+    }
+
+    // ========== FILAS ==========
+
+    @Override
+    public List<String> siguienteFila() throws IOException {
+        if (terminado) {
+            return null;
+        }
+        try {
+            while (hoja.hasNext()) {
+                int evento = hoja.next();
+                if (evento == XMLStreamConstants.START_ELEMENT && hoja.getLocalName().equals("row")) {
+                    numeroFila = numeroFila(hoja.getAttributeValue(null, "r"));
+                    return leerFila();
+                }
+                if (evento == XMLStreamConstants.END_ELEMENT && hoja.getLocalName().equals("sheetData")) {
+                    break;
+                }
+            }
+            terminado = true;
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Hoja XLSX no válida: " + e.getMessage(), e);
+        }
+    }
+
+    private List<String> leerFila() throws XMLStreamException {
+        List<String> fila = new ArrayList<>();
+        while (hoja.hasNext()) {
+            int evento = hoja.next();
+            if (evento == XMLStreamConstants.END_ELEMENT && hoja.getLocalName().equals("row")) {
+                return fila;
+            }
+            if (evento == XMLStreamConstants.START_ELEMENT && hoja.getLocalName().equals("c")) {
+                String referencia = hoja.getAttributeValue(null, "r");
+                int columna = referencia != null ? columna(referencia) : fila.size();
+                String tipo = hoja.getAttributeValue(null, "t");
+                String valor = leerCelda(tipo);
+                while (fila.size() < columna) {
+                    fila.add("");
+                }
+                if (columna < fila.size()) {
+                    fila.set(columna, valor);
+                } else {
+                    fila.add(valor);
+                }
+            }
+        }
+        return fila;
+    }
+
+    // Lee hasta el cierre de <c>: el valor está en <v> o, para texto en línea, en <is><t>
+    private String leerCelda(String tipo) throws XMLStreamException {
+        StringBuilder valor = new StringBuilder();
+        while (hoja.hasNext()) {
+            int evento = hoja.next();
+            if (evento == XMLStreamConstants.END_ELEMENT && hoja.getLocalName().equals("c")) {
+                break;
+            }
+            if (evento == XMLStreamConstants.START_ELEMENT
+                    && (hoja.getLocalName().equals("v") || hoja.getLocalName().equals("t"))) {
+                valor.append(hoja.getElementText());
+            }
+        }
+        if ("s".equals(tipo)) {
+            try {
+                int indice = Integer.parseInt(valor.toString().trim());
+                return indice >= 0 && indice < cadenas.size() ? cadenas.get(indice) : "";
+            } catch (NumberFormatException e) {
+                return "";
+            }
+        }
+        return valor.toString();
+    }
+
+    // r es opcional en <row>: sin él, la fila sigue a la anterior
+    private int numeroFila(String referencia) {
+        if (referencia != null) {
+            try {
+                return Integer.parseInt(referencia.trim());
+            } catch (NumberFormatException e) {
+                // Se cuenta como la siguiente
+            }
+        }
+        return numeroFila + 1;
+    }
+
+    // "B12" -> 1 (columnas base 26: A = 0, Z = 25, AA = 26)
+    private static int columna(String referencia) {
+        int columna = 0;
+        for (int i = 0; i < referencia.length(); i++) {
+            char c = referencia.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            columna = columna * 26 + (c - 'A' + 1);
+        }
+        return Math.max(columna - 1, 0);
+    }
+
+    private static String atributo(XMLStreamReader xml, String nombreLocal) {
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            if (xml.getAttributeLocalName(i).equals(nombreLocal)) {
+                return xml.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int numeroFila() {
+        return numeroFila;
+    }
+
+    @Override
+    public double avance() {
+        return tamano > 0 ? Math.min(1.0, entrada.leidos() / (double) tamano) : 0.0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            hoja.close();
+        } catch (XMLStreamException e) {
+            // Se cierra el zip de todos modos
+        } finally {
+            zip.close();
+        }
+    }
+}
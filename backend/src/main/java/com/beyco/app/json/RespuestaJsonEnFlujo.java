@@ -0,0 +1,121 @@
+package com.beyco.app.json;
+
+import com.beyco.app.db.ProcesadorFila;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Respuestas JSON escritas en flujo: cada fila se serializa con un JsonGenerator en cuanto
+ * sale del ResultSet, sin armar la lista completa en memoria. El primer byte sale con la
+ * primera fila y la memoria usada no depende del número de filas.
+ *
+ * Se usa el ObjectMapper de Spring, así que fechas y nombres de campos salen igual que en
+ * las respuestas normales. Las respuestas envueltas conservan los campos de siempre
+ * (success, el arreglo y total), pero total y success van al final porque no se conocen
+ * hasta terminar el recorrido. Si la consulta falla a media respuesta ya no se puede cambiar
+ * el código HTTP: se cierra el arreglo y se escribe "success": false con el error, de modo
+ * que el JSON sigue siendo válido.
+ */
+@Component
+public class RespuestaJsonEnFlujo {
+
+    // Cada cuántas filas se empuja lo escrito al cliente (además de la primera)
+    private static final int FILAS_POR_ENVIO = 200;
+
+    /**
+     * Recorrido en flujo de un servicio (p. ej. CursoService.recorrerTodosLosCursos).
+     * Devuelve el número de filas entregadas.
+     */
+    @FunctionalInterface
+    public interface FuenteFilas<T> {
+        int recorrer(ProcesadorFila<T> procesador) throws IOException;
+    }
+
+    private final ObjectMapper objectMapper;
+    // Sin flush tras cada fila: se envía por bloques de FILAS_POR_ENVIO
+    private final ObjectWriter escritorFila;
+
+    @Autowired
+    public RespuestaJsonEnFlujo(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.escritorFila = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Arreglo JSON simple: [fila, fila, ...]
+     */
+    public <T> ResponseEntity<StreamingResponseBody> arreglo(String nombre, FuenteFilas<T> fuente) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = crearGenerador(salida)) {
+                generador.writeStartArray();
+                int[] filas = {0};
+                escribirFilas(generador, fuente, filas);
+                generador.writeEndArray();
+                System.out.println("✅ " + nombre + ": " + filas[0] + " filas enviadas en flujo");
+            } catch (RuntimeException e) {
+                // En un arreglo simple no hay dónde reportar el error: la respuesta queda incompleta
+                System.err.println("❌ Error al enviar " + nombre + " en flujo: " + e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    /**
+     * Objeto con el arreglo en el campo indicado: {"campo": [...], "total": n, "success": true}
+     */
+    public <T> ResponseEntity<StreamingResponseBody> envuelta(String nombre, String campo, FuenteFilas<T> fuente) {
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = crearGenerador(salida)) {
+                generador.writeStartObject();
+                generador.writeArrayFieldStart(campo);
+                int[] filas = {0};
+                try {
+                    escribirFilas(generador, fuente, filas);
+                    generador.writeEndArray();
+                    generador.writeNumberField("total", filas[0]);
+                    generador.writeBooleanField("success", true);
+                    System.out.println("✅ " + nombre + ": " + filas[0] + " filas enviadas en flujo");
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Error al enviar " + nombre + " en flujo tras " + filas[0] + " filas: " + e.getMessage());
+                    generador.writeEndArray();
+                    generador.writeNumberField("total", filas[0]);
+                    generador.writeBooleanField("success", false);
+                    generador.writeStringField("error", "Error al obtener " + nombre + ": " + e.getMessage());
+                }
+                generador.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    private JsonGenerator crearGenerador(OutputStream salida) throws IOException {
+        JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+        // La salida del servlet la cierra el contenedor, y un arreglo cortado por un error
+        // no se debe cerrar solo: el cliente lo tomaría por una respuesta completa
+        generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generador.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return generador;
+    }
+
+    // Cuenta en escritas[0] las filas ya enviadas, para poder reportarlas si el recorrido falla
+    private <T> void escribirFilas(JsonGenerator generador, FuenteFilas<T> fuente, int[] escritas) throws IOException {
+        fuente.recorrer(fila -> {
+            escritorFila.writeValue(generador, fila);
+            escritas[0]++;
+            if (escritas[0] == 1 || escritas[0] % FILAS_POR_ENVIO == 0) {
+                generador.flush();
+            }
+        });
+    }
+}
@@ -7,6 +7,7 @@ import java.time.LocalDate;
 public class PagoInstructor {
     private int id;
     private int instructorId;
+    private Integer cursoId;
     private LocalDate fechaPago;
     private BigDecimal monto;
     private int horasImpartidas;
@@ -35,6 +36,9 @@ public class PagoInstructor {
     public int getInstructorId() { return instructorId; }
     public void setInstructorId(int instructorId) { this.instructorId = instructorId; }
 
+    public Integer getCursoId() { return cursoId; }
+    public void setCursoId(Integer cursoId) { this.cursoId = cursoId; }
+
     public LocalDate getFechaPago() { return fechaPago; }
     public void setFechaPago(LocalDate fechaPago) { this.fechaPago = fechaPago; }
 
@@ -58,6 +62,7 @@ public class PagoInstructor {
         return "PagoInstructor{" +
                 "id=" + id +
                 ", instructorId=" + instructorId +
+                ", cursoId=" + cursoId +
                 ", fechaPago=" + fechaPago +
                 ", monto=" + monto +
                 ", horasImpartidas=" + horasImpartidas +
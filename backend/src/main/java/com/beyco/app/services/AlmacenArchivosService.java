@@ -0,0 +1,292 @@
+package com.beyco.app.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Almacén de archivos direccionado por contenido (SHA-256) con conteo de referencias.
+ *
+ * Un archivo se guarda una sola vez en uploads/blobs/<aa>/<bb>/<sha256><ext>, sin importar cuántas
+ * evidencias, logos o firmas lo usen. Una subida multipart se copia una sola vez a un temporal
+ * dentro de blobs/ calculando el hash al pasar (DigestInputStream); después el temporal se mueve
+ * a su ruta final o se descarta si el contenido ya existía. Al liberar la última referencia se borran
+ * el archivo y su miniatura. Las rutas devueltas son relativas a uploads y se guardan tal cual en la BD.
+ *
+ * Los dos niveles de directorio (primeros 4 caracteres del hash) mantienen cada carpeta con
+ * pocas entradas aunque haya decenas de miles de archivos.
+ */
+@Service
+public class AlmacenArchivosService {
+
+    public static final String PREFIJO_BLOBS = "blobs/";
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+    // Candados por hash: serializan guardar/liberar del mismo contenido dentro de la JVM
+    private static final int NUMERO_CANDADOS = 64;
+
+    private final DataSource dataSource;
+    private final MiniaturaService miniaturaService;
+    private final Path raiz = Paths.get("uploads");
+    private final Object[] candados = new Object[NUMERO_CANDADOS];
+
+    @Autowired
+    public AlmacenArchivosService(DataSource dataSource, MiniaturaService miniaturaService) {
+        this.dataSource = dataSource;
+        this.miniaturaService = miniaturaService;
+        for (int i = 0; i < candados.length; i++) {
+            candados[i] = new Object();
+        }
+    }
+
+    /**
+     * Guarda un archivo subido por multipart y devuelve su ruta relativa a uploads.
+     */
+    public String guardar(MultipartFile archivo) throws IOException {
+        Path temporal = raiz.resolve(PREFIJO_BLOBS).resolve(".tmp-" + UUID.randomUUID());
+        Files.createDirectories(temporal.getParent());
+        MessageDigest digest = nuevoDigest();
+        long tamano;
+        try (InputStream in = new DigestInputStream(archivo.getInputStream(), digest)) {
+            tamano = Files.copy(in, temporal);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        return ubicar(temporal, hash, tamano, extensionDe(archivo.getOriginalFilename()));
+    }
+
+    /**
+     * Guarda un archivo que ya está en disco (p. ej. una carga por fragmentos ensamblada).
+     * El archivo original se mueve al almacén o se borra si su contenido ya existía.
+     */
+    public String guardar(Path archivo, String nombreOriginal) throws IOException {
+        String hash;
+        try (InputStream in = Files.newInputStream(archivo)) {
+            hash = calcularHash(in);
+        }
+        return ubicar(archivo, hash, Files.size(archivo), extensionDe(nombreOriginal));
+    }
+
+    // Mueve el archivo a la ruta de su hash (o lo borra si ya existe) y suma la referencia
+    private String ubicar(Path archivo, String hash, long tamano, String extension) throws IOException {
+        String ruta = rutaBlob(hash, extension);
+        Path destino = raiz.resolve(ruta);
+
+        synchronized (candado(hash)) {
+            if (!Files.exists(destino)) {
+                Files.createDirectories(destino.getParent());
+                Files.move(archivo, destino, StandardCopyOption.ATOMIC_MOVE);
+                System.out.println("📁 Archivo nuevo en almacén: " + ruta);
+            } else {
+                Files.delete(archivo);
+                System.out.println("♻️ Archivo duplicado, se reutiliza: " + ruta);
+            }
+            agregarReferencia(ruta, hash, tamano);
+        }
+        return ruta;
+    }
+
+    /**
+     * Copia al almacén un archivo existente sin tocar el original (usado por la migración,
+     * que borra el original solo después de actualizar la BD).
+     */
+    public String copiar(Path archivo, String nombreOriginal) throws IOException {
+        String hash;
+        try (InputStream in = Files.newInputStream(archivo)) {
+            hash = calcularHash(in);
+        }
+        String ruta = rutaBlob(hash, extensionDe(nombreOriginal));
+        Path destino = raiz.resolve(ruta);
+
+        synchronized (candado(hash)) {
+            if (!Files.exists(destino)) {
+                Path temporal = temporalJunto(destino);
+                Files.copy(archivo, temporal);
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            }
+            agregarReferencia(ruta, hash, Files.size(destino));
+        }
+        return ruta;
+    }
+
+    /**
+     * Libera una referencia. Borra el archivo cuando ya nadie lo usa.
+     * Las rutas anteriores al almacén (fuera de blobs/) se borran directamente, como antes.
+     */
+    public void liberar(String ruta) throws IOException {
+        if (ruta == null || ruta.isBlank()) {
+            return;
+        }
+        if (!esBlob(ruta)) {
+            Files.deleteIfExists(raiz.resolve(ruta));
+            miniaturaService.eliminarMiniatura(ruta);
+            System.out.println("🗑️ Archivo eliminado del sistema: " + ruta);
+            return;
+        }
+
+        String hash = hashDeRuta(ruta);
+        synchronized (candado(hash)) {
+            if (quitarReferencia(ruta)) {
+                Files.deleteIfExists(raiz.resolve(ruta));
+                miniaturaService.eliminarMiniatura(ruta);
+                System.out.println("🗑️ Última referencia liberada, archivo eliminado: " + ruta);
+            }
+        }
+    }
+
+    /**
+     * Suma una referencia a un archivo que ya está en el almacén (p. ej. un logo elegido en el
+     * formulario de empresa). Devuelve false si la ruta no es del almacén o ya no existe.
+     */
+    public boolean retener(String ruta) {
+        if (!esBlob(ruta)) {
+            return false;
+        }
+        String sql = "UPDATE archivos_blob SET Referencias = Referencias + 1 WHERE Ruta = ?";
+        synchronized (candado(hashDeRuta(ruta))) {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setString(1, ruta);
+                return pstmt.executeUpdate() > 0;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Error al registrar referencia de archivo: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ruta en disco de un archivo relativo a uploads, o null si sale de uploads (p. ej. con "..").
+     */
+    public Path rutaEnDisco(String ruta) {
+        Path base = raiz.toAbsolutePath().normalize();
+        Path destino = base.resolve(ruta).normalize();
+        return destino.startsWith(base) ? destino : null;
+    }
+
+    public static boolean esBlob(String ruta) {
+        return ruta != null && ruta.startsWith(PREFIJO_BLOBS);
+    }
+
+    // ========== REFERENCIAS EN BD ==========
+
+    private void agregarReferencia(String ruta, String hash, long tamano) {
+        String sql = "INSERT INTO archivos_blob (Ruta, Hash, Tamano, Referencias) VALUES (?, ?, ?, 1) " +
+                    "ON DUPLICATE KEY UPDATE Referencias = Referencias + 1";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setString(1, ruta);
+            pstmt.setString(2, hash);
+            pstmt.setLong(3, tamano);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al registrar referencia de archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resta una referencia y devuelve true si era la última (el registro se elimina).
+     */
+    private boolean quitarReferencia(String ruta) {
+        String sqlBloquear = "SELECT Referencias FROM archivos_blob WHERE Ruta = ? FOR UPDATE";
+        String sqlRestar = "UPDATE archivos_blob SET Referencias = Referencias - 1 WHERE Ruta = ?";
+        String sqlEliminar = "DELETE FROM archivos_blob WHERE Ruta = ?";
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int referencias;
+                try (PreparedStatement pstmt = connection.prepareStatement(sqlBloquear)) {
+                    pstmt.setString(1, ruta);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        // Sin registro: archivo huérfano, se puede borrar
+                        referencias = rs.next() ? rs.getInt("Referencias") : 0;
+                    }
+                }
+
+                boolean ultima = referencias <= 1;
+                try (PreparedStatement pstmt = connection.prepareStatement(ultima ? sqlEliminar : sqlRestar)) {
+                    pstmt.setString(1, ruta);
+                    pstmt.executeUpdate();
+                }
+                connection.commit();
+                return ultima;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al liberar referencia de archivo: " + e.getMessage());
+        }
+    }
+
+    // ========== AUXILIARES ==========
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String calcularHash(InputStream in) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        int leidos;
+        while ((leidos = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, leidos);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String rutaBlob(String hash, String extension) {
+        return PREFIJO_BLOBS + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + extension;
+    }
+
+    private static String hashDeRuta(String ruta) {
+        String nombre = ruta.substring(ruta.lastIndexOf('/') + 1);
+        int punto = nombre.indexOf('.');
+        return punto >= 0 ? nombre.substring(0, punto) : nombre;
+    }
+
+    private static String extensionDe(String nombreOriginal) {
+        if (nombreOriginal == null || !nombreOriginal.contains(".")) {
+            return "";
+        }
+        String extension = nombreOriginal.substring(nombreOriginal.lastIndexOf(".")).toLowerCase();
+        // Solo extensiones simples para que no se cuelen separadores de ruta
+        return extension.matches("\\.[a-z0-9]{1,10}") ? extension : "";
+    }
+
+    private Path temporalJunto(Path destino) throws IOException {
+        Files.createDirectories(destino.getParent());
+        return destino.resolveSibling(".tmp-" + UUID.randomUUID());
+    }
+
+    private Object candado(String hash) {
+        return candados[Math.floorMod(hash.hashCode(), NUMERO_CANDADOS)];
+    }
+}
@@ -1,65 +1,115 @@
 package com.beyco.app.services;
 
+import com.beyco.app.busqueda.IndiceNgramas;
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.OrdenPagina;
+import com.beyco.app.db.Pagina;
+import com.beyco.app.db.ParametrosConsulta;
+import com.beyco.app.db.ProcesadorFila;
 import com.beyco.app.models.Alumno;
 import com.beyco.app.models.Instructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class AlumnoService {
 
+    // Órdenes para la paginación por cursor; el primero es el predeterminado.
+    // Curp es la llave primaria y desempata nombres repetidos (índices de la migración 005)
+    private static final List<OrdenPagina<Alumno>> ORDENES_PAGINA = List.of(
+            OrdenPagina.ascendente("apellido", "Apellido_paterno", OrdenPagina.Tipo.TEXTO, Alumno::getApellidoPaterno,
+                    "Curp", OrdenPagina.Tipo.TEXTO, Alumno::getCurp),
+            OrdenPagina.ascendente("nombre", "Nombre", OrdenPagina.Tipo.TEXTO, Alumno::getNombre,
+                    "Curp", OrdenPagina.Tipo.TEXTO, Alumno::getCurp),
+            OrdenPagina.descendente("registro", "Fecha_Registro", OrdenPagina.Tipo.FECHA_HORA, Alumno::getFechaRegistro,
+                    "Curp", OrdenPagina.Tipo.TEXTO, Alumno::getCurp));
+
+    // Máximo de resultados de las búsquedas por texto (los de mayor puntaje)
+    public static final int MAXIMO_RESULTADOS_BUSQUEDA = 50;
+    private static final int INTENTOS_RECARGA_INDICE = 3;
+    private static final Set<String> CAMPOS_NOMBRE = Set.of("nombre", "apellidoPaterno", "apellidoMaterno");
+    private static final Set<String> CAMPOS_APELLIDOS = Set.of("apellidoPaterno", "apellidoMaterno");
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    // Las hojas de calificaciones en caché traen el nombre de cada alumno
+    private final CalificacionService calificacionService;
+
+    // Índice de búsqueda de los alumnos activos. Se carga en la primera búsqueda, se mantiene
+    // al día con crear/actualizar/desactivar/eliminar y se reconstruye cada 30 min por si hubo
+    // cambios directos en la BD
+    private final IndiceNgramas<Alumno> indice = new IndiceNgramas<>("alumnos", Alumno::getCurp, List.of(
+            new IndiceNgramas.Campo<>("apellidoPaterno", Alumno::getApellidoPaterno, 3),
+            new IndiceNgramas.Campo<>("apellidoMaterno", Alumno::getApellidoMaterno, 3),
+            new IndiceNgramas.Campo<>("nombre", Alumno::getNombre, 2),
+            new IndiceNgramas.Campo<>("curp", Alumno::getCurp, 2),
+            new IndiceNgramas.Campo<>("rfc", Alumno::getRfc, 2)));
 
     @Autowired
-    public AlumnoService(DataSource dataSource) {
+    public AlumnoService(DataSource dataSource, ConsultasJdbc consultas, CalificacionService calificacionService) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.calificacionService = calificacionService;
     }
 
     /**
      * Obtiene todos los alumnos activos
      */
     public List<Alumno> listarTodosLosAlumnos() {
-        List<Alumno> alumnos = new ArrayList<>();
         String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
                     "Puesto, Estado_Nacimiento, RFC, Activo, Fecha_Registro FROM alumnos WHERE Activo = 1";
         
-        try (Connection connection = dataSource.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Alumno alumno = new Alumno();
-                alumno.setCurp(rs.getString("Curp"));
-                alumno.setNombre(rs.getString("Nombre"));
-                alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                
-                if (rs.getDate("Fecha_Nacimiento") != null) {
-                    alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                }
-                
-                alumno.setPuesto(rs.getString("Puesto"));
-                alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                alumno.setRfc(rs.getString("RFC"));
-                alumno.setActivo(rs.getBoolean("Activo"));
-                
-                if (rs.getTimestamp("Fecha_Registro") != null) {
-                    alumno.setFechaRegistro(rs.getTimestamp("Fecha_Registro").toLocalDateTime());
-                }
-                
-                alumnos.add(alumno);
-            }
+        try {
+            return consultas.listar(sql, Mapeadores.ALUMNO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar alumnos: " + e.getMessage());
         }
-        return alumnos;
+    }
+
+    /**
+     * Página de alumnos activos por cursor: orden = apellido (predeterminado), nombre o registro.
+     * El cursor es el "siguiente" de la página anterior (null para la primera).
+     */
+    public Pagina<Alumno> listarAlumnosPagina(String orden, String cursor, int limite) {
+        String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
+                    "Puesto, Estado_Nacimiento, RFC, Activo, Fecha_Registro FROM alumnos WHERE Activo = 1";
+        try {
+            return consultas.pagina(sql, OrdenPagina.elegir(ORDENES_PAGINA, orden), cursor, limite, Mapeadores.ALUMNO);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al listar alumnos paginados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre todos los alumnos activos en flujo (ordenados por apellidos) sin cargarlos en memoria.
+     * Usado por las exportaciones; devuelve el número de alumnos procesados.
+     */
+    public int recorrerAlumnosActivos(ProcesadorFila<Alumno> procesador) throws IOException {
+        String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
+                    "Puesto, Estado_Nacimiento, RFC, Activo, Fecha_Registro FROM alumnos WHERE Activo = 1 " +
+                    "ORDER BY Apellido_paterno, Apellido_materno, Nombre";
+        try {
+            return consultas.recorrerEnFlujo(sql, ParametrosConsulta.NINGUNO, Mapeadores.ALUMNO, procesador);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al recorrer alumnos: " + e.getMessage());
+        }
     }
 
     /**
@@ -82,7 +132,11 @@ public class AlumnoService {
             pstmt.setString(8, alumno.getRfc());
             pstmt.setBoolean(9, alumno.isActivo());
             
-            return pstmt.executeUpdate() > 0;
+            boolean creado = pstmt.executeUpdate() > 0;
+            if (creado) {
+                actualizarEnIndice(alumno);
+            }
+            return creado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al crear alumno: " + e.getMessage());
@@ -110,7 +164,12 @@ public class AlumnoService {
             pstmt.setBoolean(8, alumno.isActivo());
             pstmt.setString(9, alumno.getCurp());
             
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado) {
+                actualizarEnIndice(alumno);
+                calificacionService.invalidarHojas();
+            }
+            return actualizado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al actualizar alumno: " + e.getMessage());
@@ -127,7 +186,11 @@ public class AlumnoService {
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
             pstmt.setString(1, curp);
-            return pstmt.executeUpdate() > 0;
+            boolean desactivado = pstmt.executeUpdate() > 0;
+            if (desactivado) {
+                indice.quitar(curp);
+            }
+            return desactivado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al desactivar alumno: " + e.getMessage());
@@ -138,7 +201,6 @@ public class AlumnoService {
      * Busca alumnos por curso
      */
     public List<Alumno> buscarAlumnosPorCurso(int cursoId) {
-        List<Alumno> alumnos = new ArrayList<>();
         String sql = "SELECT a.Curp, a.Nombre, a.Apellido_paterno, a.Apellido_materno, " +
                     "a.Fecha_Nacimiento, a.Puesto, a.Estado_Nacimiento, a.RFC " +
                     "FROM alumnos a " +
@@ -146,47 +208,51 @@ public class AlumnoService {
                     "WHERE ac.cursos_Id_Curso = ? AND a.Activo = 1";
         
         System.out.println("📋 Buscando alumnos para curso: " + cursoId);
-        System.out.println("🔍 SQL: " + sql);
         
-        try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, cursoId);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int count = 0;
-                while (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    // Fecha de nacimiento
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    
-                    alumnos.add(alumno);
-                    count++;
-                    
-                    System.out.println("✅ Alumno " + count + ": " + 
-                        alumno.getNombre() + " " + alumno.getApellidoPaterno() + 
-                        " | CURP: " + alumno.getCurp());
-                }
-                System.out.println("🎯 Total alumnos encontrados: " + alumnos.size());
-            }
-            
+        try {
+            List<Alumno> alumnos = consultas.listar(sql, pstmt -> pstmt.setInt(1, cursoId), Mapeadores.ALUMNO);
+            System.out.println("🎯 Total alumnos encontrados: " + alumnos.size());
+            return alumnos;
         } catch (SQLException e) {
             System.err.println("❌ Error SQL en buscarAlumnosPorCurso: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al buscar alumnos por curso: " + e.getMessage());
         }
-        return alumnos;
+    }
+
+    /**
+     * Busca los alumnos de varios cursos en una sola consulta.
+     * Devuelve un mapa cursoId -> alumnos; los cursos sin alumnos quedan con lista vacía.
+     */
+    public Map<Integer, List<Alumno>> buscarAlumnosPorCursos(Collection<Integer> cursoIds) {
+        Map<Integer, List<Alumno>> alumnosPorCurso = new LinkedHashMap<>();
+        if (cursoIds == null || cursoIds.isEmpty()) {
+            return alumnosPorCurso;
+        }
+        for (Integer cursoId : cursoIds) {
+            alumnosPorCurso.put(cursoId, new ArrayList<>());
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(alumnosPorCurso.size(), "?"));
+        String sql = "SELECT ac.cursos_Id_Curso, a.Curp, a.Nombre, a.Apellido_paterno, a.Apellido_materno, " +
+                    "a.Fecha_Nacimiento, a.Puesto, a.Estado_Nacimiento, a.RFC " +
+                    "FROM alumnos_has_cursos ac " +
+                    "JOIN alumnos a ON a.Curp = ac.alumnos_Curp " +
+                    "WHERE ac.cursos_Id_Curso IN (" + placeholders + ") AND a.Activo = 1";
+
+        try {
+            consultas.recorrer(sql, pstmt -> {
+                int idx = 1;
+                for (Integer cursoId : alumnosPorCurso.keySet()) {
+                    pstmt.setInt(idx++, cursoId);
+                }
+            }, Mapeadores.ALUMNO_CON_CURSO, fila -> alumnosPorCurso.get(fila.getKey()).add(fila.getValue()));
+        } catch (SQLException e) {
+            System.err.println("❌ Error SQL en buscarAlumnosPorCursos: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al buscar alumnos por cursos: " + e.getMessage());
+        }
+        return alumnosPorCurso;
     }
 
     /**
@@ -196,78 +262,32 @@ public class AlumnoService {
         String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
                     "Puesto, Estado_Nacimiento, RFC, Activo FROM alumnos WHERE Curp = ? AND Activo = 1";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, curp);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    alumno.setActivo(rs.getBoolean("Activo"));
-                    
-                    return alumno;
-                }
-            }
+        try {
+            return consultas.primero(sql, pstmt -> pstmt.setString(1, curp), Mapeadores.ALUMNO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al buscar alumno por CURP: " + e.getMessage());
         }
-        return null;
     }
 
     /**
-     * Busca alumnos por nombre (búsqueda parcial)
+     * Busca alumnos por nombre o apellidos (búsqueda parcial, sin acentos), los mejores primero
      */
     public List<Alumno> buscarAlumnosPorNombre(String nombre) {
-        List<Alumno> alumnos = new ArrayList<>();
-        String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
-                    "Puesto, Estado_Nacimiento, RFC FROM alumnos " +
-                    "WHERE (Nombre LIKE ? OR Apellido_paterno LIKE ? OR Apellido_materno LIKE ?) AND Activo = 1";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            String searchTerm = "%" + nombre + "%";
-            pstmt.setString(1, searchTerm);
-            pstmt.setString(2, searchTerm);
-            pstmt.setString(3, searchTerm);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    
-                    alumnos.add(alumno);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Error al buscar alumnos por nombre: " + e.getMessage());
-        }
-        return alumnos;
+        return buscarEnIndice(nombre, MAXIMO_RESULTADOS_BUSQUEDA, CAMPOS_NOMBRE);
+    }
+
+    /**
+     * Busca alumnos activos por nombre, apellidos, CURP o RFC en el índice en memoria.
+     * Cada palabra del texto debe coincidir (completa, como prefijo o dentro de una palabra);
+     * devuelve como máximo "maximo" alumnos, del más parecido al menos.
+     */
+    public List<Alumno> buscarAlumnos(String texto, int maximo) {
+        return buscarEnIndice(texto, maximo, null);
+    }
+
+    public Map<String, Object> obtenerMetricasIndice() {
+        return indice.metricas();
     }
 
     /**
@@ -313,78 +333,30 @@ public class AlumnoService {
      * Obtiene alumnos por puesto
      */
     public List<Alumno> buscarAlumnosPorPuesto(String puesto) {
-        List<Alumno> alumnos = new ArrayList<>();
         String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
                     "Puesto, Estado_Nacimiento, RFC FROM alumnos WHERE Puesto LIKE ? AND Activo = 1";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, "%" + puesto + "%");
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    
-                    alumnos.add(alumno);
-                }
-            }
+        try {
+            return consultas.listar(sql, pstmt -> pstmt.setString(1, "%" + puesto + "%"), Mapeadores.ALUMNO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al buscar alumnos por puesto: " + e.getMessage());
         }
-        return alumnos;
     }
 
     /**
      * Obtiene alumnos por estado de nacimiento
      */
     public List<Alumno> buscarAlumnosPorEstado(String estado) {
-        List<Alumno> alumnos = new ArrayList<>();
         String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
                     "Puesto, Estado_Nacimiento, RFC FROM alumnos WHERE Estado_Nacimiento = ? AND Activo = 1";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, estado);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    
-                    alumnos.add(alumno);
-                }
-            }
+        try {
+            return consultas.listar(sql, pstmt -> pstmt.setString(1, estado), Mapeadores.ALUMNO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al buscar alumnos por estado: " + e.getMessage());
         }
-        return alumnos;
     }
 
     /**
@@ -414,57 +386,62 @@ public class AlumnoService {
         return instructores;
     }
 
-        public List<Alumno> buscarAlumnosPorApellidos(String apellido) {
-        List<Alumno> alumnos = new ArrayList<>();
-        String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
-                    "Puesto, Estado_Nacimiento, RFC, Activo FROM alumnos " +
-                    "WHERE (Apellido_paterno LIKE ? OR Apellido_materno LIKE ?) AND Activo = 1";
-        
+    /**
+     * Busca alumnos por apellido paterno o materno (búsqueda parcial, sin acentos), los mejores primero
+     */
+    public List<Alumno> buscarAlumnosPorApellidos(String apellido) {
         System.out.println("🔍 Buscando alumnos por apellido: " + apellido);
-        System.out.println("📋 SQL: " + sql);
-        
-        try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            String searchTerm = "%" + apellido + "%";
-            pstmt.setString(1, searchTerm);
-            pstmt.setString(2, searchTerm);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                int count = 0;
-                while (rs.next()) {
-                    Alumno alumno = new Alumno();
-                    alumno.setCurp(rs.getString("Curp"));
-                    alumno.setNombre(rs.getString("Nombre"));
-                    alumno.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    alumno.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    
-                    if (rs.getDate("Fecha_Nacimiento") != null) {
-                        alumno.setFechaNacimiento(rs.getDate("Fecha_Nacimiento").toLocalDate());
-                    }
-                    
-                    alumno.setPuesto(rs.getString("Puesto"));
-                    alumno.setEstadoNacimiento(rs.getString("Estado_Nacimiento"));
-                    alumno.setRfc(rs.getString("RFC"));
-                    alumno.setActivo(rs.getBoolean("Activo"));
-                    
-                    alumnos.add(alumno);
-                    count++;
-                    
-                    System.out.println("✅ Alumno " + count + ": " + 
-                        alumno.getNombre() + " " + alumno.getApellidoPaterno() + 
-                        " " + alumno.getApellidoMaterno());
-                }
-                System.out.println("🎯 Total alumnos encontrados: " + alumnos.size());
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Error SQL en buscarAlumnosPorApellidos: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Error al buscar alumnos por apellidos: " + e.getMessage());
-        }
+        List<Alumno> alumnos = buscarEnIndice(apellido, MAXIMO_RESULTADOS_BUSQUEDA, CAMPOS_APELLIDOS);
+        System.out.println("🎯 Total alumnos encontrados: " + alumnos.size());
         return alumnos;
     }
 
+    // ========== ÍNDICE DE BÚSQUEDA ==========
+
+    private List<Alumno> buscarEnIndice(String texto, int maximo, Set<String> campos) {
+        asegurarIndice();
+        return indice.buscar(texto, maximo, campos).stream().map(IndiceNgramas.Resultado::valor).toList();
+    }
+
+    /**
+     * Aviso de alumnos guardados por fuera de crearAlumno/actualizarAlumno (importación masiva)
+     */
+    public void alumnosGuardados(Collection<Alumno> alumnos) {
+        alumnos.forEach(this::actualizarEnIndice);
+        calificacionService.invalidarHojas();
+    }
+
+    private void actualizarEnIndice(Alumno alumno) {
+        if (alumno.isActivo()) {
+            indice.agregar(alumno);
+        } else {
+            indice.quitar(alumno.getCurp());
+        }
+    }
+
+    private void asegurarIndice() {
+        indice.cargarSiFalta(this::listarTodosLosAlumnos, INTENTOS_RECARGA_INDICE);
+    }
+
+    @Scheduled(fixedDelay = 30 * 60 * 1000, initialDelay = 30 * 60 * 1000)
+    public void recargaProgramadaIndice() {
+        if (!indice.estaCargado()) {
+            return; // Nadie ha buscado todavía: se cargará en la primera búsqueda
+        }
+        try {
+            recargarIndice();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al recargar el índice de alumnos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el índice con los alumnos activos de la BD (por si hubo cambios directos en ella)
+     */
+    public boolean recargarIndice() {
+        return indice.recargar(this::listarTodosLosAlumnos, INTENTOS_RECARGA_INDICE);
+    }
+
         /**
      * Elimina un alumno definitivamente del sistema
      * Primero elimina sus inscripciones y luego el alumno
@@ -495,6 +472,8 @@ public class AlumnoService {
                 
                 if (filasAfectadas > 0) {
                     connection.commit(); // Confirmar transacción
+                    indice.quitar(curp);
+                    calificacionService.invalidarHojas();
                     System.out.println("✅ Alumno eliminado definitivamente: " + curp);
                     return true;
                 } else {
@@ -1,23 +1,69 @@
 package com.beyco.app.services;
 
+import com.beyco.app.cache.CacheAcotado;
+import com.beyco.app.db.RevisorConsultas;
 import com.beyco.app.models.CalificacionRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CalificacionService {
 
+    public static final String GUARDADA = "guardada";
+    public static final String NO_INSCRITO = "no_inscrito";
+    public static final String REPETIDA = "repetida";
+    public static final String INVALIDA = "invalida";
+
+    public static final int MAXIMO_CALIFICACIONES_POR_SOLICITUD = 1000;
+    private static final int FILAS_POR_INSERT = 500;
+    private static final double CALIFICACION_MAXIMA = 100;
+    // Valores del ENUM evaluaciones_cursos.Resultado
+    private static final Set<String> RESULTADOS = Set.of("APTO", "NO APTO", "CONDICIONADO");
+
+    public record ResultadoCalificacion(String curp, String resultado) { }
+
+    // Mismas reglas que la pantalla de evaluaciones del instructor
+    private static final double PROMEDIO_APROBATORIO = 70;
+    private static final double PRACTICO_APROBATORIO = 80;
+
+    // Una fila por alumno inscrito (o una sola con alumno NULL si el curso no tiene alumnos);
+    // sin catálogo se asume que el curso lleva examen práctico, igual que el frontend
+    private static final String SQL_HOJA = "SELECT c.Id_Curso, c.Nombre_curso, COALESCE(cat.Examen_practico, 1) AS Lleva_Practico, " +
+                    "a.Curp, a.Nombre, a.Apellido_paterno, a.Apellido_materno, " +
+                    "e.Examen_Inicial, e.Examen_Final, e.Examen_Practico, e.Resultado, e.Observaciones " +
+                    "FROM cursos c " +
+                    "LEFT JOIN catalogo_cursos cat ON cat.Clave_STPS = c.Clave_STPS " +
+                    "LEFT JOIN alumnos_has_cursos ahc ON ahc.cursos_Id_Curso = c.Id_Curso " +
+                    "LEFT JOIN alumnos a ON a.Curp = ahc.alumnos_Curp " +
+                    "LEFT JOIN evaluaciones_cursos e ON e.cursos_Id_Curso = ahc.cursos_Id_Curso AND e.alumnos_Curp = ahc.alumnos_Curp " +
+                    "WHERE c.Id_Curso = ? " +
+                    "ORDER BY a.Apellido_paterno, a.Apellido_materno, a.Nombre";
+
     private final DataSource dataSource;
+    // Se invalida al guardar calificaciones, al cambiar las inscripciones o el curso mismo
+    // (CursoService) y completa al cambiar alumnos o el catálogo, que aparecen en todas las hojas
+    private final CacheAcotado<Integer, Map<String, Object>> cacheHojas =
+            new CacheAcotado<>("calificaciones.hoja", 500, Duration.ofMinutes(5));
 
     @Autowired
-    public CalificacionService(DataSource dataSource) {
+    public CalificacionService(DataSource dataSource, RevisorConsultas revisorConsultas) {
         this.dataSource = dataSource;
+        revisorConsultas.registrar("calificaciones.hoja", SQL_HOJA, pstmt -> pstmt.setInt(1, 1));
     }
 
     /**
-     * Guarda o actualiza una calificación en la tabla evaluaciones_cursos
+     * Guarda o actualiza una calificación en la tabla evaluaciones_cursos.
+     * Un solo INSERT ... ON DUPLICATE KEY UPDATE sobre la llave (cursos_Id_Curso, alumnos_Curp).
      */
     public boolean guardarCalificacion(String alumnoCurp, int cursoId, 
                                       double evaluacionInicial, double evaluacionFinal, 
@@ -25,118 +71,172 @@ public class CalificacionService {
                                       String resultado, String observaciones) {
         
         System.out.println("📝 Guardando calificación para alumno: " + alumnoCurp + ", curso: " + cursoId);
-        System.out.println("📊 Datos: Inicial=" + evaluacionInicial + ", Final=" + evaluacionFinal + 
-                          ", Práctico=" + examenPractico + ", Resultado=" + resultado);
         
-        // Verificar si ya existe una calificación para este alumno y curso
-        if (existeCalificacion(alumnoCurp, cursoId)) {
-            return actualizarCalificacion(alumnoCurp, cursoId, evaluacionInicial, evaluacionFinal, 
-                                        examenPractico, resultado, observaciones);
-        } else {
-            return insertarCalificacion(alumnoCurp, cursoId, evaluacionInicial, evaluacionFinal, 
-                                      examenPractico, resultado, observaciones);
+        CalificacionRequest calificacion = new CalificacionRequest(alumnoCurp, cursoId, evaluacionInicial,
+                evaluacionFinal, examenPractico, promedio, resultado, observaciones);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean guardada = guardarBloque(connection, cursoId, List.of(calificacion)) > 0;
+            cacheHojas.invalidar(cursoId);
+            return guardada;
+        } catch (SQLException e) {
+            System.err.println("❌ Error guardando calificación: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al guardar calificación: " + e.getMessage());
         }
     }
 
     /**
-     * Inserta una nueva calificación en evaluaciones_cursos
+     * Guarda la hoja de calificaciones de un curso completo en una sola transacción y devuelve
+     * el resultado de cada fila en el orden recibido. Una consulta confirma qué alumnos están
+     * inscritos en el curso; sus calificaciones se escriben con INSERT ... ON DUPLICATE KEY UPDATE
+     * de varias filas por sentencia. Si el curso no existe lanza IllegalArgumentException.
      */
-    private boolean insertarCalificacion(String alumnoCurp, int cursoId, 
-                                        double evaluacionInicial, double evaluacionFinal, 
-                                        double examenPractico, String resultado, 
-                                        String observaciones) {
-        
-        String sql = "INSERT INTO evaluaciones_cursos (alumnos_Curp, cursos_Id_Curso, Curso_Id, Examen_Inicial, " +
-                    "Examen_Final, Examen_Practico, Resultado, Observaciones) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        System.out.println("📝 Insertando nueva calificación: " + sql);
-        System.out.println("📋 Parámetros: CURP=" + alumnoCurp + ", CursoID=" + cursoId + 
-                          ", Inicial=" + evaluacionInicial + ", Final=" + evaluacionFinal + 
-                          ", Práctico=" + examenPractico + ", Resultado=" + resultado);
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, alumnoCurp);
-            pstmt.setInt(2, cursoId);
-            pstmt.setInt(3, cursoId); // Curso_Id parece ser duplicado, pero lo incluimos
-            pstmt.setDouble(4, evaluacionInicial);
-            pstmt.setDouble(5, evaluacionFinal);
-            pstmt.setDouble(6, examenPractico);
-            pstmt.setString(7, resultado);
-            pstmt.setString(8, observaciones);
-            
-            int filasAfectadas = pstmt.executeUpdate();
-            System.out.println("✅ Calificación insertada. Filas afectadas: " + filasAfectadas);
-            
-            return filasAfectadas > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error insertando calificación: " + e.getMessage());
-            System.err.println("🔍 SQL State: " + e.getSQLState());
-            System.err.println("🔍 Error Code: " + e.getErrorCode());
-            e.printStackTrace();
-            throw new RuntimeException("Error al insertar calificación: " + e.getMessage());
+    public List<ResultadoCalificacion> guardarCalificacionesCurso(int cursoId, List<CalificacionRequest> calificaciones) {
+        if (calificaciones == null || calificaciones.isEmpty()) {
+            throw new IllegalArgumentException("La hoja de calificaciones está vacía");
+        }
+        if (calificaciones.size() > MAXIMO_CALIFICACIONES_POR_SOLICITUD) {
+            throw new IllegalArgumentException("Se permiten como máximo " + MAXIMO_CALIFICACIONES_POR_SOLICITUD +
+                                               " calificaciones por solicitud");
         }
+
+        // Primera calificación válida de cada CURP, en el orden recibido
+        List<String> estados = new ArrayList<>(calificaciones.size());
+        Map<String, CalificacionRequest> validas = new LinkedHashMap<>();
+        for (CalificacionRequest calificacion : calificaciones) {
+            String curp = normalizarCurp(calificacion);
+            if (curp == null || !esValida(calificacion)) {
+                estados.add(INVALIDA);
+            } else if (validas.containsKey(curp)) {
+                estados.add(REPETIDA);
+            } else {
+                calificacion.setAlumnoCurp(curp);
+                calificacion.setCursoId(cursoId);
+                calificacion.setResultado(calificacion.getResultado().trim().toUpperCase());
+                validas.put(curp, calificacion);
+                estados.add(GUARDADA);
+            }
+        }
+
+        Set<String> inscritos = new HashSet<>();
+        if (!validas.isEmpty()) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    if (!existeCurso(connection, cursoId)) {
+                        throw new IllegalArgumentException("No existe el curso " + cursoId);
+                    }
+                    inscritos = buscarInscritos(connection, cursoId, validas.keySet());
+                    List<CalificacionRequest> porGuardar = new ArrayList<>(inscritos.size());
+                    for (Map.Entry<String, CalificacionRequest> entrada : validas.entrySet()) {
+                        if (inscritos.contains(entrada.getKey())) {
+                            porGuardar.add(entrada.getValue());
+                        }
+                    }
+                    for (int desde = 0; desde < porGuardar.size(); desde += FILAS_POR_INSERT) {
+                        guardarBloque(connection, cursoId,
+                                porGuardar.subList(desde, Math.min(desde + FILAS_POR_INSERT, porGuardar.size())));
+                    }
+                    connection.commit();
+                    cacheHojas.invalidar(cursoId);
+                    System.out.println("✅ Hoja de calificaciones del curso " + cursoId + ": " + porGuardar.size() +
+                                      " guardadas de " + calificaciones.size() + " recibidas");
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Error SQL guardando hoja de calificaciones: " + e.getMessage());
+                e.printStackTrace();
+                throw new RuntimeException("Error al guardar calificaciones: " + e.getMessage());
+            }
+        }
+
+        List<ResultadoCalificacion> resultados = new ArrayList<>(calificaciones.size());
+        for (int i = 0; i < calificaciones.size(); i++) {
+            String curp = normalizarCurp(calificaciones.get(i));
+            String estado = estados.get(i);
+            if (GUARDADA.equals(estado) && !inscritos.contains(curp)) {
+                estado = NO_INSCRITO;
+            }
+            resultados.add(new ResultadoCalificacion(curp, estado));
+        }
+        return resultados;
     }
 
-    /**
-     * Actualiza una calificación existente en evaluaciones_cursos
-     */
-    private boolean actualizarCalificacion(String alumnoCurp, int cursoId, 
-                                         double evaluacionInicial, double evaluacionFinal, 
-                                         double examenPractico, String resultado, 
-                                         String observaciones) {
-        
-        String sql = "UPDATE evaluaciones_cursos SET Examen_Inicial = ?, Examen_Final = ?, " +
-                    "Examen_Practico = ?, Resultado = ?, Observaciones = ? " +
-                    "WHERE alumnos_Curp = ? AND cursos_Id_Curso = ?";
-        
-        System.out.println("📝 Actualizando calificación existente: " + sql);
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setDouble(1, evaluacionInicial);
-            pstmt.setDouble(2, evaluacionFinal);
-            pstmt.setDouble(3, examenPractico);
-            pstmt.setString(4, resultado);
-            pstmt.setString(5, observaciones);
-            pstmt.setString(6, alumnoCurp);
-            pstmt.setInt(7, cursoId);
-            
-            int filasAfectadas = pstmt.executeUpdate();
-            System.out.println("✅ Calificación actualizada. Filas afectadas: " + filasAfectadas);
-            
-            return filasAfectadas > 0;
-            
-        } catch (SQLException e) {
-            System.err.println("❌ Error actualizando calificación: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Error al actualizar calificación: " + e.getMessage());
+    private static String normalizarCurp(CalificacionRequest calificacion) {
+        if (calificacion == null || calificacion.getAlumnoCurp() == null || calificacion.getAlumnoCurp().isBlank()) {
+            return null;
+        }
+        return calificacion.getAlumnoCurp().trim().toUpperCase();
+    }
+
+    private static boolean esValida(CalificacionRequest calificacion) {
+        return enRango(calificacion.getEvaluacionInicial()) && enRango(calificacion.getEvaluacionFinal())
+                && enRango(calificacion.getExamenPractico())
+                && calificacion.getResultado() != null
+                && RESULTADOS.contains(calificacion.getResultado().trim().toUpperCase());
+    }
+
+    private static boolean enRango(double calificacion) {
+        return calificacion >= 0 && calificacion <= CALIFICACION_MAXIMA;
+    }
+
+    private boolean existeCurso(Connection connection, int cursoId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT 1 FROM cursos WHERE Id_Curso = ?")) {
+            pstmt.setInt(1, cursoId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
         }
     }
 
     /**
-     * Verifica si existe una calificación para el alumno y curso en evaluaciones_cursos
+     * CURP del conjunto inscritas en el curso. FOR SHARE evita que se den de baja
+     * mientras se guarda la hoja.
      */
-    private boolean existeCalificacion(String alumnoCurp, int cursoId) {
-        String sql = "SELECT 1 FROM evaluaciones_cursos WHERE alumnos_Curp = ? AND cursos_Id_Curso = ?";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, alumnoCurp);
-            pstmt.setInt(2, cursoId);
-            
+    private Set<String> buscarInscritos(Connection connection, int cursoId, Set<String> curps) throws SQLException {
+        String sql = "SELECT alumnos_Curp FROM alumnos_has_cursos WHERE cursos_Id_Curso = ? AND alumnos_Curp IN (" +
+                    String.join(", ", Collections.nCopies(curps.size(), "?")) + ") FOR SHARE";
+        Set<String> inscritos = new HashSet<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            pstmt.setInt(idx++, cursoId);
+            for (String curp : curps) {
+                pstmt.setString(idx++, curp);
+            }
             try (ResultSet rs = pstmt.executeQuery()) {
-                return rs.next();
+                while (rs.next()) {
+                    inscritos.add(rs.getString("alumnos_Curp").toUpperCase());
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Error verificando existencia de calificación: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+        }
+        return inscritos;
+    }
+
+    // INSERT ... ON DUPLICATE KEY UPDATE de varias filas; Curso_Id siempre lleva el mismo valor que cursos_Id_Curso
+    private int guardarBloque(Connection connection, int cursoId, List<CalificacionRequest> bloque) throws SQLException {
+        String sql = "INSERT INTO evaluaciones_cursos (alumnos_Curp, cursos_Id_Curso, Curso_Id, Examen_Inicial, " +
+                    "Examen_Final, Examen_Practico, Resultado, Observaciones) VALUES " +
+                    String.join(", ", Collections.nCopies(bloque.size(), "(?, ?, ?, ?, ?, ?, ?, ?)")) +
+                    " AS nuevo ON DUPLICATE KEY UPDATE Examen_Inicial = nuevo.Examen_Inicial, " +
+                    "Examen_Final = nuevo.Examen_Final, Examen_Practico = nuevo.Examen_Practico, " +
+                    "Resultado = nuevo.Resultado, Observaciones = nuevo.Observaciones";
+
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            for (CalificacionRequest calificacion : bloque) {
+                pstmt.setString(idx++, calificacion.getAlumnoCurp());
+                pstmt.setInt(idx++, cursoId);
+                pstmt.setInt(idx++, cursoId);
+                pstmt.setDouble(idx++, calificacion.getEvaluacionInicial());
+                pstmt.setDouble(idx++, calificacion.getEvaluacionFinal());
+                pstmt.setDouble(idx++, calificacion.getExamenPractico());
+                pstmt.setString(idx++, calificacion.getResultado());
+                // Observaciones es NOT NULL
+                pstmt.setString(idx++, calificacion.getObservaciones() != null ? calificacion.getObservaciones() : "");
+            }
+            return pstmt.executeUpdate();
         }
     }
 
@@ -187,4 +287,131 @@ public class CalificacionService {
             return null; // Retornar null en lugar de lanzar excepción
         }
     }
-}
\ No newline at end of file
+
+    // ========== HOJA DE CALIFICACIONES ==========
+
+    /**
+     * Hoja de calificaciones del curso: todos los alumnos inscritos con sus calificaciones,
+     * promedio y resultado calculados aquí, más los totales del grupo. Sale de una sola consulta
+     * y se guarda en caché por curso. Devuelve null si el curso no existe.
+     */
+    public Map<String, Object> obtenerHojaCalificaciones(int cursoId) {
+        return cacheHojas.obtener(cursoId, this::calcularHoja);
+    }
+
+    public void invalidarHoja(int cursoId) {
+        cacheHojas.invalidar(cursoId);
+    }
+
+    public void invalidarHojas() {
+        cacheHojas.invalidarTodo();
+    }
+
+    public Map<String, Object> metricasCache() {
+        return cacheHojas.metricas();
+    }
+
+    private Map<String, Object> calcularHoja(int cursoId) {
+        Map<String, Object> curso = null;
+        List<Map<String, Object>> alumnos = new ArrayList<>();
+        int calificados = 0;
+        int aptos = 0;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(SQL_HOJA)) {
+
+            pstmt.setInt(1, cursoId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    boolean llevaPractico = rs.getBoolean("Lleva_Practico");
+                    if (curso == null) {
+                        curso = new LinkedHashMap<>();
+                        curso.put("id", rs.getInt("Id_Curso"));
+                        curso.put("nombre", rs.getString("Nombre_curso"));
+                        curso.put("examenPractico", llevaPractico);
+                    }
+                    String curp = rs.getString("Curp");
+                    if (curp == null) {
+                        continue;
+                    }
+
+                    Map<String, Object> alumno = new LinkedHashMap<>();
+                    alumno.put("curp", curp);
+                    alumno.put("nombre", rs.getString("Nombre"));
+                    alumno.put("apellidoPaterno", rs.getString("Apellido_paterno"));
+                    alumno.put("apellidoMaterno", rs.getString("Apellido_materno"));
+
+                    // Examen_Final es NOT NULL: si viene null el alumno no tiene calificación
+                    boolean calificado = rs.getObject("Examen_Final") != null;
+                    alumno.put("calificado", calificado);
+                    if (calificado) {
+                        double inicial = rs.getDouble("Examen_Inicial");
+                        double examenFinal = rs.getDouble("Examen_Final");
+                        double practico = rs.getDouble("Examen_Practico");
+                        String observaciones = rs.getString("Observaciones");
+                        double promedio = calcularPromedio(inicial, examenFinal, practico, llevaPractico);
+                        String resultado = determinarResultado(promedio, practico, llevaPractico, observaciones);
+
+                        alumno.put("evaluacionInicial", inicial);
+                        alumno.put("evaluacionFinal", examenFinal);
+                        alumno.put("examenPractico", practico);
+                        alumno.put("promedio", Math.round(promedio * 100) / 100.0);
+                        alumno.put("resultado", resultado);
+                        alumno.put("resultadoGuardado", rs.getString("Resultado"));
+                        alumno.put("observaciones", observaciones);
+
+                        calificados++;
+                        if ("APTO".equals(resultado)) {
+                            aptos++;
+                        }
+                    }
+                    alumnos.add(alumno);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Error obteniendo hoja de calificaciones del curso " + cursoId + ": " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al obtener la hoja de calificaciones: " + e.getMessage());
+        }
+
+        if (curso == null) {
+            return null;
+        }
+
+        Map<String, Object> totales = new LinkedHashMap<>();
+        totales.put("alumnos", alumnos.size());
+        totales.put("calificados", calificados);
+        totales.put("pendientes", alumnos.size() - calificados);
+        totales.put("aptos", aptos);
+        totales.put("noAptos", calificados - aptos);
+
+        Map<String, Object> hoja = new LinkedHashMap<>();
+        hoja.put("curso", curso);
+        hoja.put("alumnos", alumnos);
+        hoja.put("totales", totales);
+        return hoja;
+    }
+
+    // Promedio de los exámenes presentados (mayores a 0); el práctico solo cuenta si el curso lo lleva
+    private static double calcularPromedio(double inicial, double examenFinal, double practico, boolean llevaPractico) {
+        double suma = 0;
+        int cantidad = 0;
+        for (double calificacion : llevaPractico ? new double[] {inicial, examenFinal, practico}
+                                                 : new double[] {inicial, examenFinal}) {
+            if (calificacion > 0) {
+                suma += calificacion;
+                cantidad++;
+            }
+        }
+        return cantidad > 0 ? suma / cantidad : 0;
+    }
+
+    // "SIN LICENCIA" en observaciones siempre es NO APTO
+    private static String determinarResultado(double promedio, double practico, boolean llevaPractico, String observaciones) {
+        if (observaciones != null && observaciones.toLowerCase().contains("sin licencia")) {
+            return "NO APTO";
+        }
+        boolean aprobado = promedio >= PROMEDIO_APROBATORIO && (!llevaPractico || practico >= PRACTICO_APROBATORIO);
+        return aprobado ? "APTO" : "NO APTO";
+    }
+}
@@ -0,0 +1,328 @@
+package com.beyco.app.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Carga de evidencias grandes por fragmentos: iniciar, enviar fragmento N y confirmar.
+ *
+ * El archivo se preasigna en uploads/.cargas con su tamaño final. Cada fragmento se escribe directo
+ * en su posición con FileChannel mientras se calcula su SHA-256, y solo se marca recibido si coincide;
+ * con checksum incorrecto el cliente lo vuelve a enviar. Un fragmento ya recibido o que se está
+ * recibiendo se rechaza, así que un reenvío fallido nunca pisa bytes ya verificados. No se confirma,
+ * cancela ni expira una carga mientras haya fragmentos en proceso. Al confirmar, el archivo pasa
+ * al almacén por contenido y solo entonces se crea el registro en evidencia_cursos.
+ *
+ * Las cargas en curso viven en memoria: si el servidor se reinicia, el cliente debe iniciar de nuevo.
+ */
+@Service
+public class CargaEvidenciaService {
+
+    public static final long TAMANO_MAXIMO_ARCHIVO = 2L * 1024 * 1024 * 1024;
+    public static final int TAMANO_FRAGMENTO_POR_DEFECTO = 5 * 1024 * 1024;
+    public static final int TAMANO_FRAGMENTO_MAXIMO = 16 * 1024 * 1024;
+
+    private static final Duration EXPIRACION = Duration.ofHours(24);
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final EvidenciaService evidenciaService;
+    private final AlmacenArchivosService almacenArchivos;
+    private final Path directorioCargas;
+    private final Map<String, CargaEnCurso> cargas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CargaEvidenciaService(EvidenciaService evidenciaService, AlmacenArchivosService almacenArchivos) {
+        this.evidenciaService = evidenciaService;
+        this.almacenArchivos = almacenArchivos;
+        this.directorioCargas = evidenciaService.rutaEnUploads(".cargas");
+    }
+
+    private static class CargaEnCurso {
+        final String id;
+        final Path archivoTemporal;
+        final long tamanoTotal;
+        final int tamanoFragmento;
+        final int totalFragmentos;
+        final String extension;
+        final String tipoEvidencia;
+        final String descripcion;
+        final String observaciones;
+        final int cursosIdCurso;
+        // recibidos, enProceso y cerrada se leen y cambian con el candado de recibidos
+        final BitSet recibidos = new BitSet();
+        final BitSet enProceso = new BitSet();
+        // Confirmada, cancelada o expirada: ya no acepta fragmentos
+        boolean cerrada;
+        volatile Instant ultimaActividad = Instant.now();
+
+        CargaEnCurso(String id, Path archivoTemporal, long tamanoTotal, int tamanoFragmento, String extension,
+                     String tipoEvidencia, String descripcion, String observaciones, int cursosIdCurso) {
+            this.id = id;
+            this.archivoTemporal = archivoTemporal;
+            this.tamanoTotal = tamanoTotal;
+            this.tamanoFragmento = tamanoFragmento;
+            this.totalFragmentos = (int) ((tamanoTotal + tamanoFragmento - 1) / tamanoFragmento);
+            this.extension = extension;
+            this.tipoEvidencia = tipoEvidencia;
+            this.descripcion = descripcion;
+            this.observaciones = observaciones;
+            this.cursosIdCurso = cursosIdCurso;
+        }
+
+        long tamanoDeFragmento(int numero) {
+            long inicio = (long) numero * tamanoFragmento;
+            return Math.min(tamanoFragmento, tamanoTotal - inicio);
+        }
+    }
+
+    // INICIAR CARGA: valida los datos y preasigna el archivo temporal
+    public Map<String, Object> iniciarCarga(String nombreArchivo, String contentType, long tamanoTotal,
+                                            Integer tamanoFragmento, String tipoEvidencia, String descripcion,
+                                            String observaciones, int cursosIdCurso) throws IOException {
+        evidenciaService.validarTipoArchivo(contentType);
+        if (tamanoTotal <= 0) {
+            throw new IllegalArgumentException("El archivo no puede estar vacío");
+        }
+        if (tamanoTotal > TAMANO_MAXIMO_ARCHIVO) {
+            throw new IllegalArgumentException("El archivo es demasiado grande. Máximo 2GB.");
+        }
+        if (descripcion == null || descripcion.trim().isEmpty()) {
+            throw new IllegalArgumentException("La descripción es requerida");
+        }
+        int fragmento = tamanoFragmento != null ? tamanoFragmento : TAMANO_FRAGMENTO_POR_DEFECTO;
+        if (fragmento <= 0 || fragmento > TAMANO_FRAGMENTO_MAXIMO) {
+            throw new IllegalArgumentException("Tamaño de fragmento inválido. Máximo " + TAMANO_FRAGMENTO_MAXIMO + " bytes.");
+        }
+
+        String extension = "";
+        if (nombreArchivo != null && nombreArchivo.contains(".")) {
+            extension = nombreArchivo.substring(nombreArchivo.lastIndexOf("."));
+        }
+
+        Files.createDirectories(directorioCargas);
+        String id = UUID.randomUUID().toString();
+        Path archivoTemporal = directorioCargas.resolve(id + ".part");
+        try (RandomAccessFile raf = new RandomAccessFile(archivoTemporal.toFile(), "rw")) {
+            raf.setLength(tamanoTotal);
+        }
+
+        CargaEnCurso carga = new CargaEnCurso(id, archivoTemporal, tamanoTotal, fragmento, extension,
+                tipoEvidencia, descripcion, observaciones, cursosIdCurso);
+        cargas.put(id, carga);
+
+        System.out.println("📦 Carga iniciada " + id + ": " + nombreArchivo + " (" + tamanoTotal + " bytes, " +
+                carga.totalFragmentos + " fragmentos)");
+        return estado(carga);
+    }
+
+    // RECIBIR FRAGMENTO: lo escribe en su posición calculando el SHA-256; se marca recibido solo si coincide
+    public Map<String, Object> recibirFragmento(String id, int numero, String checksumSha256,
+                                                InputStream contenido) throws IOException {
+        CargaEnCurso carga = obtenerCarga(id);
+        if (numero < 0 || numero >= carga.totalFragmentos) {
+            throw new IllegalArgumentException("Número de fragmento fuera de rango: " + numero);
+        }
+        if (checksumSha256 == null || checksumSha256.isBlank()) {
+            throw new IllegalArgumentException("El checksum SHA-256 del fragmento es requerido");
+        }
+        synchronized (carga.recibidos) {
+            if (carga.cerrada) {
+                throw new IllegalStateException("La carga ya fue confirmada o cancelada: " + id);
+            }
+            if (carga.recibidos.get(numero)) {
+                throw new IllegalStateException("El fragmento " + numero + " ya fue recibido");
+            }
+            if (carga.enProceso.get(numero)) {
+                throw new IllegalStateException("El fragmento " + numero + " se está recibiendo en otra solicitud");
+            }
+            carga.enProceso.set(numero);
+        }
+
+        long esperado = carga.tamanoDeFragmento(numero);
+        long posicion = (long) numero * carga.tamanoFragmento;
+        try {
+            MessageDigest digest = nuevoDigest();
+            long escritos = 0;
+            try (FileChannel destino = FileChannel.open(carga.archivoTemporal, StandardOpenOption.WRITE)) {
+                byte[] bytes = new byte[TAMANO_BUFFER];
+                int leidos;
+                while ((leidos = contenido.read(bytes, 0, (int) Math.min(bytes.length, esperado - escritos + 1))) != -1) {
+                    if (escritos + leidos > esperado) {
+                        throw new IllegalArgumentException("El fragmento " + numero + " excede su tamaño de " + esperado + " bytes");
+                    }
+                    digest.update(bytes, 0, leidos);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, leidos);
+                    while (buffer.hasRemaining()) {
+                        destino.write(buffer, posicion + escritos + buffer.position());
+                    }
+                    escritos += leidos;
+                }
+            }
+
+            if (escritos != esperado) {
+                throw new IllegalArgumentException("El fragmento " + numero + " debe medir " + esperado +
+                        " bytes y se recibieron " + escritos);
+            }
+            String calculado = HexFormat.of().formatHex(digest.digest());
+            if (!calculado.equalsIgnoreCase(checksumSha256.trim())) {
+                throw new IllegalArgumentException("Checksum incorrecto en el fragmento " + numero + ", reenviar");
+            }
+            synchronized (carga.recibidos) {
+                carga.recibidos.set(numero);
+            }
+        } finally {
+            synchronized (carga.recibidos) {
+                carga.enProceso.clear(numero);
+            }
+        }
+        carga.ultimaActividad = Instant.now();
+        return estado(carga);
+    }
+
+    public Map<String, Object> consultarCarga(String id) {
+        return estado(obtenerCarga(id));
+    }
+
+    // CONFIRMAR CARGA: mueve el archivo completo a uploads y crea el registro de evidencia
+    public Map<String, Object> confirmarCarga(String id) throws IOException {
+        CargaEnCurso carga = obtenerCarga(id);
+        synchronized (carga.recibidos) {
+            if (carga.cerrada) {
+                throw new IllegalStateException("La carga ya fue confirmada o cancelada: " + id);
+            }
+            if (!carga.enProceso.isEmpty()) {
+                throw new IllegalStateException("Hay " + carga.enProceso.cardinality() + " fragmentos en proceso, confirmar al terminar");
+            }
+            int recibidos = carga.recibidos.cardinality();
+            if (recibidos != carga.totalFragmentos) {
+                throw new IllegalStateException("Faltan fragmentos: recibidos " + recibidos + " de " + carga.totalFragmentos);
+            }
+            // A partir de aquí se rechazan fragmentos nuevos
+            carga.cerrada = true;
+        }
+        cargas.remove(id);
+
+        // El almacén mueve el archivo ensamblado o lo descarta si el contenido ya existía; si falla,
+        // la carga ya no está en memoria y la limpieza programada no lo borraría
+        String nombreUnico;
+        try {
+            nombreUnico = almacenArchivos.guardar(carga.archivoTemporal, carga.extension);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(carga.archivoTemporal);
+            throw e;
+        }
+        System.out.println("📁 Archivo ensamblado: " + nombreUnico);
+
+        try {
+            evidenciaService.registrarEvidencia(nombreUnico, carga.tipoEvidencia, carga.descripcion,
+                    carga.observaciones, carga.cursosIdCurso);
+        } catch (RuntimeException e) {
+            almacenArchivos.liberar(nombreUnico);
+            throw e;
+        }
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("uploadId", id);
+        resultado.put("archivo", nombreUnico);
+        resultado.put("tamano", carga.tamanoTotal);
+        resultado.put("cursoId", carga.cursosIdCurso);
+        return resultado;
+    }
+
+    public boolean cancelarCarga(String id) throws IOException {
+        CargaEnCurso carga = cargas.get(id);
+        if (carga == null) {
+            return false;
+        }
+        synchronized (carga.recibidos) {
+            if (carga.cerrada) {
+                return false;
+            }
+            if (!carga.enProceso.isEmpty()) {
+                throw new IllegalStateException("Hay " + carga.enProceso.cardinality() + " fragmentos en proceso, cancelar al terminar");
+            }
+            carga.cerrada = true;
+        }
+        cargas.remove(id);
+        Files.deleteIfExists(carga.archivoTemporal);
+        System.out.println("🗑️ Carga cancelada: " + id);
+        return true;
+    }
+
+    // Elimina las cargas abandonadas y sus archivos temporales
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void limpiarCargasExpiradas() {
+        Instant limite = Instant.now().minus(EXPIRACION);
+        Iterator<CargaEnCurso> it = cargas.values().iterator();
+        while (it.hasNext()) {
+            CargaEnCurso carga = it.next();
+            if (!carga.ultimaActividad.isBefore(limite)) {
+                continue;
+            }
+            synchronized (carga.recibidos) {
+                // Un fragmento lento que sigue llegando no se interrumpe
+                if (carga.cerrada || !carga.enProceso.isEmpty()) {
+                    continue;
+                }
+                carga.cerrada = true;
+            }
+            it.remove();
+            try {
+                Files.deleteIfExists(carga.archivoTemporal);
+                System.out.println("🧹 Carga expirada eliminada: " + carga.id);
+            } catch (IOException e) {
+                System.err.println("❌ No se pudo eliminar la carga expirada " + carga.id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private CargaEnCurso obtenerCarga(String id) {
+        CargaEnCurso carga = cargas.get(id);
+        if (carga == null) {
+            throw new IllegalArgumentException("Carga no encontrada o expirada: " + id);
+        }
+        return carga;
+    }
+
+    private Map<String, Object> estado(CargaEnCurso carga) {
+        Map<String, Object> estado = new HashMap<>();
+        estado.put("uploadId", carga.id);
+        estado.put("tamanoTotal", carga.tamanoTotal);
+        estado.put("tamanoFragmento", carga.tamanoFragmento);
+        estado.put("totalFragmentos", carga.totalFragmentos);
+        synchronized (carga.recibidos) {
+            estado.put("fragmentosRecibidos", carga.recibidos.stream().boxed().toList());
+            estado.put("completa", carga.recibidos.cardinality() == carga.totalFragmentos);
+        }
+        return estado;
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,56 +1,81 @@
 // src/main/java/com/beyco/app/services/CatalogoCursoService.java
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
 import com.beyco.app.models.CatalogoCurso;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
-import java.math.BigDecimal;
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Catálogo de cursos STPS con caché en memoria.
+ *
+ * El catálogo cambia muy poco y se consulta en cada formulario de curso y en cada listado
+ * de cursos (precio, horas y examen práctico). Se carga completo en memoria, indexado por
+ * Clave_STPS, y se invalida al crear, actualizar o eliminar una entrada. Como respaldo ante
+ * cambios hechos directamente en la BD, la copia en memoria expira a los 15 minutos.
+ */
 @Service
 public class CatalogoCursoService {
 
+    private static final Duration EXPIRACION = Duration.ofMinutes(15);
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final CalificacionService calificacionService;
+
+    // Copia inmutable del catálogo; se reemplaza completa en cada recarga
+    private record Instantanea(Map<String, CatalogoCurso> porClave, List<CatalogoCurso> activos, long cargadoEn) { }
+
+    private volatile Instantanea instantanea;
+    // Cambia en cada invalidación: una carga que empezó antes de una escritura no se guarda
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
 
     @Autowired
-    public CatalogoCursoService(DataSource dataSource) {
+    public CatalogoCursoService(DataSource dataSource, ConsultasJdbc consultas, CalificacionService calificacionService) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.calificacionService = calificacionService;
     }
 
     public List<CatalogoCurso> listarTodosActivos() {
+        // Copias, para que quien recibe la lista no modifique el caché
         List<CatalogoCurso> cursos = new ArrayList<>();
-        String sql = "SELECT id_catalogoC, Nombre, Clave_STPS, Precio, Horas, Examen_practico, Estatus " +
-                     "FROM catalogo_cursos WHERE Estatus = 'activo'";
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                cursos.add(new CatalogoCurso(
-                    rs.getInt("id_catalogoC"),
-                    rs.getString("Nombre"),
-                    rs.getString("Clave_STPS"),
-                    rs.getBigDecimal("Precio"),
-                    rs.getInt("Horas"),
-                    rs.getBoolean("Examen_practico"),
-                    rs.getString("Estatus")
-                ));
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error al listar catálogo de cursos", e);
+        for (CatalogoCurso c : obtenerInstantanea().activos()) {
+            cursos.add(new CatalogoCurso(c.getId(), c.getNombre(), c.getStps(), c.getPrecio(),
+                    c.getHoras(), c.isExamenPractico(), c.getEstatus()));
         }
         return cursos;
     }
 
+    /**
+     * Catálogo completo (activos e inactivos) indexado por Clave_STPS, de solo lectura.
+     * Los cursos antiguos pueden apuntar a claves ya desactivadas y deben seguir mostrando su precio.
+     */
+    public Map<String, CatalogoCurso> catalogoPorClave() {
+        return obtenerInstantanea().porClave();
+    }
+
     public boolean eliminarCurso(int id) {
         // En lugar de borrar físicamente, se desactiva (mejor práctica)
         String sql = "UPDATE catalogo_cursos SET Estatus = 'inactivo' WHERE id_catalogoC = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
-            return pstmt.executeUpdate() > 0;
+            return invalidarSi(pstmt.executeUpdate() > 0);
         } catch (SQLException e) {
             throw new RuntimeException("Error al eliminar curso del catálogo", e);
         }
@@ -66,7 +91,7 @@ public class CatalogoCursoService {
             pstmt.setBigDecimal(3, curso.getPrecio());
             pstmt.setInt(4, curso.getHoras());
             pstmt.setBoolean(5, curso.isExamenPractico());
-            return pstmt.executeUpdate() > 0;
+            return invalidarSi(pstmt.executeUpdate() > 0);
         } catch (SQLException e) {
             throw new RuntimeException("Error al crear curso en catálogo", e);
         }
@@ -81,9 +106,97 @@ public class CatalogoCursoService {
             pstmt.setInt(3, curso.getHoras());
             pstmt.setBoolean(4, curso.isExamenPractico());
             pstmt.setInt(5, curso.getId());
-            return pstmt.executeUpdate() > 0;
+            return invalidarSi(pstmt.executeUpdate() > 0);
         } catch (SQLException e) {
             throw new RuntimeException("Error al actualizar curso en catálogo", e);
         }
     }
-}
\ No newline at end of file
+
+    // ========== CACHÉ ==========
+
+    public void invalidar() {
+        version.incrementAndGet();
+        instantanea = null;
+        invalidaciones.incrementAndGet();
+        System.out.println("🔄 Caché del catálogo de cursos invalidado");
+    }
+
+    public Map<String, Object> metricasCache() {
+        long a = aciertos.get();
+        long f = fallos.get();
+        Instantanea actual = instantanea;
+
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("aciertos", a);
+        metricas.put("fallos", f);
+        metricas.put("tasaAciertos", a + f > 0 ? Math.round(a * 10000.0 / (a + f)) / 100.0 : 0.0);
+        metricas.put("invalidaciones", invalidaciones.get());
+        metricas.put("cargado", actual != null);
+        metricas.put("entradas", actual != null ? actual.porClave().size() : 0);
+        metricas.put("activos", actual != null ? actual.activos().size() : 0);
+        metricas.put("edadSegundos", actual != null ? (System.currentTimeMillis() - actual.cargadoEn()) / 1000 : null);
+        return metricas;
+    }
+
+    private boolean invalidarSi(boolean modificado) {
+        if (modificado) {
+            invalidar();
+            // Examen_practico decide qué calificaciones pide cada hoja
+            calificacionService.invalidarHojas();
+        }
+        return modificado;
+    }
+
+    private Instantanea obtenerInstantanea() {
+        Instantanea actual = instantanea;
+        if (vigente(actual)) {
+            aciertos.incrementAndGet();
+            return actual;
+        }
+        synchronized (this) {
+            actual = instantanea;
+            if (vigente(actual)) {
+                aciertos.incrementAndGet();
+                return actual;
+            }
+            fallos.incrementAndGet();
+            long versionLeida = version.get();
+            Instantanea nueva = cargar();
+            if (version.get() == versionLeida) {
+                instantanea = nueva;
+            }
+            return nueva;
+        }
+    }
+
+    private static boolean vigente(Instantanea instantanea) {
+        return instantanea != null
+                && System.currentTimeMillis() - instantanea.cargadoEn() < EXPIRACION.toMillis();
+    }
+
+    private Instantanea cargar() {
+        String sql = "SELECT id_catalogoC, Nombre, Clave_STPS, Precio, Horas, Examen_practico, Estatus " +
+                     "FROM catalogo_cursos ORDER BY id_catalogoC";
+        try {
+            List<CatalogoCurso> todos = consultas.listar(sql, Mapeadores.CATALOGO_CURSO);
+            Map<String, CatalogoCurso> porClave = new HashMap<>();
+            List<CatalogoCurso> activos = new ArrayList<>();
+            for (CatalogoCurso curso : todos) {
+                boolean activo = "activo".equals(curso.getEstatus());
+                if (activo) {
+                    activos.add(curso);
+                }
+                // Si una clave se repite, manda la entrada activa más reciente
+                CatalogoCurso previo = porClave.get(curso.getStps());
+                if (curso.getStps() != null && (previo == null || activo || !"activo".equals(previo.getEstatus()))) {
+                    porClave.put(curso.getStps(), curso);
+                }
+            }
+            System.out.println("📚 Catálogo de cursos cargado en memoria: " + todos.size() + " entradas");
+            return new Instantanea(Collections.unmodifiableMap(porClave), Collections.unmodifiableList(activos),
+                    System.currentTimeMillis());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al listar catálogo de cursos", e);
+        }
+    }
+}
@@ -1,85 +1,152 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.OrdenPagina;
+import com.beyco.app.db.Pagina;
+import com.beyco.app.db.ParametrosConsulta;
+import com.beyco.app.db.ProcesadorFila;
+import com.beyco.app.db.RevisorConsultas;
+import com.beyco.app.models.CatalogoCurso;
 import com.beyco.app.models.Curso;
+import com.beyco.app.models.Empresa;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class CursoService {
 
+    /**
+     * Se publica después de cada escritura en cursos con los años de impartición afectados
+     * (el anterior y el nuevo si cambió la fecha); HistorialCursoService reconstruye los cerrados.
+     */
+    public record CursosModificados(Set<Integer> anios) { }
+
+    // Columnas y joins comunes a todas las consultas de cursos (ver Mapeadores.CURSO).
+    // Precio, horas y examen práctico salen del catálogo en memoria y el nombre de la empresa
+    // del caché de empresas (ver completarDatos); Empresa_Id tiene llave foránea, no se pierden filas
+    private static final String SELECT_CURSO = "SELECT " +
+                    "c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
+                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " +
+                    "u.Nombre AS nombre_instructor " +
+                    "FROM cursos c " +
+                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado ";
+
+    // Filtros por año como rango semiabierto [1 de enero, 1 de enero siguiente): a diferencia de
+    // YEAR(Fecha_Imparticion) = ?, MySQL puede recorrer solo ese tramo del índice de fecha
+    private static final String SQL_CURSOS_POR_ANIO = SELECT_CURSO +
+                    "WHERE c.Fecha_Imparticion >= ? AND c.Fecha_Imparticion < ?";
+
+    private static final String SQL_ESTADISTICAS_POR_ANIO = "SELECT " +
+                    "COUNT(*) as total_cursos, " +
+                    "SUM(8) as total_horas, " + // Asumiendo 8 horas por curso
+                    "SUM(Pago) as total_pagos, " + // NUEVO: sumar pagos
+                    "COUNT(DISTINCT Empresa_Id) as total_empresas, " +
+                    "COUNT(DISTINCT Instructor_Id) as total_instructores " +
+                    "FROM cursos " +
+                    "WHERE Fecha_Imparticion >= ? AND Fecha_Imparticion < ?";
+
+    private static final String SQL_TOTAL_PAGOS_POR_ANIO =
+                    "SELECT SUM(Pago) as total_pagos FROM cursos WHERE Fecha_Imparticion >= ? AND Fecha_Imparticion < ?";
+
+    // Órdenes para la paginación por cursor; la fecha usa el índice de Fecha_Imparticion (migración 003)
+    private static final List<OrdenPagina<Curso>> ORDENES_PAGINA = List.of(
+            OrdenPagina.descendente("fecha", "c.Fecha_Imparticion", OrdenPagina.Tipo.FECHA, Curso::getFechaIngreso,
+                    "c.Id_Curso", OrdenPagina.Tipo.ENTERO, Curso::getId),
+            OrdenPagina.ascendente("id", "c.Id_Curso", OrdenPagina.Tipo.ENTERO, Curso::getId,
+                    "c.Id_Curso", OrdenPagina.Tipo.ENTERO, Curso::getId));
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final CatalogoCursoService catalogoCursoService;
+    private final EmpresaService empresaService;
+    private final StatisticsService statisticsService;
+    private final CalificacionService calificacionService;
+    private final ApplicationEventPublisher eventos;
 
     @Autowired
-    public CursoService(DataSource dataSource) {
+    public CursoService(DataSource dataSource, ConsultasJdbc consultas, CatalogoCursoService catalogoCursoService,
+                        EmpresaService empresaService, StatisticsService statisticsService,
+                        CalificacionService calificacionService, ApplicationEventPublisher eventos,
+                        RevisorConsultas revisorConsultas) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.catalogoCursoService = catalogoCursoService;
+        this.empresaService = empresaService;
+        this.statisticsService = statisticsService;
+        this.calificacionService = calificacionService;
+        this.eventos = eventos;
+
+        int anio = LocalDate.now().getYear();
+        revisorConsultas.registrar("cursos.porAnio", SQL_CURSOS_POR_ANIO, pstmt -> asignarAnio(pstmt, 1, anio));
+        revisorConsultas.registrar("cursos.estadisticasPorAnio", SQL_ESTADISTICAS_POR_ANIO, pstmt -> asignarAnio(pstmt, 1, anio));
+        revisorConsultas.registrar("cursos.totalPagosPorAnio", SQL_TOTAL_PAGOS_POR_ANIO, pstmt -> asignarAnio(pstmt, 1, anio));
+        revisorConsultas.registrar("cursos.porInstructor", SELECT_CURSO + "WHERE c.Instructor_Id = ? " +
+                "ORDER BY c.Fecha_Imparticion DESC, c.Id_Curso DESC LIMIT 20", pstmt -> pstmt.setInt(1, 1));
+    }
+
+    // Asigna el rango [1 de enero de anio, 1 de enero de anio + 1) a dos parámetros consecutivos
+    private static void asignarAnio(PreparedStatement pstmt, int indice, int anio) throws SQLException {
+        pstmt.setDate(indice, Date.valueOf(LocalDate.of(anio, 1, 1)));
+        pstmt.setDate(indice + 1, Date.valueOf(LocalDate.of(anio + 1, 1, 1)));
     }
 
     /**
      * Listar todos los cursos incluyendo el campo Pago
      */
     public List<Curso> listarTodosLosCursos() {
-        List<Curso> cursosAsignados = new ArrayList<>();
-        String sql = "SELECT " +
-                    "c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " + // NUEVO: incluir Pago
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, " +
-                    "u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS";
-        
-        try (Connection connection = dataSource.getConnection();
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                LocalDate fecha = null;
-                if (rs.getDate("Fecha_Imparticion") != null) {
-                    fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                }
-                
-                Curso curso = new Curso();
-                curso.setId(rs.getInt("Id_Curso"));
-                curso.setNombre(rs.getString("Nombre_curso"));
-                curso.setStps(rs.getString("Clave_STPS"));
-                
-                int horas = rs.getInt("Horas");
-                curso.setHoras(horas > 0 ? horas : 8);
-                
-                curso.setFechaIngreso(fecha);
-                curso.setEmpresa(rs.getString("nombre_empresa"));
-                curso.setInstructor(rs.getString("nombre_instructor"));
-                curso.setLugar(rs.getString("Lugar"));
-                curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                curso.setInstructorId(rs.getInt("Instructor_Id"));
-                
-                // Campos de precio y pago
-                BigDecimal precio = rs.getBigDecimal("Precio");
-                curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                
-                BigDecimal pago = rs.getBigDecimal("Pago");
-                curso.setPago(pago != null ? pago : BigDecimal.ZERO); // NUEVO: cargar pago
-                
-                curso.setCosto(BigDecimal.ZERO);
-                curso.setExamenPractico(rs.getBoolean("Examen_practico")); 
-                
-                cursosAsignados.add(curso);
-            }
+        try {
+            return completarDatos(consultas.listar(SELECT_CURSO, Mapeadores.CURSO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar cursos: " + e.getMessage());
         }
-        return cursosAsignados;
+    }
+
+    /**
+     * Página de cursos por cursor (orden = fecha, del más reciente, o id).
+     */
+    public Pagina<Curso> listarCursosPagina(String orden, String cursor, int limite) {
+        try {
+            Pagina<Curso> pagina = consultas.pagina(SELECT_CURSO + "WHERE 1 = 1",
+                    OrdenPagina.elegir(ORDENES_PAGINA, orden), cursor, limite, Mapeadores.CURSO);
+            completarDatos(pagina.filas());
+            return pagina;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al listar cursos paginados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recorre todos los cursos en flujo (ordenados por fecha e id) sin cargarlos en memoria.
+     * Usado por las exportaciones; devuelve el número de cursos procesados.
+     */
+    public int recorrerTodosLosCursos(ProcesadorFila<Curso> procesador) throws IOException {
+        String sql = SELECT_CURSO + "ORDER BY c.Fecha_Imparticion, c.Id_Curso";
+        try {
+            // Catálogo y empresas se toman antes de abrir el flujo: durante el recorrido no se pueden lanzar consultas
+            Map<String, CatalogoCurso> catalogo = catalogoCursoService.catalogoPorClave();
+            Map<Integer, Empresa> empresas = empresaService.obtenerDirectorio().porId();
+            return consultas.recorrerEnFlujo(sql, ParametrosConsulta.NINGUNO, Mapeadores.CURSO, curso -> {
+                completarDatos(curso, catalogo, empresas);
+                procesador.procesar(curso);
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al recorrer cursos: " + e.getMessage());
+        }
     }
 
     /**
@@ -107,6 +174,8 @@ public class CursoService {
                         curso.setId(generatedKeys.getInt(1));
                     }
                 }
+                statisticsService.cursoCreado(curso.getFechaIngreso());
+                avisarCambio(curso.getFechaIngreso());
                 return true;
             }
             return false;
@@ -120,6 +189,7 @@ public class CursoService {
      * Actualizar curso incluyendo el campo Pago
      */
     public boolean actualizarCurso(Curso curso) {
+        LocalDate fechaAnterior = fechaDeCurso(curso.getId());
         String sql = "UPDATE cursos SET Nombre_curso = ?, Fecha_Imparticion = ?, Lugar = ?, Empresa_Id = ?, Instructor_Id = ?, Clave_STPS = ?, Pago = ? WHERE Id_Curso = ?";
         
         try (Connection connection = dataSource.getConnection();
@@ -134,7 +204,14 @@ public class CursoService {
             pstmt.setBigDecimal(7, curso.getPago() != null ? curso.getPago() : BigDecimal.ZERO); // NUEVO: actualizar pago
             pstmt.setInt(8, curso.getId());
             
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado) {
+                statisticsService.cursoModificado(fechaAnterior, curso.getFechaIngreso());
+                // Nombre y Clave_STPS (si lleva examen práctico) salen en la hoja de calificaciones
+                calificacionService.invalidarHoja(curso.getId());
+                avisarCambio(fechaAnterior, curso.getFechaIngreso());
+            }
+            return actualizado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al actualizar curso: " + e.getMessage());
@@ -145,137 +222,103 @@ public class CursoService {
      * Eliminar curso
      */
     public boolean eliminarCurso(int idCurso) {
+        LocalDate fechaAnterior = fechaDeCurso(idCurso);
         String sql = "DELETE FROM cursos WHERE Id_Curso = ?";
 
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
             pstmt.setInt(1, idCurso);
-            return pstmt.executeUpdate() > 0;
+            boolean eliminado = pstmt.executeUpdate() > 0;
+            if (eliminado) {
+                statisticsService.cursoEliminado(fechaAnterior);
+                calificacionService.invalidarHoja(idCurso);
+                avisarCambio(fechaAnterior);
+            }
+            return eliminado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al eliminar curso: " + e.getMessage());
         }
     }
 
-    /**
-     * Listar cursos por año incluyendo el campo Pago
-     */
-    public List<Curso> listarCursosPorAnio(int anio) {
-        List<Curso> cursos = new ArrayList<>();
-        String sql = "SELECT c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " + // NUEVO: incluir Pago
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
-                    "WHERE YEAR(c.Fecha_Imparticion) = ?";
-        
+    // Las escrituras usan autocommit: cuando se avisa, el cambio ya está confirmado
+    private void avisarCambio(LocalDate... fechas) {
+        Set<Integer> anios = new TreeSet<>();
+        for (LocalDate fecha : fechas) {
+            if (fecha != null) {
+                anios.add(fecha.getYear());
+            }
+        }
+        if (!anios.isEmpty()) {
+            eventos.publishEvent(new CursosModificados(anios));
+        }
+    }
+
+    // Fecha de impartición actual de un curso (para ajustar las estadísticas al modificarlo)
+    private LocalDate fechaDeCurso(int idCurso) {
+        String sql = "SELECT Fecha_Imparticion FROM cursos WHERE Id_Curso = ?";
+
         try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, anio);
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, idCurso);
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    LocalDate fecha = null;
-                    if (rs.getDate("Fecha_Imparticion") != null) {
-                        fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                    }
-                    
-                    Curso curso = new Curso();
-                    curso.setId(rs.getInt("Id_Curso"));
-                    curso.setNombre(rs.getString("Nombre_curso"));
-                    curso.setStps(rs.getString("Clave_STPS"));
-                    
-                    int horas = rs.getInt("Horas");
-                    curso.setHoras(horas > 0 ? horas : 8);
-                    
-                    curso.setFechaIngreso(fecha);
-                    curso.setEmpresa(rs.getString("nombre_empresa"));
-                    curso.setInstructor(rs.getString("nombre_instructor"));
-                    curso.setLugar(rs.getString("Lugar"));
-                    curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                    curso.setInstructorId(rs.getInt("Instructor_Id"));
-                    
-                    BigDecimal precio = rs.getBigDecimal("Precio");
-                    curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                    
-                    BigDecimal pago = rs.getBigDecimal("Pago");
-                    curso.setPago(pago != null ? pago : BigDecimal.ZERO); // NUEVO: cargar pago
-                    
-                    curso.setCosto(BigDecimal.ZERO);
-                    curso.setExamenPractico(rs.getBoolean("Examen_practico")); 
-                    
-                    cursos.add(curso);
+                if (rs.next() && rs.getDate(1) != null) {
+                    return rs.getDate(1).toLocalDate();
                 }
             }
+            return null;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al obtener fecha del curso: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Listar cursos por año incluyendo el campo Pago
+     */
+    public List<Curso> listarCursosPorAnio(int anio) {
+        try {
+            return completarDatos(consultas.listar(SQL_CURSOS_POR_ANIO, pstmt -> asignarAnio(pstmt, 1, anio), Mapeadores.CURSO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar cursos por año: " + e.getMessage());
         }
-        return cursos;
+    }
+
+    /**
+     * Listar cursos con fecha en [desde, hasta); hasta null = sin límite. Usado por el historial
+     * para los años que todavía no están archivados.
+     */
+    public List<Curso> listarCursosEnRango(LocalDate desde, LocalDate hasta) {
+        String sql = hasta != null ? SQL_CURSOS_POR_ANIO : SELECT_CURSO + "WHERE c.Fecha_Imparticion >= ?";
+        try {
+            return completarDatos(consultas.listar(sql, pstmt -> {
+                pstmt.setDate(1, Date.valueOf(desde));
+                if (hasta != null) {
+                    pstmt.setDate(2, Date.valueOf(hasta));
+                }
+            }, Mapeadores.CURSO));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al listar cursos por rango de fechas: " + e.getMessage());
+        }
     }
 
     /**
      * Listar cursos por estado incluyendo el campo Pago
      */
     public List<Curso> listarCursosPorEstado(String estado) {
-        List<Curso> cursos = new ArrayList<>();
-        
-        String sql = "SELECT c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " + // NUEVO: incluir Pago
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
-                    "WHERE c.Fecha_Imparticion " + 
+        String sql = SELECT_CURSO + "WHERE c.Fecha_Imparticion " +
                     (estado.equalsIgnoreCase("finalizado") ? " < CURDATE()" : " >= CURDATE()");
-     
-        try (Connection connection = dataSource.getConnection();
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                LocalDate fecha = null;
-                if (rs.getDate("Fecha_Imparticion") != null) {
-                    fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                }
-                
-                Curso curso = new Curso();
-                curso.setId(rs.getInt("Id_Curso"));
-                curso.setNombre(rs.getString("Nombre_curso"));
-                curso.setStps(rs.getString("Clave_STPS"));
-                
-                int horas = rs.getInt("Horas");
-                curso.setHoras(horas > 0 ? horas : 8);
-                
-                curso.setFechaIngreso(fecha);
-                curso.setEmpresa(rs.getString("nombre_empresa"));
-                curso.setInstructor(rs.getString("nombre_instructor"));
-                curso.setLugar(rs.getString("Lugar"));
-                curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                curso.setInstructorId(rs.getInt("Instructor_Id"));
-                
-                BigDecimal precio = rs.getBigDecimal("Precio");
-                curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                
-                BigDecimal pago = rs.getBigDecimal("Pago");
-                curso.setPago(pago != null ? pago : BigDecimal.ZERO); // NUEVO: cargar pago
-                
-                curso.setCosto(BigDecimal.ZERO);
-                curso.setExamenPractico(rs.getBoolean("Examen_practico")); 
-                
-                cursos.add(curso);
-            }
+
+        try {
+            return completarDatos(consultas.listar(sql, Mapeadores.CURSO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar cursos por estado: " + e.getMessage());
         }
-        return cursos;
     }
 
     /**
@@ -283,19 +326,10 @@ public class CursoService {
      */
     public Map<String, Object> obtenerEstadisticasCursos(int anio) {
         Map<String, Object> estadisticas = new HashMap<>();
-        String sql = "SELECT " +
-                    "COUNT(*) as total_cursos, " +
-                    "SUM(8) as total_horas, " + // Asumiendo 8 horas por curso
-                    "SUM(Pago) as total_pagos, " + // NUEVO: sumar pagos
-                    "COUNT(DISTINCT Empresa_Id) as total_empresas, " +
-                    "COUNT(DISTINCT Instructor_Id) as total_instructores " +
-                    "FROM cursos " +
-                    "WHERE YEAR(Fecha_Imparticion) = ?";
-        
         try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            PreparedStatement pstmt = connection.prepareStatement(SQL_ESTADISTICAS_POR_ANIO)) {
             
-            pstmt.setInt(1, anio);
+            asignarAnio(pstmt, 1, anio);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     estadisticas.put("totalCursos", rs.getInt("total_cursos"));
@@ -315,127 +349,64 @@ public class CursoService {
      * Obtener cursos asignados a un instructor específico incluyendo el campo Pago
      */
     public List<Curso> listarCursosPorInstructor(int instructorId) {
-        List<Curso> cursos = new ArrayList<>();
-        
-        String sql = "SELECT " +
-                    "c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " + // NUEVO: incluir Pago
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, " +
-                    "u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
-                    "WHERE c.Instructor_Id = ? " +
-                    "ORDER BY c.Fecha_Imparticion DESC";
-        
-        try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, instructorId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    LocalDate fecha = null;
-                    if (rs.getDate("Fecha_Imparticion") != null) {
-                        fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                    }
-                    
-                    Curso curso = new Curso();
-                    curso.setId(rs.getInt("Id_Curso"));
-                    curso.setNombre(rs.getString("Nombre_curso"));
-                    curso.setStps(rs.getString("Clave_STPS"));
-                    
-                    int horas = rs.getInt("Horas");
-                    curso.setHoras(horas > 0 ? horas : 8);
-                    
-                    curso.setFechaIngreso(fecha);
-                    curso.setEmpresa(rs.getString("nombre_empresa"));
-                    curso.setInstructor(rs.getString("nombre_instructor"));
-                    curso.setLugar(rs.getString("Lugar"));
-                    curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                    curso.setInstructorId(rs.getInt("Instructor_Id"));
-                    
-                    BigDecimal precio = rs.getBigDecimal("Precio");
-                    curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                    
-                    BigDecimal pago = rs.getBigDecimal("Pago");
-                    curso.setPago(pago != null ? pago : BigDecimal.ZERO); // NUEVO: cargar pago
-                    
-                    curso.setCosto(BigDecimal.ZERO);
-                    curso.setExamenPractico(rs.getBoolean("Examen_practico"));
-                    
-                    cursos.add(curso);
-                }
-            }
+        String sql = SELECT_CURSO + "WHERE c.Instructor_Id = ? " +
+                    "ORDER BY c.Fecha_Imparticion DESC, c.Id_Curso DESC";
+
+        try {
+            return completarDatos(consultas.listar(sql, pstmt -> pstmt.setInt(1, instructorId), Mapeadores.CURSO));
         } catch (SQLException e) {
             System.err.println("❌ Error SQL: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al listar cursos por instructor: " + e.getMessage());
         }
-        
-        return cursos;
+    }
+
+    /**
+     * Obtener una página de cursos de un instructor usando paginación por llave (keyset).
+     * Recorre el índice (Instructor_Id, Fecha_Imparticion) en orden descendente, por lo que
+     * el costo depende solo de los cursos del instructor y no del historial completo.
+     * Para la primera página se envía despuesDeFecha/despuesDeId en null.
+     */
+    public List<Curso> listarCursosPorInstructorPaginado(int instructorId, LocalDate despuesDeFecha,
+                                                         Integer despuesDeId, int limite) {
+        boolean primeraPagina = despuesDeFecha == null || despuesDeId == null;
+
+        String sql = SELECT_CURSO + "WHERE c.Instructor_Id = ? " +
+                    (primeraPagina ? "" :
+                    "AND (c.Fecha_Imparticion < ? OR (c.Fecha_Imparticion = ? AND c.Id_Curso < ?)) ") +
+                    "ORDER BY c.Fecha_Imparticion DESC, c.Id_Curso DESC " +
+                    "LIMIT ?";
+
+        try {
+            return completarDatos(consultas.listar(sql, pstmt -> {
+                int idx = 1;
+                pstmt.setInt(idx++, instructorId);
+                if (!primeraPagina) {
+                    pstmt.setDate(idx++, Date.valueOf(despuesDeFecha));
+                    pstmt.setDate(idx++, Date.valueOf(despuesDeFecha));
+                    pstmt.setInt(idx++, despuesDeId);
+                }
+                pstmt.setInt(idx, limite);
+            }, Mapeadores.CURSO));
+        } catch (SQLException e) {
+            System.err.println("❌ Error SQL: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al listar cursos paginados por instructor: " + e.getMessage());
+        }
     }
 
     /**
      * Obtener curso por ID incluyendo el campo Pago
      */
     public Curso obtenerCursoPorId(int idCurso) {
-        String sql = "SELECT " +
-                    "c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " + // NUEVO: incluir Pago
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, " +
-                    "u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
-                    "WHERE c.Id_Curso = ?";
-        
-        try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, idCurso);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    LocalDate fecha = null;
-                    if (rs.getDate("Fecha_Imparticion") != null) {
-                        fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                    }
-                    
-                    Curso curso = new Curso();
-                    curso.setId(rs.getInt("Id_Curso"));
-                    curso.setNombre(rs.getString("Nombre_curso"));
-                    curso.setStps(rs.getString("Clave_STPS"));
-                    
-                    int horas = rs.getInt("Horas");
-                    curso.setHoras(horas > 0 ? horas : 8);
-                    
-                    curso.setFechaIngreso(fecha);
-                    curso.setEmpresa(rs.getString("nombre_empresa"));
-                    curso.setInstructor(rs.getString("nombre_instructor"));
-                    curso.setLugar(rs.getString("Lugar"));
-                    curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                    curso.setInstructorId(rs.getInt("Instructor_Id"));
-                    
-                    BigDecimal precio = rs.getBigDecimal("Precio");
-                    curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                    
-                    BigDecimal pago = rs.getBigDecimal("Pago");
-                    curso.setPago(pago != null ? pago : BigDecimal.ZERO); // NUEVO: cargar pago
-                    
-                    curso.setCosto(BigDecimal.ZERO);
-                    curso.setExamenPractico(rs.getBoolean("Examen_practico"));
-                    
-                    return curso;
-                }
-            }
+        String sql = SELECT_CURSO + "WHERE c.Id_Curso = ?";
+
+        try {
+            return completarDatos(consultas.primero(sql, pstmt -> pstmt.setInt(1, idCurso), Mapeadores.CURSO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al obtener curso por ID: " + e.getMessage());
         }
-        return null;
     }
 
     /**
@@ -450,7 +421,11 @@ public class CursoService {
             pstmt.setBigDecimal(1, pago != null ? pago : BigDecimal.ZERO);
             pstmt.setInt(2, idCurso);
             
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado) {
+                avisarCambio(fechaDeCurso(idCurso));
+            }
+            return actualizado;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al actualizar pago del curso: " + e.getMessage());
@@ -461,12 +436,10 @@ public class CursoService {
      * Obtener el total de pagos por año
      */
     public BigDecimal obtenerTotalPagosPorAnio(int anio) {
-        String sql = "SELECT SUM(Pago) as total_pagos FROM cursos WHERE YEAR(Fecha_Imparticion) = ?";
-        
         try (Connection connection = dataSource.getConnection();
-            PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            PreparedStatement pstmt = connection.prepareStatement(SQL_TOTAL_PAGOS_POR_ANIO)) {
             
-            pstmt.setInt(1, anio);
+            asignarAnio(pstmt, 1, anio);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     BigDecimal total = rs.getBigDecimal("total_pagos");
@@ -483,58 +456,48 @@ public class CursoService {
      * Obtener cursos con pagos pendientes (pago = 0 o null)
      */
     public List<Curso> listarCursosConPagosPendientes() {
-        List<Curso> cursos = new ArrayList<>();
-        String sql = "SELECT c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
-                    "c.Empresa_Id, c.Instructor_Id, c.Pago, " +
-                    "cat.Precio, cat.Horas, cat.Examen_practico, " +
-                    "e.nombre AS nombre_empresa, u.Nombre AS nombre_instructor " +
-                    "FROM cursos c " +
-                    "JOIN empresas e ON c.Empresa_Id = e.id " +
-                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
-                    "WHERE c.Pago IS NULL OR c.Pago = 0 " +
+        String sql = SELECT_CURSO + "WHERE c.Pago IS NULL OR c.Pago = 0 " +
                     "ORDER BY c.Fecha_Imparticion DESC";
-        
-        try (Connection connection = dataSource.getConnection();
-            Statement stmt = connection.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                LocalDate fecha = null;
-                if (rs.getDate("Fecha_Imparticion") != null) {
-                    fecha = rs.getDate("Fecha_Imparticion").toLocalDate();
-                }
-                
-                Curso curso = new Curso();
-                curso.setId(rs.getInt("Id_Curso"));
-                curso.setNombre(rs.getString("Nombre_curso"));
-                curso.setStps(rs.getString("Clave_STPS"));
-                
-                int horas = rs.getInt("Horas");
-                curso.setHoras(horas > 0 ? horas : 8);
-                
-                curso.setFechaIngreso(fecha);
-                curso.setEmpresa(rs.getString("nombre_empresa"));
-                curso.setInstructor(rs.getString("nombre_instructor"));
-                curso.setLugar(rs.getString("Lugar"));
-                curso.setEmpresaId(rs.getInt("Empresa_Id"));
-                curso.setInstructorId(rs.getInt("Instructor_Id"));
-                
-                BigDecimal precio = rs.getBigDecimal("Precio");
-                curso.setPrecio(precio != null ? precio : BigDecimal.ZERO);
-                
-                BigDecimal pago = rs.getBigDecimal("Pago");
-                curso.setPago(pago != null ? pago : BigDecimal.ZERO);
-                
-                curso.setCosto(BigDecimal.ZERO);
-                curso.setExamenPractico(rs.getBoolean("Examen_practico")); 
-                
-                cursos.add(curso);
-            }
+
+        try {
+            return completarDatos(consultas.listar(sql, Mapeadores.CURSO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar cursos con pagos pendientes: " + e.getMessage());
         }
+    }
+
+    // ========== CATÁLOGO Y EMPRESAS ==========
+
+    private List<Curso> completarDatos(List<Curso> cursos) {
+        Map<String, CatalogoCurso> catalogo = catalogoCursoService.catalogoPorClave();
+        Map<Integer, Empresa> empresas = empresaService.obtenerDirectorio().porId();
+        for (Curso curso : cursos) {
+            completarDatos(curso, catalogo, empresas);
+        }
         return cursos;
     }
-}
\ No newline at end of file
+
+    private Curso completarDatos(Curso curso) {
+        if (curso != null) {
+            completarDatos(curso, catalogoCursoService.catalogoPorClave(), empresaService.obtenerDirectorio().porId());
+        }
+        return curso;
+    }
+
+    // Mismos valores por defecto que daba el LEFT JOIN al catálogo: sin entrada, 8 horas y precio 0
+    private static void completarDatos(Curso curso, Map<String, CatalogoCurso> catalogo, Map<Integer, Empresa> empresas) {
+        Empresa empresa = empresas.get(curso.getEmpresaId());
+        if (empresa != null) {
+            curso.setEmpresa(empresa.getNombre());
+        }
+
+        CatalogoCurso entrada = curso.getStps() != null ? catalogo.get(curso.getStps()) : null;
+        if (entrada == null) {
+            return;
+        }
+        curso.setPrecio(entrada.getPrecio() != null ? entrada.getPrecio() : BigDecimal.ZERO);
+        curso.setHoras(entrada.getHoras() > 0 ? entrada.getHoras() : 8);
+        curso.setExamenPractico(entrada.isExamenPractico());
+    }
+}
@@ -0,0 +1,169 @@
+package com.beyco.app.services;
+
+import com.beyco.app.cache.CacheAcotado;
+import com.beyco.app.db.RevisorConsultas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tablero del instructor: cursos activos, alumnos, cursos completados y próxima sesión.
+ *
+ * Todo sale de una sola consulta que agrupa los cursos del instructor con su número de
+ * alumnos; los totales se arman en memoria a partir de esas filas. Como todos los
+ * instructores abren el tablero a la misma hora, el resultado se guarda 60 segundos
+ * por instructor y las recargas siguientes no tocan la BD.
+ */
+@Service
+public class DashboardService {
+
+    private static final int CURSOS_EN_TABLERO = 10;
+
+    // Una fila por curso (o una sola con curso NULL si no tiene cursos); el GROUP BY
+    // cuenta los alumnos de cada curso en la misma ida a la BD
+    private static final String SQL_TABLERO = "SELECT u.Num_Empleado, u.Nombre, u.Apellido_paterno, u.Apellido_materno, u.Correo, " +
+                    "c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, c.Lugar, " +
+                    "COUNT(ahc.alumnos_Curp) AS total_alumnos " +
+                    "FROM usuarios u " +
+                    "LEFT JOIN cursos c ON c.Instructor_Id = u.Num_Empleado " +
+                    "LEFT JOIN alumnos_has_cursos ahc ON ahc.cursos_Id_Curso = c.Id_Curso " +
+                    "WHERE u.Num_Empleado = ? " +
+                    "GROUP BY u.Num_Empleado, c.Id_Curso";
+
+    private final DataSource dataSource;
+    private final CacheAcotado<Integer, Map<String, Object>> cache =
+            new CacheAcotado<>("dashboard.instructor", 1000, Duration.ofSeconds(60));
+
+    @Autowired
+    public DashboardService(DataSource dataSource, RevisorConsultas revisorConsultas) {
+        this.dataSource = dataSource;
+        revisorConsultas.registrar("dashboard.instructor", SQL_TABLERO, pstmt -> pstmt.setInt(1, 1));
+    }
+
+    private record CursoTablero(int id, String nombre, LocalDate fecha, String lugar, int alumnos) { }
+
+    /**
+     * Devuelve el tablero del instructor, o null si el instructor no existe.
+     */
+    public Map<String, Object> obtenerTablero(int instructorId) {
+        return cache.obtener(instructorId, this::calcularTablero);
+    }
+
+    public Map<String, Object> metricasCache() {
+        return cache.metricas();
+    }
+
+    private Map<String, Object> calcularTablero(int instructorId) {
+        Map<String, Object> instructor = null;
+        List<CursoTablero> cursos = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(SQL_TABLERO)) {
+
+            pstmt.setInt(1, instructorId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (instructor == null) {
+                        instructor = new LinkedHashMap<>();
+                        instructor.put("id", rs.getInt("Num_Empleado"));
+                        instructor.put("nombre", nombreCompleto(rs.getString("Nombre"),
+                                rs.getString("Apellido_paterno"), rs.getString("Apellido_materno")));
+                        instructor.put("email", rs.getString("Correo"));
+                    }
+                    Date fecha = rs.getDate("Fecha_Imparticion");
+                    if (fecha != null) {
+                        cursos.add(new CursoTablero(rs.getInt("Id_Curso"), rs.getString("Nombre_curso"),
+                                fecha.toLocalDate(), rs.getString("Lugar"), rs.getInt("total_alumnos")));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al obtener tablero del instructor: " + e.getMessage());
+        }
+
+        if (instructor == null) {
+            return null;
+        }
+        System.out.println("📊 Tablero calculado para instructor " + instructorId + ": " + cursos.size() + " cursos");
+        return armarTablero(instructor, cursos);
+    }
+
+    private Map<String, Object> armarTablero(Map<String, Object> instructor, List<CursoTablero> cursos) {
+        LocalDate hoy = LocalDate.now();
+        int activos = 0;
+        int completados = 0;
+        int estudiantes = 0;
+        CursoTablero proximo = null;
+
+        for (CursoTablero curso : cursos) {
+            estudiantes += curso.alumnos();
+            if (curso.fecha().isBefore(hoy)) {
+                completados++;
+            } else {
+                activos++;
+                if (proximo == null || curso.fecha().isBefore(proximo.fecha())) {
+                    proximo = curso;
+                }
+            }
+        }
+
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("cursosActivos", activos);
+        estadisticas.put("totalEstudiantes", estudiantes);
+        estadisticas.put("cursosCompletados", completados);
+        // Días que faltan para la próxima sesión (null si no tiene cursos programados)
+        estadisticas.put("proximaSesion", proximo != null ? ChronoUnit.DAYS.between(hoy, proximo.fecha()) : null);
+
+        // Primero los próximos (el más cercano arriba) y después los ya impartidos (el más reciente arriba)
+        List<Map<String, Object>> recientes = new ArrayList<>();
+        cursos.stream()
+                .sorted(Comparator.comparing((CursoTablero c) -> c.fecha().isBefore(hoy))
+                        .thenComparing(c -> c.fecha().isBefore(hoy) ? -c.fecha().toEpochDay() : c.fecha().toEpochDay()))
+                .limit(CURSOS_EN_TABLERO)
+                .forEach(c -> recientes.add(cursoEnTablero(c, hoy)));
+
+        Map<String, Object> dashboard = new HashMap<>();
+        dashboard.put("estadisticas", estadisticas);
+        dashboard.put("cursos", recientes);
+        dashboard.put("proximoCurso", proximo != null ? cursoEnTablero(proximo, hoy) : null);
+        // Aún no hay tabla de anuncios
+        dashboard.put("anuncios", List.of());
+        dashboard.put("instructor", instructor);
+        return dashboard;
+    }
+
+    private Map<String, Object> cursoEnTablero(CursoTablero curso, LocalDate hoy) {
+        String estado = curso.fecha().isBefore(hoy) ? "Finalizado"
+                : curso.fecha().isEqual(hoy) ? "Activo" : "Programado";
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("id", curso.id());
+        resultado.put("titulo", curso.nombre());
+        resultado.put("fechaInicio", curso.fecha().toString());
+        resultado.put("lugar", curso.lugar());
+        resultado.put("estado", estado);
+        resultado.put("totalEstudiantes", curso.alumnos());
+        // Los cursos son de un día: impartido = 100 %
+        resultado.put("progreso", curso.fecha().isBefore(hoy) ? 100.0 : 0.0);
+        return resultado;
+    }
+
+    private static String nombreCompleto(String nombre, String paterno, String materno) {
+        StringBuilder completo = new StringBuilder(nombre != null ? nombre : "");
+        if (paterno != null && !paterno.isBlank()) completo.append(' ').append(paterno);
+        if (materno != null && !materno.isBlank()) completo.append(' ').append(materno);
+        return completo.toString().trim();
+    }
+}
@@ -1,98 +1,133 @@
 // services/EmpresaService.java
 package com.beyco.app.services;
 
+import com.beyco.app.cache.CacheAcotado;
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.OrdenPagina;
+import com.beyco.app.db.Pagina;
 import com.beyco.app.models.Empresa;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Empresas cliente. Las empresas cambian poco y se leen en cada pantalla y en cada listado
+ * de cursos, así que el listado completo y las búsquedas por ID pasan por un caché acotado
+ * con expiración; crear, actualizar o eliminar una empresa lo invalida.
+ */
 @Service
 public class EmpresaService {
 
+    private static final Duration VIDA_CACHE = Duration.ofMinutes(10);
+    private static final String CLAVE_DIRECTORIO = "todas";
+
+    // Órdenes para la paginación por cursor; Nombre es único, Id solo desempata por formalidad
+    private static final List<OrdenPagina<Empresa>> ORDENES_PAGINA = List.of(
+            OrdenPagina.ascendente("nombre", "Nombre", OrdenPagina.Tipo.TEXTO, Empresa::getNombre,
+                    "Id", OrdenPagina.Tipo.ENTERO, Empresa::getId),
+            OrdenPagina.descendente("recientes", "Id", OrdenPagina.Tipo.ENTERO, Empresa::getId,
+                    "Id", OrdenPagina.Tipo.ENTERO, Empresa::getId));
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final StatisticsService statisticsService;
+    private final SugerenciasService sugerenciasService;
+    private final AlmacenArchivosService almacenArchivos;
+
+    // Listado completo ordenado por nombre, más el mismo listado indexado por ID
+    public record Directorio(List<Empresa> ordenadas, Map<Integer, Empresa> porId) { }
+
+    private final CacheAcotado<String, Directorio> cacheDirectorio = new CacheAcotado<>("empresas.directorio", 1, VIDA_CACHE);
+    private final CacheAcotado<Integer, Empresa> cachePorId = new CacheAcotado<>("empresas.porId", 500, VIDA_CACHE);
 
     @Autowired
-    public EmpresaService(DataSource dataSource) {
+    public EmpresaService(DataSource dataSource, ConsultasJdbc consultas, StatisticsService statisticsService,
+                          SugerenciasService sugerenciasService, AlmacenArchivosService almacenArchivos) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.statisticsService = statisticsService;
+        this.sugerenciasService = sugerenciasService;
+        this.almacenArchivos = almacenArchivos;
     }
 
     // Listar todas las empresas
     public List<Empresa> listarTodas() {
-        List<Empresa> empresas = new ArrayList<>();
+        return new ArrayList<>(obtenerDirectorio().ordenadas());
+    }
+
+    /**
+     * Página de empresas por cursor (orden = nombre o recientes). Va directo a la BD: el
+     * cursor busca en el índice único de Nombre o en la llave primaria.
+     */
+    public Pagina<Empresa> listarPagina(String orden, String cursor, int limite) {
+        String sql = "SELECT Id, Nombre, Telefono, Email, Direccion, RFC, Activo, Contacto, Logo FROM empresas WHERE 1 = 1";
+        try {
+            return consultas.pagina(sql, OrdenPagina.elegir(ORDENES_PAGINA, orden), cursor, limite, Mapeadores.EMPRESA);
+        } catch (SQLException e) {
+            System.err.println("❌ Error en consulta SQL de empresas: " + e.getMessage());
+            throw new RuntimeException("Error al listar empresas paginadas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Todas las empresas desde el caché (de solo lectura). Usado para completar el nombre
+     * de la empresa en los listados de cursos sin hacer JOIN.
+     */
+    public Directorio obtenerDirectorio() {
+        return cacheDirectorio.obtener(CLAVE_DIRECTORIO, clave -> cargarDirectorio());
+    }
+
+    private Directorio cargarDirectorio() {
         String sql = "SELECT Id, Nombre, Telefono, Email, Direccion, RFC, Activo, Contacto, Logo FROM empresas ORDER BY Nombre";
         
         System.out.println("🔍 Ejecutando query de empresas: " + sql);
         
-        try (Connection conn = dataSource.getConnection();
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql)) {
-            
-            System.out.println("✅ Conexión a BD establecida");
-            int count = 0;
-            
-            while (rs.next()) {
-                Empresa empresa = new Empresa();
-                empresa.setId(rs.getInt("Id"));
-                empresa.setNombre(rs.getString("Nombre"));
-                empresa.setTelefono(rs.getString("Telefono"));
-                empresa.setEmail(rs.getString("Email"));
-                empresa.setDireccion(rs.getString("Direccion"));
-                empresa.setRfc(rs.getString("RFC"));
-                empresa.setActivo(rs.getBoolean("Activo"));
-                empresa.setContacto(rs.getString("Contacto"));
-                empresa.setLogo(rs.getString("Logo"));
-                
-                empresas.add(empresa);
-                count++;
-                System.out.println("🏢 Empresa encontrada: " + empresa.getNombre());
+        try {
+            List<Empresa> empresas = consultas.listar(sql, Mapeadores.EMPRESA);
+            System.out.println("✅ Total empresas encontradas en BD: " + empresas.size());
+            Map<Integer, Empresa> porId = new HashMap<>();
+            for (Empresa empresa : empresas) {
+                porId.put(empresa.getId(), empresa);
             }
-            
-            System.out.println("✅ Total empresas encontradas en BD: " + count);
-            
+            return new Directorio(Collections.unmodifiableList(empresas), Collections.unmodifiableMap(porId));
         } catch (SQLException e) {
             System.err.println("❌ Error en consulta SQL de empresas: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al consultar las empresas", e);
         }
-        return empresas;
     }
 
     // Buscar empresa por ID
     public Empresa buscarPorId(int id) {
+        return cachePorId.obtener(id, this::cargarPorId);
+    }
+
+    private Empresa cargarPorId(int id) {
         String sql = "SELECT Id, Nombre, Telefono, Email, Direccion, RFC, Activo, Contacto, Logo " +
                     "FROM empresas WHERE Id = ?";
         
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                Empresa empresa = new Empresa();
-                empresa.setId(rs.getInt("Id"));
-                empresa.setNombre(rs.getString("Nombre"));
-                empresa.setTelefono(rs.getString("Telefono"));
-                empresa.setEmail(rs.getString("Email"));
-                empresa.setDireccion(rs.getString("Direccion"));
-                empresa.setRfc(rs.getString("RFC"));
-                empresa.setActivo(rs.getBoolean("Activo"));
-                empresa.setContacto(rs.getString("Contacto"));
-                empresa.setLogo(rs.getString("Logo"));
-                
+        try {
+            Empresa empresa = consultas.primero(sql, pstmt -> pstmt.setInt(1, id), Mapeadores.EMPRESA);
+            if (empresa != null) {
                 System.out.println("✅ Empresa encontrada por ID: " + empresa.getNombre());
-                return empresa;
             }
+            return empresa;
         } catch (SQLException e) {
             System.err.println("❌ Error al buscar empresa por ID: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al buscar empresa por ID", e);
         }
-        return null;
     }
 
     public boolean crearEmpresa(Empresa empresa) {
@@ -100,7 +135,7 @@ public class EmpresaService {
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         
         try (Connection conn = dataSource.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             pstmt.setString(1, empresa.getNombre());
             pstmt.setString(2, empresa.getTelefono());
@@ -119,7 +154,27 @@ public class EmpresaService {
             }
             pstmt.setString(8, logo);
             
-            int resultado = pstmt.executeUpdate();
+            // Cada empresa que apunta a un logo del almacén cuenta como una referencia
+            boolean retenido = retenerLogo(logo);
+            int resultado;
+            try {
+                resultado = pstmt.executeUpdate();
+            } catch (SQLException e) {
+                if (retenido) {
+                    liberarLogo(logo);
+                }
+                throw e;
+            }
+            cacheDirectorio.invalidarTodo();
+            if (resultado > 0) {
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        empresa.setId(generatedKeys.getInt(1));
+                        sugerenciasService.empresaModificada(empresa.getId());
+                    }
+                }
+                statisticsService.empresaCreada();
+            }
             System.out.println("✅ Empresa creada: " + empresa.getNombre() + " - Logo: " + logo);
             return resultado > 0;
             
@@ -172,7 +227,26 @@ public class EmpresaService {
             pstmt.setString(8, empresa.getLogo());
             pstmt.setInt(9, empresa.getId());
             
-            int resultado = pstmt.executeUpdate();
+            // Si cambia el logo, el nuevo suma una referencia y el anterior la libera
+            String logoAnterior = leerLogo(conn, empresa.getId());
+            boolean cambiaLogo = logoAnterior != null && !logoAnterior.equals(empresa.getLogo());
+            boolean retenido = cambiaLogo && retenerLogo(empresa.getLogo());
+            int resultado;
+            try {
+                resultado = pstmt.executeUpdate();
+            } catch (SQLException e) {
+                if (retenido) {
+                    liberarLogo(empresa.getLogo());
+                }
+                throw e;
+            }
+            if (cambiaLogo && resultado > 0) {
+                liberarLogo(logoAnterior);
+            } else if (retenido) {
+                liberarLogo(empresa.getLogo());
+            }
+            invalidarCache(empresa.getId());
+            sugerenciasService.empresaModificada(empresa.getId());
             System.out.println("✅ Empresa actualizada: " + empresa.getNombre() + " - Resultado: " + resultado);
             return resultado > 0;
             
@@ -183,7 +257,7 @@ public class EmpresaService {
         }
     }
 
-    // Eliminar empresa (soft delete)
+    // Eliminar empresa (soft delete); conserva el logo y su referencia por si se reactiva
     public boolean eliminarEmpresa(int id) {
         String sql = "UPDATE empresas SET Activo = 0 WHERE Id = ?";
         
@@ -192,6 +266,8 @@ public class EmpresaService {
             
             pstmt.setInt(1, id);
             int resultado = pstmt.executeUpdate();
+            invalidarCache(id);
+            sugerenciasService.empresaModificada(id);
             System.out.println("✅ Empresa eliminada (ID: " + id + ") - Resultado: " + resultado);
             return resultado > 0;
             
@@ -202,45 +278,93 @@ public class EmpresaService {
         }
     }
 
-    // Buscar empresas por criterio
-    public List<Empresa> buscarEmpresas(String criterio) {
-        List<Empresa> empresas = new ArrayList<>();
-        String sql = "SELECT Id, Nombre, Telefono, Email, Direccion, RFC, Activo, Contacto, Logo " +
-                    "FROM empresas WHERE (Nombre LIKE ? OR Contacto LIKE ? OR Email LIKE ?) " +
-                    "ORDER BY Nombre";
+    // Buscar empresas por nombre, contacto o correo (autocompletado desde memoria), las más parecidas primero
+    public List<Empresa> buscarEmpresas(String criterio, int maximo) {
+        List<Empresa> empresas = sugerenciasService.sugerirEmpresas(criterio, maximo);
+        System.out.println("✅ Empresas encontradas en búsqueda: " + empresas.size());
+        return empresas;
+    }
+
+    // ========== LOGO ==========
 
+    /**
+     * Pone un logo recién guardado en el almacén (la referencia de la subida pasa a la empresa)
+     * y libera el anterior. Devuelve false si la empresa no existe; el llamador libera el nuevo.
+     */
+    public boolean reemplazarLogo(int id, String logo) {
+        String sql = "UPDATE empresas SET Logo = ? WHERE Id = ?";
         try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            String likeCriterio = "%" + criterio + "%";
-            pstmt.setString(1, likeCriterio);
-            pstmt.setString(2, likeCriterio);
-            pstmt.setString(3, likeCriterio);
-            
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                Empresa empresa = new Empresa();
-                empresa.setId(rs.getInt("Id"));
-                empresa.setNombre(rs.getString("Nombre"));
-                empresa.setTelefono(rs.getString("Telefono"));
-                empresa.setEmail(rs.getString("Email"));
-                empresa.setDireccion(rs.getString("Direccion"));
-                empresa.setRfc(rs.getString("RFC"));
-                empresa.setActivo(rs.getBoolean("Activo"));
-                empresa.setContacto(rs.getString("Contacto"));
-                empresa.setLogo(rs.getString("Logo"));
-                
-                empresas.add(empresa);
+
+            String logoAnterior = leerLogo(conn, id);
+            if (logoAnterior == null) {
+                return false;
             }
-            
-            System.out.println("✅ Empresas encontradas en búsqueda: " + empresas.size());
-            
+            pstmt.setString(1, logo);
+            pstmt.setInt(2, id);
+            pstmt.executeUpdate();
+            // Mismo contenido otra vez: la empresa ya tenía su referencia, se suelta la de la subida
+            liberarLogo(logoAnterior.equals(logo) ? logo : logoAnterior);
+            invalidarCache(id);
+            sugerenciasService.empresaModificada(id);
+            return true;
         } catch (SQLException e) {
-            System.err.println("❌ Error al buscar empresas: " + e.getMessage());
+            System.err.println("❌ Error al reemplazar logo: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("Error al buscar empresas", e);
+            throw new RuntimeException("Error al reemplazar logo de la empresa", e);
         }
-        return empresas;
     }
-}
\ No newline at end of file
+
+    // Logo guardado de la empresa, o null si no existe
+    private String leerLogo(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT Logo FROM empresas WHERE Id = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("Logo") : null;
+            }
+        }
+    }
+
+    // Los logos fuera del almacén (códigos generados o rutas antiguas) no llevan referencias
+    private boolean retenerLogo(String logo) {
+        if (!AlmacenArchivosService.esBlob(logo)) {
+            return false;
+        }
+        if (!almacenArchivos.retener(logo)) {
+            throw new IllegalArgumentException("El logo no existe en el almacén: " + logo);
+        }
+        return true;
+    }
+
+    private void liberarLogo(String logo) {
+        if (!AlmacenArchivosService.esBlob(logo)) {
+            return;
+        }
+        try {
+            almacenArchivos.liberar(logo);
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo liberar el logo " + logo + ": " + e.getMessage());
+        }
+    }
+
+    // ========== CACHÉ ==========
+
+    // Desaloja una empresa y el listado completo
+    public void invalidarCache(int id) {
+        cachePorId.invalidar(id);
+        cacheDirectorio.invalidarTodo();
+    }
+
+    public void invalidarCache() {
+        cachePorId.invalidarTodo();
+        cacheDirectorio.invalidarTodo();
+        System.out.println("🔄 Caché de empresas vaciado");
+    }
+
+    public Map<String, Object> metricasCache() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("directorio", cacheDirectorio.metricas());
+        metricas.put("porId", cachePorId.metricas());
+        return metricas;
+    }
+}
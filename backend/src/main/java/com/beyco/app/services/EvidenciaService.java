@@ -1,5 +1,11 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.OrdenPagina;
+import com.beyco.app.db.Pagina;
+import com.beyco.app.db.ParametrosConsulta;
+import com.beyco.app.db.ProcesadorFila;
 import com.beyco.app.models.Evidencia;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -8,26 +14,42 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 @Service
 public class EvidenciaService {
 
+    private static final String SQL_TODAS_LAS_EVIDENCIAS = "SELECT * FROM evidencia_cursos ORDER BY Fecha_Subida DESC";
+
+    // Órdenes para la paginación por cursor; el primero es el de obtenerTodasLasEvidencias
+    private static final List<OrdenPagina<Evidencia>> ORDENES_PAGINA = List.of(
+            OrdenPagina.descendente("fechaSubida", "Fecha_Subida", OrdenPagina.Tipo.FECHA_HORA, Evidencia::getFechaSubida,
+                    "Id_Evidencia", OrdenPagina.Tipo.ENTERO, Evidencia::getIdEvidencia),
+            OrdenPagina.ascendente("id", "Id_Evidencia", OrdenPagina.Tipo.ENTERO, Evidencia::getIdEvidencia,
+                    "Id_Evidencia", OrdenPagina.Tipo.ENTERO, Evidencia::getIdEvidencia));
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final AlmacenArchivosService almacenArchivos;
+    private final MiniaturaService miniaturaService;
     
     // Usar directorio fijo para uploads
     private final String uploadDir = "uploads";
 
     @Autowired
-    public EvidenciaService(DataSource dataSource) {
+    public EvidenciaService(DataSource dataSource, ConsultasJdbc consultas, AlmacenArchivosService almacenArchivos,
+                            MiniaturaService miniaturaService) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.almacenArchivos = almacenArchivos;
+        this.miniaturaService = miniaturaService;
         // Crear directorio al iniciar el servicio
         crearDirectorioUploads();
     }
@@ -45,46 +67,24 @@ public class EvidenciaService {
         }
     }
 
-    // Guardar archivo en el sistema de archivos
+    // Guardar archivo en el almacén por contenido (un archivo idéntico ya subido se reutiliza)
     private String guardarArchivo(MultipartFile archivo) throws IOException {
-        // Generar nombre único para el archivo
-        String nombreOriginal = archivo.getOriginalFilename();
-        String extension = "";
-        if (nombreOriginal != null && nombreOriginal.contains(".")) {
-            extension = nombreOriginal.substring(nombreOriginal.lastIndexOf("."));
-        }
-        
-        String nombreUnico = UUID.randomUUID().toString() + extension;
-        Path rutaArchivo = Paths.get(uploadDir).resolve(nombreUnico);
-        
-        // Guardar archivo
-        Files.copy(archivo.getInputStream(), rutaArchivo, StandardCopyOption.REPLACE_EXISTING);
-        
-        System.out.println("📁 Archivo guardado: " + rutaArchivo.toAbsolutePath());
-        return nombreUnico;
+        String ruta = almacenArchivos.guardar(archivo);
+        System.out.println("📁 Archivo guardado: " + ruta);
+        return ruta;
     }
 
     // SUBIR EVIDENCIA
     public boolean subirEvidencia(MultipartFile archivo, String tipoEvidencia, 
                                  String descripcion, String observaciones, int cursosIdCurso) {
-        String sql = "INSERT INTO evidencia_cursos (Tipo_Evidencia, Descripcion, Archivo_Ruta, Fecha_Subida, Estatus, Observaciones, cursos_Id_Curso) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
+        try {
             // Validar archivo
             if (archivo.isEmpty()) {
                 throw new IllegalArgumentException("El archivo no puede estar vacío");
             }
             
             // Validar tipo de archivo
-            String contentType = archivo.getContentType();
-            if (contentType == null || 
-                (!contentType.startsWith("image/") && 
-                 !contentType.startsWith("video/") && 
-                 !contentType.equals("application/pdf"))) {
-                throw new IllegalArgumentException("Tipo de archivo no permitido. Solo se permiten imágenes, videos y PDF.");
-            }
+            validarTipoArchivo(archivo.getContentType());
             
             // Validar tamaño del archivo (50MB máximo)
             if (archivo.getSize() > 50 * 1024 * 1024) {
@@ -95,6 +95,43 @@ public class EvidenciaService {
             String nombreArchivo = guardarArchivo(archivo);
             
             // Insertar en base de datos
+            try {
+                return registrarEvidencia(nombreArchivo, tipoEvidencia, descripcion, observaciones, cursosIdCurso);
+            } catch (RuntimeException e) {
+                almacenArchivos.liberar(nombreArchivo);
+                throw e;
+            }
+            
+        } catch (IOException e) {
+            System.err.println("❌ Error al subir evidencia: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al subir evidencia: " + e.getMessage(), e);
+        }
+    }
+
+    // Solo se permiten imágenes, videos y PDF
+    public void validarTipoArchivo(String contentType) {
+        if (contentType == null || 
+            (!contentType.startsWith("image/") && 
+             !contentType.startsWith("video/") && 
+             !contentType.equals("application/pdf"))) {
+            throw new IllegalArgumentException("Tipo de archivo no permitido. Solo se permiten imágenes, videos y PDF.");
+        }
+    }
+
+    // Ruta dentro del directorio de uploads para un nombre de archivo
+    public Path rutaEnUploads(String nombreArchivo) {
+        return Paths.get(uploadDir).resolve(nombreArchivo);
+    }
+
+    // REGISTRAR EN BD UN ARCHIVO YA GUARDADO EN UPLOADS
+    public boolean registrarEvidencia(String nombreArchivo, String tipoEvidencia, String descripcion,
+                                      String observaciones, int cursosIdCurso) {
+        String sql = "INSERT INTO evidencia_cursos (Tipo_Evidencia, Descripcion, Archivo_Ruta, Fecha_Subida, Estatus, Observaciones, cursos_Id_Curso) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            
             pstmt.setString(1, tipoEvidencia);
             pstmt.setString(2, descripcion);
             pstmt.setString(3, nombreArchivo);
@@ -105,10 +142,14 @@ public class EvidenciaService {
             
             int filasAfectadas = pstmt.executeUpdate();
             System.out.println("✅ Evidencia guardada en BD. Filas afectadas: " + filasAfectadas);
+            if (filasAfectadas > 0) {
+                // La miniatura para la pantalla de revisión se genera en segundo plano
+                miniaturaService.programar(nombreArchivo);
+            }
             return filasAfectadas > 0;
             
-        } catch (SQLException | IOException e) {
-            System.err.println("❌ Error al subir evidencia: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("❌ Error al registrar evidencia: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al subir evidencia: " + e.getMessage(), e);
         }
@@ -116,59 +157,100 @@ public class EvidenciaService {
 
     // OBTENER EVIDENCIA POR CURSO
     public List<Evidencia> obtenerEvidenciaPorCurso(int cursoId) {
-        List<Evidencia> evidencias = new ArrayList<>();
         String sql = "SELECT * FROM evidencia_cursos WHERE cursos_Id_Curso = ? ORDER BY Fecha_Subida DESC";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, cursoId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    evidencias.add(mapRowToEvidencia(rs));
-                }
-            }
+        try {
+            List<Evidencia> evidencias = consultas.listar(sql, pstmt -> pstmt.setInt(1, cursoId), Mapeadores.EVIDENCIA);
             System.out.println("✅ Evidencias encontradas para curso " + cursoId + ": " + evidencias.size());
+            return evidencias;
         } catch (SQLException e) {
             System.err.println("❌ Error al obtener evidencia por curso: " + e.getMessage());
             throw new RuntimeException("Error al obtener evidencia por curso", e);
         }
-        return evidencias;
     }
 
     // OBTENER TODAS LAS EVIDENCIAS
     public List<Evidencia> obtenerTodasLasEvidencias() {
-        List<Evidencia> evidencias = new ArrayList<>();
-        String sql = "SELECT * FROM evidencia_cursos ORDER BY Fecha_Subida DESC";
+        String sql = SQL_TODAS_LAS_EVIDENCIAS;
         
-        try (Connection connection = dataSource.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                evidencias.add(mapRowToEvidencia(rs));
-            }
+        try {
+            List<Evidencia> evidencias = consultas.listar(sql, Mapeadores.EVIDENCIA);
             System.out.println("✅ Total de evidencias encontradas: " + evidencias.size());
+            return evidencias;
         } catch (SQLException e) {
             System.err.println("❌ Error al obtener todas las evidencias: " + e.getMessage());
             throw new RuntimeException("Error al obtener todas las evidencias", e);
         }
-        return evidencias;
+    }
+
+    // PÁGINA DE EVIDENCIAS POR CURSOR (orden = fechaSubida o id)
+    public Pagina<Evidencia> obtenerEvidenciasPagina(String orden, String cursor, int limite) {
+        try {
+            return consultas.pagina("SELECT * FROM evidencia_cursos WHERE 1 = 1", OrdenPagina.elegir(ORDENES_PAGINA, orden),
+                    cursor, limite, Mapeadores.EVIDENCIA);
+        } catch (SQLException e) {
+            System.err.println("❌ Error al obtener página de evidencias: " + e.getMessage());
+            throw new RuntimeException("Error al obtener evidencias paginadas", e);
+        }
+    }
+
+    // RECORRER TODAS LAS EVIDENCIAS EN FLUJO (respuesta JSON sin cargar la lista en memoria)
+    public int recorrerTodasLasEvidencias(ProcesadorFila<Evidencia> procesador) throws IOException {
+        try {
+            return consultas.recorrerEnFlujo(SQL_TODAS_LAS_EVIDENCIAS, ParametrosConsulta.NINGUNO, Mapeadores.EVIDENCIA, procesador);
+        } catch (SQLException e) {
+            System.err.println("❌ Error al recorrer las evidencias: " + e.getMessage());
+            throw new RuntimeException("Error al obtener todas las evidencias", e);
+        }
+    }
+
+    // BUSCAR EVIDENCIAS POR CURSO, EMPRESA Y/O RANGO DE FECHAS DE SUBIDA (hasta inclusive)
+    public List<Evidencia> buscarEvidencias(Integer cursoId, Integer empresaId, LocalDate desde, LocalDate hasta) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT e.* FROM evidencia_cursos e JOIN cursos c ON c.Id_Curso = e.cursos_Id_Curso WHERE 1 = 1");
+        List<Object> valores = new ArrayList<>();
+        if (cursoId != null) {
+            sql.append(" AND e.cursos_Id_Curso = ?");
+            valores.add(cursoId);
+        }
+        if (empresaId != null) {
+            sql.append(" AND c.Empresa_Id = ?");
+            valores.add(empresaId);
+        }
+        // Rango abierto por arriba para que el índice sobre Fecha_Subida siga siendo útil
+        if (desde != null) {
+            sql.append(" AND e.Fecha_Subida >= ?");
+            valores.add(Timestamp.valueOf(desde.atStartOfDay()));
+        }
+        if (hasta != null) {
+            sql.append(" AND e.Fecha_Subida < ?");
+            valores.add(Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        }
+        sql.append(" ORDER BY e.cursos_Id_Curso, e.Id_Evidencia");
+
+        try {
+            List<Evidencia> evidencias = consultas.listar(sql.toString(), pstmt -> {
+                for (int i = 0; i < valores.size(); i++) {
+                    pstmt.setObject(i + 1, valores.get(i));
+                }
+            }, Mapeadores.EVIDENCIA);
+            System.out.println("✅ Evidencias encontradas para el filtro: " + evidencias.size());
+            return evidencias;
+        } catch (SQLException e) {
+            System.err.println("❌ Error al buscar evidencias: " + e.getMessage());
+            throw new RuntimeException("Error al buscar evidencias", e);
+        }
     }
 
     // OBTENER EVIDENCIA POR ID
     public Evidencia obtenerEvidenciaPorId(int idEvidencia) {
         String sql = "SELECT * FROM evidencia_cursos WHERE Id_Evidencia = ?";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, idEvidencia);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    System.out.println("✅ Evidencia encontrada con ID: " + idEvidencia);
-                    return mapRowToEvidencia(rs);
-                }
+        try {
+            Evidencia evidencia = consultas.primero(sql, pstmt -> pstmt.setInt(1, idEvidencia), Mapeadores.EVIDENCIA);
+            if (evidencia != null) {
+                System.out.println("✅ Evidencia encontrada con ID: " + idEvidencia);
+                return evidencia;
             }
         } catch (SQLException e) {
             System.err.println("❌ Error al obtener evidencia por ID: " + e.getMessage());
@@ -204,20 +286,17 @@ public class EvidenciaService {
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
-            // Primero obtener información del archivo para eliminarlo del sistema de archivos
+            // Primero obtener información del archivo para liberarlo después del borrado
             Evidencia evidencia = obtenerEvidenciaPorId(idEvidencia);
-            if (evidencia != null) {
-                // Eliminar archivo del sistema de archivos
-                Path rutaArchivo = Paths.get(uploadDir).resolve(evidencia.getArchivoRuta());
-                if (Files.exists(rutaArchivo)) {
-                    Files.delete(rutaArchivo);
-                    System.out.println("🗑️ Archivo eliminado del sistema: " + rutaArchivo.getFileName());
-                }
-            }
             
             pstmt.setInt(1, idEvidencia);
             int filasAfectadas = pstmt.executeUpdate();
             System.out.println("✅ Evidencia eliminada de BD. Filas afectadas: " + filasAfectadas);
+            
+            // El archivo solo se borra si ninguna otra evidencia, logo o firma lo usa
+            if (evidencia != null && filasAfectadas > 0) {
+                almacenArchivos.liberar(evidencia.getArchivoRuta());
+            }
             return filasAfectadas > 0;
         } catch (SQLException | IOException e) {
             System.err.println("❌ Error al eliminar evidencia: " + e.getMessage());
@@ -225,20 +304,23 @@ public class EvidenciaService {
         }
     }
 
-    // OBTENER ARCHIVO PARA DESCARGA
-    public byte[] obtenerArchivo(int idEvidencia) throws IOException {
-        Evidencia evidencia = obtenerEvidenciaPorId(idEvidencia);
-        if (evidencia == null) {
-            throw new RuntimeException("Evidencia no encontrada con ID: " + idEvidencia);
+    // OBTENER RUTA DEL ARCHIVO PARA DESCARGA (el controlador lo envía en flujo, sin cargarlo en memoria)
+    // Acepta rutas del esquema plano (uuid.ext) y del almacén (blobs/aa/bb/hash.ext)
+    public Path obtenerRutaArchivo(Evidencia evidencia) throws IOException {
+        Path rutaArchivo = rutaEnUploads(evidencia.getArchivoRuta());
+        if (!Files.isRegularFile(rutaArchivo) && !AlmacenArchivosService.esBlob(evidencia.getArchivoRuta())) {
+            // La migración pudo mover el archivo después de leer la fila: releer la ruta actual
+            Evidencia actual = obtenerEvidenciaPorId(evidencia.getIdEvidencia());
+            if (actual != null) {
+                rutaArchivo = rutaEnUploads(actual.getArchivoRuta());
+            }
         }
-        
-        Path rutaArchivo = Paths.get(uploadDir).resolve(evidencia.getArchivoRuta());
-        if (!Files.exists(rutaArchivo)) {
-            throw new IOException("Archivo no encontrado: " + evidencia.getArchivoRuta() + " en " + rutaArchivo.toAbsolutePath());
+        if (!Files.isRegularFile(rutaArchivo)) {
+            throw new NoSuchFileException("Archivo no encontrado: " + evidencia.getArchivoRuta() + " en " + rutaArchivo.toAbsolutePath());
         }
         
         System.out.println("📥 Descargando archivo: " + rutaArchivo.toAbsolutePath());
-        return Files.readAllBytes(rutaArchivo);
+        return rutaArchivo;
     }
 
     // VERIFICAR SI EXISTE EVIDENCIA PARA UN CURSO
@@ -284,18 +366,4 @@ public class EvidenciaService {
         }
         return 0;
     }
-
-    // Método de ayuda para mapear ResultSet a Evidencia
-    private Evidencia mapRowToEvidencia(ResultSet rs) throws SQLException {
-        Evidencia evidencia = new Evidencia();
-        evidencia.setIdEvidencia(rs.getInt("Id_Evidencia"));
-        evidencia.setTipoEvidencia(rs.getString("Tipo_Evidencia"));
-        evidencia.setDescripcion(rs.getString("Descripcion"));
-        evidencia.setArchivoRuta(rs.getString("Archivo_Ruta"));
-        evidencia.setFechaSubida(rs.getTimestamp("Fecha_Subida").toLocalDateTime());
-        evidencia.setEstatus(rs.getString("Estatus"));
-        evidencia.setObservaciones(rs.getString("Observaciones"));
-        evidencia.setCursosIdCurso(rs.getInt("cursos_Id_Curso"));
-        return evidencia;
-    }
-}
\ No newline at end of file
+}
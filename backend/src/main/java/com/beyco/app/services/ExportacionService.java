@@ -0,0 +1,140 @@
+package com.beyco.app.services;
+
+import com.beyco.app.exportacion.EmpaquetadorZip;
+import com.beyco.app.exportacion.EscritorCsv;
+import com.beyco.app.exportacion.EscritorTabla;
+import com.beyco.app.exportacion.FormatoExportacion;
+import com.beyco.app.models.Evidencia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportaciones completas de cursos y alumnos (auditorías STPS).
+ * Cada fila se escribe en la salida en cuanto se lee de la base de datos.
+ * Las evidencias se empaquetan en un ZIP que se arma mientras se descarga.
+ */
+@Service
+public class ExportacionService {
+
+    private final CursoService cursoService;
+    private final AlumnoService alumnoService;
+    private final EvidenciaService evidenciaService;
+
+    @Autowired
+    public ExportacionService(CursoService cursoService, AlumnoService alumnoService,
+                              EvidenciaService evidenciaService) {
+        this.cursoService = cursoService;
+        this.alumnoService = alumnoService;
+        this.evidenciaService = evidenciaService;
+    }
+
+    public int exportarCursos(FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (EscritorTabla escritor = formato.crearEscritor(salida, "Cursos")) {
+            escritor.encabezados("Id", "Curso", "Clave STPS", "Horas", "Fecha de impartición", "Empresa",
+                    "Instructor", "Lugar", "Precio", "Pago", "Examen práctico");
+
+            int total = cursoService.recorrerTodosLosCursos(curso -> escritor.fila(
+                    curso.getId(),
+                    curso.getNombre(),
+                    curso.getStps(),
+                    curso.getHoras(),
+                    curso.getFechaIngreso(),
+                    curso.getEmpresa(),
+                    curso.getInstructor(),
+                    curso.getLugar(),
+                    curso.getPrecio(),
+                    curso.getPago(),
+                    curso.getExamenPractico() ? "Sí" : "No"));
+
+            System.out.println("📤 Cursos exportados (" + formato.getExtension() + "): " + total);
+            return total;
+        }
+    }
+
+    public int exportarAlumnos(FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (EscritorTabla escritor = formato.crearEscritor(salida, "Alumnos")) {
+            escritor.encabezados("CURP", "Nombre", "Apellido paterno", "Apellido materno", "Fecha de nacimiento",
+                    "Puesto", "Estado de nacimiento", "RFC", "Fecha de registro");
+
+            int total = alumnoService.recorrerAlumnosActivos(alumno -> escritor.fila(
+                    alumno.getCurp(),
+                    alumno.getNombre(),
+                    alumno.getApellidoPaterno(),
+                    alumno.getApellidoMaterno(),
+                    alumno.getFechaNacimiento(),
+                    alumno.getPuesto(),
+                    alumno.getEstadoNacimiento(),
+                    alumno.getRfc(),
+                    alumno.getFechaRegistro()));
+
+            System.out.println("📤 Alumnos exportados (" + formato.getExtension() + "): " + total);
+            return total;
+        }
+    }
+
+    /**
+     * ZIP con los archivos de evidencia que cumplen el filtro, una carpeta por curso, más un
+     * indice.csv con los datos de cada evidencia. Los archivos que ya no están en disco se
+     * marcan en el índice en lugar de interrumpir la descarga.
+     */
+    public int exportarEvidencias(Integer cursoId, Integer empresaId, LocalDate desde, LocalDate hasta,
+                                  OutputStream salida) throws IOException {
+        // Solo los metadatos se leen completos; la conexión se libera antes de copiar archivos
+        List<Evidencia> evidencias = evidenciaService.buscarEvidencias(cursoId, empresaId, desde, hasta);
+        List<Object[]> indice = new ArrayList<>(evidencias.size());
+        int incluidas = 0;
+
+        try (EmpaquetadorZip zip = new EmpaquetadorZip(salida)) {
+            for (Evidencia evidencia : evidencias) {
+                String nombreEnZip = nombreEnZip(evidencia);
+                try {
+                    Path archivo = evidenciaService.obtenerRutaArchivo(evidencia);
+                    zip.agregarArchivo(nombreEnZip, archivo);
+                    incluidas++;
+                } catch (NoSuchFileException e) {
+                    System.err.println("⚠️ Evidencia " + evidencia.getIdEvidencia() + " sin archivo: " + e.getMessage());
+                    nombreEnZip = "ARCHIVO NO ENCONTRADO";
+                }
+                indice.add(new Object[] {
+                        evidencia.getIdEvidencia(),
+                        evidencia.getCursosIdCurso(),
+                        evidencia.getTipoEvidencia(),
+                        evidencia.getDescripcion(),
+                        evidencia.getEstatus(),
+                        evidencia.getFechaSubida(),
+                        evidencia.getObservaciones(),
+                        nombreEnZip});
+            }
+
+            try (OutputStream entrada = zip.abrirEntrada("indice.csv");
+                 EscritorCsv csv = new EscritorCsv(entrada)) {
+                csv.encabezados("Id evidencia", "Id curso", "Tipo", "Descripción", "Estatus",
+                        "Fecha de subida", "Observaciones", "Archivo");
+                for (Object[] fila : indice) {
+                    csv.fila(fila);
+                }
+            }
+        }
+
+        System.out.println("📦 Evidencias exportadas en ZIP: " + incluidas + " de " + evidencias.size());
+        return incluidas;
+    }
+
+    private static String nombreEnZip(Evidencia evidencia) {
+        String ruta = evidencia.getArchivoRuta() != null ? evidencia.getArchivoRuta() : "";
+        String nombre = ruta.substring(ruta.lastIndexOf('/') + 1);
+        String extension = nombre.contains(".") ? nombre.substring(nombre.lastIndexOf('.')) : "";
+        String tipo = evidencia.getTipoEvidencia() != null
+                ? evidencia.getTipoEvidencia().replaceAll("[^\\p{L}\\p{N}_-]+", "_")
+                : "evidencia";
+        return "curso_" + evidencia.getCursosIdCurso() + "/" + evidencia.getIdEvidencia() + "_" + tipo + extension;
+    }
+}
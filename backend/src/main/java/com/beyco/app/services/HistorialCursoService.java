@@ -1,40 +1,446 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.RevisorConsultas;
+import com.beyco.app.models.Curso;
 import com.beyco.app.models.HistorialCurso;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
+/**
+ * Historial de cursos separado por año.
+ *
+ * Los años terminados se "cierran": sus cursos se copian a historial_cursos (particionada por
+ * año de impartición, ver migración 004) y se guarda un resumen del año que ya no cambia.
+ * Las consultas de un año cerrado leen solo su partición; los años abiertos (el actual y los
+ * futuros) se siguen leyendo de cursos. Los años se cierran en orden, así que todo lo anterior
+ * a {@link #inicioAbierto()} está archivado y todo lo demás sigue vivo. Cuando CursoService
+ * escribe un curso de un año cerrado, ese año se reconstruye en el momento.
+ *
+ * Los resúmenes de años cerrados se leen una vez de la BD y se quedan en memoria.
+ */
 @Service
 public class HistorialCursoService {
 
+    // Mismos nombres de columna que Mapeadores.CURSO
+    private static final String SELECT_ARCHIVO = "SELECT Id_Curso, Nombre_curso, Clave_STPS, Fecha_Imparticion, Lugar, " +
+                    "Empresa_Id, nombre_empresa, Instructor_Id, nombre_instructor, Pago, Precio, Horas, Examen_practico " +
+                    "FROM historial_cursos ";
+
+    // Rango semiabierto sobre la columna de partición: MySQL descarta las particiones fuera del rango
+    private static final String SQL_ARCHIVO_EN_RANGO = SELECT_ARCHIVO +
+                    "WHERE Fecha_Imparticion >= ? AND Fecha_Imparticion < ? ORDER BY Fecha_Imparticion, Id_Curso";
+
+    private static final String SQL_ARCHIVAR = "INSERT INTO historial_cursos (Id_Curso, Nombre_curso, Clave_STPS, " +
+                    "Fecha_Imparticion, Lugar, Empresa_Id, nombre_empresa, Instructor_Id, nombre_instructor, " +
+                    "Pago, Precio, Horas, Examen_practico, Total_Alumnos) " +
+                    "SELECT c.Id_Curso, c.Nombre_curso, c.Clave_STPS, c.Fecha_Imparticion, c.Lugar, " +
+                    "c.Empresa_Id, e.Nombre, c.Instructor_Id, u.Nombre, c.Pago, cat.Precio, cat.Horas, cat.Examen_practico, " +
+                    "(SELECT COUNT(*) FROM alumnos_has_cursos ahc WHERE ahc.cursos_Id_Curso = c.Id_Curso) " +
+                    "FROM cursos c " +
+                    "JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
+                    "JOIN empresas e ON c.Empresa_Id = e.Id " +
+                    "LEFT JOIN catalogo_cursos cat ON c.Clave_STPS = cat.Clave_STPS " +
+                    "WHERE c.Fecha_Imparticion >= ? AND c.Fecha_Imparticion < ?";
+
+    // Sin entrada en el catálogo cuentan 8 horas, igual que en CursoService
+    private static final String SQL_RESUMIR = "INSERT INTO historial_resumen_anual (Anio, Total_Cursos, Total_Horas, " +
+                    "Total_Alumnos, Total_Empresas, Total_Instructores, Total_Ingresos, Total_Pagos, Fecha_Cierre) " +
+                    "SELECT ?, COUNT(*), COALESCE(SUM(COALESCE(NULLIF(Horas, 0), 8)), 0), COALESCE(SUM(Total_Alumnos), 0), " +
+                    "COUNT(DISTINCT Empresa_Id), COUNT(DISTINCT Instructor_Id), COALESCE(SUM(Precio), 0), " +
+                    "COALESCE(SUM(Pago), 0), NOW() " +
+                    "FROM historial_cursos WHERE Fecha_Imparticion >= ? AND Fecha_Imparticion < ?";
+
+    private static final String SQL_ALUMNOS_EN_RANGO = "SELECT COUNT(*) FROM alumnos_has_cursos ahc " +
+                    "JOIN cursos c ON ahc.cursos_Id_Curso = c.Id_Curso " +
+                    "WHERE c.Fecha_Imparticion >= ? AND c.Fecha_Imparticion < ?";
+
+    // Límite inferior para leer todo el archivo con la misma consulta por rango
+    private static final LocalDate INICIO_HISTORIAL = LocalDate.of(1900, 1, 1);
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final CursoService cursoService;
+
+    // Resúmenes de los años cerrados; null hasta la primera lectura
+    private NavigableMap<Integer, Map<String, Object>> resumenes;
 
     @Autowired
-    public HistorialCursoService(DataSource dataSource) {
+    public HistorialCursoService(DataSource dataSource, ConsultasJdbc consultas, CursoService cursoService,
+                                 RevisorConsultas revisorConsultas) {
         this.dataSource = dataSource;
-        System.out.println("🎯 HistorialCursoService INICIALIZADO!");
+        this.consultas = consultas;
+        this.cursoService = cursoService;
+
+        int anioAnterior = LocalDate.now().getYear() - 1;
+        revisorConsultas.registrar("historial.archivoPorAnio", SQL_ARCHIVO_EN_RANGO,
+                pstmt -> asignarAnio(pstmt, 1, anioAnterior));
+    }
+
+    private static void asignarAnio(PreparedStatement pstmt, int indice, int anio) throws SQLException {
+        pstmt.setDate(indice, Date.valueOf(LocalDate.of(anio, 1, 1)));
+        pstmt.setDate(indice + 1, Date.valueOf(LocalDate.of(anio + 1, 1, 1)));
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Todos los cursos: los años cerrados desde el archivo y los abiertos desde cursos.
+     */
+    public List<Curso> listarCursos() {
+        LocalDate inicioAbierto = inicioAbierto();
+        if (inicioAbierto == null) {
+            return cursoService.listarTodosLosCursos();
+        }
+        List<Curso> cursos = listarArchivo(INICIO_HISTORIAL, inicioAbierto);
+        cursos.addAll(cursoService.listarCursosEnRango(inicioAbierto, null));
+        return cursos;
+    }
+
+    public List<Curso> listarCursosPorAnio(int anio) {
+        if (estaCerrado(anio)) {
+            return listarArchivo(LocalDate.of(anio, 1, 1), LocalDate.of(anio + 1, 1, 1));
+        }
+        return cursoService.listarCursosPorAnio(anio);
+    }
+
+    /**
+     * "finalizado" = impartidos antes de hoy (archivo más lo ya impartido de los años abiertos);
+     * cualquier otro estado = de hoy en adelante, que siempre está en años abiertos.
+     */
+    public List<Curso> listarCursosPorEstado(String estado) {
+        if (!estado.equalsIgnoreCase("finalizado")) {
+            return cursoService.listarCursosPorEstado(estado);
+        }
+        LocalDate inicioAbierto = inicioAbierto();
+        if (inicioAbierto == null) {
+            return cursoService.listarCursosPorEstado(estado);
+        }
+        List<Curso> cursos = listarArchivo(INICIO_HISTORIAL, inicioAbierto);
+        cursos.addAll(cursoService.listarCursosEnRango(inicioAbierto, LocalDate.now()));
+        return cursos;
     }
 
+    /**
+     * Historial completo en el formato de HistorialCurso (status según la fecha de impartición).
+     */
     public List<HistorialCurso> obtenerHistorialCompleto() {
-        System.out.println("🔍 HistorialCursoService: Obteniendo historial...");
-        
-        // Por ahora, devuelve una lista vacía para pruebas
+        LocalDate hoy = LocalDate.now();
         List<HistorialCurso> historial = new ArrayList<>();
-        
-        // Datos de prueba
-        historial.add(new HistorialCurso(
-            1, "Curso de Prueba", "TEST-001", 8, 
-            LocalDate.now(), "Instructor Demo", "Empresa Demo", 
-            "Lugar Demo", BigDecimal.valueOf(1000), "Activo"
-        ));
-        
+        for (Curso curso : listarCursos()) {
+            LocalDate fecha = curso.getFechaIngreso();
+            String status = fecha == null || fecha.isBefore(hoy) ? "Finalizado"
+                    : fecha.isEqual(hoy) ? "Activo" : "Programado";
+            historial.add(new HistorialCurso(curso.getId(), curso.getNombre(), curso.getStps(), curso.getHoras(),
+                    fecha, curso.getInstructor(), curso.getEmpresa(), curso.getLugar(), curso.getPrecio(), status));
+        }
         System.out.println("✅ HistorialCursoService: Devolviendo " + historial.size() + " cursos");
         return historial;
     }
-}
\ No newline at end of file
+
+    private List<Curso> listarArchivo(LocalDate desde, LocalDate hasta) {
+        try {
+            return consultas.listar(SQL_ARCHIVO_EN_RANGO, pstmt -> {
+                pstmt.setDate(1, Date.valueOf(desde));
+                pstmt.setDate(2, Date.valueOf(hasta));
+            }, Mapeadores.CURSO);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al leer historial archivado: " + e.getMessage());
+        }
+    }
+
+    // ========== RESÚMENES ==========
+
+    /**
+     * Resúmenes precalculados de todos los años cerrados, del más antiguo al más reciente.
+     */
+    public synchronized List<Map<String, Object>> listarResumenes() {
+        return new ArrayList<>(resumenesCerrados().values());
+    }
+
+    /**
+     * Resumen del año: el precalculado si está cerrado, o calculado al momento si sigue abierto.
+     */
+    public Map<String, Object> obtenerResumen(int anio) {
+        synchronized (this) {
+            Map<String, Object> resumen = resumenesCerrados().get(anio);
+            if (resumen != null) {
+                return resumen;
+            }
+        }
+        return resumenAbierto(anio);
+    }
+
+    private Map<String, Object> resumenAbierto(int anio) {
+        List<Curso> cursos = cursoService.listarCursosPorAnio(anio);
+        int horas = 0;
+        BigDecimal ingresos = BigDecimal.ZERO;
+        BigDecimal pagos = BigDecimal.ZERO;
+        Set<Integer> empresas = new HashSet<>();
+        Set<Integer> instructores = new HashSet<>();
+        for (Curso curso : cursos) {
+            horas += curso.getHoras();
+            ingresos = ingresos.add(curso.getPrecio() != null ? curso.getPrecio() : BigDecimal.ZERO);
+            pagos = pagos.add(curso.getPago() != null ? curso.getPago() : BigDecimal.ZERO);
+            empresas.add(curso.getEmpresaId());
+            instructores.add(curso.getInstructorId());
+        }
+
+        int alumnos = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(SQL_ALUMNOS_EN_RANGO)) {
+            asignarAnio(pstmt, 1, anio);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    alumnos = rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al calcular resumen del año: " + e.getMessage());
+        }
+
+        return resumen(anio, cursos.size(), horas, alumnos, empresas.size(), instructores.size(),
+                ingresos, pagos, null);
+    }
+
+    private static Map<String, Object> resumen(int anio, int cursos, int horas, int alumnos, int empresas,
+                                               int instructores, BigDecimal ingresos, BigDecimal pagos,
+                                               Timestamp fechaCierre) {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("anio", anio);
+        resumen.put("cerrado", fechaCierre != null);
+        resumen.put("totalCursos", cursos);
+        resumen.put("totalHoras", horas);
+        resumen.put("totalAlumnos", alumnos);
+        resumen.put("totalEmpresas", empresas);
+        resumen.put("totalInstructores", instructores);
+        resumen.put("totalIngresos", ingresos);
+        resumen.put("totalPagos", pagos);
+        resumen.put("fechaCierre", fechaCierre != null ? fechaCierre.toLocalDateTime() : null);
+        return Collections.unmodifiableMap(resumen);
+    }
+
+    // Primer día del primer año sin cerrar, o null si no hay años cerrados
+    private synchronized LocalDate inicioAbierto() {
+        NavigableMap<Integer, Map<String, Object>> cerrados = resumenesCerrados();
+        return cerrados.isEmpty() ? null : LocalDate.of(cerrados.lastKey() + 1, 1, 1);
+    }
+
+    private synchronized boolean estaCerrado(int anio) {
+        return resumenesCerrados().containsKey(anio);
+    }
+
+    private NavigableMap<Integer, Map<String, Object>> resumenesCerrados() {
+        if (resumenes == null) {
+            try {
+                resumenes = leerResumenes();
+            } catch (RuntimeException e) {
+                // Sin la migración 004 no hay años cerrados: todo se sirve desde cursos y se reintenta después
+                System.err.println("⚠️ Historial sin archivo, se usan solo los cursos vivos: " + e.getMessage());
+                return new TreeMap<>();
+            }
+        }
+        return resumenes;
+    }
+
+    private NavigableMap<Integer, Map<String, Object>> leerResumenes() {
+        String sql = "SELECT * FROM historial_resumen_anual ORDER BY Anio";
+        NavigableMap<Integer, Map<String, Object>> leidos = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int anio = rs.getInt("Anio");
+                leidos.put(anio, resumen(anio, rs.getInt("Total_Cursos"), rs.getInt("Total_Horas"),
+                        rs.getInt("Total_Alumnos"), rs.getInt("Total_Empresas"), rs.getInt("Total_Instructores"),
+                        rs.getBigDecimal("Total_Ingresos"), rs.getBigDecimal("Total_Pagos"),
+                        rs.getTimestamp("Fecha_Cierre")));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al leer resúmenes del historial: " + e.getMessage());
+        }
+        return leidos;
+    }
+
+    // ========== CIERRE DE AÑOS ==========
+
+    @Scheduled(fixedDelay = 6 * 60 * 60 * 1000, initialDelay = 2 * 60 * 1000)
+    public void cierreProgramado() {
+        try {
+            cerrarAniosHasta(LocalDate.now().getYear() - 1);
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al cerrar años del historial: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra en orden todos los años pendientes hasta el indicado (inclusive), que debe haber terminado.
+     * Devuelve los años cerrados en esta llamada.
+     */
+    public synchronized List<Integer> cerrarAniosHasta(int hasta) {
+        if (hasta >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Solo se pueden cerrar años terminados");
+        }
+        NavigableMap<Integer, Map<String, Object>> cerrados = resumenesCerrados();
+        Integer primero = cerrados.isEmpty() ? primerAnioConCursos() : Integer.valueOf(cerrados.lastKey() + 1);
+
+        List<Integer> cerradosAhora = new ArrayList<>();
+        if (primero == null) {
+            return cerradosAhora;
+        }
+        for (int anio = primero; anio <= hasta; anio++) {
+            archivarAnio(anio, false);
+            cerradosAhora.add(anio);
+        }
+        if (!cerradosAhora.isEmpty()) {
+            System.out.println("📦 Historial: años cerrados " + cerradosAhora);
+        }
+        return cerradosAhora;
+    }
+
+    /**
+     * Mantiene el archivo al día con las escrituras de CursoService: reconstruye los años cerrados
+     * afectados y archiva un año anterior al primero cerrado (un curso ahí no se vería, porque todo
+     * lo anterior a inicioAbierto() se lee del archivo). El cambio en cursos ya está confirmado:
+     * si falla, se registra y queda reconstruirAnio para corregirlo a mano.
+     */
+    @EventListener
+    public synchronized void cursosModificados(CursoService.CursosModificados evento) {
+        for (int anio : evento.anios()) {
+            try {
+                if (estaCerrado(anio)) {
+                    reconstruirAnio(anio);
+                } else if (inicioAbierto() != null && anio < inicioAbierto().getYear()) {
+                    archivarAnio(anio, false);
+                    System.out.println("📦 Historial: año " + anio + " cerrado por un curso nuevo");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("❌ No se pudo actualizar el historial del año " + anio + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vuelve a copiar y resumir un año ya cerrado, para corregir cambios hechos en cursos
+     * fuera de CursoService (directo en la BD) o si falló la reconstrucción automática.
+     */
+    public synchronized Map<String, Object> reconstruirAnio(int anio) {
+        if (!resumenesCerrados().containsKey(anio)) {
+            throw new IllegalArgumentException("El año " + anio + " no está cerrado");
+        }
+        archivarAnio(anio, true);
+        System.out.println("🔄 Historial: año " + anio + " reconstruido");
+        return resumenes.get(anio);
+    }
+
+    private Integer primerAnioConCursos() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement("SELECT MIN(Fecha_Imparticion) FROM cursos");
+             ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next() && rs.getDate(1) != null) {
+                return rs.getDate(1).toLocalDate().getYear();
+            }
+            return null;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al buscar el primer año con cursos: " + e.getMessage());
+        }
+    }
+
+    // Copia el año al archivo y escribe su resumen en una sola transacción
+    private void archivarAnio(int anio, boolean reemplazar) {
+        try (Connection connection = dataSource.getConnection()) {
+            // ALTER TABLE hace commit implícito: la partición se prepara antes de abrir la transacción
+            asegurarParticion(connection, anio);
+
+            connection.setAutoCommit(false);
+            try {
+                if (reemplazar) {
+                    try (PreparedStatement pstmt = connection.prepareStatement(
+                            "DELETE FROM historial_cursos WHERE Fecha_Imparticion >= ? AND Fecha_Imparticion < ?")) {
+                        asignarAnio(pstmt, 1, anio);
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = connection.prepareStatement(
+                            "DELETE FROM historial_resumen_anual WHERE Anio = ?")) {
+                        pstmt.setInt(1, anio);
+                        pstmt.executeUpdate();
+                    }
+                }
+                int copiados;
+                try (PreparedStatement pstmt = connection.prepareStatement(SQL_ARCHIVAR)) {
+                    asignarAnio(pstmt, 1, anio);
+                    copiados = pstmt.executeUpdate();
+                }
+                try (PreparedStatement pstmt = connection.prepareStatement(SQL_RESUMIR)) {
+                    pstmt.setInt(1, anio);
+                    asignarAnio(pstmt, 2, anio);
+                    pstmt.executeUpdate();
+                }
+                connection.commit();
+                System.out.println("📦 Historial: " + copiados + " cursos de " + anio + " archivados");
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al archivar el año " + anio + ": " + e.getMessage());
+        }
+        // Recarga los resúmenes (incluye el recién escrito con su fecha de cierre)
+        resumenes = leerResumenes();
+    }
+
+    /**
+     * Si el año cae en la partición pfuturo, la divide para que el año tenga la suya.
+     * Los años anteriores a la primera partición por año quedan en pantes.
+     */
+    private void asegurarParticion(Connection connection, int anio) throws SQLException {
+        String sql = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'historial_cursos'";
+        LocalDate limiteMayor = null;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String descripcion = rs.getString("PARTITION_DESCRIPTION");
+                if (descripcion == null || descripcion.contains("MAXVALUE")) {
+                    continue;
+                }
+                LocalDate limite = LocalDate.parse(descripcion.replace("'", ""));
+                if (limiteMayor == null || limite.isAfter(limiteMayor)) {
+                    limiteMayor = limite;
+                }
+            }
+        }
+        if (limiteMayor == null || LocalDate.of(anio, 1, 1).isBefore(limiteMayor)) {
+            return;
+        }
+
+        String ddl = "ALTER TABLE historial_cursos REORGANIZE PARTITION pfuturo INTO (" +
+                    "PARTITION p" + anio + " VALUES LESS THAN ('" + LocalDate.of(anio + 1, 1, 1) + "'), " +
+                    "PARTITION pfuturo VALUES LESS THAN (MAXVALUE))";
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(ddl);
+        }
+        System.out.println("📦 Historial: partición p" + anio + " creada");
+    }
+}
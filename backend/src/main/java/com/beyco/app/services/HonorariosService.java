@@ -1,5 +1,10 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.ParametrosConsulta;
+import com.beyco.app.db.ProcesadorFila;
+import com.beyco.app.db.RevisorConsultas;
 import com.beyco.app.models.HonorariosInstructorDTO;
 import com.beyco.app.models.PagoInstructor;
 import com.beyco.app.models.Usuario;
@@ -7,343 +12,425 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class HonorariosService {
 
+    private static final String SQL_TODOS_LOS_CURSOS = "SELECT c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, " +
+                    "c.Instructor_Id, cc.Precio, cc.Horas " +
+                    "FROM cursos c " +
+                    "INNER JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
+                    "INNER JOIN catalogo_cursos cc ON c.Clave_STPS = cc.Clave_STPS " +
+                    "WHERE u.Id_Rol = 2 AND u.Activo = 1 " +
+                    "ORDER BY c.Fecha_Imparticion DESC";
+
+    private static final String SQL_TODOS_LOS_PAGOS = "SELECT pi.* FROM pagos_instructores pi " +
+                    "INNER JOIN usuarios u ON pi.Instructor_Id = u.Num_Empleado " +
+                    "WHERE u.Id_Rol = 2 AND u.Activo = 1 " +
+                    "ORDER BY pi.Fecha_Pago DESC";
+
+    private static final int FILAS_POR_INSERT = 500;
+
+    // Lo que se le paga al instructor por un curso: el Pago capturado en el curso o, si no hay,
+    // el precio del catálogo; sin entrada en el catálogo cuentan 8 horas, igual que en CursoService
+    private static final String MONTO_CURSO = "COALESCE(NULLIF(c.Pago, 0), cc.Precio, 0)";
+    private static final String HORAS_CURSO = "CASE WHEN cc.Horas > 0 THEN cc.Horas ELSE 8 END";
+    private static final String CURSO_SIN_PAGO = "NOT EXISTS (SELECT 1 FROM pagos_instructores pi " +
+                    "WHERE pi.Curso_Id = c.Id_Curso AND pi.Estatus IN ('pagado', 'pendiente'))";
+
+    // Cursos sin pago de todos los instructores activos en una sola pasada (una fila por curso,
+    // o una sola con curso NULL si el instructor no tiene pendientes). Rango semiabierto de fechas.
+    private static final String SQL_PENDIENTES = "SELECT u.Num_Empleado, u.Nombre, u.Apellido_paterno, " +
+                    "u.Apellido_materno, u.Correo, c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, " +
+                    MONTO_CURSO + " AS Monto, " + HORAS_CURSO + " AS Horas " +
+                    "FROM usuarios u " +
+                    "LEFT JOIN cursos c ON c.Instructor_Id = u.Num_Empleado " +
+                    "AND c.Fecha_Imparticion >= ? AND c.Fecha_Imparticion < ? AND " + CURSO_SIN_PAGO + " " +
+                    "LEFT JOIN catalogo_cursos cc ON cc.Clave_STPS = c.Clave_STPS " +
+                    "WHERE u.Id_Rol = 2 AND u.Activo = 1 ";
+    private static final String ORDEN_PENDIENTES = "ORDER BY u.Num_Empleado, c.Fecha_Imparticion, c.Id_Curso";
+
+    // Quién paga un curso se decide por NOT EXISTS sobre pagos_instructores, que no se puede
+    // bloquear con FOR UPDATE; los pagos se serializan bloqueando antes la fila del curso
+    private static final String BLOQUEAR_CURSOS_PERIODO = "SELECT c.Id_Curso FROM cursos c " +
+                    "WHERE c.Fecha_Imparticion >= ? AND c.Fecha_Imparticion < ? ";
+
+    private static final String INSERTAR_PAGOS = "INSERT INTO pagos_instructores (Instructor_Id, Curso_Id, Fecha_Pago, " +
+                    "Monto, Horas_Impartidas, Estatus, Comprobante, Observaciones) " +
+                    "SELECT c.Instructor_Id, c.Id_Curso, c.Fecha_Imparticion, " + MONTO_CURSO + ", " + HORAS_CURSO + ", " +
+                    "'pagado', '', CONCAT('Pago procesado - Curso: ', c.Nombre_curso) " +
+                    "FROM cursos c " +
+                    "LEFT JOIN catalogo_cursos cc ON cc.Clave_STPS = c.Clave_STPS ";
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final StatisticsService statisticsService;
+    private final SugerenciasService sugerenciasService;
 
     @Autowired
-    public HonorariosService(DataSource dataSource) {
+    public HonorariosService(DataSource dataSource, ConsultasJdbc consultas, StatisticsService statisticsService,
+                             SugerenciasService sugerenciasService, RevisorConsultas revisorConsultas) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.statisticsService = statisticsService;
+        this.sugerenciasService = sugerenciasService;
+
+        LocalDate hoy = LocalDate.now();
+        revisorConsultas.registrar("honorarios.pendientes", SQL_PENDIENTES + ORDEN_PENDIENTES, pstmt -> {
+            pstmt.setDate(1, Date.valueOf(hoy.withDayOfMonth(1)));
+            pstmt.setDate(2, Date.valueOf(hoy.plusDays(1)));
+        });
     }
 
     // Obtener lista de instructores activos
     public List<Usuario> listarInstructoresActivos() {
-        List<Usuario> instructores = new ArrayList<>();
         String sql = "SELECT Num_Empleado, Nombre, Apellido_paterno, Apellido_materno, Correo " +
                     "FROM usuarios WHERE Id_Rol = 2 AND Activo = 1 " +
                     "ORDER BY Nombre, Apellido_paterno, Apellido_materno";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-
-            while (rs.next()) {
-                Usuario instructor = new Usuario();
-                instructor.setNumEmpleado(rs.getInt("Num_Empleado"));
-                instructor.setNombre(rs.getString("Nombre"));
-                instructor.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                instructor.setApellidoMaterno(rs.getString("Apellido_materno"));
-                instructor.setCorreo(rs.getString("Correo"));
-                instructores.add(instructor);
-            }
+        try {
+            return consultas.listar(sql, Mapeadores.USUARIO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar instructores", e);
         }
-        return instructores;
     }
 
-    // Obtener cursos pendientes de pago por instructor - ADAPTADO AL MODELO ACTUAL
+    // Obtener cursos pendientes de pago por instructor (fechas inclusivas)
     public HonorariosInstructorDTO obtenerCursosPendientes(int instructorId, LocalDate fechaInicio, LocalDate fechaFin) {
-        HonorariosInstructorDTO honorarios = new HonorariosInstructorDTO();
-        List<PagoInstructor> cursosPendientes = new ArrayList<>();
-        BigDecimal totalPendiente = BigDecimal.ZERO;
-        int totalHoras = 0;
+        System.out.println("🔍 Buscando cursos pendientes para instructor: " + instructorId +
+                          " (" + fechaInicio + " a " + fechaFin + ")");
 
-        System.out.println("🔍 Buscando cursos pendientes para instructor: " + instructorId);
-        System.out.println("📅 Periodo: " + fechaInicio + " a " + fechaFin);
+        try (Connection connection = dataSource.getConnection()) {
+            HonorariosInstructorDTO honorarios = leerPendientes(connection, fechaInicio, fechaFin,
+                    List.of(instructorId)).get(instructorId);
+            if (honorarios == null) {
+                throw new RuntimeException("Instructor no encontrado o no activo: " + instructorId);
+            }
+            System.out.println("✅ Total cursos pendientes encontrados: " + honorarios.getCursosPendientes().size());
+            return honorarios;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al obtener cursos pendientes", e);
+        }
+    }
 
-        // Primero: Obtener información del instructor
-        String sqlInstructor = "SELECT Num_Empleado, Nombre, Apellido_paterno, Apellido_materno, Correo " +
-                              "FROM usuarios WHERE Num_Empleado = ? AND Id_Rol = 2 AND Activo = 1";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sqlInstructor)) {
-            
-            pstmt.setInt(1, instructorId);
-            try (ResultSet rsInstructor = pstmt.executeQuery()) {
-                if (rsInstructor.next()) {
-                    // Construir nombre completo del instructor
-                    String nombreCompleto = rsInstructor.getString("Nombre") + " " + 
-                                          rsInstructor.getString("Apellido_paterno") + " " + 
-                                          rsInstructor.getString("Apellido_materno");
-                    
-                    honorarios.setInstructorId(instructorId);
-                    honorarios.setInstructorNombre(nombreCompleto.trim());
-                    honorarios.setInstructorEmail(rsInstructor.getString("Correo"));
-                    
-                    System.out.println("✅ Instructor encontrado: " + nombreCompleto + " (ID: " + instructorId + ")");
-                } else {
-                    System.out.println("❌ Instructor no encontrado o no activo: " + instructorId);
-                    throw new RuntimeException("Instructor no encontrado o no activo: " + instructorId);
+    // ========== NÓMINA DEL PERIODO ==========
+
+    /**
+     * Cursos pendientes de pago de todos los instructores en el periodo (fechas inclusivas), con
+     * totales por instructor y generales. Una sola consulta; los totales se suman en memoria.
+     * Solo incluye instructores con al menos un curso pendiente.
+     */
+    public Map<String, Object> calcularNomina(LocalDate fechaInicio, LocalDate fechaFin) {
+        validarPeriodo(fechaInicio, fechaFin);
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Integer, HonorariosInstructorDTO> pendientes = leerPendientes(connection, fechaInicio, fechaFin, null);
+            return armarNomina(fechaInicio, fechaFin, conPendientes(pendientes.values()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al calcular la nómina de honorarios: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registra como pagados todos los cursos pendientes del periodo en una sola transacción
+     * (opcionalmente solo de los instructores indicados) y devuelve lo pagado con sus totales.
+     * Antes de leer los pendientes bloquea con FOR UPDATE los cursos del periodo de esos
+     * instructores; generarReciboPago bloquea igual los suyos, así que un segundo pago del mismo
+     * curso espera a que termine el primero y ya no lo encuentra pendiente. Si aun así algún curso
+     * se pagó por otro lado entre la lectura y la inserción, no se registra nada y se lanza
+     * IllegalStateException.
+     */
+    public Map<String, Object> pagarNomina(LocalDate fechaInicio, LocalDate fechaFin, Collection<Integer> instructores) {
+        validarPeriodo(fechaInicio, fechaFin);
+        if (instructores != null && instructores.isEmpty()) {
+            throw new IllegalArgumentException("Indica al menos un instructor o ninguno para pagar a todos");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                bloquearCursosPeriodo(connection, fechaInicio, fechaFin, instructores);
+                Map<Integer, HonorariosInstructorDTO> pendientes =
+                        leerPendientes(connection, fechaInicio, fechaFin, instructores);
+                List<HonorariosInstructorDTO> porPagar = conPendientes(pendientes.values());
+
+                List<Integer> cursosIds = new ArrayList<>();
+                for (HonorariosInstructorDTO honorarios : porPagar) {
+                    for (PagoInstructor curso : honorarios.getCursosPendientes()) {
+                        cursosIds.add(curso.getCursoId());
+                    }
+                }
+                int insertados = 0;
+                for (int desde = 0; desde < cursosIds.size(); desde += FILAS_POR_INSERT) {
+                    insertados += insertarPagos(connection,
+                            cursosIds.subList(desde, Math.min(desde + FILAS_POR_INSERT, cursosIds.size())), null);
                 }
+                if (insertados != cursosIds.size()) {
+                    throw new IllegalStateException((cursosIds.size() - insertados) +
+                            " cursos del periodo ya fueron pagados por otra operación; vuelve a calcular la nómina");
+                }
+                connection.commit();
+                statisticsService.pagosRegistrados("pagado", insertados);
+                System.out.println("✅ Nómina " + fechaInicio + " a " + fechaFin + ": " + insertados +
+                                  " cursos pagados a " + porPagar.size() + " instructores");
+                return armarNomina(fechaInicio, fechaFin, porPagar);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             e.printStackTrace();
-            throw new RuntimeException("Error al obtener información del instructor", e);
+            throw new RuntimeException("Error al pagar la nómina de honorarios: " + e.getMessage());
         }
+    }
 
-        // CONSULTA CORREGIDA: Obtener cursos que NO tienen pagos registrados
-        String sqlCursos = "SELECT c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, " +
-                          "cc.Precio, cc.Horas " +
-                          "FROM cursos c " +
-                          "INNER JOIN catalogo_cursos cc ON c.Clave_STPS = cc.Clave_STPS " +
-                          "INNER JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                          "WHERE c.Instructor_Id = ? " +
-                          "AND c.Fecha_Imparticion BETWEEN ? AND ? " +
-                          "AND NOT EXISTS (" +
-                          "    SELECT 1 FROM pagos_instructores pi " +
-                          "    WHERE pi.Instructor_Id = c.Instructor_Id " +
-                          "    AND pi.Fecha_Pago = c.Fecha_Imparticion " +
-                          "    AND pi.Monto = cc.Precio " +
-                          "    AND pi.Estatus IN ('pagado', 'pendiente')" +
-                          ") " +
-                          "ORDER BY c.Fecha_Imparticion DESC";
+    private static void validarPeriodo(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("El periodo necesita fecha de inicio y de fin");
+        }
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin es anterior a la de inicio");
+        }
+    }
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sqlCursos)) {
-            
-            pstmt.setInt(1, instructorId);
-            pstmt.setDate(2, Date.valueOf(fechaInicio));
-            pstmt.setDate(3, Date.valueOf(fechaFin));
-            
-            System.out.println("📊 Ejecutando consulta de cursos pendientes...");
-            
+    // Cursos del periodo (de los instructores indicados; null = todos) bloqueados hasta el commit
+    private void bloquearCursosPeriodo(Connection connection, LocalDate fechaInicio, LocalDate fechaFin,
+                                       Collection<Integer> instructores) throws SQLException {
+        String sql = BLOQUEAR_CURSOS_PERIODO + filtroInstructores("c.Instructor_Id", instructores) + "FOR UPDATE";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            asignarPeriodo(pstmt, fechaInicio, fechaFin, instructores);
             try (ResultSet rs = pstmt.executeQuery()) {
-                int count = 0;
                 while (rs.next()) {
-                    count++;
-                    PagoInstructor curso = new PagoInstructor();
-                    
-                    // Usar el campo observaciones para almacenar información del curso
-                    String nombreCurso = rs.getString("Nombre_curso");
-                    Date fechaImparticion = rs.getDate("Fecha_Imparticion");
-                    BigDecimal precio = rs.getBigDecimal("Precio");
-                    int horas = rs.getInt("Horas");
-                    
-                    // Configurar el pago con la información del curso
-                    curso.setInstructorId(instructorId);
-                    curso.setFechaPago(fechaImparticion != null ? fechaImparticion.toLocalDate() : null);
-                    curso.setMonto(precio);
-                    curso.setHorasImpartidas(horas);
-                    curso.setEstatus("pendiente");
-                    curso.setComprobante("");
-                    curso.setObservaciones("Curso pendiente de pago: " + nombreCurso + " (ID: " + rs.getInt("Id_Curso") + ")");
-                    
-                    cursosPendientes.add(curso);
-                    
-                    // Calcular totales
-                    if (curso.getMonto() != null) {
-                        totalPendiente = totalPendiente.add(curso.getMonto());
+                    // Solo interesa el bloqueo
+                }
+            }
+        }
+    }
+
+    private void bloquearCursos(Connection connection, List<Integer> cursosIds) throws SQLException {
+        String sql = "SELECT Id_Curso FROM cursos WHERE Id_Curso IN (" +
+                    String.join(", ", Collections.nCopies(cursosIds.size(), "?")) + ") FOR UPDATE";
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            for (Integer cursoId : cursosIds) {
+                pstmt.setInt(idx++, cursoId);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // Solo interesa el bloqueo
+                }
+            }
+        }
+    }
+
+    // "AND columna IN (?, ?) " para los instructores indicados; null = sin filtro
+    private static String filtroInstructores(String columna, Collection<Integer> instructores) {
+        if (instructores == null) {
+            return "";
+        }
+        return "AND " + columna + " IN (" + String.join(", ", Collections.nCopies(instructores.size(), "?")) + ") ";
+    }
+
+    // Parámetros 1 y 2: rango semiabierto de fechas; después los instructores del filtro
+    private static void asignarPeriodo(PreparedStatement pstmt, LocalDate fechaInicio, LocalDate fechaFin,
+                                       Collection<Integer> instructores) throws SQLException {
+        pstmt.setDate(1, Date.valueOf(fechaInicio));
+        pstmt.setDate(2, Date.valueOf(fechaFin.plusDays(1)));
+        if (instructores != null) {
+            int idx = 3;
+            for (Integer instructorId : instructores) {
+                pstmt.setInt(idx++, instructorId);
+            }
+        }
+    }
+
+    /**
+     * Agrupa por instructor las filas de SQL_PENDIENTES (ordenadas por instructor) sumando
+     * monto y horas conforme se leen. instructores null = todos los activos.
+     */
+    private Map<Integer, HonorariosInstructorDTO> leerPendientes(Connection connection,
+                                                                  LocalDate fechaInicio, LocalDate fechaFin,
+                                                                  Collection<Integer> instructores) throws SQLException {
+        Map<Integer, HonorariosInstructorDTO> porInstructor = new LinkedHashMap<>();
+        String sql = SQL_PENDIENTES + filtroInstructores("u.Num_Empleado", instructores) + ORDEN_PENDIENTES;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            asignarPeriodo(pstmt, fechaInicio, fechaFin, instructores);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("Num_Empleado");
+                    HonorariosInstructorDTO honorarios = porInstructor.get(id);
+                    if (honorarios == null) {
+                        String nombreCompleto = rs.getString("Nombre") + " " + rs.getString("Apellido_paterno") + " " +
+                                (rs.getString("Apellido_materno") != null ? rs.getString("Apellido_materno") : "");
+                        honorarios = new HonorariosInstructorDTO(id, nombreCompleto.trim(), rs.getString("Correo"));
+                        honorarios.setCursosPendientes(new ArrayList<>());
+                        honorarios.setTotalPendiente(BigDecimal.ZERO);
+                        porInstructor.put(id, honorarios);
+                    }
+
+                    int cursoId = rs.getInt("Id_Curso");
+                    if (rs.wasNull()) {
+                        continue;
                     }
-                    totalHoras += curso.getHorasImpartidas();
-                    
-                    System.out.println("📋 Curso pendiente " + count + ": " + nombreCurso + 
-                                     " - $" + precio + " - " + fechaImparticion +
-                                     " - Horas: " + horas);
+                    Date fechaImparticion = rs.getDate("Fecha_Imparticion");
+                    PagoInstructor curso = new PagoInstructor(id,
+                            fechaImparticion != null ? fechaImparticion.toLocalDate() : null,
+                            rs.getBigDecimal("Monto"), rs.getInt("Horas"), "pendiente", "",
+                            "Curso pendiente de pago: " + rs.getString("Nombre_curso") + " (ID: " + cursoId + ")");
+                    curso.setCursoId(cursoId);
+
+                    honorarios.getCursosPendientes().add(curso);
+                    honorarios.setTotalPendiente(honorarios.getTotalPendiente().add(curso.getMonto()));
+                    honorarios.setTotalHoras(honorarios.getTotalHoras() + curso.getHorasImpartidas());
                 }
-                System.out.println("✅ Total cursos pendientes encontrados: " + count);
             }
-            
-            honorarios.setCursosPendientes(cursosPendientes);
-            honorarios.setTotalPendiente(totalPendiente);
-            honorarios.setTotalHoras(totalHoras);
-            
-        } catch (SQLException e) {
-            System.out.println("❌ Error en consulta SQL: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Error al obtener cursos pendientes", e);
         }
-        
-        return honorarios;
+        return porInstructor;
+    }
+
+    // Instructores con al menos un curso pendiente
+    private static List<HonorariosInstructorDTO> conPendientes(Collection<HonorariosInstructorDTO> honorarios) {
+        List<HonorariosInstructorDTO> resultado = new ArrayList<>();
+        for (HonorariosInstructorDTO instructor : honorarios) {
+            if (!instructor.getCursosPendientes().isEmpty()) {
+                resultado.add(instructor);
+            }
+        }
+        return resultado;
     }
 
-    // Generar recibo de pago - CORREGIDO
+    private static Map<String, Object> armarNomina(LocalDate fechaInicio, LocalDate fechaFin,
+                                                   List<HonorariosInstructorDTO> instructores) {
+        BigDecimal total = BigDecimal.ZERO;
+        int cursos = 0;
+        int horas = 0;
+        for (HonorariosInstructorDTO instructor : instructores) {
+            total = total.add(instructor.getTotalPendiente());
+            cursos += instructor.getCursosPendientes().size();
+            horas += instructor.getTotalHoras();
+        }
+
+        Map<String, Object> totales = new LinkedHashMap<>();
+        totales.put("instructores", instructores.size());
+        totales.put("cursos", cursos);
+        totales.put("horas", horas);
+        totales.put("monto", total);
+
+        Map<String, Object> nomina = new LinkedHashMap<>();
+        nomina.put("fechaInicio", fechaInicio);
+        nomina.put("fechaFin", fechaFin);
+        nomina.put("instructores", instructores);
+        nomina.put("totales", totales);
+        return nomina;
+    }
+
+    // INSERT ... SELECT de los cursos indicados que sigan sin pago; instructorId null = cualquier instructor
+    private int insertarPagos(Connection connection, List<Integer> cursosIds, Integer instructorId) throws SQLException {
+        String sql = INSERTAR_PAGOS + "WHERE c.Id_Curso IN (" +
+                    String.join(", ", Collections.nCopies(cursosIds.size(), "?")) + ") " +
+                    (instructorId != null ? "AND c.Instructor_Id = ? " : "") +
+                    "AND " + CURSO_SIN_PAGO;
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            for (Integer cursoId : cursosIds) {
+                pstmt.setInt(idx++, cursoId);
+            }
+            if (instructorId != null) {
+                pstmt.setInt(idx, instructorId);
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
+    // Generar recibo de pago: registra los cursos indicados del instructor en una sola sentencia.
+    // Si alguno no es del instructor o ya estaba pagado no se registra ninguno.
     public boolean generarReciboPago(int instructorId, List<Integer> cursosIds, String periodoPago, 
                                    LocalDate fechaInicioPeriodo, LocalDate fechaFinPeriodo) {
-        Connection connection = null;
-        try {
-            connection = dataSource.getConnection();
+        if (cursosIds == null || cursosIds.isEmpty()) {
+            return false;
+        }
+        List<Integer> unicos = new ArrayList<>(new LinkedHashSet<>(cursosIds));
+        System.out.println("💰 Procesando pago para cursos: " + unicos);
+
+        try (Connection connection = dataSource.getConnection()) {
             connection.setAutoCommit(false);
-            
-            System.out.println("💰 Procesando pago para cursos: " + cursosIds);
-            
-            // Para cada curso, insertar un registro en pagos_instructores
-            String sqlInsert = "INSERT INTO pagos_instructores (Instructor_Id, Fecha_Pago, " +
-                              "Monto, Horas_Impartidas, Estatus, Comprobante, Observaciones) " +
-                              "SELECT c.Instructor_Id, c.Fecha_Imparticion, cc.Precio, cc.Horas, " +
-                              "'pagado', '', CONCAT('Pago procesado - Curso: ', c.Nombre_curso) " +
-                              "FROM cursos c " +
-                              "INNER JOIN catalogo_cursos cc ON c.Clave_STPS = cc.Clave_STPS " +
-                              "WHERE c.Id_Curso = ? AND c.Instructor_Id = ?";
-            
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlInsert)) {
-                for (Integer cursoId : cursosIds) {
-                    pstmt.setInt(1, cursoId);
-                    pstmt.setInt(2, instructorId);
-                    pstmt.addBatch();
-                    System.out.println("📝 Agregando curso ID " + cursoId + " al lote de pago");
-                }
-                
-                int[] resultados = pstmt.executeBatch();
-                int exitosos = 0;
-                
-                for (int resultado : resultados) {
-                    if (resultado == Statement.SUCCESS_NO_INFO || resultado > 0) {
-                        exitosos++;
-                    }
-                }
-                
-                System.out.println("✅ Pagos insertados exitosamente: " + exitosos + " de " + cursosIds.size());
-                
-                if (exitosos == cursosIds.size()) {
-                    connection.commit();
-                    return true;
-                } else {
+            try {
+                bloquearCursos(connection, unicos);
+                int insertados = insertarPagos(connection, unicos, instructorId);
+                System.out.println("✅ Pagos insertados: " + insertados + " de " + unicos.size());
+                if (insertados != unicos.size()) {
                     connection.rollback();
                     System.out.println("❌ No se pudieron insertar todos los pagos");
                     return false;
                 }
+                connection.commit();
+                statisticsService.pagosRegistrados("pagado", insertados);
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
-            
         } catch (SQLException e) {
-            if (connection != null) {
-                try {
-                    connection.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
             System.out.println("❌ Error al generar recibo: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Error al generar recibo de pago", e);
-        } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true);
-                    connection.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
         }
     }
 
     // Obtener todos los cursos para debugging - ADAPTADO
     public List<PagoInstructor> obtenerTodosLosCursos() {
-        List<PagoInstructor> cursos = new ArrayList<>();
-        String sql = "SELECT c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, " +
-                    "c.Instructor_Id, cc.Precio, cc.Horas " +
-                    "FROM cursos c " +
-                    "INNER JOIN usuarios u ON c.Instructor_Id = u.Num_Empleado " +
-                    "INNER JOIN catalogo_cursos cc ON c.Clave_STPS = cc.Clave_STPS " +
-                    "WHERE u.Id_Rol = 2 AND u.Activo = 1 " +
-                    "ORDER BY c.Fecha_Imparticion DESC";
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                PagoInstructor curso = new PagoInstructor();
-                
-                String nombreCurso = rs.getString("Nombre_curso");
-                Date fechaImparticion = rs.getDate("Fecha_Imparticion");
-                
-                curso.setInstructorId(rs.getInt("Instructor_Id"));
-                curso.setFechaPago(fechaImparticion != null ? fechaImparticion.toLocalDate() : null);
-                curso.setMonto(rs.getBigDecimal("Precio"));
-                curso.setHorasImpartidas(rs.getInt("Horas"));
-                curso.setEstatus("pendiente");
-                curso.setComprobante("");
-                curso.setObservaciones("Curso: " + nombreCurso + " (ID: " + rs.getInt("Id_Curso") + ")");
-                
-                cursos.add(curso);
-            }
+        try {
+            return consultas.listar(SQL_TODOS_LOS_CURSOS, Mapeadores.CURSO_POR_PAGAR);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al obtener todos los cursos", e);
         }
-        return cursos;
     }
 
     // Obtener todos los pagos existentes (para debugging)
     public List<PagoInstructor> obtenerTodosLosPagos() {
-        List<PagoInstructor> pagos = new ArrayList<>();
-        String sql = "SELECT pi.* FROM pagos_instructores pi " +
-                    "INNER JOIN usuarios u ON pi.Instructor_Id = u.Num_Empleado " +
-                    "WHERE u.Id_Rol = 2 AND u.Activo = 1 " +
-                    "ORDER BY pi.Fecha_Pago DESC";
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                PagoInstructor pago = new PagoInstructor();
-                pago.setId(rs.getInt("Id"));
-                pago.setInstructorId(rs.getInt("Instructor_Id"));
-                
-                Date fechaPago = rs.getDate("Fecha_Pago");
-                if (fechaPago != null) {
-                    pago.setFechaPago(fechaPago.toLocalDate());
-                }
-                
-                pago.setMonto(rs.getBigDecimal("Monto"));
-                pago.setHorasImpartidas(rs.getInt("Horas_Impartidas"));
-                pago.setEstatus(rs.getString("Estatus"));
-                pago.setComprobante(rs.getString("Comprobante"));
-                pago.setObservaciones(rs.getString("Observaciones"));
-                
-                pagos.add(pago);
-            }
+        try {
+            return consultas.listar(SQL_TODOS_LOS_PAGOS, Mapeadores.PAGO_INSTRUCTOR);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al obtener todos los pagos", e);
         }
-        return pagos;
     }
 
-    // Método auxiliar para buscar instructores
-    public List<Usuario> buscarInstructores(String criterio) {
-        List<Usuario> instructores = new ArrayList<>();
-        String sql = "SELECT Num_Empleado, Nombre, Apellido_paterno, Apellido_materno, Correo " +
-                    "FROM usuarios WHERE Id_Rol = 2 AND Activo = 1 " +
-                    "AND (Nombre LIKE ? OR Apellido_paterno LIKE ? OR Apellido_materno LIKE ? OR Correo LIKE ?) " +
-                    "ORDER BY Nombre, Apellido_paterno, Apellido_materno";
+    // Mismas consultas en flujo, para las respuestas JSON que no cargan la lista en memoria
+    public int recorrerTodosLosCursos(ProcesadorFila<PagoInstructor> procesador) throws IOException {
+        try {
+            return consultas.recorrerEnFlujo(SQL_TODOS_LOS_CURSOS, ParametrosConsulta.NINGUNO, Mapeadores.CURSO_POR_PAGAR, procesador);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al obtener todos los cursos", e);
+        }
+    }
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            String likeCriterio = "%" + criterio + "%";
-            pstmt.setString(1, likeCriterio);
-            pstmt.setString(2, likeCriterio);
-            pstmt.setString(3, likeCriterio);
-            pstmt.setString(4, likeCriterio);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Usuario instructor = new Usuario();
-                    instructor.setNumEmpleado(rs.getInt("Num_Empleado"));
-                    instructor.setNombre(rs.getString("Nombre"));
-                    instructor.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    instructor.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    instructor.setCorreo(rs.getString("Correo"));
-                    instructores.add(instructor);
-                }
-            }
+    public int recorrerTodosLosPagos(ProcesadorFila<PagoInstructor> procesador) throws IOException {
+        try {
+            return consultas.recorrerEnFlujo(SQL_TODOS_LOS_PAGOS, ParametrosConsulta.NINGUNO, Mapeadores.PAGO_INSTRUCTOR, procesador);
         } catch (SQLException e) {
             e.printStackTrace();
-            throw new RuntimeException("Error al buscar instructores", e);
+            throw new RuntimeException("Error al obtener todos los pagos", e);
         }
-        return instructores;
+    }
+
+    // Buscar instructores activos por nombre, apellidos o correo (autocompletado desde memoria)
+    public List<Usuario> buscarInstructores(String criterio, int maximo) {
+        return sugerenciasService.sugerirInstructores(criterio, maximo);
     }
 
     // Método para crear pago de prueba
@@ -363,6 +450,9 @@ public class HonorariosService {
             pstmt.setString(5, nombreCurso);
             
             int resultado = pstmt.executeUpdate();
+            if (resultado > 0) {
+                statisticsService.pagosRegistrados("pendiente", resultado);
+            }
             System.out.println("📝 Pago de prueba creado: " + (resultado > 0));
             return resultado > 0;
         } catch (SQLException e) {
@@ -374,10 +464,8 @@ public class HonorariosService {
 
     // NUEVO MÉTODO: Verificar si un curso ya ha sido pagado
     public boolean cursoYaPagado(int cursoId) {
-        String sql = "SELECT COUNT(*) as count FROM pagos_instructores pi " +
-                    "INNER JOIN cursos c ON pi.Instructor_Id = c.Instructor_Id " +
-                    "AND pi.Fecha_Pago = c.Fecha_Imparticion " +
-                    "WHERE c.Id_Curso = ? AND pi.Estatus IN ('pagado', 'pendiente')";
+        String sql = "SELECT COUNT(*) as count FROM pagos_instructores " +
+                    "WHERE Curso_Id = ? AND Estatus IN ('pagado', 'pendiente')";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
@@ -397,7 +485,6 @@ public class HonorariosService {
 
     // NUEVO MÉTODO: Obtener cursos por instructor para debugging
     public List<PagoInstructor> obtenerCursosPorInstructor(int instructorId) {
-        List<PagoInstructor> cursos = new ArrayList<>();
         String sql = "SELECT c.Id_Curso, c.Nombre_curso, c.Fecha_Imparticion, " +
                     "c.Instructor_Id, cc.Precio, cc.Horas " +
                     "FROM cursos c " +
@@ -406,32 +493,11 @@ public class HonorariosService {
                     "WHERE c.Instructor_Id = ? AND u.Id_Rol = 2 AND u.Activo = 1 " +
                     "ORDER BY c.Fecha_Imparticion DESC";
 
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, instructorId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    PagoInstructor curso = new PagoInstructor();
-                    
-                    String nombreCurso = rs.getString("Nombre_curso");
-                    Date fechaImparticion = rs.getDate("Fecha_Imparticion");
-                    
-                    curso.setInstructorId(rs.getInt("Instructor_Id"));
-                    curso.setFechaPago(fechaImparticion != null ? fechaImparticion.toLocalDate() : null);
-                    curso.setMonto(rs.getBigDecimal("Precio"));
-                    curso.setHorasImpartidas(rs.getInt("Horas"));
-                    curso.setEstatus("pendiente");
-                    curso.setComprobante("");
-                    curso.setObservaciones("Curso: " + nombreCurso + " (ID: " + rs.getInt("Id_Curso") + ")");
-                    
-                    cursos.add(curso);
-                }
-            }
+        try {
+            return consultas.listar(sql, pstmt -> pstmt.setInt(1, instructorId), Mapeadores.CURSO_POR_PAGAR);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al obtener cursos por instructor", e);
         }
-        return cursos;
     }
 }
\ No newline at end of file
@@ -0,0 +1,535 @@
+package com.beyco.app.services;
+
+import com.beyco.app.busqueda.IndiceNgramas;
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.importacion.FormatoImportacion;
+import com.beyco.app.importacion.LectorTabla;
+import com.beyco.app.models.Alumno;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Importación de listas de alumnos (CSV o XLSX) que envían las empresas.
+ *
+ * El archivo subido se guarda en uploads/.importaciones y se procesa en segundo plano por
+ * bloques de 500 filas, así que nunca está completo en memoria: se validan las filas (CURP,
+ * RFC y campos obligatorios), una sola consulta por bloque encuentra los alumnos que ya existen
+ * con esas CURP o RFC, y los nuevos o cambiados se guardan con un INSERT ... ON DUPLICATE KEY
+ * UPDATE de varias filas. Si se indica un curso, los alumnos válidos de cada bloque se inscriben
+ * con InscripcionService.inscribirAlumnos.
+ *
+ * El avance se consulta con el ID de la importación. Las importaciones viven en memoria y se
+ * olvidan 24 horas después de terminar.
+ */
+@Service
+public class ImportacionAlumnosService {
+
+    public static final String EN_ESPERA = "en_espera";
+    public static final String EN_PROCESO = "en_proceso";
+    public static final String TERMINADA = "terminada";
+    public static final String FALLIDA = "fallida";
+
+    private static final int FILAS_POR_BLOQUE = 500;
+    private static final int MAXIMO_ERRORES_REPORTADOS = 200;
+    private static final Duration EXPIRACION = Duration.ofHours(24);
+
+    // Formato de CURP y RFC de persona física (la homoclave del RFC es opcional)
+    private static final Pattern CURP = Pattern.compile("[A-Z]{4}\\d{6}[HMX][A-Z]{5}[A-Z0-9]\\d");
+    private static final Pattern RFC = Pattern.compile("[A-ZÑ&]{3,4}\\d{6}([A-Z0-9]{3})?");
+
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = List.of(
+            DateTimeFormatter.ofPattern("uuuu-MM-dd").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("d/M/uuuu").withResolverStyle(ResolverStyle.STRICT),
+            DateTimeFormatter.ofPattern("d-M-uuuu").withResolverStyle(ResolverStyle.STRICT));
+    // Día 0 de los números de serie de fecha de Excel
+    private static final LocalDate ORIGEN_EXCEL = LocalDate.of(1899, 12, 30);
+
+    // Encabezado normalizado (sin acentos, espacios ni "de") -> campo del alumno
+    private static final Map<String, String> COLUMNAS = Map.ofEntries(
+            Map.entry("curp", "curp"),
+            Map.entry("nombre", "nombre"),
+            Map.entry("nombres", "nombre"),
+            Map.entry("apellidopaterno", "apellidoPaterno"),
+            Map.entry("primerapellido", "apellidoPaterno"),
+            Map.entry("paterno", "apellidoPaterno"),
+            Map.entry("apellidomaterno", "apellidoMaterno"),
+            Map.entry("segundoapellido", "apellidoMaterno"),
+            Map.entry("materno", "apellidoMaterno"),
+            Map.entry("fechanacimiento", "fechaNacimiento"),
+            Map.entry("puesto", "puesto"),
+            Map.entry("estadonacimiento", "estadoNacimiento"),
+            Map.entry("entidadnacimiento", "estadoNacimiento"),
+            Map.entry("rfc", "rfc"));
+    private static final List<String> COLUMNAS_OBLIGATORIAS = List.of("curp", "nombre", "apellidoPaterno", "rfc");
+
+    private final ConsultasJdbc consultas;
+    private final DataSource dataSource;
+    private final AlumnoService alumnoService;
+    private final InscripcionService inscripcionService;
+    private final Path directorio = Paths.get("uploads").resolve(".importaciones");
+    private final Map<String, Importacion> importaciones = new ConcurrentHashMap<>();
+    // Una importación a la vez; las demás esperan en cola
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "importacion-alumnos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public ImportacionAlumnosService(ConsultasJdbc consultas, DataSource dataSource, AlumnoService alumnoService,
+                                     InscripcionService inscripcionService) {
+        this.consultas = consultas;
+        this.dataSource = dataSource;
+        this.alumnoService = alumnoService;
+        this.inscripcionService = inscripcionService;
+    }
+
+    private record FilaImportada(int numero, Alumno alumno) { }
+
+    private static class Importacion {
+        final String id;
+        final String archivo;
+        final Integer cursoId;
+        final Instant inicio = Instant.now();
+        final AtomicInteger filas = new AtomicInteger();
+        final AtomicInteger creados = new AtomicInteger();
+        final AtomicInteger actualizados = new AtomicInteger();
+        final AtomicInteger sinCambios = new AtomicInteger();
+        final AtomicInteger conErrores = new AtomicInteger();
+        final AtomicInteger inscritos = new AtomicInteger();
+        final AtomicInteger yaInscritos = new AtomicInteger();
+        final List<Map<String, Object>> errores = Collections.synchronizedList(new ArrayList<>());
+        volatile String estado = EN_ESPERA;
+        volatile double avance;
+        volatile String mensaje;
+        volatile Instant fin;
+
+        Importacion(String id, String archivo, Integer cursoId) {
+            this.id = id;
+            this.archivo = archivo;
+            this.cursoId = cursoId;
+        }
+
+        void error(int fila, String mensaje) {
+            conErrores.incrementAndGet();
+            if (errores.size() < MAXIMO_ERRORES_REPORTADOS) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("fila", fila);
+                error.put("error", mensaje);
+                errores.add(error);
+            }
+        }
+
+        Map<String, Object> resumen() {
+            Map<String, Object> resumen = new LinkedHashMap<>();
+            resumen.put("importacionId", id);
+            resumen.put("archivo", archivo);
+            resumen.put("cursoId", cursoId);
+            resumen.put("estado", estado);
+            resumen.put("avance", Math.round(avance * 1000) / 10.0);
+            resumen.put("filas", filas.get());
+            resumen.put("creados", creados.get());
+            resumen.put("actualizados", actualizados.get());
+            resumen.put("sinCambios", sinCambios.get());
+            resumen.put("conErrores", conErrores.get());
+            if (cursoId != null) {
+                resumen.put("inscritos", inscritos.get());
+                resumen.put("yaInscritos", yaInscritos.get());
+            }
+            synchronized (errores) {
+                resumen.put("errores", new ArrayList<>(errores));
+            }
+            resumen.put("mensaje", mensaje);
+            resumen.put("inicio", inicio.toString());
+            resumen.put("fin", fin != null ? fin.toString() : null);
+            return resumen;
+        }
+    }
+
+    // ========== INICIO Y CONSULTA ==========
+
+    /**
+     * Guarda el archivo y encola su importación; devuelve el ID para consultar el avance.
+     * Formato no soportado o curso inexistente: IllegalArgumentException.
+     */
+    public String iniciar(MultipartFile archivo, Integer cursoId) throws IOException {
+        if (archivo == null || archivo.isEmpty()) {
+            throw new IllegalArgumentException("No se recibió ningún archivo");
+        }
+        FormatoImportacion formato = FormatoImportacion.desdeNombre(archivo.getOriginalFilename());
+        if (cursoId != null && !inscripcionService.existeCurso(cursoId)) {
+            throw new IllegalArgumentException("No existe el curso " + cursoId);
+        }
+
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(directorio);
+        Path destino = directorio.resolve(id + "." + formato.getExtension());
+        // Copia en flujo: el archivo no se carga en memoria
+        try (InputStream entrada = archivo.getInputStream()) {
+            Files.copy(entrada, destino);
+        }
+
+        Importacion importacion = new Importacion(id, archivo.getOriginalFilename(), cursoId);
+        importaciones.put(id, importacion);
+        ejecutor.submit(() -> procesar(importacion, destino, formato));
+        System.out.println("📥 Importación de alumnos " + id + " encolada: " + archivo.getOriginalFilename());
+        return id;
+    }
+
+    /**
+     * Avance y resultados de una importación, o null si no existe (o ya expiró)
+     */
+    public Map<String, Object> consultar(String id) {
+        Importacion importacion = importaciones.get(id);
+        return importacion != null ? importacion.resumen() : null;
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void limpiarImportacionesTerminadas() {
+        Instant limite = Instant.now().minus(EXPIRACION);
+        Iterator<Importacion> it = importaciones.values().iterator();
+        while (it.hasNext()) {
+            Importacion importacion = it.next();
+            if (importacion.fin != null && importacion.fin.isBefore(limite)) {
+                it.remove();
+            }
+        }
+    }
+
+    // ========== PROCESO ==========
+
+    private void procesar(Importacion importacion, Path archivo, FormatoImportacion formato) {
+        importacion.estado = EN_PROCESO;
+        try (LectorTabla lector = formato.abrir(archivo)) {
+            Map<String, Integer> columnas = mapearEncabezados(lector.siguienteFila());
+
+            // CURP y RFC ya vistos en el archivo, para detectar repetidos entre bloques
+            Set<String> curpsVistas = new HashSet<>();
+            Map<String, String> rfcsVistos = new HashMap<>();
+            List<FilaImportada> bloque = new ArrayList<>(FILAS_POR_BLOQUE);
+            List<String> fila;
+            while ((fila = lector.siguienteFila()) != null) {
+                int numero = lector.numeroFila();
+                if (fila.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                importacion.filas.incrementAndGet();
+                try {
+                    Alumno alumno = convertir(fila, columnas);
+                    if (!curpsVistas.add(alumno.getCurp())) {
+                        throw new IllegalArgumentException("CURP repetida en el archivo: " + alumno.getCurp());
+                    }
+                    String otraCurp = rfcsVistos.putIfAbsent(alumno.getRfc(), alumno.getCurp());
+                    if (otraCurp != null) {
+                        throw new IllegalArgumentException("RFC " + alumno.getRfc() + " repetido en el archivo (CURP " + otraCurp + ")");
+                    }
+                    bloque.add(new FilaImportada(numero, alumno));
+                } catch (IllegalArgumentException e) {
+                    importacion.error(numero, e.getMessage());
+                }
+
+                if (bloque.size() >= FILAS_POR_BLOQUE) {
+                    procesarBloque(importacion, bloque);
+                    bloque.clear();
+                }
+                importacion.avance = lector.avance();
+            }
+            if (!bloque.isEmpty()) {
+                procesarBloque(importacion, bloque);
+            }
+
+            importacion.avance = 1.0;
+            importacion.estado = TERMINADA;
+            System.out.println("✅ Importación " + importacion.id + " terminada: " + importacion.creados.get() +
+                              " creados, " + importacion.actualizados.get() + " actualizados, " +
+                              importacion.conErrores.get() + " con errores");
+        } catch (Exception e) {
+            importacion.estado = FALLIDA;
+            importacion.mensaje = e.getMessage();
+            System.err.println("❌ Importación " + importacion.id + " fallida: " + e.getMessage());
+        } finally {
+            importacion.fin = Instant.now();
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException e) {
+                System.err.println("❌ No se pudo eliminar el archivo de la importación " + importacion.id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, Integer> mapearEncabezados(List<String> encabezados) {
+        if (encabezados == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < encabezados.size(); i++) {
+            String clave = IndiceNgramas.normalizar(encabezados.get(i)).replace(" de ", " ").replace(" ", "");
+            String campo = COLUMNAS.get(clave);
+            if (campo != null) {
+                columnas.putIfAbsent(campo, i);
+            }
+        }
+        List<String> faltantes = COLUMNAS_OBLIGATORIAS.stream().filter(c -> !columnas.containsKey(c)).toList();
+        if (!faltantes.isEmpty()) {
+            throw new IllegalArgumentException("Faltan columnas en el archivo: " + String.join(", ", faltantes));
+        }
+        return columnas;
+    }
+
+    private static Alumno convertir(List<String> fila, Map<String, Integer> columnas) {
+        Alumno alumno = new Alumno();
+        alumno.setCurp(celda(fila, columnas, "curp").toUpperCase());
+        alumno.setRfc(celda(fila, columnas, "rfc").toUpperCase());
+        alumno.setNombre(texto(fila, columnas, "nombre", 45, true));
+        alumno.setApellidoPaterno(texto(fila, columnas, "apellidoPaterno", 25, true));
+        alumno.setApellidoMaterno(texto(fila, columnas, "apellidoMaterno", 25, false));
+        alumno.setPuesto(texto(fila, columnas, "puesto", 100, false));
+        alumno.setEstadoNacimiento(texto(fila, columnas, "estadoNacimiento", 50, false));
+        alumno.setActivo(true);
+
+        if (!CURP.matcher(alumno.getCurp()).matches()) {
+            throw new IllegalArgumentException("CURP no válida: '" + alumno.getCurp() + "'");
+        }
+        if (!RFC.matcher(alumno.getRfc()).matches()) {
+            throw new IllegalArgumentException("RFC no válido: '" + alumno.getRfc() + "'");
+        }
+        // Sin fecha en el archivo queda null: un alumno nuevo la toma de la CURP y uno existente conserva la suya
+        String fecha = celda(fila, columnas, "fechaNacimiento");
+        alumno.setFechaNacimiento(fecha.isEmpty() ? null : fecha(fecha));
+        return alumno;
+    }
+
+    private static String celda(List<String> fila, Map<String, Integer> columnas, String campo) {
+        Integer indice = columnas.get(campo);
+        return indice != null && indice < fila.size() ? fila.get(indice).trim() : "";
+    }
+
+    private static String texto(List<String> fila, Map<String, Integer> columnas, String campo, int largoMaximo,
+                                boolean obligatorio) {
+        String valor = celda(fila, columnas, campo);
+        if (obligatorio && valor.isEmpty()) {
+            throw new IllegalArgumentException("Falta " + campo);
+        }
+        if (valor.length() > largoMaximo) {
+            throw new IllegalArgumentException(campo + " excede " + largoMaximo + " caracteres");
+        }
+        return valor;
+    }
+
+    // Acepta 2024-01-31, 31/01/2024, 31-01-2024 o el número de serie de una fecha de Excel;
+    // si el serial trae hora (32874.5) se toma solo la parte entera, que es el día
+    private static LocalDate fecha(String valor) {
+        if (valor.matches("\\d{1,5}(\\.\\d+)?")) {
+            return ORIGEN_EXCEL.plusDays(Long.parseLong(valor.replaceAll("\\..*", "")));
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(valor, formato);
+            } catch (DateTimeParseException e) {
+                // Probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha de nacimiento no válida: '" + valor + "'");
+    }
+
+    // Posiciones 5-10 de la CURP: AAMMDD; el carácter 17 es dígito antes de 2000 y letra desde 2000
+    private static LocalDate fechaDeCurp(String curp) {
+        int siglo = Character.isDigit(curp.charAt(16)) ? 1900 : 2000;
+        try {
+            return LocalDate.of(siglo + Integer.parseInt(curp.substring(4, 6)),
+                    Integer.parseInt(curp.substring(6, 8)), Integer.parseInt(curp.substring(8, 10)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("CURP con fecha no válida: '" + curp + "'");
+        }
+    }
+
+    // ========== BLOQUES ==========
+
+    private void procesarBloque(Importacion importacion, List<FilaImportada> bloque) {
+        Map<String, Alumno> porCurp = new HashMap<>();
+        Map<String, String> curpPorRfc = new HashMap<>();
+        for (Alumno existente : buscarExistentes(bloque)) {
+            porCurp.put(existente.getCurp().toUpperCase(), existente);
+            curpPorRfc.put(existente.getRfc().toUpperCase(), existente.getCurp().toUpperCase());
+        }
+
+        List<FilaImportada> aGuardar = new ArrayList<>();
+        List<String> validas = new ArrayList<>();
+        int nuevos = 0;
+        for (FilaImportada fila : bloque) {
+            Alumno alumno = fila.alumno();
+            String duenoRfc = curpPorRfc.get(alumno.getRfc());
+            if (duenoRfc != null && !duenoRfc.equals(alumno.getCurp())) {
+                importacion.error(fila.numero(), "El RFC " + alumno.getRfc() + " ya está registrado con la CURP " + duenoRfc);
+                continue;
+            }
+            Alumno actual = porCurp.get(alumno.getCurp());
+            if (actual == null) {
+                if (alumno.getFechaNacimiento() == null) {
+                    try {
+                        alumno.setFechaNacimiento(fechaDeCurp(alumno.getCurp()));
+                    } catch (IllegalArgumentException e) {
+                        importacion.error(fila.numero(), e.getMessage());
+                        continue;
+                    }
+                }
+                aGuardar.add(fila);
+                nuevos++;
+            } else {
+                completarConExistente(alumno, actual);
+                if (sinCambios(actual, alumno)) {
+                    importacion.sinCambios.incrementAndGet();
+                } else {
+                    aGuardar.add(fila);
+                }
+            }
+            validas.add(alumno.getCurp());
+        }
+
+        if (!aGuardar.isEmpty()) {
+            try {
+                guardar(aGuardar);
+                importacion.creados.addAndGet(nuevos);
+                importacion.actualizados.addAndGet(aGuardar.size() - nuevos);
+                alumnoService.alumnosGuardados(aGuardar.stream().map(FilaImportada::alumno).toList());
+            } catch (RuntimeException e) {
+                for (FilaImportada fila : aGuardar) {
+                    importacion.error(fila.numero(), "No se pudo guardar: " + e.getMessage());
+                    validas.remove(fila.alumno().getCurp());
+                }
+            }
+        }
+
+        if (importacion.cursoId != null && !validas.isEmpty()) {
+            for (InscripcionService.ResultadoInscripcion resultado : inscripcionService.inscribirAlumnos(importacion.cursoId, validas)) {
+                if (InscripcionService.INSCRITO.equals(resultado.resultado())) {
+                    importacion.inscritos.incrementAndGet();
+                } else if (InscripcionService.YA_INSCRITO.equals(resultado.resultado())) {
+                    importacion.yaInscritos.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Una consulta por bloque: alumnos con alguna de las CURP o alguno de los RFC (llave primaria e índice único)
+    private List<Alumno> buscarExistentes(List<FilaImportada> bloque) {
+        String placeholders = String.join(", ", Collections.nCopies(bloque.size(), "?"));
+        String sql = "SELECT Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
+                    "Puesto, Estado_Nacimiento, RFC, Activo FROM alumnos " +
+                    "WHERE Curp IN (" + placeholders + ") OR RFC IN (" + placeholders + ")";
+        try {
+            return consultas.listar(sql, pstmt -> {
+                int idx = 1;
+                for (FilaImportada fila : bloque) {
+                    pstmt.setString(idx++, fila.alumno().getCurp());
+                }
+                for (FilaImportada fila : bloque) {
+                    pstmt.setString(idx++, fila.alumno().getRfc());
+                }
+            }, Mapeadores.ALUMNO);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al buscar alumnos existentes: " + e.getMessage());
+        }
+    }
+
+    // Los campos opcionales que el archivo no trae (columna ausente o celda vacía) conservan el valor
+    // guardado, así que sinCambios solo compara lo que vino en el archivo
+    private static void completarConExistente(Alumno nuevo, Alumno actual) {
+        if (nuevo.getApellidoMaterno().isEmpty()) {
+            nuevo.setApellidoMaterno(actual.getApellidoMaterno());
+        }
+        if (nuevo.getPuesto().isEmpty()) {
+            nuevo.setPuesto(actual.getPuesto());
+        }
+        if (nuevo.getEstadoNacimiento().isEmpty()) {
+            nuevo.setEstadoNacimiento(actual.getEstadoNacimiento());
+        }
+        if (nuevo.getFechaNacimiento() == null) {
+            nuevo.setFechaNacimiento(actual.getFechaNacimiento());
+        }
+    }
+
+    private static boolean sinCambios(Alumno actual, Alumno nuevo) {
+        return actual.isActivo()
+                && Objects.equals(actual.getNombre(), nuevo.getNombre())
+                && Objects.equals(actual.getApellidoPaterno(), nuevo.getApellidoPaterno())
+                && Objects.equals(actual.getApellidoMaterno(), nuevo.getApellidoMaterno())
+                && Objects.equals(actual.getFechaNacimiento(), nuevo.getFechaNacimiento())
+                && Objects.equals(actual.getPuesto(), nuevo.getPuesto())
+                && Objects.equals(actual.getEstadoNacimiento(), nuevo.getEstadoNacimiento())
+                && actual.getRfc().equalsIgnoreCase(nuevo.getRfc());
+    }
+
+    // Un INSERT de varias filas: las CURP existentes se actualizan y se reactivan. Los opcionales vacíos
+    // ya se completaron con lo guardado; el COALESCE protege los textos de un alumno creado entre la lectura y la escritura
+    private void guardar(List<FilaImportada> filas) {
+        String sql = "INSERT INTO alumnos (Curp, Nombre, Apellido_paterno, Apellido_materno, Fecha_Nacimiento, " +
+                    "Puesto, Estado_Nacimiento, RFC, Activo) VALUES " +
+                    String.join(", ", Collections.nCopies(filas.size(), "(?, ?, ?, ?, ?, ?, ?, ?, 1)")) +
+                    " AS nuevo ON DUPLICATE KEY UPDATE Nombre = nuevo.Nombre, " +
+                    "Apellido_paterno = nuevo.Apellido_paterno, " +
+                    "Apellido_materno = COALESCE(NULLIF(nuevo.Apellido_materno, ''), alumnos.Apellido_materno), " +
+                    "Fecha_Nacimiento = nuevo.Fecha_Nacimiento, " +
+                    "Puesto = COALESCE(NULLIF(nuevo.Puesto, ''), alumnos.Puesto), " +
+                    "Estado_Nacimiento = COALESCE(NULLIF(nuevo.Estado_Nacimiento, ''), alumnos.Estado_Nacimiento), " +
+                    "RFC = nuevo.RFC, Activo = 1";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            for (FilaImportada fila : filas) {
+                Alumno alumno = fila.alumno();
+                pstmt.setString(idx++, alumno.getCurp());
+                pstmt.setString(idx++, alumno.getNombre());
+                pstmt.setString(idx++, alumno.getApellidoPaterno());
+                pstmt.setString(idx++, alumno.getApellidoMaterno());
+                pstmt.setDate(idx++, Date.valueOf(alumno.getFechaNacimiento()));
+                pstmt.setString(idx++, alumno.getPuesto());
+                pstmt.setString(idx++, alumno.getEstadoNacimiento());
+                pstmt.setString(idx++, alumno.getRfc());
+            }
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("❌ Error SQL al guardar alumnos importados: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Error al guardar alumnos: " + e.getMessage());
+        }
+    }
+}
@@ -4,15 +4,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class InscripcionService {
 
+    // Resultados por CURP de la inscripción masiva
+    public static final String INSCRITO = "inscrito";
+    public static final String YA_INSCRITO = "ya_inscrito";
+    public static final String NO_ENCONTRADO = "no_encontrado";
+    public static final String REPETIDO = "repetido";
+    public static final String INVALIDO = "invalido";
+
+    public static final int MAXIMO_CURPS_POR_SOLICITUD = 1000;
+    private static final int FILAS_POR_INSERT = 500;
+
+    public record ResultadoInscripcion(String curp, String resultado) { }
+
     private final DataSource dataSource;
+    private final CalificacionService calificacionService;
 
     @Autowired
-    public InscripcionService(DataSource dataSource) {
+    public InscripcionService(DataSource dataSource, CalificacionService calificacionService) {
         this.dataSource = dataSource;
+        this.calificacionService = calificacionService;
     }
 
     /**
@@ -27,13 +49,160 @@ public class InscripcionService {
             pstmt.setString(1, alumnoCurp);
             pstmt.setInt(2, cursoId);
             
-            return pstmt.executeUpdate() > 0;
+            boolean inscrito = pstmt.executeUpdate() > 0;
+            calificacionService.invalidarHoja(cursoId);
+            return inscrito;
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al inscribir alumno: " + e.getMessage());
         }
     }
 
+    /**
+     * Inscribe varios alumnos a un curso en una sola transacción y devuelve el resultado de cada
+     * CURP en el orden recibido. Una consulta clasifica todas las CURP (no existe o inactivo,
+     * ya inscrito, pendiente) y bloquea esas filas; los pendientes se insertan con INSERT IGNORE
+     * de varias filas por sentencia. Si el curso no existe lanza IllegalArgumentException.
+     */
+    public List<ResultadoInscripcion> inscribirAlumnos(int cursoId, List<String> curps) {
+        if (curps == null || curps.isEmpty()) {
+            throw new IllegalArgumentException("La lista de CURP está vacía");
+        }
+        if (curps.size() > MAXIMO_CURPS_POR_SOLICITUD) {
+            throw new IllegalArgumentException("Se permiten como máximo " + MAXIMO_CURPS_POR_SOLICITUD + " CURP por solicitud");
+        }
+
+        // CURP normalizadas y sin repetir, en el orden recibido
+        Set<String> unicas = new LinkedHashSet<>();
+        for (String curp : curps) {
+            if (curp != null && !curp.isBlank()) {
+                unicas.add(curp.trim().toUpperCase());
+            }
+        }
+
+        Map<String, String> estados = new HashMap<>();
+        if (!unicas.isEmpty()) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    if (!existeCurso(connection, cursoId)) {
+                        throw new IllegalArgumentException("No existe el curso " + cursoId);
+                    }
+                    List<String> pendientes = clasificar(connection, cursoId, unicas, estados);
+                    int insertadas = insertarInscripciones(connection, cursoId, pendientes);
+                    connection.commit();
+                    calificacionService.invalidarHoja(cursoId);
+                    System.out.println("✅ Inscripción masiva al curso " + cursoId + ": " + insertadas +
+                                      " inscritos de " + curps.size() + " CURP recibidas");
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Error SQL en inscripción masiva: " + e.getMessage());
+                e.printStackTrace();
+                throw new RuntimeException("Error al inscribir alumnos: " + e.getMessage());
+            }
+        }
+
+        List<ResultadoInscripcion> resultados = new ArrayList<>(curps.size());
+        Set<String> vistas = new HashSet<>();
+        for (String curp : curps) {
+            if (curp == null || curp.isBlank()) {
+                resultados.add(new ResultadoInscripcion(curp, INVALIDO));
+                continue;
+            }
+            String normalizada = curp.trim().toUpperCase();
+            String resultado = vistas.add(normalizada) ? estados.get(normalizada) : REPETIDO;
+            resultados.add(new ResultadoInscripcion(normalizada, resultado));
+        }
+        return resultados;
+    }
+
+    /**
+     * Verifica si existe el curso
+     */
+    public boolean existeCurso(int cursoId) {
+        try (Connection connection = dataSource.getConnection()) {
+            return existeCurso(connection, cursoId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al verificar curso: " + e.getMessage());
+        }
+    }
+
+    private boolean existeCurso(Connection connection, int cursoId) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement("SELECT 1 FROM cursos WHERE Id_Curso = ?")) {
+            pstmt.setInt(1, cursoId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Anota en estados las CURP que no existen (o están inactivas) y las ya inscritas, y devuelve
+     * las pendientes de inscribir. FOR UPDATE bloquea los alumnos y el hueco de la inscripción,
+     * así que otra inscripción simultánea espera a que termine esta transacción.
+     */
+    private List<String> clasificar(Connection connection, int cursoId, Set<String> curps,
+                                    Map<String, String> estados) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(curps.size(), "?"));
+        String sql = "SELECT a.Curp, ac.cursos_Id_Curso IS NOT NULL AS inscrito " +
+                    "FROM alumnos a " +
+                    "LEFT JOIN alumnos_has_cursos ac ON ac.alumnos_Curp = a.Curp AND ac.cursos_Id_Curso = ? " +
+                    "WHERE a.Curp IN (" + placeholders + ") AND a.Activo = 1 " +
+                    "FOR UPDATE";
+
+        for (String curp : curps) {
+            estados.put(curp, NO_ENCONTRADO);
+        }
+        List<String> pendientes = new ArrayList<>();
+        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            int idx = 1;
+            pstmt.setInt(idx++, cursoId);
+            for (String curp : curps) {
+                pstmt.setString(idx++, curp);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    // Curp se devuelve como está guardada; la comparación de MySQL no distingue mayúsculas
+                    String curp = rs.getString("Curp").toUpperCase();
+                    if (rs.getBoolean("inscrito")) {
+                        estados.put(curp, YA_INSCRITO);
+                    } else {
+                        estados.put(curp, INSCRITO);
+                        pendientes.add(rs.getString("Curp"));
+                    }
+                }
+            }
+        }
+        return pendientes;
+    }
+
+    // INSERT IGNORE de varias filas por sentencia (FILAS_POR_INSERT como máximo)
+    private int insertarInscripciones(Connection connection, int cursoId, List<String> curps) throws SQLException {
+        int insertadas = 0;
+        for (int desde = 0; desde < curps.size(); desde += FILAS_POR_INSERT) {
+            List<String> bloque = curps.subList(desde, Math.min(desde + FILAS_POR_INSERT, curps.size()));
+            String sql = "INSERT IGNORE INTO alumnos_has_cursos (alumnos_Curp, cursos_Id_Curso) VALUES " +
+                        String.join(", ", Collections.nCopies(bloque.size(), "(?, ?)"));
+            try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                int idx = 1;
+                for (String curp : bloque) {
+                    pstmt.setString(idx++, curp);
+                    pstmt.setInt(idx++, cursoId);
+                }
+                insertadas += pstmt.executeUpdate();
+            }
+        }
+        if (insertadas != curps.size()) {
+            // No debería ocurrir con las filas bloqueadas; se reporta por si acaso
+            System.out.println("⚠️ Inscripción masiva: se esperaban " + curps.size() + " inserciones y hubo " + insertadas);
+        }
+        return insertadas;
+    }
+
     /**
      * Verifica si un alumno ya está inscrito en un curso
      */
@@ -94,6 +263,7 @@ public class InscripcionService {
             
             int filasAfectadas = pstmt.executeUpdate();
             System.out.println("✅ Filas afectadas: " + filasAfectadas);
+            calificacionService.invalidarHoja(cursoId);
             
             return filasAfectadas > 0;
         } catch (SQLException e) {
@@ -118,6 +288,8 @@ public class InscripcionService {
             
             int filasAfectadas = pstmt.executeUpdate();
             System.out.println("✅ Inscripciones eliminadas: " + filasAfectadas);
+            // No se sabe en qué cursos estaba: se descartan todas las hojas en caché
+            calificacionService.invalidarHojas();
             
             return filasAfectadas >= 0; // Puede ser 0 si no tenía inscripciones
         } catch (SQLException e) {
@@ -1,6 +1,7 @@
 package com.beyco.app.services;
 
 import com.beyco.app.models.Instructor;
+import com.beyco.app.models.Usuario;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
@@ -12,10 +13,12 @@ import java.util.List;
 public class InstructorService {
 
     private final DataSource dataSource;
+    private final SugerenciasService sugerenciasService;
 
     @Autowired
-    public InstructorService(DataSource dataSource) {
+    public InstructorService(DataSource dataSource, SugerenciasService sugerenciasService) {
         this.dataSource = dataSource;
+        this.sugerenciasService = sugerenciasService;
     }
 
     /**
@@ -84,33 +87,17 @@ public class InstructorService {
     }
 
     /**
-     * Obtiene instructores por nombre (búsqueda parcial)
+     * Obtiene instructores activos por nombre o apellidos (búsqueda parcial, desde memoria)
      */
     public List<Instructor> buscarInstructoresPorNombre(String nombre) {
         List<Instructor> instructores = new ArrayList<>();
-        String sql = "SELECT Num_Empleado, Nombre, Apellido_paterno, Apellido_materno FROM usuarios WHERE Nombre LIKE ? OR Apellido_paterno LIKE ? OR Apellido_materno LIKE ?";
-        
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            String searchTerm = "%" + nombre + "%";
-            pstmt.setString(1, searchTerm);
-            pstmt.setString(2, searchTerm);
-            pstmt.setString(3, searchTerm);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Instructor instructor = new Instructor();
-                    instructor.setNumEmpleado(rs.getInt("Num_Empleado"));
-                    instructor.setNombre(rs.getString("Nombre"));
-                    instructor.setApellidoPaterno(rs.getString("Apellido_paterno"));
-                    instructor.setApellidoMaterno(rs.getString("Apellido_materno"));
-                    instructores.add(instructor);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Error al buscar instructores por nombre: " + e.getMessage());
+        for (Usuario usuario : sugerenciasService.sugerirInstructores(nombre, SugerenciasService.MAXIMO_SUGERENCIAS)) {
+            Instructor instructor = new Instructor();
+            instructor.setNumEmpleado(usuario.getNumEmpleado());
+            instructor.setNombre(usuario.getNombre());
+            instructor.setApellidoPaterno(usuario.getApellidoPaterno());
+            instructor.setApellidoMaterno(usuario.getApellidoMaterno());
+            instructores.add(instructor);
         }
         return instructores;
     }
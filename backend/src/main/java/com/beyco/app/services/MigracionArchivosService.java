@@ -0,0 +1,239 @@
+package com.beyco.app.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Migración en línea de los archivos del esquema plano (uploads/<uuid>.ext, uploads/logos/...)
+ * al almacén con directorios de dos niveles (uploads/blobs/aa/bb/...).
+ *
+ * Trabaja por lotes en un hilo propio mientras la aplicación sigue atendiendo. Para cada fila:
+ * copia el archivo al almacén, actualiza la ruta en BD solo si nadie la cambió mientras tanto
+ * y al final borra el archivo viejo cuando ya ninguna fila lo usa. Mientras dura la migración
+ * ambas rutas son válidas, porque las dos se resuelven contra uploads.
+ */
+@Service
+public class MigracionArchivosService {
+
+    private static final int TAMANO_LOTE_POR_DEFECTO = 200;
+    private static final long PAUSA_ENTRE_LOTES_MS = 200;
+
+    private final DataSource dataSource;
+    private final AlmacenArchivosService almacenArchivos;
+    private final EmpresaService empresaService;
+    private final Path raiz = Paths.get("uploads");
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "migracion-archivos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final AtomicBoolean enCurso = new AtomicBoolean(false);
+    private final AtomicInteger migrados = new AtomicInteger();
+    private final AtomicInteger faltantes = new AtomicInteger();
+    private final AtomicInteger errores = new AtomicInteger();
+    private volatile String objetivoActual;
+    private volatile LocalDateTime inicio;
+    private volatile LocalDateTime fin;
+
+    /**
+     * Tabla y columna con rutas de archivo; prefijo es la carpeta bajo uploads de los archivos viejos.
+     */
+    private record Objetivo(String nombre, String tabla, String columnaId, String columnaRuta, String prefijo) { }
+
+    private static final List<Objetivo> OBJETIVOS = List.of(
+            new Objetivo("evidencias", "evidencia_cursos", "Id_Evidencia", "Archivo_Ruta", ""),
+            new Objetivo("logos", "empresas", "Id", "Logo", "logos/"));
+
+    private record Pendiente(int id, String rutaVieja) { }
+
+    @Autowired
+    public MigracionArchivosService(DataSource dataSource, AlmacenArchivosService almacenArchivos,
+                                    EmpresaService empresaService) {
+        this.dataSource = dataSource;
+        this.almacenArchivos = almacenArchivos;
+        this.empresaService = empresaService;
+    }
+
+    /**
+     * Inicia la migración en segundo plano. Devuelve false si ya hay una en curso.
+     */
+    public boolean iniciar(Integer tamanoLote) {
+        if (!enCurso.compareAndSet(false, true)) {
+            return false;
+        }
+        int lote = tamanoLote != null && tamanoLote > 0 ? tamanoLote : TAMANO_LOTE_POR_DEFECTO;
+        migrados.set(0);
+        faltantes.set(0);
+        errores.set(0);
+        inicio = LocalDateTime.now();
+        fin = null;
+
+        ejecutor.submit(() -> {
+            try {
+                for (Objetivo objetivo : OBJETIVOS) {
+                    objetivoActual = objetivo.nombre();
+                    migrarObjetivo(objetivo, lote);
+                }
+                System.out.println("✅ Migración de archivos terminada: " + estado());
+            } catch (Exception e) {
+                System.err.println("❌ Migración de archivos detenida: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                objetivoActual = null;
+                fin = LocalDateTime.now();
+                enCurso.set(false);
+            }
+        });
+        return true;
+    }
+
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("enCurso", enCurso.get());
+        estado.put("objetivoActual", objetivoActual);
+        estado.put("migrados", migrados.get());
+        estado.put("faltantes", faltantes.get());
+        estado.put("errores", errores.get());
+        estado.put("inicio", inicio);
+        estado.put("fin", fin);
+        return estado;
+    }
+
+    private void migrarObjetivo(Objetivo objetivo, int tamanoLote) throws SQLException, InterruptedException {
+        int ultimoId = 0;
+        while (true) {
+            List<Pendiente> lote = siguienteLote(objetivo, ultimoId, tamanoLote);
+            if (lote.isEmpty()) {
+                return;
+            }
+            migrarLote(objetivo, lote);
+            ultimoId = lote.get(lote.size() - 1).id();
+            System.out.println("📦 Migración " + objetivo.nombre() + ": hasta ID " + ultimoId +
+                    " (migrados " + migrados.get() + ", faltantes " + faltantes.get() + ")");
+            Thread.sleep(PAUSA_ENTRE_LOTES_MS);
+        }
+    }
+
+    private List<Pendiente> siguienteLote(Objetivo objetivo, int ultimoId, int tamanoLote) throws SQLException {
+        String sql = "SELECT " + objetivo.columnaId() + ", " + objetivo.columnaRuta() + " FROM " + objetivo.tabla() +
+                    " WHERE " + objetivo.columnaId() + " > ? AND " + objetivo.columnaRuta() + " IS NOT NULL" +
+                    " AND " + objetivo.columnaRuta() + " <> '' AND " + objetivo.columnaRuta() + " NOT LIKE 'blobs/%'" +
+                    " ORDER BY " + objetivo.columnaId() + " LIMIT ?";
+
+        List<Pendiente> pendientes = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setInt(1, ultimoId);
+            pstmt.setInt(2, tamanoLote);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    pendientes.add(new Pendiente(rs.getInt(1), rs.getString(2)));
+                }
+            }
+        }
+        return pendientes;
+    }
+
+    private void migrarLote(Objetivo objetivo, List<Pendiente> lote) throws SQLException {
+        // 1. Copiar al almacén los archivos que existen (el original sigue sirviendo mientras tanto)
+        List<Pendiente> copiados = new ArrayList<>();
+        List<String> rutasNuevas = new ArrayList<>();
+        for (Pendiente pendiente : lote) {
+            Path archivoViejo = raiz.resolve(objetivo.prefijo() + pendiente.rutaVieja());
+            if (!Files.isRegularFile(archivoViejo)) {
+                faltantes.incrementAndGet();
+                continue;
+            }
+            try {
+                rutasNuevas.add(almacenArchivos.copiar(archivoViejo, pendiente.rutaVieja()));
+                copiados.add(pendiente);
+            } catch (IOException | RuntimeException e) {
+                errores.incrementAndGet();
+                System.err.println("❌ No se pudo copiar " + archivoViejo + ": " + e.getMessage());
+            }
+        }
+        if (copiados.isEmpty()) {
+            return;
+        }
+
+        // 2. Reescribir las rutas en un solo lote; solo si la fila conserva la ruta vieja
+        String sql = "UPDATE " + objetivo.tabla() + " SET " + objetivo.columnaRuta() + " = ? WHERE " +
+                    objetivo.columnaId() + " = ? AND " + objetivo.columnaRuta() + " = ?";
+        int[] resultados;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            connection.setAutoCommit(false);
+            try {
+                for (int i = 0; i < copiados.size(); i++) {
+                    pstmt.setString(1, rutasNuevas.get(i));
+                    pstmt.setInt(2, copiados.get(i).id());
+                    pstmt.setString(3, copiados.get(i).rutaVieja());
+                    pstmt.addBatch();
+                }
+                resultados = pstmt.executeBatch();
+                connection.commit();
+                if (objetivo.tabla().equals("empresas")) {
+                    // Las empresas en caché conservarían la ruta vieja del logo
+                    empresaService.invalidarCache();
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+
+        // 3. Borrar los archivos viejos que ya nadie usa; soltar la referencia si la fila cambió
+        for (int i = 0; i < copiados.size(); i++) {
+            Pendiente pendiente = copiados.get(i);
+            try {
+                if (resultados[i] == 0) {
+                    almacenArchivos.liberar(rutasNuevas.get(i));
+                    continue;
+                }
+                migrados.incrementAndGet();
+                if (!rutaEnUso(objetivo, pendiente.rutaVieja())) {
+                    Files.deleteIfExists(raiz.resolve(objetivo.prefijo() + pendiente.rutaVieja()));
+                }
+            } catch (IOException | RuntimeException e) {
+                errores.incrementAndGet();
+                System.err.println("❌ Error al limpiar " + pendiente.rutaVieja() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean rutaEnUso(Objetivo objetivo, String ruta) {
+        String sql = "SELECT 1 FROM " + objetivo.tabla() + " WHERE " + objetivo.columnaRuta() + " = ? LIMIT 1";
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+
+            pstmt.setString(1, ruta);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al verificar uso de archivo: " + e.getMessage());
+        }
+    }
+}
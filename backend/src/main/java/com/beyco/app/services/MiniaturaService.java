@@ -0,0 +1,257 @@
+package com.beyco.app.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miniaturas JPEG de evidencias e imágenes de logos, generadas con ImageIO.
+ *
+ * Toda miniatura se genera en un grupo pequeño de hilos con cola acotada: la programada tras cada
+ * subida y la que se pide y aún no existe. Si la cola está llena, la subida no la programa y quien
+ * la pide recibe RejectedExecutionException (el controlador responde 503 con Retry-After), así la
+ * decodificación nunca sale del grupo. Pedidos simultáneos de la misma imagen comparten la tarea.
+ * Las miniaturas se guardan en uploads/miniaturas, se reutilizan mientras el original no cambie y
+ * se borran junto con el original.
+ */
+@Service
+public class MiniaturaService {
+
+    public static final int LADO_MAXIMO = 240;
+
+    private static final Set<String> EXTENSIONES_IMAGEN = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+    private static final int HILOS = 2;
+    private static final int TAMANO_COLA = 200;
+    // Lo que espera una solicitud a que el grupo genere su miniatura
+    private static final long ESPERA_SEGUNDOS = 30;
+
+    private final Path raiz = Paths.get("uploads");
+    private final Path directorioMiniaturas = raiz.resolve("miniaturas");
+    private final ThreadPoolExecutor ejecutor;
+    // Tareas pendientes o en curso por ruta
+    private final Map<String, FutureTask<Path>> enCurso = new ConcurrentHashMap<>();
+
+    public MiniaturaService() {
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(HILOS, HILOS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(TAMANO_COLA),
+                r -> {
+                    Thread hilo = new Thread(r, "miniaturas-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    hilo.setPriority(Thread.MIN_PRIORITY);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    public static boolean esImagen(String ruta) {
+        if (ruta == null || !ruta.contains(".")) {
+            return false;
+        }
+        String extension = ruta.substring(ruta.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return EXTENSIONES_IMAGEN.contains(extension);
+    }
+
+    /**
+     * Programa la miniatura de un archivo recién subido (ruta relativa a uploads). No bloquea.
+     */
+    public void programar(String ruta) {
+        if (!esImagen(ruta)) {
+            return;
+        }
+        try {
+            encolar(ruta);
+        } catch (RejectedExecutionException e) {
+            System.out.println("⚠️ Cola de miniaturas llena, se generará al pedirla: " + ruta);
+        }
+    }
+
+    /**
+     * Devuelve la miniatura del archivo (ruta relativa a uploads). Si no está en caché la genera
+     * en el grupo de hilos y espera a que termine. Devuelve null si el archivo no es una imagen
+     * legible; lanza RejectedExecutionException si el grupo está saturado o no termina a tiempo.
+     */
+    public Path obtenerMiniatura(String ruta) throws IOException, InterruptedException {
+        if (!esImagen(ruta)) {
+            return null;
+        }
+        Path original = raiz.resolve(ruta);
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        Path miniatura = vigente(ruta, original);
+        if (miniatura != null) {
+            return miniatura;
+        }
+        try {
+            return encolar(ruta).get(ESPERA_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // La tarea sigue y deja la miniatura lista para el siguiente intento
+            throw new RejectedExecutionException("La miniatura de " + ruta + " sigue en proceso");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new RuntimeException("Error al generar miniatura de " + ruta, e.getCause());
+        }
+    }
+
+    /**
+     * Borra la miniatura de un archivo cuyo original se eliminó.
+     */
+    public void eliminarMiniatura(String ruta) {
+        if (!esImagen(ruta)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(rutaMiniatura(ruta));
+        } catch (IOException e) {
+            System.err.println("❌ No se pudo eliminar la miniatura de " + ruta + ": " + e.getMessage());
+        }
+    }
+
+    // Una sola tarea por ruta; lanza RejectedExecutionException si la cola está llena
+    private FutureTask<Path> encolar(String ruta) {
+        return enCurso.computeIfAbsent(ruta, clave -> {
+            FutureTask<Path> tarea = new FutureTask<>(() -> {
+                try {
+                    return generar(clave);
+                } finally {
+                    enCurso.remove(clave);
+                }
+            });
+            ejecutor.execute(tarea);
+            return tarea;
+        });
+    }
+
+    // La miniatura guardada si es igual o más reciente que el original
+    private Path vigente(String ruta, Path original) throws IOException {
+        Path miniatura = rutaMiniatura(ruta);
+        if (Files.exists(miniatura)
+                && Files.getLastModifiedTime(miniatura).compareTo(Files.getLastModifiedTime(original)) >= 0) {
+            return miniatura;
+        }
+        return null;
+    }
+
+    private Path generar(String ruta) throws IOException {
+        Path original = raiz.resolve(ruta);
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        Path miniatura = vigente(ruta, original);
+        if (miniatura != null) {
+            return miniatura;
+        }
+        miniatura = rutaMiniatura(ruta);
+
+        BufferedImage imagen = leerReducida(original);
+        if (imagen == null) {
+            return null;
+        }
+        BufferedImage reducida = escalar(imagen);
+
+        Files.createDirectories(miniatura.getParent());
+        Path temporal = miniatura.resolveSibling(miniatura.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            if (!ImageIO.write(reducida, "jpg", temporal.toFile())) {
+                return null;
+            }
+            Files.move(temporal, miniatura, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        System.out.println("🖼️ Miniatura generada: " + miniatura.getFileName() + " (" + ruta + ")");
+        return miniatura;
+    }
+
+    // Un nombre estable por ruta; las rutas del almacén ya identifican el contenido
+    private Path rutaMiniatura(String ruta) {
+        String clave = UUID.nameUUIDFromBytes(ruta.getBytes(StandardCharsets.UTF_8)).toString();
+        return directorioMiniaturas.resolve(clave.substring(0, 2)).resolve(clave + "_" + LADO_MAXIMO + ".jpg");
+    }
+
+    /**
+     * Decodifica la imagen submuestreando desde el lector, para no cargar en memoria
+     * una foto de 12 MP completa solo para reducirla a 240 px.
+     */
+    private BufferedImage leerReducida(Path original) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            if (entrada == null) {
+                return null;
+            }
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                // Se deja el doble del tamaño final para que el escalado conserve calidad
+                int paso = Math.max(1, Math.max(ancho, alto) / (LADO_MAXIMO * 2));
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    private BufferedImage escalar(BufferedImage imagen) {
+        double factor = Math.min(1.0, (double) LADO_MAXIMO / Math.max(imagen.getWidth(), imagen.getHeight()));
+        int ancho = Math.max(1, (int) Math.round(imagen.getWidth() * factor));
+        int alto = Math.max(1, (int) Math.round(imagen.getHeight() * factor));
+
+        // JPEG no admite transparencia: se pinta sobre fondo blanco
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, ancho, alto);
+            g.drawImage(imagen, 0, 0, ancho, alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+}
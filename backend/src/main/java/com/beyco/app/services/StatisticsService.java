@@ -1,92 +1,265 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.RevisorConsultas;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+/**
+ * Estadísticas del sistema mantenidas en memoria.
+ *
+ * Los servicios avisan aquí cada alta, baja o cambio de usuarios, cursos, empresas y pagos,
+ * y los contadores se ajustan al momento; leer las estadísticas no consulta la BD.
+ * Los cursos se llevan como conteo por fecha de impartición (desde un mes antes), así que
+ * "últimos 30 días" y "este mes" se calculan sumando unas cuantas fechas.
+ *
+ * Cada 10 minutos una conciliación recalcula todo contra la BD y corrige cualquier
+ * desviación (cambios hechos fuera de los servicios, avisos perdidos por errores).
+ */
 @Service
 public class StatisticsService {
 
+    private static final int ROL_INSTRUCTOR = 2;
+    private static final int DIAS_CURSOS_RECIENTES = 30;
+    // Cuántos días hacia atrás se guardan conteos de cursos (cubre 30 días y el mes en curso)
+    private static final int DIAS_HISTOGRAMA = 62;
+    private static final int INTENTOS_CONCILIACION = 3;
+
+    private static final String SQL_CURSOS_POR_FECHA = "SELECT Fecha_Imparticion, COUNT(*) AS total FROM cursos " +
+                    "WHERE Fecha_Imparticion >= ? GROUP BY Fecha_Imparticion";
+
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private RevisorConsultas revisorConsultas;
+
+    private long usuariosActivos;
+    private long instructoresActivos;
+    private long empresas;
+    private long pagosPendientes;
+    private final NavigableMap<LocalDate, Integer> cursosPorFecha = new TreeMap<>();
+    private LocalDate inicioHistograma;
+
+    private boolean conciliado;
+    private long eventos;
+    private LocalDateTime ultimaConciliacion;
+
+    @PostConstruct
+    public void registrarConsultas() {
+        revisorConsultas.registrar("estadisticas.cursosPorFecha", SQL_CURSOS_POR_FECHA,
+                pstmt -> pstmt.setDate(1, Date.valueOf(LocalDate.now().minusDays(DIAS_HISTOGRAMA))));
+    }
+
     public Map<String, Object> obtenerEstadisticasSistema() {
         Map<String, Object> estadisticas = new HashMap<>();
-        
-        try (Connection connection = dataSource.getConnection()) {
-            
-            // 1. Total de usuarios activos
-            String sqlUsuarios = "SELECT COUNT(*) as total FROM usuarios WHERE Activo = 1";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlUsuarios);
-                 ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    estadisticas.put("totalUsuarios", rs.getInt("total"));
-                }
+        try {
+            if (!estaConciliado()) {
+                conciliar();
             }
-            
-            // 2. Total de cursos activos (cursos recientes)
-            String sqlCursos = "SELECT COUNT(*) as total FROM cursos WHERE Fecha_Imparticion >= CURDATE() - INTERVAL 30 DAY";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlCursos);
-                 ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    estadisticas.put("totalCursos", rs.getInt("total"));
-                }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            // Valores por defecto en caso de error
+            estadisticas.put("totalUsuarios", 0);
+            estadisticas.put("totalCursos", 0);
+            estadisticas.put("totalEmpresas", 0);
+            estadisticas.put("pagosPendientes", 0);
+            estadisticas.put("totalInstructores", 0);
+            estadisticas.put("cursosEsteMes", 0);
+            return estadisticas;
+        }
+
+        LocalDate hoy = LocalDate.now();
+        synchronized (this) {
+            estadisticas.put("totalUsuarios", usuariosActivos);
+            estadisticas.put("totalCursos", cursosDesde(hoy.minusDays(DIAS_CURSOS_RECIENTES), null));
+            estadisticas.put("totalEmpresas", empresas);
+            estadisticas.put("pagosPendientes", pagosPendientes);
+            estadisticas.put("totalInstructores", instructoresActivos);
+            estadisticas.put("cursosEsteMes", cursosDesde(hoy.withDayOfMonth(1), hoy.withDayOfMonth(1).plusMonths(1)));
+            estadisticas.put("ultimaConciliacion", ultimaConciliacion);
+        }
+        return estadisticas;
+    }
+
+    // ========== AVISOS DE LOS SERVICIOS ==========
+
+    public synchronized void usuarioCreado(int idRol, boolean activo) {
+        ajustarUsuario(idRol, activo, 1);
+        eventos++;
+    }
+
+    public synchronized void usuarioModificado(int idRolAntes, boolean activoAntes, int idRolDespues, boolean activoDespues) {
+        ajustarUsuario(idRolAntes, activoAntes, -1);
+        ajustarUsuario(idRolDespues, activoDespues, 1);
+        eventos++;
+    }
+
+    public synchronized void cursoCreado(LocalDate fecha) {
+        ajustarCurso(fecha, 1);
+        eventos++;
+    }
+
+    public synchronized void cursoModificado(LocalDate fechaAntes, LocalDate fechaDespues) {
+        ajustarCurso(fechaAntes, -1);
+        ajustarCurso(fechaDespues, 1);
+        eventos++;
+    }
+
+    public synchronized void cursoEliminado(LocalDate fecha) {
+        ajustarCurso(fecha, -1);
+        eventos++;
+    }
+
+    public synchronized void empresaCreada() {
+        empresas++;
+        eventos++;
+    }
+
+    public synchronized void pagosRegistrados(String estatus, int cantidad) {
+        if ("pendiente".equals(estatus)) {
+            pagosPendientes += cantidad;
+        }
+        eventos++;
+    }
+
+    private void ajustarUsuario(int idRol, boolean activo, int delta) {
+        if (activo) {
+            usuariosActivos += delta;
+            if (idRol == ROL_INSTRUCTOR) {
+                instructoresActivos += delta;
             }
-            
-            // 3. Total de empresas activas
-            String sqlEmpresas = "SELECT COUNT(*) as total FROM empresas";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlEmpresas);
-                 ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    estadisticas.put("totalEmpresas", rs.getInt("total"));
-                }
+        }
+    }
+
+    private void ajustarCurso(LocalDate fecha, int delta) {
+        if (fecha == null || inicioHistograma == null || fecha.isBefore(inicioHistograma)) {
+            return;
+        }
+        cursosPorFecha.merge(fecha, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    // Suma los cursos con fecha en [desde, hasta); hasta null = sin límite
+    private long cursosDesde(LocalDate desde, LocalDate hasta) {
+        NavigableMap<LocalDate, Integer> rango = hasta == null
+                ? cursosPorFecha.tailMap(desde, true)
+                : cursosPorFecha.subMap(desde, true, hasta, false);
+        long total = 0;
+        for (int conteo : rango.values()) {
+            total += conteo;
+        }
+        return total;
+    }
+
+    private synchronized boolean estaConciliado() {
+        return conciliado;
+    }
+
+    // ========== CONCILIACIÓN CONTRA LA BD ==========
+
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void conciliacionProgramada() {
+        try {
+            conciliar();
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error en la conciliación de estadísticas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula los contadores contra la BD. Si llegan avisos mientras se consulta, el resultado
+     * podría contarlos dos veces o ninguna, así que se repite la lectura (hasta 3 veces).
+     */
+    public void conciliar() {
+        for (int intento = 1; intento <= INTENTOS_CONCILIACION; intento++) {
+            long eventosAntes;
+            synchronized (this) {
+                eventosAntes = eventos;
             }
-            
-            // 4. Total de pagos pendientes
-            String sqlPagosPendientes = "SELECT COUNT(*) as total FROM pagos_instructores WHERE Estatus = 'pendiente'";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlPagosPendientes);
-                 ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    estadisticas.put("pagosPendientes", rs.getInt("total"));
+            LocalDate inicio = LocalDate.now().minusDays(DIAS_HISTOGRAMA);
+            Conteos conteos = leerConteos(inicio);
+
+            synchronized (this) {
+                if (eventos != eventosAntes && intento < INTENTOS_CONCILIACION) {
+                    continue;
                 }
+                aplicar(conteos, inicio);
+                return;
             }
-            
-            // 5. Total de instructores activos
-            String sqlInstructores = "SELECT COUNT(*) as total FROM usuarios WHERE Id_Rol = 2 AND Activo = 1";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlInstructores);
+        }
+    }
+
+    private record Conteos(long usuariosActivos, long instructoresActivos, long empresas, long pagosPendientes,
+                           Map<LocalDate, Integer> cursosPorFecha) { }
+
+    private Conteos leerConteos(LocalDate inicio) {
+        // Una sola ida a la BD para los totales; los rangos de fecha usan el índice de Fecha_Imparticion
+        String sqlTotales = "SELECT " +
+                    "(SELECT COUNT(*) FROM usuarios WHERE Activo = 1) AS usuarios, " +
+                    "(SELECT COUNT(*) FROM usuarios WHERE Id_Rol = " + ROL_INSTRUCTOR + " AND Activo = 1) AS instructores, " +
+                    "(SELECT COUNT(*) FROM empresas) AS empresas, " +
+                    "(SELECT COUNT(*) FROM pagos_instructores WHERE Estatus = 'pendiente') AS pendientes";
+        String sqlCursos = SQL_CURSOS_POR_FECHA;
+
+        try (Connection connection = dataSource.getConnection()) {
+            long usuarios = 0, instructores = 0, totalEmpresas = 0, pendientes = 0;
+            try (PreparedStatement pstmt = connection.prepareStatement(sqlTotales);
                  ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    estadisticas.put("totalInstructores", rs.getInt("total"));
+                    usuarios = rs.getLong("usuarios");
+                    instructores = rs.getLong("instructores");
+                    totalEmpresas = rs.getLong("empresas");
+                    pendientes = rs.getLong("pendientes");
                 }
             }
-            
-            // 6. Cursos del mes actual
-            String sqlCursosMes = "SELECT COUNT(*) as total FROM cursos WHERE MONTH(Fecha_Imparticion) = MONTH(CURDATE()) AND YEAR(Fecha_Imparticion) = YEAR(CURDATE())";
-            try (PreparedStatement pstmt = connection.prepareStatement(sqlCursosMes);
-                 ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    estadisticas.put("cursosEsteMes", rs.getInt("total"));
+
+            Map<LocalDate, Integer> porFecha = new HashMap<>();
+            try (PreparedStatement pstmt = connection.prepareStatement(sqlCursos)) {
+                pstmt.setDate(1, Date.valueOf(inicio));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        porFecha.put(rs.getDate("Fecha_Imparticion").toLocalDate(), rs.getInt("total"));
+                    }
                 }
             }
-            
+            return new Conteos(usuarios, instructores, totalEmpresas, pendientes, porFecha);
         } catch (SQLException e) {
-            e.printStackTrace();
-            // Valores por defecto en caso de error
-            estadisticas.put("totalUsuarios", 0);
-            estadisticas.put("totalCursos", 0);
-            estadisticas.put("totalEmpresas", 0);
-            estadisticas.put("pagosPendientes", 0);
-            estadisticas.put("totalInstructores", 0);
-            estadisticas.put("cursosEsteMes", 0);
+            throw new RuntimeException("Error al conciliar estadísticas: " + e.getMessage(), e);
         }
-        
-        return estadisticas;
     }
-}
\ No newline at end of file
+
+    private void aplicar(Conteos conteos, LocalDate inicio) {
+        long desviacion = Math.abs(usuariosActivos - conteos.usuariosActivos())
+                + Math.abs(instructoresActivos - conteos.instructoresActivos())
+                + Math.abs(empresas - conteos.empresas())
+                + Math.abs(pagosPendientes - conteos.pagosPendientes());
+
+        usuariosActivos = conteos.usuariosActivos();
+        instructoresActivos = conteos.instructoresActivos();
+        empresas = conteos.empresas();
+        pagosPendientes = conteos.pagosPendientes();
+        cursosPorFecha.clear();
+        cursosPorFecha.putAll(conteos.cursosPorFecha());
+        inicioHistograma = inicio;
+        ultimaConciliacion = LocalDateTime.now();
+
+        if (conciliado && desviacion > 0) {
+            System.out.println("⚠️ Estadísticas corregidas en la conciliación (desviación " + desviacion + ")");
+        }
+        conciliado = true;
+    }
+}
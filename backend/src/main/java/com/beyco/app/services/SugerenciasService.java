@@ -0,0 +1,172 @@
+package com.beyco.app.services;
+
+import com.beyco.app.busqueda.IndiceNgramas;
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.MapeadorFila;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.models.Empresa;
+import com.beyco.app.models.Usuario;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sugerencias de autocompletado para los buscadores del frontend (empresas e instructores).
+ * Se responden desde índices en memoria (IndiceNgramas) en lugar de un LIKE '%texto%' por
+ * cada tecla. EmpresaService y UsuarioService avisan de cada alta o cambio para que el
+ * índice se actualice al momento; además se reconstruyen cada 30 min por si hubo cambios
+ * directos en la BD.
+ */
+@Service
+public class SugerenciasService {
+
+    public static final int MAXIMO_SUGERENCIAS = 10;
+    private static final int INTENTOS_RECARGA = 3;
+    private static final int ROL_INSTRUCTOR = 2;
+
+    private static final String SQL_EMPRESAS =
+            "SELECT Id, Nombre, Telefono, Email, Direccion, RFC, Activo, Contacto, Logo FROM empresas";
+    // Solo columnas públicas: el índice no guarda contraseñas ni respuestas de recuperación
+    private static final String SQL_INSTRUCTORES =
+            "SELECT Num_Empleado, Nombre, Apellido_paterno, Apellido_materno, Correo, Id_Rol, Activo " +
+            "FROM usuarios WHERE Id_Rol = " + ROL_INSTRUCTOR + " AND Activo = 1";
+
+    private final ConsultasJdbc consultas;
+
+    private final IndiceNgramas<Empresa> empresas = new IndiceNgramas<>("empresas",
+            empresa -> String.valueOf(empresa.getId()),
+            List.of(new IndiceNgramas.Campo<>("nombre", Empresa::getNombre, 3),
+                    new IndiceNgramas.Campo<>("contacto", Empresa::getContacto, 2),
+                    new IndiceNgramas.Campo<>("email", Empresa::getEmail, 1)),
+            Comparator.comparing(Empresa::getNombre, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+    private final IndiceNgramas<Usuario> instructores = new IndiceNgramas<>("instructores",
+            usuario -> String.valueOf(usuario.getNumEmpleado()),
+            List.of(new IndiceNgramas.Campo<>("nombre", Usuario::getNombre, 3),
+                    new IndiceNgramas.Campo<>("apellidoPaterno", Usuario::getApellidoPaterno, 3),
+                    new IndiceNgramas.Campo<>("apellidoMaterno", Usuario::getApellidoMaterno, 2),
+                    new IndiceNgramas.Campo<>("correo", Usuario::getCorreo, 1)),
+            Comparator.comparing(SugerenciasService::nombreCompleto, String.CASE_INSENSITIVE_ORDER));
+
+    @Autowired
+    public SugerenciasService(ConsultasJdbc consultas) {
+        this.consultas = consultas;
+    }
+
+    // ========== SUGERENCIAS ==========
+
+    /**
+     * Empresas cuyo nombre, contacto o correo coincide con el texto, las más parecidas primero
+     */
+    public List<Empresa> sugerirEmpresas(String texto, int maximo) {
+        empresas.cargarSiFalta(this::leerEmpresas, INTENTOS_RECARGA);
+        return empresas.buscar(texto, maximo, null).stream().map(IndiceNgramas.Resultado::valor).toList();
+    }
+
+    /**
+     * Instructores activos cuyo nombre, apellidos o correo coincide con el texto
+     */
+    public List<Usuario> sugerirInstructores(String texto, int maximo) {
+        instructores.cargarSiFalta(this::leerInstructores, INTENTOS_RECARGA);
+        return instructores.buscar(texto, maximo, null).stream().map(IndiceNgramas.Resultado::valor).toList();
+    }
+
+    // ========== AVISOS DE CAMBIOS ==========
+
+    // Los avisos llegan después de guardar: si la relectura falla no se revierte el cambio,
+    // solo queda pendiente hasta la siguiente recarga del índice
+
+    /**
+     * Vuelve a leer la empresa de la BD y la actualiza en el índice (alta, cambio o baja lógica)
+     */
+    public void empresaModificada(int id) {
+        try {
+            Empresa empresa = leerUna(SQL_EMPRESAS + " WHERE Id = ?", id, Mapeadores.EMPRESA);
+            if (empresa != null) {
+                empresas.agregar(empresa);
+            } else {
+                empresas.quitar(String.valueOf(id));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo actualizar la empresa " + id + " en sugerencias: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a leer el usuario; queda en el índice solo si es instructor activo
+     */
+    public void usuarioModificado(int numEmpleado) {
+        try {
+            Usuario usuario = leerUna(SQL_INSTRUCTORES + " AND Num_Empleado = ?", numEmpleado, Mapeadores.USUARIO);
+            if (usuario != null) {
+                instructores.agregar(usuario);
+            } else {
+                instructores.quitar(String.valueOf(numEmpleado));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ No se pudo actualizar el usuario " + numEmpleado + " en sugerencias: " + e.getMessage());
+        }
+    }
+
+    // ========== RECARGA ==========
+
+    @Scheduled(fixedDelay = 30 * 60 * 1000, initialDelay = 30 * 60 * 1000)
+    public void recargaProgramada() {
+        try {
+            // Los índices que nadie ha usado se cargan en la primera búsqueda
+            if (empresas.estaCargado()) {
+                empresas.recargar(this::leerEmpresas, INTENTOS_RECARGA);
+            }
+            if (instructores.estaCargado()) {
+                instructores.recargar(this::leerInstructores, INTENTOS_RECARGA);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error al recargar los índices de sugerencias: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("empresas", empresas.metricas());
+        metricas.put("instructores", instructores.metricas());
+        return metricas;
+    }
+
+    private List<Empresa> leerEmpresas() {
+        try {
+            return consultas.listar(SQL_EMPRESAS, Mapeadores.EMPRESA);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al cargar empresas para sugerencias: " + e.getMessage());
+        }
+    }
+
+    private List<Usuario> leerInstructores() {
+        try {
+            return consultas.listar(SQL_INSTRUCTORES, Mapeadores.USUARIO);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al cargar instructores para sugerencias: " + e.getMessage());
+        }
+    }
+
+    private <T> T leerUna(String sql, int id, MapeadorFila<T> mapeador) {
+        try {
+            return consultas.primero(sql, pstmt -> pstmt.setInt(1, id), mapeador);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al actualizar sugerencias: " + e.getMessage());
+        }
+    }
+
+    private static String nombreCompleto(Usuario usuario) {
+        return (usuario.getNombre() + " " + usuario.getApellidoPaterno() + " " +
+                (usuario.getApellidoMaterno() != null ? usuario.getApellidoMaterno() : "")).trim();
+    }
+}
@@ -1,22 +1,39 @@
 package com.beyco.app.services;
 
+import com.beyco.app.db.ConsultasJdbc;
+import com.beyco.app.db.Mapeadores;
+import com.beyco.app.db.OrdenPagina;
+import com.beyco.app.db.Pagina;
 import com.beyco.app.models.Usuario;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.sql.DataSource;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class UsuarioService {
 
+    // Órdenes para la paginación por cursor; el primero (número de empleado) es el de listarTodosLosUsuarios
+    private static final List<OrdenPagina<Usuario>> ORDENES_PAGINA = List.of(
+            OrdenPagina.ascendente("numEmpleado", "Num_Empleado", OrdenPagina.Tipo.ENTERO, Usuario::getNumEmpleado,
+                    "Num_Empleado", OrdenPagina.Tipo.ENTERO, Usuario::getNumEmpleado),
+            OrdenPagina.ascendente("nombre", "Nombre", OrdenPagina.Tipo.TEXTO, Usuario::getNombre,
+                    "Num_Empleado", OrdenPagina.Tipo.ENTERO, Usuario::getNumEmpleado));
+
     private final DataSource dataSource;
+    private final ConsultasJdbc consultas;
+    private final StatisticsService statisticsService;
+    private final SugerenciasService sugerenciasService;
 
     @Autowired
-    public UsuarioService(DataSource dataSource) {
+    public UsuarioService(DataSource dataSource, ConsultasJdbc consultas, StatisticsService statisticsService,
+                          SugerenciasService sugerenciasService) {
         this.dataSource = dataSource;
+        this.consultas = consultas;
+        this.statisticsService = statisticsService;
+        this.sugerenciasService = sugerenciasService;
     }
 
     // ========== MÉTODO DE AUTENTICACIÓN SIMPLIFICADO (TEXTO PLANO) ==========
@@ -47,7 +64,7 @@ public class UsuarioService {
                     
                     if (coincide) {
                         System.out.println("🎉 AUTENTICACIÓN EXITOSA: " + nombre);
-                        return mapRowToUsuario(rs);
+                        return Mapeadores.USUARIO.mapearFila(rs, Mapeadores.USUARIO.indices(sql, rs));
                     } else {
                         System.out.println("❌ CONTRASEÑA INCORRECTA");
                         System.out.println("   Esperada: " + contrasenaAlmacenada);
@@ -122,99 +139,70 @@ public class UsuarioService {
 
     // ========== MÉTODOS CRUD COMPLETOS ==========
     public List<Usuario> listarInstructoresActivos() {
-        List<Usuario> instructores = new ArrayList<>();
         String sql = "SELECT * FROM usuarios WHERE Id_Rol = 2 AND Activo = 1 ORDER BY Nombre";
         
-        try (Connection connection = dataSource.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                instructores.add(mapRowToUsuario(rs));
-            }
+        try {
+            return consultas.listar(sql, Mapeadores.USUARIO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar instructores", e);
         }
-        return instructores;
     }
 
     // MÉTODO FALTANTE: listarUsuariosActivos
     public List<Usuario> listarUsuariosActivos() {
-        List<Usuario> usuarios = new ArrayList<>();
         String sql = "SELECT * FROM usuarios WHERE Activo = 1 ORDER BY Nombre";
         
-        try (Connection connection = dataSource.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                usuarios.add(mapRowToUsuario(rs));
-            }
+        try {
+            return consultas.listar(sql, Mapeadores.USUARIO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar usuarios activos", e);
         }
-        return usuarios;
+    }
+
+    public Pagina<Usuario> listarUsuariosPagina(String orden, String cursor, int limite) {
+        try {
+            return consultas.pagina("SELECT * FROM usuarios WHERE 1 = 1", OrdenPagina.elegir(ORDENES_PAGINA, orden),
+                    cursor, limite, Mapeadores.USUARIO);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error al listar usuarios paginados", e);
+        }
     }
 
     public List<Usuario> listarTodosLosUsuarios() {
-        List<Usuario> usuarios = new ArrayList<>();
         String sql = "SELECT * FROM usuarios ORDER BY Num_Empleado";
         
-        try (Connection connection = dataSource.getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                usuarios.add(mapRowToUsuario(rs));
-            }
+        try {
+            return consultas.listar(sql, Mapeadores.USUARIO);
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al listar usuarios", e);
         }
-        return usuarios;
     }
 
     public Optional<Usuario> buscarPorId(int numEmpleado) {
         String sql = "SELECT * FROM usuarios WHERE Num_Empleado = ?";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setInt(1, numEmpleado);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapRowToUsuario(rs));
-                }
-            }
+        try {
+            return Optional.ofNullable(consultas.primero(sql, pstmt -> pstmt.setInt(1, numEmpleado), Mapeadores.USUARIO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al buscar usuario por ID", e);
         }
-        return Optional.empty();
     }
 
     // MÉTODO FALTANTE: buscarPorCorreo
     public Optional<Usuario> buscarPorCorreo(String correo) {
         String sql = "SELECT * FROM usuarios WHERE Correo = ?";
         
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
-            
-            pstmt.setString(1, correo);
-            
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapRowToUsuario(rs));
-                }
-            }
+        try {
+            return Optional.ofNullable(consultas.primero(sql, pstmt -> pstmt.setString(1, correo), Mapeadores.USUARIO));
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error al buscar usuario por correo", e);
         }
-        return Optional.empty();
     }
 
     // MÉTODO FALTANTE: crearUsuario
@@ -252,6 +240,8 @@ public class UsuarioService {
                         usuario.setNumEmpleado(generatedKeys.getInt(1));
                     }
                 }
+                statisticsService.usuarioCreado(usuario.getIdRol(), usuario.isActivo());
+                sugerenciasService.usuarioModificado(usuario.getNumEmpleado());
                 return true;
             }
             
@@ -291,7 +281,14 @@ public class UsuarioService {
             pstmt.setString(10, usuario.getFirma());
             pstmt.setInt(11, usuario.getNumEmpleado());
             
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado) {
+                Usuario anterior = usuarioExistente.get();
+                statisticsService.usuarioModificado(anterior.getIdRol(), anterior.isActivo(),
+                        usuario.getIdRol(), usuario.isActivo());
+                sugerenciasService.usuarioModificado(usuario.getNumEmpleado());
+            }
+            return actualizado;
             
         } catch (SQLException e) {
             e.printStackTrace();
@@ -301,13 +298,22 @@ public class UsuarioService {
 
     // MÉTODO FALTANTE: desactivarUsuario
     public boolean desactivarUsuario(int numEmpleado) {
+        Optional<Usuario> anterior = buscarPorId(numEmpleado);
         String sql = "UPDATE usuarios SET Activo = 0 WHERE Num_Empleado = ?";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
             pstmt.setInt(1, numEmpleado);
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado && anterior.isPresent()) {
+                statisticsService.usuarioModificado(anterior.get().getIdRol(), anterior.get().isActivo(),
+                        anterior.get().getIdRol(), false);
+            }
+            if (actualizado) {
+                sugerenciasService.usuarioModificado(numEmpleado);
+            }
+            return actualizado;
             
         } catch (SQLException e) {
             e.printStackTrace();
@@ -317,13 +323,22 @@ public class UsuarioService {
 
     // MÉTODO FALTANTE: activarUsuario
     public boolean activarUsuario(int numEmpleado) {
+        Optional<Usuario> anterior = buscarPorId(numEmpleado);
         String sql = "UPDATE usuarios SET Activo = 1 WHERE Num_Empleado = ?";
         
         try (Connection connection = dataSource.getConnection();
              PreparedStatement pstmt = connection.prepareStatement(sql)) {
             
             pstmt.setInt(1, numEmpleado);
-            return pstmt.executeUpdate() > 0;
+            boolean actualizado = pstmt.executeUpdate() > 0;
+            if (actualizado && anterior.isPresent()) {
+                statisticsService.usuarioModificado(anterior.get().getIdRol(), anterior.get().isActivo(),
+                        anterior.get().getIdRol(), true);
+            }
+            if (actualizado) {
+                sugerenciasService.usuarioModificado(numEmpleado);
+            }
+            return actualizado;
             
         } catch (SQLException e) {
             e.printStackTrace();
@@ -347,28 +362,4 @@ public class UsuarioService {
             throw new RuntimeException("Error al actualizar la firma", e);
         }
     }
-
-    // ========== MÉTODO DE MAPEO ==========
-    private Usuario mapRowToUsuario(ResultSet rs) throws SQLException {
-        Usuario usuario = new Usuario();
-        usuario.setNumEmpleado(rs.getInt("Num_Empleado"));
-        usuario.setNombre(rs.getString("Nombre"));
-        usuario.setApellidoPaterno(rs.getString("Apellido_paterno"));
-        usuario.setApellidoMaterno(rs.getString("Apellido_materno"));
-        usuario.setCorreo(rs.getString("Correo"));
-        usuario.setContrasena(rs.getString("Contrasena"));
-        usuario.setIdRol(rs.getInt("Id_Rol"));
-        usuario.setActivo(rs.getBoolean("Activo"));
-        
-        Date fechaIngreso = rs.getDate("Fecha_Ingreso");
-        if (fechaIngreso != null) {
-            usuario.setFechaIngreso(fechaIngreso.toLocalDate());
-        }
-        
-        usuario.setPreguntaRecuperacion(rs.getString("Pregunta_recuperacion"));
-        usuario.setRespuestaRecuperacion(rs.getString("Respuesta_recuperacion"));
-        usuario.setFirma(rs.getString("Firma"));
-        
-        return usuario;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+-- -----------------------------------------------------
+-- Índice para la consulta de cursos por instructor
+-- (CursoService.listarCursosPorInstructor / listarCursosPorInstructorPaginado).
+-- InnoDB agrega Id_Curso al final del índice secundario, por lo que
+-- cubre el orden (Fecha_Imparticion DESC, Id_Curso DESC) de la paginación.
+-- -----------------------------------------------------
+CREATE INDEX `idx_cursos_instructor_fecha`
+  ON `cursos` (`Instructor_Id` ASC, `Fecha_Imparticion` ASC);
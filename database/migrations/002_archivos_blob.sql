@@ -0,0 +1,40 @@
+-- -----------------------------------------------------
+-- Almacén de archivos por contenido (AlmacenArchivosService).
+-- Cada archivo subido se guarda una sola vez en uploads/blobs/<aa>/<bb>/<sha256><ext>;
+-- Ruta es el valor que se guarda en evidencia_cursos.Archivo_Ruta, usuarios.Firma, etc.
+-- Referencias cuenta cuántos registros apuntan al archivo; al llegar a 0 se borra.
+-- Cada empresa con logo del almacén cuenta una referencia: al cambiar o quitar el logo se libera.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `archivos_blob` (
+  `Ruta` VARCHAR(255) NOT NULL,
+  `Hash` CHAR(64) NOT NULL,
+  `Tamano` BIGINT NOT NULL,
+  `Referencias` INT NOT NULL DEFAULT 0,
+  `Fecha_Creacion` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`Ruta`),
+  INDEX `idx_archivos_blob_hash` (`Hash` ASC))
+ENGINE = InnoDB;
+
+-- Un mismo contenido se guarda con la misma ruta, así que dos usuarios (o dos empresas)
+-- pueden apuntar a la misma firma o logo: los índices únicos de Firma y Logo se quitan.
+-- Logo además se amplía para que quepa blobs/aa/bb/<sha256>.ext.
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'usuarios'
+                  AND INDEX_NAME = 'Firma_UNIQUE') > 0,
+  'ALTER TABLE `usuarios` DROP INDEX `Firma_UNIQUE`',
+  'DO 0');
+PREPARE quitar_indice FROM @sql;
+EXECUTE quitar_indice;
+DEALLOCATE PREPARE quitar_indice;
+
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'empresas'
+                  AND INDEX_NAME = 'Logo_UNIQUE') > 0,
+  'ALTER TABLE `empresas` DROP INDEX `Logo_UNIQUE`',
+  'DO 0');
+PREPARE quitar_indice FROM @sql;
+EXECUTE quitar_indice;
+DEALLOCATE PREPARE quitar_indice;
+
+ALTER TABLE `usuarios` MODIFY `Firma` VARCHAR(255) NOT NULL;
+ALTER TABLE `empresas` MODIFY `Logo` VARCHAR(255) NOT NULL;
@@ -0,0 +1,23 @@
+-- -----------------------------------------------------
+-- Índices para las consultas por rango de fechas.
+-- Los filtros por año ahora son rangos semiabiertos
+-- (Fecha_Imparticion >= '2025-01-01' AND Fecha_Imparticion < '2026-01-01')
+-- en lugar de YEAR(Fecha_Imparticion) = ?, así que pueden usar un índice.
+-- RevisorConsultas ejecuta EXPLAIN al arrancar y avisa si alguna vuelve
+-- a recorrer la tabla completa.
+-- -----------------------------------------------------
+
+-- CursoService.listarCursosPorAnio / obtenerEstadisticasCursos / obtenerTotalPagosPorAnio,
+-- StatisticsService (cursos por fecha) y listarCursosPorEstado.
+-- Incluye Empresa_Id, Instructor_Id y Pago para que las estadísticas y el total de
+-- pagos del año se resuelvan solo con el índice, sin leer las filas.
+CREATE INDEX `idx_cursos_fecha_cubriente`
+  ON `cursos` (`Fecha_Imparticion` ASC, `Empresa_Id` ASC, `Instructor_Id` ASC, `Pago` ASC);
+
+-- EvidenciaService.buscarEvidencias (exportación ZIP por rango de fechas de subida).
+CREATE INDEX `idx_evidencia_fecha_subida`
+  ON `evidencia_cursos` (`Fecha_Subida` ASC);
+
+-- Conciliación de StatisticsService (pagos pendientes).
+CREATE INDEX `idx_pagos_estatus`
+  ON `pagos_instructores` (`Estatus` ASC);
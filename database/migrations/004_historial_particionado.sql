@@ -0,0 +1,58 @@
+-- -----------------------------------------------------
+-- Historial de cursos particionado por año (HistorialCursoService).
+-- `cursos` no se puede particionar: MySQL no admite particiones en tablas
+-- con llaves foráneas ni referenciadas por ellas. Al cerrar un año, sus
+-- cursos se copian aquí ya con empresa, instructor, catálogo y número de
+-- alumnos resueltos; `cursos` sigue siendo la fuente de los años abiertos.
+-- Las consultas filtran con rangos semiabiertos sobre Fecha_Imparticion,
+-- así MySQL solo abre las particiones de los años pedidos.
+-- La partición del año siguiente se crea al cerrar el año (REORGANIZE de pfuturo).
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `historial_cursos` (
+  `Id_Curso` INT NOT NULL,
+  `Nombre_curso` VARCHAR(45) NOT NULL,
+  `Clave_STPS` VARCHAR(20) NOT NULL,
+  `Fecha_Imparticion` DATE NOT NULL,
+  `Lugar` VARCHAR(200) NOT NULL,
+  `Empresa_Id` INT NOT NULL,
+  `nombre_empresa` VARCHAR(75) NULL,
+  `Instructor_Id` INT NOT NULL,
+  `nombre_instructor` VARCHAR(45) NULL,
+  `Pago` DECIMAL(10,2) NULL,
+  `Precio` DECIMAL(10,2) NULL,
+  `Horas` INT NULL,
+  `Examen_practico` TINYINT NULL,
+  `Total_Alumnos` INT NOT NULL DEFAULT 0,
+  -- La columna de partición debe formar parte de la llave primaria
+  PRIMARY KEY (`Fecha_Imparticion`, `Id_Curso`),
+  INDEX `idx_historial_cursos_id` (`Id_Curso` ASC))
+ENGINE = InnoDB
+PARTITION BY RANGE COLUMNS (`Fecha_Imparticion`) (
+  PARTITION `pantes` VALUES LESS THAN ('2020-01-01'),
+  PARTITION `p2020` VALUES LESS THAN ('2021-01-01'),
+  PARTITION `p2021` VALUES LESS THAN ('2022-01-01'),
+  PARTITION `p2022` VALUES LESS THAN ('2023-01-01'),
+  PARTITION `p2023` VALUES LESS THAN ('2024-01-01'),
+  PARTITION `p2024` VALUES LESS THAN ('2025-01-01'),
+  PARTITION `p2025` VALUES LESS THAN ('2026-01-01'),
+  PARTITION `p2026` VALUES LESS THAN ('2027-01-01'),
+  PARTITION `pfuturo` VALUES LESS THAN (MAXVALUE)
+);
+
+-- -----------------------------------------------------
+-- Resumen precalculado de cada año cerrado. Se escribe una sola vez al
+-- cerrar el año y no se modifica (salvo reconstrucción explícita del año).
+-- Un año sin cursos también tiene su fila: marca que ya está cerrado.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `historial_resumen_anual` (
+  `Anio` SMALLINT NOT NULL,
+  `Total_Cursos` INT NOT NULL,
+  `Total_Horas` INT NOT NULL,
+  `Total_Alumnos` INT NOT NULL,
+  `Total_Empresas` INT NOT NULL,
+  `Total_Instructores` INT NOT NULL,
+  `Total_Ingresos` DECIMAL(14,2) NOT NULL,
+  `Total_Pagos` DECIMAL(14,2) NOT NULL,
+  `Fecha_Cierre` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`Anio`))
+ENGINE = InnoDB;
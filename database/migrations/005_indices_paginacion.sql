@@ -0,0 +1,23 @@
+-- -----------------------------------------------------
+-- Índices para la paginación por cursor (OrdenPagina / ConsultasJdbc.pagina).
+-- Cada página busca "después de la llave de la última fila" con
+-- WHERE col > ? ... ORDER BY col, llave LIMIT n, así que la columna de orden
+-- necesita un índice; InnoDB agrega la llave primaria al final de cada
+-- índice secundario, lo que cubre el desempate.
+-- Ya existen: empresas.Nombre (único), evidencia_cursos.Fecha_Subida (003)
+-- y cursos.Fecha_Imparticion (003).
+-- -----------------------------------------------------
+
+-- AlumnoService.listarAlumnosPagina (solo activos): apellido, nombre y registro.
+CREATE INDEX `idx_alumnos_activo_apellido`
+  ON `alumnos` (`Activo` ASC, `Apellido_paterno` ASC);
+
+CREATE INDEX `idx_alumnos_activo_nombre`
+  ON `alumnos` (`Activo` ASC, `Nombre` ASC);
+
+CREATE INDEX `idx_alumnos_activo_registro`
+  ON `alumnos` (`Activo` ASC, `Fecha_Registro` ASC);
+
+-- UsuarioService.listarUsuariosPagina por nombre.
+CREATE INDEX `idx_usuarios_nombre`
+  ON `usuarios` (`Nombre` ASC);
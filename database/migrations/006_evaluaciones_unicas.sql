@@ -0,0 +1,60 @@
+-- -----------------------------------------------------
+-- Una calificación por alumno y curso (CalificacionService).
+-- La hoja de calificaciones del curso se guarda con un solo
+-- INSERT ... ON DUPLICATE KEY UPDATE, que necesita la llave única
+-- (cursos_Id_Curso, alumnos_Curp) para saber qué fila actualizar.
+-- init.sql no trae alumnos_Curp ni cursos_Id_Curso aunque el backend
+-- siempre los ha usado; se agregan solo si faltan (MySQL 8.0 no tiene
+-- ADD COLUMN IF NOT EXISTS). Antes de crear la llave se borran las
+-- calificaciones repetidas y se conserva la más reciente (Id mayor).
+-- Si hay calificaciones sin CURP (columna recién agregada o guardada
+-- vacía) la migración se detiene antes de borrar nada: esas filas no se
+-- pueden distinguir entre sí y hay que asignarles el alumno a mano
+-- (UPDATE ... SET alumnos_Curp = ...) y volver a correr este archivo.
+-- -----------------------------------------------------
+
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'evaluaciones_cursos'
+                  AND COLUMN_NAME = 'alumnos_Curp') = 0,
+  'ALTER TABLE `evaluaciones_cursos` ADD COLUMN `alumnos_Curp` VARCHAR(18) NULL AFTER `Id`',
+  'DO 0');
+PREPARE agregar_columna FROM @sql;
+EXECUTE agregar_columna;
+DEALLOCATE PREPARE agregar_columna;
+
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'evaluaciones_cursos'
+                  AND COLUMN_NAME = 'cursos_Id_Curso') = 0,
+  'ALTER TABLE `evaluaciones_cursos` ADD COLUMN `cursos_Id_Curso` INT NULL AFTER `alumnos_Curp`',
+  'DO 0');
+PREPARE agregar_columna FROM @sql;
+EXECUTE agregar_columna;
+DEALLOCATE PREPARE agregar_columna;
+
+-- Curso_Id y cursos_Id_Curso siempre se han guardado con el mismo valor
+UPDATE `evaluaciones_cursos` SET `cursos_Id_Curso` = `Curso_Id` WHERE `cursos_Id_Curso` IS NULL;
+ALTER TABLE `evaluaciones_cursos` MODIFY `cursos_Id_Curso` INT NOT NULL;
+
+-- Falla con "Invalid use of NULL value" si quedan filas sin CURP asignada
+ALTER TABLE `evaluaciones_cursos` MODIFY `alumnos_Curp` VARCHAR(18) NOT NULL;
+
+-- Falla con "Check constraint ... is violated" si hay CURP vacías
+SET @sql := IF((SELECT COUNT(*) FROM information_schema.TABLE_CONSTRAINTS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'evaluaciones_cursos'
+                  AND CONSTRAINT_NAME = 'chk_evaluaciones_curp') = 0,
+  'ALTER TABLE `evaluaciones_cursos` ADD CONSTRAINT `chk_evaluaciones_curp` CHECK (`alumnos_Curp` <> \'\')',
+  'DO 0');
+PREPARE agregar_restriccion FROM @sql;
+EXECUTE agregar_restriccion;
+DEALLOCATE PREPARE agregar_restriccion;
+
+DELETE e FROM `evaluaciones_cursos` e
+  JOIN `evaluaciones_cursos` posterior
+    ON posterior.`alumnos_Curp` = e.`alumnos_Curp`
+   AND posterior.`cursos_Id_Curso` = e.`cursos_Id_Curso`
+   AND posterior.`Id` > e.`Id`
+ WHERE e.`alumnos_Curp` <> '';
+
+-- También sirve para leer la hoja completa de un curso (WHERE cursos_Id_Curso = ?)
+ALTER TABLE `evaluaciones_cursos`
+  ADD UNIQUE INDEX `uk_evaluaciones_curso_alumno` (`cursos_Id_Curso` ASC, `alumnos_Curp` ASC);
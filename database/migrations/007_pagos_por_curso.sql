@@ -0,0 +1,32 @@
+-- -----------------------------------------------------
+-- Pagos de instructores ligados al curso (HonorariosService).
+-- Antes un curso se daba por pagado si había un pago del mismo instructor
+-- con Fecha_Pago = Fecha_Imparticion y Monto = Precio: ninguna columna de
+-- esa comparación tiene índice y dos cursos del mismo día se confunden.
+-- Ahora cada pago guarda su Curso_Id y la nómina busca por esa columna.
+-- Los pagos anteriores se ligan emparejando, por instructor y fecha, el
+-- n-ésimo pago con el n-ésimo curso (ambos ordenados por Id); los que no
+-- tienen curso del mismo día quedan con Curso_Id NULL.
+-- -----------------------------------------------------
+ALTER TABLE `pagos_instructores`
+  ADD COLUMN `Curso_Id` INT NULL AFTER `Instructor_Id`,
+  ADD INDEX `idx_pagos_instructores_curso_estatus` (`Curso_Id` ASC, `Estatus` ASC),
+  ADD CONSTRAINT `fk_pagos_instructores_cursos`
+    FOREIGN KEY (`Curso_Id`)
+    REFERENCES `cursos` (`Id_Curso`)
+    ON DELETE SET NULL
+    ON UPDATE NO ACTION;
+
+UPDATE `pagos_instructores` pi
+  JOIN (SELECT `Id`, ROW_NUMBER() OVER (PARTITION BY `Instructor_Id`, `Fecha_Pago` ORDER BY `Id`) AS n
+          FROM `pagos_instructores`
+         WHERE `Estatus` IN ('pagado', 'pendiente')) pago
+    ON pago.`Id` = pi.`Id`
+  JOIN (SELECT `Id_Curso`, `Instructor_Id`, `Fecha_Imparticion`,
+               ROW_NUMBER() OVER (PARTITION BY `Instructor_Id`, `Fecha_Imparticion` ORDER BY `Id_Curso`) AS n
+          FROM `cursos`) curso
+    ON curso.`Instructor_Id` = pi.`Instructor_Id`
+   AND curso.`Fecha_Imparticion` = pi.`Fecha_Pago`
+   AND curso.n = pago.n
+   SET pi.`Curso_Id` = curso.`Id_Curso`
+ WHERE pi.`Curso_Id` IS NULL;
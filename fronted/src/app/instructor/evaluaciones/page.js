@@ -185,35 +185,7 @@ export default function EvaluacionesPage() {
         }
     };
 
-    // Obtener calificación individual de un alumno
-    const obtenerCalificacionAlumno = async (alumnoCurp, cursoId) => {
-        try {
-            console.log(`🔍 Obteniendo calificación para ${alumnoCurp} en curso ${cursoId}`);
-            
-            const response = await fetch(`http://localhost:8080/api/calificaciones/curso/${cursoId}/alumno/${alumnoCurp}`);
-            
-            if (!response.ok) {
-                console.log(`⚠️ No se pudo obtener calificación para ${alumnoCurp} (status: ${response.status})`);
-                return null;
-            }
-            
-            const responseText = await response.text();
-            if (!responseText || responseText.trim() === '' || responseText === 'null') {
-                console.log(`ℹ️ No hay calificación guardada para ${alumnoCurp}`);
-                return null;
-            }
-            
-            const calificacion = JSON.parse(responseText);
-            console.log(`✅ Calificación obtenida para ${alumnoCurp}:`, calificacion);
-            return calificacion;
-            
-        } catch (error) {
-            console.error(`❌ Error obteniendo calificación para ${alumnoCurp}:`, error);
-            return null;
-        }
-    };
-
-    // Cargar todas las calificaciones del curso
+    // Cargar todas las calificaciones del curso (una sola petición con la hoja completa)
     const cargarCalificacionesCurso = async (cursoId, alumnos) => {
         try {
             const calificacionesMap = {};
@@ -225,21 +197,24 @@ export default function EvaluacionesPage() {
             
             console.log(`📊 Cargando calificaciones para ${alumnos.length} alumnos`);
             
-            const promesasCalificaciones = alumnos.map(async (alumno) => {
-                const calificacion = await obtenerCalificacionAlumno(alumno.Curp, cursoId);
-                if (calificacion) {
-                    calificacionesMap[alumno.Curp] = {
-                        evaluacionInicial: calificacion.evaluacionInicial || 0,
-                        evaluacionFinal: calificacion.evaluacionFinal || 0,
-                        examenPractico: calificacion.examenPractico || 0,
-                        promedio: calificacion.promedio || 0,
-                        resultado: calificacion.resultado || '',
-                        observaciones: calificacion.observaciones || ''
-                    };
-                }
+            const response = await fetch(`http://localhost:8080/api/calificaciones/curso/${cursoId}`);
+            if (!response.ok) {
+                console.log(`⚠️ No se pudo obtener la hoja de calificaciones (status: ${response.status})`);
+                return {};
+            }
+            
+            const hoja = await response.json();
+            (hoja.alumnos || []).filter(alumno => alumno.calificado).forEach(calificacion => {
+                calificacionesMap[calificacion.curp] = {
+                    evaluacionInicial: calificacion.evaluacionInicial || 0,
+                    evaluacionFinal: calificacion.evaluacionFinal || 0,
+                    examenPractico: calificacion.examenPractico || 0,
+                    promedio: calificacion.promedio || 0,
+                    resultado: calificacion.resultado || '',
+                    observaciones: calificacion.observaciones || ''
+                };
             });
             
-            await Promise.all(promesasCalificaciones);
             console.log(`✅ Calificaciones cargadas para ${Object.keys(calificacionesMap).length} alumnos`);
             return calificacionesMap;
             